@@ -0,0 +1,93 @@
+package com.project1.ms_transaction_service.benchmark;
+
+import com.project1.ms_transaction_service.business.mapper.AccountTransactionMapper;
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.AccountTransactionRequest;
+import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.AccountTransactionType;
+import com.project1.ms_transaction_service.model.entity.AccountType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the transaction entity and the balance patch of an account transaction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountTransactionMapperBenchmark {
+
+    private AccountTransactionMapper accountTransactionMapper;
+
+    private AccountResponse savingsAccount;
+
+    private AccountTransactionRequest depositRequest;
+
+    private AccountTransactionRequest transferRequest;
+
+    private AccountTransaction depositWithCommission;
+
+    private AccountTransaction transfer;
+
+    @Setup
+    public void setup() {
+        accountTransactionMapper = new AccountTransactionMapper();
+
+        savingsAccount = new AccountResponse();
+        savingsAccount.setId("65a2f0c1e4b0a1b2c3d4e5f6");
+        savingsAccount.setAccountType(AccountType.SAVINGS.toString());
+        savingsAccount.setBalance(new BigDecimal("1500.75"));
+        savingsAccount.setMonthlyMovements(12);
+        savingsAccount.setMaxMonthlyMovementsNoFee(10);
+        savingsAccount.setTransactionCommissionFeePercentage(new BigDecimal("1.5"));
+
+        depositRequest = new AccountTransactionRequest();
+        depositRequest.setType(AccountTransactionType.DEPOSIT.toString());
+        depositRequest.setOriginAccountNumber("1234567890");
+        depositRequest.setAmount(new BigDecimal("250.00"));
+
+        transferRequest = new AccountTransactionRequest();
+        transferRequest.setType(AccountTransactionType.TRANSFER.toString());
+        transferRequest.setOriginAccountNumber("1234567890");
+        transferRequest.setDestinationAccountNumber("0987654321");
+        transferRequest.setAmount(new BigDecimal("250.00"));
+
+        depositWithCommission = accountTransactionMapper.getAccountTransactionEntity(depositRequest, savingsAccount);
+        transfer = accountTransactionMapper.getAccountTransactionEntity(transferRequest, savingsAccount);
+    }
+
+    @Benchmark
+    public AccountTransaction depositEntityWithCommission() {
+        return accountTransactionMapper.getAccountTransactionEntity(depositRequest, savingsAccount);
+    }
+
+    @Benchmark
+    public AccountTransaction transferEntity() {
+        return accountTransactionMapper.getAccountTransactionEntity(transferRequest, savingsAccount);
+    }
+
+    @Benchmark
+    public AccountPatchRequest depositPatchRequest() {
+        return accountTransactionMapper.getAccountPatchRequest(depositWithCommission, true);
+    }
+
+    @Benchmark
+    public AccountPatchRequest transferDestinationPatchRequest() {
+        return accountTransactionMapper.getAccountPatchRequest(transfer, false);
+    }
+}
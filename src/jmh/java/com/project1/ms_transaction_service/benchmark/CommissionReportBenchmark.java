@@ -0,0 +1,54 @@
+package com.project1.ms_transaction_service.benchmark;
+
+import com.project1.ms_transaction_service.business.mapper.TransactionMapper;
+import com.project1.ms_transaction_service.model.ProductsCommissionResponse;
+import com.project1.ms_transaction_service.model.entity.AccountCommissionTotal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of building the commission report from the per-account totals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommissionReportBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int accounts;
+
+    private TransactionMapper transactionMapper;
+
+    private List<AccountCommissionTotal> accountTotals;
+
+    @Setup
+    public void setup() {
+        transactionMapper = new TransactionMapper();
+        accountTotals = IntStream.range(0, accounts)
+            .mapToObj(i -> new AccountCommissionTotal(String.format("%010d", i), BigDecimal.valueOf(i % 1000, 2)))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public ProductsCommissionResponse productsCommissionResponse() {
+        return transactionMapper.getProductsCommissionResponse(accountTotals);
+    }
+}
@@ -0,0 +1,47 @@
+package com.project1.ms_transaction_service.benchmark;
+
+import com.project1.ms_transaction_service.model.AccountTransactionRequest;
+import com.project1.ms_transaction_service.validation.EnumNamePattern;
+import com.project1.ms_transaction_service.validation.EnumNamePatternValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating the account transaction type with the constraint declared on the generated request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnumNamePatternValidatorBenchmark {
+
+    private EnumNamePatternValidator validator;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        validator = new EnumNamePatternValidator();
+        validator.initialize(AccountTransactionRequest.class.getDeclaredField("type").getAnnotation(EnumNamePattern.class));
+    }
+
+    @Benchmark
+    public boolean validType() {
+        return validator.isValid("TRANSFER", null);
+    }
+
+    @Benchmark
+    public boolean invalidType() {
+        return validator.isValid("REFUND", null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.project1.ms_transaction_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project1.ms_transaction_service.config.CustomObjectMapper;
+import com.project1.ms_transaction_service.model.CreateWalletTransactionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding one wallet transaction record. Run with {@code -prof gc} to compare the allocation rate per message
+ * ({@code gc.alloc.rate.norm}) of the former mapper-per-record decoding against the cached readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KafkaMessageDecodingBenchmark {
+
+    private CustomObjectMapper customObjectMapper;
+
+    private byte[] jsonPayload;
+
+    private byte[] smilePayload;
+
+    @Setup
+    public void setup() throws IOException {
+        customObjectMapper = new CustomObjectMapper(new Jackson2ObjectMapperBuilder());
+        CreateWalletTransactionRequest request = new CreateWalletTransactionRequest();
+        request.setOriginWalletId("65a2f0c1e4b0a1b2c3d4e5f6");
+        request.setDestinationWalletId("65a2f0c1e4b0a1b2c3d4e5f7");
+        request.setAmount(new BigDecimal("125.50"));
+        request.setType("TRANSFER");
+        jsonPayload = new ObjectMapper().writeValueAsBytes(request);
+        smilePayload = new ObjectMapper(new SmileFactory()).writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public CreateWalletTransactionRequest newMapperPerRecord() throws IOException {
+        return new ObjectMapper().readValue(new String(jsonPayload, StandardCharsets.UTF_8), CreateWalletTransactionRequest.class);
+    }
+
+    @Benchmark
+    public CreateWalletTransactionRequest cachedReaderFromString() throws IOException {
+        return customObjectMapper.stringToObject(new String(jsonPayload, StandardCharsets.UTF_8), CreateWalletTransactionRequest.class);
+    }
+
+    @Benchmark
+    public CreateWalletTransactionRequest cachedReaderFromBytes() throws IOException {
+        return customObjectMapper.bytesToObject(jsonPayload, CreateWalletTransactionRequest.class);
+    }
+
+    @Benchmark
+    public CreateWalletTransactionRequest cachedReaderFromSmile() throws IOException {
+        return customObjectMapper.bytesToObject(smilePayload, CreateWalletTransactionRequest.class);
+    }
+}
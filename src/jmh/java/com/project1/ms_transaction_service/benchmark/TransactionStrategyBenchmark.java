@@ -0,0 +1,66 @@
+package com.project1.ms_transaction_service.benchmark;
+
+import com.project1.ms_transaction_service.business.service.strategy.DepositStrategy;
+import com.project1.ms_transaction_service.business.service.strategy.TransactionStrategy;
+import com.project1.ms_transaction_service.business.service.strategy.TransferStrategy;
+import com.project1.ms_transaction_service.business.service.strategy.WithdrawalStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance math of the account transaction strategies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionStrategyBenchmark {
+
+    private TransactionStrategy deposit;
+
+    private TransactionStrategy withdrawal;
+
+    private TransactionStrategy transfer;
+
+    private BigDecimal current;
+
+    private BigDecimal amount;
+
+    @Setup
+    public void setup() {
+        BigDecimal commissionFee = new BigDecimal("3.75");
+        deposit = new DepositStrategy(true, commissionFee);
+        withdrawal = new WithdrawalStrategy(true, commissionFee);
+        transfer = new TransferStrategy(true);
+        current = new BigDecimal("1500.75");
+        amount = new BigDecimal("250.00");
+    }
+
+    @Benchmark
+    public BigDecimal depositBalance() {
+        return deposit.calculateBalance(current, amount);
+    }
+
+    @Benchmark
+    public BigDecimal withdrawalBalance() {
+        return withdrawal.calculateBalance(current, amount);
+    }
+
+    @Benchmark
+    public BigDecimal transferBalance() {
+        return transfer.calculateBalance(current, amount);
+    }
+}
@@ -0,0 +1,347 @@
+package com.project1.ms_transaction_service.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.CreateBootcoinWalletResponse;
+import com.project1.ms_transaction_service.model.CreditCardPatchRequest;
+import com.project1.ms_transaction_service.model.CreditCardResponse;
+import com.project1.ms_transaction_service.model.CustomerResponse;
+import com.project1.ms_transaction_service.model.DebitCardAssociation;
+import com.project1.ms_transaction_service.model.DebitCardResponse;
+import com.project1.ms_transaction_service.model.GetExchangeRequestByTransactionIdResponse;
+import com.project1.ms_transaction_service.model.GetYankiWalletResponse;
+import com.project1.ms_transaction_service.model.ResponseBase;
+import com.project1.ms_transaction_service.model.UpdateBootcoinWalletRequest;
+import com.project1.ms_transaction_service.model.UpdateExchangeRequestRequest;
+import com.project1.ms_transaction_service.model.UpdateYankiWalletRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-process stand-in for the account, credit, customer, yanki and bootcoin services, serving the endpoints the
+ * adapters call from seeded in-memory products: accounts, debit and credit cards, yanki and bootcoin wallets of every
+ * seeded user, and one pending yanki-paid exchange request per user for the Kafka-driven bootcoin transactions. Each
+ * service is mounted under its own path prefix and answers with its own {@link LatencyProfile}.
+ */
+final class DownstreamStubServer implements AutoCloseable {
+
+    static final String ACCOUNT = "account";
+
+    static final String CREDIT = "credit";
+
+    static final String CUSTOMER = "customer";
+
+    static final String YANKI = "yanki";
+
+    static final String BOOTCOIN = "bootcoin";
+
+    private static final String ACCOUNT_PATH = "/account/";
+
+    private static final String CREDIT_CARD_PATH = "/credit/credit-card/";
+
+    private final ObjectMapper objectMapper = new Jackson2ObjectMapperBuilder().build();
+
+    private final Map<String, LatencyProfile> profiles;
+
+    private final Map<String, AccountResponse> accountsById = new ConcurrentHashMap<>();
+
+    private final Map<String, AccountResponse> accountsByNumber = new ConcurrentHashMap<>();
+
+    private final Map<String, DebitCardResponse> debitCardsById = new ConcurrentHashMap<>();
+
+    private final Map<String, CreditCardResponse> creditCardsById = new ConcurrentHashMap<>();
+
+    private final Map<String, CustomerResponse> customersById = new ConcurrentHashMap<>();
+
+    private final Map<String, GetYankiWalletResponse> yankiWalletsById = new ConcurrentHashMap<>();
+
+    private final Map<String, GetYankiWalletResponse> yankiWalletsByUserId = new ConcurrentHashMap<>();
+
+    private final Map<String, CreateBootcoinWalletResponse> bootcoinWalletsById = new ConcurrentHashMap<>();
+
+    private final Map<String, CreateBootcoinWalletResponse> bootcoinWalletsByUserId = new ConcurrentHashMap<>();
+
+    private final Map<String, GetExchangeRequestByTransactionIdResponse> exchangeRequestsByTransactionId = new ConcurrentHashMap<>();
+
+    private final Map<String, GetExchangeRequestByTransactionIdResponse> exchangeRequestsById = new ConcurrentHashMap<>();
+
+    private final DisposableServer server;
+
+    DownstreamStubServer(Map<String, LatencyProfile> profiles, int products) {
+        this.profiles = profiles;
+        seed(products);
+        this.server = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .route(this::routes)
+            .bindNow();
+    }
+
+    int port() {
+        return server.port();
+    }
+
+    static String accountNumber(int i) {
+        return String.format("%010d", i);
+    }
+
+    static String debitCardId(int i) {
+        return "debit-card-" + i;
+    }
+
+    static String creditCardId(int i) {
+        return "credit-card-" + i;
+    }
+
+    static String customerId(int i) {
+        return "customer-" + i;
+    }
+
+    static String userId(int i) {
+        return "user-" + i;
+    }
+
+    static String yankiWalletId(int i) {
+        return "yanki-wallet-" + i;
+    }
+
+    /**
+     * Bootcoin transaction whose exchange request is owned by user {@code i} and accepted by the next user, paid with yanki
+     */
+    static String bootcoinTransactionId(int i) {
+        return "bootcoin-transaction-" + i;
+    }
+
+    private void seed(int products) {
+        for (int i = 0; i < products; i++) {
+            CustomerResponse customer = new CustomerResponse();
+            customer.setId(customerId(i));
+            customer.setType("PERSONAL");
+            customer.setStatus("ACTIVE");
+            customersById.put(customer.getId(), customer);
+
+            AccountResponse account = new AccountResponse();
+            account.setId("account-" + i);
+            account.setAccountNumber(accountNumber(i));
+            account.setAccountType("CHECKING");
+            account.setCustomerType("PERSONAL");
+            account.setCustomerId(customer.getId());
+            account.setStatus("ACTIVE");
+            account.setBalance(new BigDecimal("1000000000.00"));
+            account.setMonthlyMovements(0);
+            accountsById.put(account.getId(), account);
+            accountsByNumber.put(account.getAccountNumber(), account);
+
+            DebitCardAssociation association = new DebitCardAssociation();
+            association.setAccountId(account.getId());
+            association.setPosition(1);
+            DebitCardResponse debitCard = new DebitCardResponse();
+            debitCard.setCardNumber("4000" + accountNumber(i));
+            debitCard.setCustomerId(customer.getId());
+            debitCard.setAssociations(List.of(association));
+            debitCardsById.put(debitCardId(i), debitCard);
+
+            CreditCardResponse creditCard = new CreditCardResponse();
+            creditCard.setId(creditCardId(i));
+            creditCard.setCardNumber("5000" + accountNumber(i));
+            creditCard.setCustomerId(customer.getId());
+            creditCard.setCreditLimit(new BigDecimal("1000000000.00"));
+            creditCard.setUsedAmount(BigDecimal.ZERO);
+            creditCard.setCreditCardStatus("ACTIVE");
+            creditCardsById.put(creditCard.getId(), creditCard);
+
+            GetYankiWalletResponse yankiWallet = new GetYankiWalletResponse();
+            yankiWallet.setId(yankiWalletId(i));
+            yankiWallet.setUserId(userId(i));
+            yankiWallet.setStatus("ACTIVE");
+            yankiWallet.setBalance(new BigDecimal("1000000000.00"));
+            yankiWalletsById.put(yankiWallet.getId(), yankiWallet);
+            yankiWalletsByUserId.put(yankiWallet.getUserId(), yankiWallet);
+
+            CreateBootcoinWalletResponse bootcoinWallet = new CreateBootcoinWalletResponse();
+            bootcoinWallet.setId("bootcoin-wallet-" + i);
+            bootcoinWallet.setStatus("ACTIVE");
+            bootcoinWallet.setBalance(new BigDecimal("1000000000.00"));
+            bootcoinWalletsById.put(bootcoinWallet.getId(), bootcoinWallet);
+            bootcoinWalletsByUserId.put(userId(i), bootcoinWallet);
+
+            GetExchangeRequestByTransactionIdResponse exchangeRequest = new GetExchangeRequestByTransactionIdResponse();
+            exchangeRequest.setId("exchange-request-" + i);
+            exchangeRequest.setAmount(BigDecimal.ONE);
+            exchangeRequest.setPaymentMethod("YANKI");
+            exchangeRequest.setBuyRate(1.0);
+            exchangeRequest.setRequestOwnerUserId(userId(i));
+            exchangeRequest.setRequestAccepterUserId(userId((i + 1) % products));
+            exchangeRequest.setStatus("PENDING");
+            exchangeRequestsById.put(exchangeRequest.getId(), exchangeRequest);
+            exchangeRequestsByTransactionId.put(bootcoinTransactionId(i), exchangeRequest);
+        }
+    }
+
+    private void routes(HttpServerRoutes routes) {
+        routes
+            .get("/account/by-account-number/{accountNumber}", (req, res) -> respond(ACCOUNT, res, () -> accountsByNumber.get(req.param("accountNumber"))))
+            .post("/account/by-ids", (req, res) -> withBody(ACCOUNT, req, res, String[].class, ids -> found(ids, accountsById)))
+            .post("/account/by-account-numbers", (req, res) -> withBody(ACCOUNT, req, res, String[].class, numbers -> found(numbers, accountsByNumber)))
+            .get("/account/debit-card/{debitCardId}", (req, res) -> respond(ACCOUNT, res, () -> debitCardsById.get(req.param("debitCardId"))))
+            .get("/account/{id}", (req, res) -> respond(ACCOUNT, res, () -> accountsById.get(req.param("id"))))
+            .route(patchOf(ACCOUNT_PATH), (req, res) -> withBody(ACCOUNT, req, res, AccountPatchRequest.class, patch -> {
+                AccountResponse account = accountsById.get(idOf(req, ACCOUNT_PATH));
+                if (account != null) {
+                    synchronized (account) {
+                        account.setBalance(updatedBalance(account.getBalance(), patch.getBalance(), patch.getBalanceDelta()));
+                        if (patch.getMonthlyMovementsDelta() != null) {
+                            account.setMonthlyMovements(account.getMonthlyMovements() + patch.getMonthlyMovementsDelta());
+                        } else if (patch.getMonthlyMovements() != null) {
+                            account.setMonthlyMovements(patch.getMonthlyMovements());
+                        }
+                    }
+                }
+                return account;
+            }))
+            .get("/credit/credit-card/{id}", (req, res) -> respond(CREDIT, res, () -> creditCardsById.get(req.param("id"))))
+            .route(patchOf(CREDIT_CARD_PATH), (req, res) -> withBody(CREDIT, req, res, CreditCardPatchRequest.class, patch -> {
+                CreditCardResponse creditCard = creditCardsById.get(idOf(req, CREDIT_CARD_PATH));
+                if (creditCard != null) {
+                    synchronized (creditCard) {
+                        creditCard.setUsedAmount(updatedBalance(creditCard.getUsedAmount(), patch.getUsedAmount(), patch.getUsedAmountDelta()));
+                    }
+                }
+                return creditCard;
+            }))
+            .get("/customer/{id}", (req, res) -> respond(CUSTOMER, res, () -> customersById.get(req.param("id"))))
+            .get("/yanki/wallets/by-user-id/{userId}", (req, res) -> respond(YANKI, res, () -> yankiWalletsByUserId.get(req.param("userId"))))
+            .get("/yanki/wallets/{id}", (req, res) -> respond(YANKI, res, () -> yankiWalletsById.get(req.param("id"))))
+            .put("/yanki/wallets/{id}", (req, res) -> withBody(YANKI, req, res, UpdateYankiWalletRequest.class, update -> {
+                GetYankiWalletResponse wallet = yankiWalletsById.get(req.param("id"));
+                if (wallet != null) {
+                    synchronized (wallet) {
+                        wallet.setBalance(updatedBalance(wallet.getBalance(), update.getBalance(), update.getBalanceDelta()));
+                    }
+                }
+                return wallet;
+            }))
+            .get("/bootcoin/exchange/requests/by-transaction-id/{transactionId}", (req, res) ->
+                respond(BOOTCOIN, res, () -> exchangeRequestsByTransactionId.get(req.param("transactionId"))))
+            .put("/bootcoin/exchange/requests/{id}", (req, res) -> withBody(BOOTCOIN, req, res, UpdateExchangeRequestRequest.class, update -> {
+                GetExchangeRequestByTransactionIdResponse exchangeRequest = exchangeRequestsById.get(req.param("id"));
+                if (exchangeRequest != null && update.getStatus() != null) {
+                    exchangeRequest.setStatus(update.getStatus());
+                }
+                return exchangeRequest;
+            }))
+            .get("/bootcoin/wallets/by-user-id/{userId}", (req, res) -> respond(BOOTCOIN, res, () -> bootcoinWalletsByUserId.get(req.param("userId"))))
+            .get("/bootcoin/wallets/{id}", (req, res) -> respond(BOOTCOIN, res, () -> bootcoinWalletsById.get(req.param("id"))))
+            .put("/bootcoin/wallets/{id}", (req, res) -> withBody(BOOTCOIN, req, res, UpdateBootcoinWalletRequest.class, update -> {
+                CreateBootcoinWalletResponse wallet = bootcoinWalletsById.get(req.param("id"));
+                if (wallet != null) {
+                    synchronized (wallet) {
+                        wallet.setBalance(updatedBalance(wallet.getBalance(), update.getBalance(), update.getBalanceDelta()));
+                    }
+                }
+                return wallet;
+            }));
+    }
+
+    private static BigDecimal updatedBalance(BigDecimal current, BigDecimal balance, BigDecimal balanceDelta) {
+        if (balanceDelta != null) {
+            return current.add(balanceDelta);
+        }
+        return balance != null ? balance : current;
+    }
+
+    private static List<AccountResponse> found(String[] keys, Map<String, AccountResponse> accounts) {
+        return Arrays.stream(keys)
+            .map(accounts::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * HttpServerRoutes has no PATCH shortcut and its path template predicate is not public, so PATCH routes match on
+     * the path prefix and take the id from the remaining segment
+     */
+    private static Predicate<HttpServerRequest> patchOf(String prefix) {
+        return req -> HttpMethod.PATCH.equals(req.method()) && req.fullPath().startsWith(prefix);
+    }
+
+    private static String idOf(HttpServerRequest req, String prefix) {
+        return req.fullPath().substring(prefix.length());
+    }
+
+    private <T> Mono<Void> withBody(String service, HttpServerRequest req, HttpServerResponse res, Class<T> bodyType, Function<T, Object> apply) {
+        return req.receive().aggregate().asByteArray()
+            .map(body -> read(body, bodyType))
+            .flatMap(body -> respond(service, res, () -> apply.apply(body)).then());
+    }
+
+    private Mono<Void> respond(String service, HttpServerResponse res, Supplier<Object> body) {
+        LatencyProfile profile = profiles.get(service);
+        return Mono.delay(profile.nextDelay())
+            .then(Mono.defer(() -> {
+                if (profile.nextIsError()) {
+                    return send(res, HttpResponseStatus.INTERNAL_SERVER_ERROR, error("Injected " + service + " service error"));
+                }
+                Object value = body.get();
+                return value == null
+                    ? send(res, HttpResponseStatus.NOT_FOUND, error("Not found"))
+                    : send(res, HttpResponseStatus.OK, value);
+            }));
+    }
+
+    private Mono<Void> send(HttpServerResponse res, HttpResponseStatus status, Object body) {
+        return res.status(status)
+            .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+            .sendByteArray(Mono.just(write(body)))
+            .then();
+    }
+
+    private ResponseBase error(String message) {
+        ResponseBase error = new ResponseBase();
+        error.setMessage(message);
+        return error;
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T read(byte[] body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,37 @@
+package com.project1.ms_transaction_service.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response time and error distribution of a stubbed downstream service: a fixed latency plus an exponentially
+ * distributed jitter, which gives the long tail real services have, and a uniform error rate.
+ */
+final class LatencyProfile {
+
+    private final long latencyNanos;
+
+    private final long jitterNanos;
+
+    private final double errorRate;
+
+    LatencyProfile(Duration latency, Duration jitter, double errorRate) {
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.errorRate = errorRate;
+    }
+
+    Duration nextDelay() {
+        double tail = -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return Duration.ofNanos(latencyNanos + (long) (tail * jitterNanos));
+    }
+
+    boolean nextIsError() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1fms + exp(%.1fms), %.2f%% errors", latencyNanos / 1e6, jitterNanos / 1e6, errorRate * 100);
+    }
+}
@@ -0,0 +1,105 @@
+package com.project1.ms_transaction_service.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop load generator: a fixed number of virtual users each send the next request as soon as the previous one
+ * completes. Requests started during the warmup are sent but not recorded.
+ */
+final class LoadDriver {
+
+    private static final long MAX_RECORDED_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int concurrency;
+
+    private final Duration warmup;
+
+    private final Duration duration;
+
+    LoadDriver(int concurrency, Duration warmup, Duration duration) {
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    /**
+     * Runs one endpoint scenario
+     *
+     * @param endpoint Name of the endpoint in the report
+     * @param call     Supplier of one request, emitting the HTTP status of the response
+     * @return Latency and throughput of the measured requests
+     */
+    EndpointReport run(String endpoint, Supplier<Mono<Integer>> call) {
+        Histogram latencies = new ConcurrentHistogram(MAX_RECORDED_NANOS, 3);
+        AtomicLong errors = new AtomicLong();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        Flux.range(0, concurrency)
+            .flatMap(user -> Mono.defer(() -> {
+                long start = System.nanoTime();
+                return call.get()
+                    .onErrorReturn(-1)
+                    .doOnNext(status -> {
+                        if (start >= measureFrom) {
+                            latencies.recordValue(Math.min(System.nanoTime() - start, MAX_RECORDED_NANOS));
+                            if (status < 200 || status >= 300) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    });
+            }).repeat(() -> System.nanoTime() < end), concurrency)
+            .blockLast();
+
+        return new EndpointReport(endpoint, latencies, errors.get(), duration);
+    }
+
+    static final class EndpointReport {
+
+        private final String endpoint;
+
+        private final Histogram latencies;
+
+        private final long errors;
+
+        private final Duration duration;
+
+        private EndpointReport(String endpoint, Histogram latencies, long errors, Duration duration) {
+            this.endpoint = endpoint;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.duration = duration;
+        }
+
+        static String header() {
+            return String.format("%-14s %10s %8s %10s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        }
+
+        @Override
+        public String toString() {
+            long requests = latencies.getTotalCount();
+            return String.format("%-14s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                endpoint,
+                requests,
+                errors,
+                requests / (duration.toNanos() / 1e9),
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.project1.ms_transaction_service.loadtest;
+
+import com.project1.ms_transaction_service.MsTransactionServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs the service against in-process stand-ins for everything it depends on and drives load through its posting
+ * endpoints: downstream services are served by {@link DownstreamStubServer}, Mongo by the embedded Mongo
+ * auto-configuration (or an external instance given with {@code mongo-uri}) and Kafka by an embedded broker.
+ * <p>
+ * Arguments are {@code key=value} pairs:
+ * <ul>
+ *     <li>{@code endpoints}: comma separated scenarios among account, debit-card, credit-card (all by default)</li>
+ *     <li>{@code concurrency}, {@code warmup}, {@code duration}: closed-loop virtual users and run length</li>
+ *     <li>{@code products}: seeded accounts, debit cards and credit cards, requests pick one at random</li>
+ *     <li>{@code latency}, {@code jitter}, {@code error-rate}: downstream distribution, overridable per service as
+ *     {@code account.latency}, {@code credit.error-rate}, ...</li>
+ *     <li>{@code mongo-uri}, {@code mongo-version}: external Mongo, or the version of the embedded one</li>
+ * </ul>
+ * Arguments starting with {@code --} are passed to the application as Spring properties.
+ */
+public final class LoadTestHarness {
+
+    private static final String DOWNSTREAM = "downstream";
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        int products = settings.getInt("products", 1000);
+        int concurrency = settings.getInt("concurrency", 32);
+
+        Map<String, LatencyProfile> profiles = new HashMap<>();
+        for (String service : List.of(DownstreamStubServer.ACCOUNT, DownstreamStubServer.CREDIT, DownstreamStubServer.CUSTOMER,
+            DownstreamStubServer.YANKI, DownstreamStubServer.BOOTCOIN)) {
+            profiles.put(service, settings.latencyOf(service));
+        }
+
+        EmbeddedKafkaBroker kafka = new EmbeddedKafkaBroker(1, true, 1, "yanki-transactions", "bootcoin-transactions");
+        kafka.afterPropertiesSet();
+        try (DownstreamStubServer downstream = new DownstreamStubServer(profiles, products);
+             ConfigurableApplicationContext application = new SpringApplicationBuilder(MsTransactionServiceApplication.class)
+                 .properties(applicationProperties(settings, downstream.port(), kafka.getBrokersAsString()))
+                 .run(settings.applicationArgs())) {
+            String baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/api/v1";
+            ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+            WebClient client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+
+            LoadDriver driver = new LoadDriver(concurrency,
+                settings.getDuration("warmup", Duration.ofSeconds(5)),
+                settings.getDuration("duration", Duration.ofSeconds(20)));
+            Map<String, Supplier<Mono<Integer>>> scenarios = scenarios(client, products);
+
+            List<LoadDriver.EndpointReport> reports = new ArrayList<>();
+            for (String endpoint : settings.getList("endpoints", String.join(",", scenarios.keySet()))) {
+                Supplier<Mono<Integer>> scenario = scenarios.get(endpoint);
+                if (scenario == null) {
+                    throw new IllegalArgumentException("Unknown endpoint " + endpoint + ", expected one of " + scenarios.keySet());
+                }
+                System.out.println("Running " + endpoint + " with " + concurrency + " virtual users...");
+                reports.add(driver.run(endpoint, scenario));
+            }
+
+            System.out.println();
+            profiles.forEach((service, profile) -> System.out.println("downstream " + service + ": " + profile));
+            System.out.println(LoadDriver.EndpointReport.header());
+            reports.forEach(System.out::println);
+            connections.disposeLater().block();
+        } finally {
+            kafka.destroy();
+        }
+    }
+
+    private static Map<String, Object> applicationProperties(LoadTestSettings settings, int downstreamPort, String kafkaBrokers) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.cloud.config.enabled", false);
+        properties.put("eureka.client.enabled", false);
+        properties.put("spring.cloud.discovery.client.simple.instances." + DOWNSTREAM + "[0].uri", "http://localhost:" + downstreamPort);
+        properties.put("application.config.account-service-url", "http://" + DOWNSTREAM + "/" + DownstreamStubServer.ACCOUNT);
+        properties.put("application.config.credit-service-url", "http://" + DOWNSTREAM + "/" + DownstreamStubServer.CREDIT);
+        properties.put("application.config.customer-service-url", "http://" + DOWNSTREAM + "/" + DownstreamStubServer.CUSTOMER);
+        properties.put("application.config.yanki-service-url", "http://" + DOWNSTREAM + "/" + DownstreamStubServer.YANKI);
+        properties.put("application.config.bootcoin-service-url", "http://" + DOWNSTREAM + "/" + DownstreamStubServer.BOOTCOIN);
+        properties.put("application.config.kafka.bootstrap-servers", kafkaBrokers);
+        properties.put("application.config.kafka.topic1.topic-name", "yanki-transactions");
+        properties.put("application.config.kafka.topic1.consumer.group-id", "loadtest-yanki");
+        properties.put("application.config.kafka.topic2.topic-name", "bootcoin-transactions");
+        properties.put("application.config.kafka.topic2.consumer.group-id", "loadtest-bootcoin");
+        for (String client : new String[]{"account", "credit", "yanki", "bootcoin"}) {
+            properties.put("application.config.delta-patches." + client + ".native", true);
+        }
+        properties.put("logging.level.com.project1", "WARN");
+
+        String mongoUri = settings.getString("mongo-uri", null);
+        if (mongoUri != null) {
+            properties.put("spring.data.mongodb.uri", mongoUri);
+            properties.put("spring.autoconfigure.exclude", "org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration");
+        } else {
+            properties.put("spring.mongodb.embedded.version", settings.getString("mongo-version", "4.0.21"));
+            properties.put("spring.data.mongodb.port", 0);
+            properties.put("spring.data.mongodb.database", "loadtest");
+        }
+        return properties;
+    }
+
+    private static Map<String, Supplier<Mono<Integer>>> scenarios(WebClient client, int products) {
+        Map<String, Supplier<Mono<Integer>>> scenarios = new LinkedHashMap<>();
+        scenarios.put("account", () -> {
+            Map<String, Object> body = new HashMap<>();
+            body.put("type", "DEPOSIT");
+            body.put("amount", BigDecimal.TEN);
+            body.put("originAccountNumber", DownstreamStubServer.accountNumber(randomProduct(products)));
+            return post(client, "/transactions/account", body);
+        });
+        scenarios.put("debit-card", () -> {
+            Map<String, Object> body = new HashMap<>();
+            body.put("type", "PURCHASE");
+            body.put("amount", BigDecimal.ONE);
+            body.put("debitCardId", DownstreamStubServer.debitCardId(randomProduct(products)));
+            return post(client, "/transactions/debit-card", body);
+        });
+        scenarios.put("credit-card", () -> {
+            int product = randomProduct(products);
+            Map<String, Object> body = new HashMap<>();
+            body.put("type", "USAGE");
+            body.put("amount", BigDecimal.ONE);
+            body.put("creditCardId", DownstreamStubServer.creditCardId(product));
+            body.put("customerId", DownstreamStubServer.customerId(product));
+            return post(client, "/transactions/credit-card", body);
+        });
+        return scenarios;
+    }
+
+    private static int randomProduct(int products) {
+        return ThreadLocalRandom.current().nextInt(products);
+    }
+
+    private static Mono<Integer> post(WebClient client, String uri, Object body) {
+        return client.post()
+            .uri(uri)
+            .bodyValue(body)
+            .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.project1.ms_transaction_service.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, given as {@code key=value} arguments. Arguments starting with {@code --} are passed
+ * through to the application under test as Spring properties.
+ */
+final class LoadTestSettings {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    private LoadTestSettings() {
+    }
+
+    static LoadTestSettings parse(String[] args) {
+        LoadTestSettings settings = new LoadTestSettings();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                settings.applicationArgs.add(arg);
+            } else if (arg.contains("=")) {
+                settings.values.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                throw new IllegalArgumentException("Expected key=value or --spring.property=value, got: " + arg);
+            }
+        }
+        return settings;
+    }
+
+    String getString(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        return values.containsKey(key) ? Integer.parseInt(values.get(key)) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        return values.containsKey(key) ? Double.parseDouble(values.get(key)) : defaultValue;
+    }
+
+    Duration getDuration(String key, Duration defaultValue) {
+        return values.containsKey(key) ? DurationStyle.detectAndParse(values.get(key)) : defaultValue;
+    }
+
+    List<String> getList(String key, String defaultValue) {
+        return Arrays.asList(getString(key, defaultValue).split(","));
+    }
+
+    /**
+     * Latency and error distribution of a downstream service, {@code <service>.latency} style keys override the
+     * defaults shared by every service
+     *
+     * @param service Path prefix of the downstream service
+     * @return Latency profile of the service
+     */
+    LatencyProfile latencyOf(String service) {
+        Duration latency = getDuration("latency", Duration.ofMillis(10));
+        Duration jitter = getDuration("jitter", Duration.ofMillis(5));
+        double errorRate = getDouble("error-rate", 0.0);
+        return new LatencyProfile(
+            getDuration(service + ".latency", latency),
+            getDuration(service + ".jitter", jitter),
+            getDouble(service + ".error-rate", errorRate));
+    }
+
+    String[] applicationArgs() {
+        return applicationArgs.toArray(new String[0]);
+    }
+}
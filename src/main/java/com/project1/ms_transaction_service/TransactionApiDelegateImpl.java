@@ -2,8 +2,13 @@ package com.project1.ms_transaction_service;
 
 import com.project1.ms_transaction_service.api.TransactionsApiDelegate;
 import com.project1.ms_transaction_service.business.service.*;
+import com.project1.ms_transaction_service.business.service.cache.CustomerProducts;
+import com.project1.ms_transaction_service.business.service.limit.ConcurrencyLimiter;
+import com.project1.ms_transaction_service.business.service.limit.ConcurrencyLimiters;
+import com.project1.ms_transaction_service.business.service.pagination.TransactionCursor;
 import com.project1.ms_transaction_service.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -11,7 +16,9 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.function.Function;
 
 @Component
 public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
@@ -31,56 +38,99 @@ public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
     @Autowired
     private DebitCardTransactionService debitCardTransactionService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ConcurrencyLimiters concurrencyLimiters;
+
+    private ConcurrencyLimiter accountLimiter;
+
+    private ConcurrencyLimiter creditCardLimiter;
+
+    private ConcurrencyLimiter creditPaymentLimiter;
+
+    private ConcurrencyLimiter debitCardLimiter;
+
+    @PostConstruct
+    public void init() {
+        accountLimiter = concurrencyLimiters.endpoint("account");
+        creditCardLimiter = concurrencyLimiters.endpoint("credit-card");
+        creditPaymentLimiter = concurrencyLimiters.endpoint("credit-payment");
+        debitCardLimiter = concurrencyLimiters.endpoint("debit-card");
+    }
+
     @Override
-    public Mono<ResponseEntity<Flux<AccountTransactionResponse>>> getAccountTransactionsByAccountNumber(String accountNumber, ServerWebExchange exchange) {
-        return Mono.just(ResponseEntity.ok().body(accountTransactionService.getTransactionsByAccountNumber(accountNumber)));
+    public Mono<ResponseEntity<Flux<AccountTransactionResponse>>> getAccountTransactionsByAccountNumber(String accountNumber, Integer limit, String cursor,
+                                                                                                     ServerWebExchange exchange) {
+        return toPagedResponse(accountTransactionService.getTransactionsByAccountNumber(accountNumber, limit, cursor), limit,
+            AccountTransactionResponse::getDate, AccountTransactionResponse::getId);
     }
 
     @Override
-    public Mono<ResponseEntity<Flux<CreditCardTransactionResponse>>> getCreditCardTransactionsByCreditCardId(String creditCardId, ServerWebExchange exchange) {
-        return Mono.just(ResponseEntity.ok().body(creditCardTransactionService.getCreditCardTransactionsById(creditCardId)));
+    public Mono<ResponseEntity<Flux<CreditCardTransactionResponse>>> getCreditCardTransactionsByCreditCardId(String creditCardId, Integer limit, String cursor,
+                                                                                                           ServerWebExchange exchange) {
+        return toPagedResponse(creditCardTransactionService.getCreditCardTransactionsById(creditCardId, limit, cursor), limit,
+            CreditCardTransactionResponse::getDate, CreditCardTransactionResponse::getId);
     }
 
     @Override
-    public Mono<ResponseEntity<Flux<CreditPaymentTransactionResponse>>> getCreditTransactionsByCreditId(String creditId, ServerWebExchange exchange) {
-        return Mono.just(ResponseEntity.ok().body(creditTransactionService.getCreditTransactionsByCreditId(creditId)));
+    public Mono<ResponseEntity<Flux<CreditPaymentTransactionResponse>>> getCreditTransactionsByCreditId(String creditId, Integer limit, String cursor,
+                                                                                                       ServerWebExchange exchange) {
+        return toPagedResponse(creditTransactionService.getCreditTransactionsByCreditId(creditId, limit, cursor), limit,
+            CreditPaymentTransactionResponse::getDate, CreditPaymentTransactionResponse::getId);
     }
 
     @Override
     public Mono<ResponseEntity<AccountTransactionResponse>> createTransactionAccounts(Mono<AccountTransactionRequest> accountTransactionRequest,
-                                                                                      ServerWebExchange exchange) {
-        return accountTransactionService.createAccountTransaction(accountTransactionRequest)
-            .map(ResponseEntity.status(HttpStatus.CREATED)::body);
+                                                                                      String idempotencyKey, ServerWebExchange exchange) {
+        return accountLimiter.execute(() -> accountTransactionRequest
+            .flatMap(request -> idempotencyService.execute("account", idempotencyKey, request, AccountTransactionResponse.class,
+                () -> accountTransactionService.createAccountTransaction(Mono.just(request))))
+            .map(ResponseEntity.status(HttpStatus.CREATED)::body));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<AccountTransactionBatchItemResponse>>> createTransactionAccountsBatch(
+        Flux<AccountTransactionRequest> accountTransactionRequest, ServerWebExchange exchange) {
+        return Mono.just(ResponseEntity.ok().body(accountTransactionService.createAccountTransactions(accountTransactionRequest)));
     }
 
     @Override
     public Mono<ResponseEntity<CreditCardTransactionResponse>> createCreditCardTransaction(
-        Mono<CreditCardTransactionRequest> creditCardTransactionRequest, ServerWebExchange exchange) {
-        return creditCardTransactionService.createCreditCardTransaction(creditCardTransactionRequest)
-            .map(ResponseEntity.status(HttpStatus.CREATED)::body);
+        Mono<CreditCardTransactionRequest> creditCardTransactionRequest, String idempotencyKey, ServerWebExchange exchange) {
+        return creditCardLimiter.execute(() -> creditCardTransactionRequest
+            .flatMap(request -> idempotencyService.execute("credit-card", idempotencyKey, request, CreditCardTransactionResponse.class,
+                () -> creditCardTransactionService.createCreditCardTransaction(Mono.just(request))))
+            .map(ResponseEntity.status(HttpStatus.CREATED)::body));
     }
 
     @Override
-    public Mono<ResponseEntity<CustomerProductsResponse>> getAllCustomerProductsByDni(String dni, ServerWebExchange exchange) {
-        return transactionService.getAllCustomerProductsByDni(dni).map(ResponseEntity::ok);
+    public Mono<ResponseEntity<CustomerProductsResponse>> getAllCustomerProductsByDni(String dni, String ifNoneMatch, ServerWebExchange exchange) {
+        return transactionService.getAllCustomerProductsByDni(dni)
+            .map(products -> toConditionalResponse(products, ifNoneMatch));
     }
 
     @Override
-    public Mono<ResponseEntity<CustomerProductsResponse>> getAllCustomerProductsByRuc(String ruc, ServerWebExchange exchange) {
-        return transactionService.getAllCustomerProductsByRuc(ruc).map(ResponseEntity::ok);
+    public Mono<ResponseEntity<CustomerProductsResponse>> getAllCustomerProductsByRuc(String ruc, String ifNoneMatch, ServerWebExchange exchange) {
+        return transactionService.getAllCustomerProductsByRuc(ruc)
+            .map(products -> toConditionalResponse(products, ifNoneMatch));
     }
 
     @Override
     public Mono<ResponseEntity<CreditPaymentTransactionResponse>> createCreditPaymentTransaction(
-        Mono<CreditPaymentTransactionRequest> creditPaymentTransactionRequest, ServerWebExchange exchange) {
-        return creditTransactionService.createCreditPaymentTransaction(creditPaymentTransactionRequest)
-            .map(ResponseEntity.status(HttpStatus.CREATED)::body);
+        Mono<CreditPaymentTransactionRequest> creditPaymentTransactionRequest, String idempotencyKey, ServerWebExchange exchange) {
+        return creditPaymentLimiter.execute(() -> creditPaymentTransactionRequest
+            .flatMap(request -> idempotencyService.execute("credit-payment", idempotencyKey, request, CreditPaymentTransactionResponse.class,
+                () -> creditTransactionService.createCreditPaymentTransaction(Mono.just(request))))
+            .map(ResponseEntity.status(HttpStatus.CREATED)::body));
     }
 
     @Override
-    public Mono<ResponseEntity<CustomerProductsResponse>> getAllCustomerProductsByCustomerId(String customerId, ServerWebExchange exchange) {
+    public Mono<ResponseEntity<CustomerProductsResponse>> getAllCustomerProductsByCustomerId(String customerId, String ifNoneMatch,
+                                                                                             ServerWebExchange exchange) {
         return transactionService.getAllCustomerProductsByCustomerId(customerId)
-            .map(ResponseEntity::ok);
+            .map(products -> toConditionalResponse(products, ifNoneMatch));
     }
 
     @Override
@@ -99,9 +149,11 @@ public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
 
     @Override
     public Mono<ResponseEntity<DebitCardTransactionResponse>> createDebitCardTransaction(Mono<DebitCardTransactionRequest> debitCardTransactionRequest,
-                                                                                         ServerWebExchange exchange) {
-        return debitCardTransactionService.createDebitCardTransaction(debitCardTransactionRequest)
-            .map(ResponseEntity.status(HttpStatus.CREATED)::body);
+                                                                                         String idempotencyKey, ServerWebExchange exchange) {
+        return debitCardLimiter.execute(() -> debitCardTransactionRequest
+            .flatMap(request -> idempotencyService.execute("debit-card", idempotencyKey, request, DebitCardTransactionResponse.class,
+                () -> debitCardTransactionService.createDebitCardTransaction(Mono.just(request))))
+            .map(ResponseEntity.status(HttpStatus.CREATED)::body));
     }
 
     @Override
@@ -110,4 +162,48 @@ public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
                                                                                                                          ServerWebExchange exchange) {
         return transactionService.getCreditDebitCardTransactionsLimit(creditCardId, debitCardId, limit).map(ResponseEntity::ok);
     }
+
+    /**
+     * Streams the whole history when no limit is requested; otherwise collects the bounded page so the
+     * continuation token of the next page can be sent in the X-Next-Cursor header
+     *
+     * @param transactions Transactions, newest first
+     * @param limit        Requested page size, or null
+     * @param date         Date of a transaction
+     * @param id           Id of a transaction
+     * @return Response with the transactions and, when more may follow, the next cursor
+     */
+    private <T> Mono<ResponseEntity<Flux<T>>> toPagedResponse(Flux<T> transactions, Integer limit, Function<T, LocalDateTime> date,
+                                                             Function<T, String> id) {
+        if (limit == null) {
+            return Mono.just(ResponseEntity.ok().body(transactions));
+        }
+        return transactions.collectList()
+            .map(page -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (page.size() == limit) {
+                    T last = page.get(page.size() - 1);
+                    response.header(TransactionCursor.NEXT_CURSOR_HEADER, TransactionCursor.encode(date.apply(last), id.apply(last)));
+                }
+                return response.body(Flux.fromIterable(page));
+            });
+    }
+
+    /**
+     * Answers 304 Not Modified when the client already holds the current version of the products, otherwise sends
+     * them with their ETag
+     *
+     * @param products    Customer products with their ETag
+     * @param ifNoneMatch Value of the If-None-Match header, or null
+     * @return Response with the products, or an empty 304 response
+     */
+    private ResponseEntity<CustomerProductsResponse> toConditionalResponse(CustomerProducts products, String ifNoneMatch) {
+        if (products.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(products.getEtag()).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(products.getEtag())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(products.getResponse());
+    }
 }
@@ -5,12 +5,48 @@ import com.project1.ms_transaction_service.model.AccountResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 public interface AccountService {
     Mono<AccountResponse> getAccountByAccountNumber(String accountNumber);
 
-    Mono<AccountResponse> updateAccount(String id, AccountPatchRequest request);
+    /**
+     * Patches an account the caller has read. Deltas are forwarded as they are when the account service applies them
+     * natively, otherwise they are resolved against the given account, so it must be the state the patch applies to.
+     *
+     * @param account Account as read by the caller
+     * @param request Patch request
+     * @return Mono with the updated account
+     */
+    Mono<AccountResponse> updateAccount(AccountResponse account, AccountPatchRequest request);
 
     Flux<AccountResponse> getAccountsByCustomerId(String customerId);
 
     Mono<AccountResponse> getAccountById(String accountId);
+
+    /**
+     * Looks up the reference data of an account (status, type, limits, customer), possibly from a cache. Balance and
+     * monthly movements are not set, postings validating them must use {@link #getAccountByAccountNumber(String)}.
+     *
+     * @param accountNumber Account number
+     * @return Mono with the account without balance nor monthly movements
+     */
+    Mono<AccountResponse> getAccountReferenceByAccountNumber(String accountNumber);
+
+    /**
+     * Looks up the reference data of an account by id, possibly from a cache
+     *
+     * @param accountId Account id
+     * @return Mono with the account without balance nor monthly movements
+     * @see #getAccountReferenceByAccountNumber(String)
+     */
+    Mono<AccountResponse> getAccountReferenceById(String accountId);
+
+    /**
+     * Snapshot of the delta updates submitted and not acknowledged by the account service yet
+     *
+     * @return Unacknowledged updates by account id, empty unless account writes are coalesced
+     */
+    Map<String, List<AccountPatchRequest>> getUnacknowledgedUpdates();
 }
@@ -11,7 +11,15 @@ public interface BootcoinService {
 
     Mono<CreateBootcoinWalletResponse> getBootcoinWalletByUserId(String userId);
 
-    Mono<Void> updateBootcoinWallet(String walletId, UpdateBootcoinWalletRequest request);
+    /**
+     * Updates a wallet the caller has read, deltas are resolved against it unless the bootcoin service applies them
+     * natively
+     *
+     * @param wallet  Wallet as read by the caller
+     * @param request Update request
+     * @return Mono completing once the wallet is updated
+     */
+    Mono<Void> updateBootcoinWallet(CreateBootcoinWalletResponse wallet, UpdateBootcoinWalletRequest request);
 
     Mono<Void> updateExchangeRequest(String exchangeRequestId, UpdateExchangeRequestRequest request);
 }
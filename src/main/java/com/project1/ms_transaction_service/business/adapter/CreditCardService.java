@@ -8,7 +8,15 @@ import reactor.core.publisher.Mono;
 public interface CreditCardService {
     Mono<CreditCardResponse> getCreditCardByCardNumber(String cardNumber);
 
-    Mono<CreditCardResponse> updateCreditCard(String id, CreditCardPatchRequest request);
+    /**
+     * Patches a credit card the caller has read, deltas are resolved against it unless the credit service applies them
+     * natively
+     *
+     * @param creditCard Credit card as read by the caller
+     * @param request    Patch request
+     * @return Mono with the updated credit card
+     */
+    Mono<CreditCardResponse> updateCreditCard(CreditCardResponse creditCard, CreditCardPatchRequest request);
 
     Flux<CreditCardResponse> getCreditCardsByCustomerId(String customerId);
 
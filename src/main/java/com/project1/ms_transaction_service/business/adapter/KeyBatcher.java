@@ -0,0 +1,130 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Batches single-key lookups into bulk downstream calls.
+ * Keys requested within a window, starting with the first key of a batch, are sent together in one call; a batch
+ * reaching the maximum size is sent right away. Callers of the same key within a batch share its result, and a key the
+ * bulk call does not return completes empty.
+ *
+ * @param <K> Lookup key type
+ * @param <V> Looked up value type
+ */
+public class KeyBatcher<K, V> {
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    private final Function<Set<K>, Flux<V>> batchCall;
+
+    private final Function<V, K> keyOf;
+
+    private final Scheduler scheduler;
+
+    private final DistributionSummary batchSize;
+
+    private Map<K, Sinks.One<V>> pending = new LinkedHashMap<>();
+
+    private Disposable scheduledFlush;
+
+    public KeyBatcher(String adapter, String operation, Duration window, int maxBatchSize, Function<Set<K>, Flux<V>> batchCall,
+                      Function<V, K> keyOf, MeterRegistry meterRegistry) {
+        this(adapter, operation, window, maxBatchSize, batchCall, keyOf, meterRegistry, Schedulers.parallel());
+    }
+
+    KeyBatcher(String adapter, String operation, Duration window, int maxBatchSize, Function<Set<K>, Flux<V>> batchCall,
+               Function<V, K> keyOf, MeterRegistry meterRegistry, Scheduler scheduler) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be greater than zero");
+        }
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchCall = batchCall;
+        this.keyOf = keyOf;
+        this.scheduler = scheduler;
+        this.batchSize = DistributionSummary.builder("adapter.batcher.batch.size")
+            .description("Keys sent in one bulk call")
+            .tag("adapter", adapter)
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Looks up a key as part of the current batch
+     *
+     * @param key Lookup key
+     * @return Mono with the value returned by the bulk call for the key, empty if it was not returned
+     */
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            Sinks.One<V> sink;
+            Map<K, Sinks.One<V>> fullBatch = null;
+            synchronized (this) {
+                sink = pending.computeIfAbsent(key, k -> Sinks.one());
+                if (pending.size() >= maxBatchSize) {
+                    fullBatch = takePending();
+                } else if (scheduledFlush == null) {
+                    scheduledFlush = scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (fullBatch != null) {
+                dispatch(fullBatch);
+            }
+            return sink.asMono();
+        });
+    }
+
+    private void flush() {
+        Map<K, Sinks.One<V>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private Map<K, Sinks.One<V>> takePending() {
+        Map<K, Sinks.One<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.dispose();
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, Sinks.One<V>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSize.record(batch.size());
+        Flux.defer(() -> batchCall.apply(new LinkedHashSet<>(batch.keySet())))
+            .collectMap(keyOf)
+            .subscribe(
+                found -> batch.forEach((key, sink) -> {
+                    V value = found.get(key);
+                    if (value != null) {
+                        sink.tryEmitValue(value);
+                    } else {
+                        sink.tryEmitEmpty();
+                    }
+                }),
+                e -> batch.values().forEach(sink -> sink.tryEmitError(e)));
+    }
+}
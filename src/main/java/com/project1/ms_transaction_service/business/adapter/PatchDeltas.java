@@ -0,0 +1,194 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.CreateBootcoinWalletResponse;
+import com.project1.ms_transaction_service.model.CreditCardPatchRequest;
+import com.project1.ms_transaction_service.model.CreditCardResponse;
+import com.project1.ms_transaction_service.model.GetYankiWalletResponse;
+import com.project1.ms_transaction_service.model.UpdateBootcoinWalletRequest;
+import com.project1.ms_transaction_service.model.UpdateYankiWalletRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Delta patches of the downstream balances.
+ * Postings send the change they make ({@code balanceDelta}, {@code monthlyMovementsDelta}, {@code usedAmountDelta})
+ * instead of an absolute value computed from a possibly stale read, so patches to the same product can be merged.
+ * Until a downstream applies deltas itself, its adapter resolves them here against the product as the posting read and
+ * validated it, and sends the absolute values. Those downstreams offer no conditional update, so a write landing
+ * between that read and the patch is overwritten; the window only closes once a downstream applies deltas natively.
+ */
+public final class PatchDeltas {
+
+    private PatchDeltas() {
+    }
+
+    public static boolean hasDeltas(AccountPatchRequest request) {
+        return request.getBalanceDelta() != null || request.getMonthlyMovementsDelta() != null;
+    }
+
+    public static boolean hasDeltas(CreditCardPatchRequest request) {
+        return request.getUsedAmountDelta() != null;
+    }
+
+    public static boolean hasDeltas(UpdateYankiWalletRequest request) {
+        return request.getBalanceDelta() != null;
+    }
+
+    public static boolean hasDeltas(UpdateBootcoinWalletRequest request) {
+        return request.getBalanceDelta() != null;
+    }
+
+    /**
+     * Whether an account patch only carries deltas, so it can be merged with other patches regardless of their order
+     *
+     * @param request Patch request
+     * @return True if the patch has deltas and no absolute values
+     */
+    public static boolean isDeltaOnly(AccountPatchRequest request) {
+        return hasDeltas(request) && request.getStatus() == null && request.getBalance() == null
+            && request.getMonthlyMovements() == null;
+    }
+
+    /**
+     * Account as seen by a transaction while updates to it are still unacknowledged. Pending debits and movements are
+     * counted, pending credits are not, so validations against it never allow more than the acknowledged state would.
+     *
+     * @param account        Account as read
+     * @param unacknowledged Delta updates of the account not acknowledged yet
+     * @return Copy of the account with the pending debits and movements applied, the account itself if there are none
+     */
+    public static AccountResponse withUnacknowledged(AccountResponse account, List<AccountPatchRequest> unacknowledged) {
+        if (unacknowledged.isEmpty()) {
+            return account;
+        }
+        BigDecimal debits = BigDecimal.ZERO;
+        int movements = 0;
+        for (AccountPatchRequest update : unacknowledged) {
+            if (update.getBalanceDelta() != null && update.getBalanceDelta().signum() < 0) {
+                debits = debits.add(update.getBalanceDelta());
+            }
+            movements += Optional.ofNullable(update.getMonthlyMovementsDelta()).orElse(0);
+        }
+        return new AccountResponse()
+            .id(account.getId())
+            .accountNumber(account.getAccountNumber())
+            .accountType(account.getAccountType())
+            .balance(Optional.ofNullable(account.getBalance()).orElse(BigDecimal.ZERO).add(debits))
+            .customerId(account.getCustomerId())
+            .creationDate(account.getCreationDate())
+            .status(account.getStatus())
+            .monthlyMovements(Optional.ofNullable(account.getMonthlyMovements()).orElse(0) + movements)
+            .maintenanceFee(account.getMaintenanceFee())
+            .endDay(account.getEndDay())
+            .availableDayForMovements(account.getAvailableDayForMovements())
+            .maxMonthlyMovements(account.getMaxMonthlyMovements())
+            .customerType(account.getCustomerType())
+            .maxMonthlyMovementsNoFee(account.getMaxMonthlyMovementsNoFee())
+            .transactionCommissionFeePercentage(account.getTransactionCommissionFeePercentage());
+    }
+
+    /**
+     * Resolves the deltas of an account patch into absolute values
+     *
+     * @param request Patch with deltas
+     * @param account Current state of the account
+     * @return Patch with absolute values only
+     */
+    public static AccountPatchRequest resolve(AccountPatchRequest request, AccountResponse account) {
+        AccountPatchRequest resolved = new AccountPatchRequest()
+            .status(request.getStatus())
+            .balance(request.getBalance())
+            .monthlyMovements(request.getMonthlyMovements());
+        if (request.getBalanceDelta() != null) {
+            resolved.setBalance(Optional.ofNullable(account.getBalance()).orElse(BigDecimal.ZERO).add(request.getBalanceDelta()));
+        }
+        if (request.getMonthlyMovementsDelta() != null) {
+            resolved.setMonthlyMovements(Optional.ofNullable(account.getMonthlyMovements()).orElse(0) + request.getMonthlyMovementsDelta());
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves the used amount delta of a credit card patch, a card without a used amount keeps it unset
+     *
+     * @param request    Patch with deltas
+     * @param creditCard Current state of the credit card
+     * @return Patch with absolute values only
+     */
+    public static CreditCardPatchRequest resolve(CreditCardPatchRequest request, CreditCardResponse creditCard) {
+        CreditCardPatchRequest resolved = new CreditCardPatchRequest()
+            .usedAmount(request.getUsedAmount())
+            .creditLimit(request.getCreditLimit());
+        if (request.getUsedAmountDelta() != null && creditCard.getUsedAmount() != null) {
+            resolved.setUsedAmount(creditCard.getUsedAmount().add(request.getUsedAmountDelta()));
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves the balance delta of a yanki wallet patch, a wallet without a balance keeps it unset
+     *
+     * @param request Patch with deltas
+     * @param wallet  Current state of the wallet
+     * @return Patch with absolute values only
+     */
+    public static UpdateYankiWalletRequest resolve(UpdateYankiWalletRequest request, GetYankiWalletResponse wallet) {
+        UpdateYankiWalletRequest resolved = new UpdateYankiWalletRequest()
+            .balance(request.getBalance());
+        if (request.getBalanceDelta() != null && wallet.getBalance() != null) {
+            resolved.setBalance(wallet.getBalance().add(request.getBalanceDelta()));
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves the balance delta of a bootcoin wallet patch, a wallet without a balance keeps it unset
+     *
+     * @param request Patch with deltas
+     * @param wallet  Current state of the wallet
+     * @return Patch with absolute values only
+     */
+    public static UpdateBootcoinWalletRequest resolve(UpdateBootcoinWalletRequest request, CreateBootcoinWalletResponse wallet) {
+        UpdateBootcoinWalletRequest resolved = new UpdateBootcoinWalletRequest()
+            .balance(request.getBalance())
+            .status(request.getStatus());
+        if (request.getBalanceDelta() != null && wallet.getBalance() != null) {
+            resolved.setBalance(wallet.getBalance().add(request.getBalanceDelta()));
+        }
+        return resolved;
+    }
+
+    /**
+     * Merges two delta patches of the same account into one, deltas are added and absolute values of the later patch win
+     *
+     * @param first  Earlier patch
+     * @param second Later patch
+     * @return Patch with the effect of both
+     */
+    public static AccountPatchRequest merge(AccountPatchRequest first, AccountPatchRequest second) {
+        return new AccountPatchRequest()
+            .status(Optional.ofNullable(second.getStatus()).orElse(first.getStatus()))
+            .balance(Optional.ofNullable(second.getBalance()).orElse(first.getBalance()))
+            .monthlyMovements(Optional.ofNullable(second.getMonthlyMovements()).orElse(first.getMonthlyMovements()))
+            .balanceDelta(add(first.getBalanceDelta(), second.getBalanceDelta()))
+            .monthlyMovementsDelta(add(first.getMonthlyMovementsDelta(), second.getMonthlyMovementsDelta()));
+    }
+
+    private static BigDecimal add(BigDecimal first, BigDecimal second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first.add(second);
+    }
+
+    private static Integer add(Integer first, Integer second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first + second;
+    }
+}
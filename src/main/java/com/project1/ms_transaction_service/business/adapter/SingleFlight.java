@@ -0,0 +1,98 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent lookups for the same key into a single downstream call.
+ * The first caller for a key triggers the call, every caller arriving while it is in flight shares its result,
+ * and the key is released as soon as the call terminates so later callers trigger a fresh call. Callers that must see
+ * the state as of their own call, such as postings validating a balance, use {@link #executeFresh} instead.
+ *
+ * @param <K> Lookup key type
+ * @param <V> Looked up value type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter calls;
+
+    private final Counter coalesced;
+
+    public SingleFlight(String adapter, String operation, MeterRegistry meterRegistry) {
+        this.calls = Counter.builder("adapter.singleflight.calls")
+            .description("Lookups requested through the single-flight layer")
+            .tag("adapter", adapter)
+            .tag("operation", operation)
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("adapter.singleflight.coalesced")
+            .description("Lookups that joined an identical call already in flight")
+            .tag("adapter", adapter)
+            .tag("operation", operation)
+            .register(meterRegistry);
+        Gauge.builder("adapter.singleflight.in.flight", inFlight, ConcurrentMap::size)
+            .description("Distinct keys with a downstream call in flight")
+            .tag("adapter", adapter)
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Executes the call for the given key, or joins the call already in flight for it
+     *
+     * @param key  Lookup key
+     * @param call Supplier of the downstream call, only invoked when no call is in flight for the key
+     * @return Mono shared by every concurrent caller of the same key
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            calls.increment();
+            boolean[] created = {false};
+            Mono<V> shared = inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return flight(k, call);
+            });
+            if (!created[0]) {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * Executes a new call for the given key without joining the call in flight, which may have started before a write
+     * the caller must see. The new call replaces the one in flight, so callers arriving later join it instead.
+     *
+     * @param key  Lookup key
+     * @param call Supplier of the downstream call
+     * @return Mono shared with the callers of the same key arriving while it is in flight
+     */
+    public Mono<V> executeFresh(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            calls.increment();
+            Mono<V> shared = flight(key, call);
+            inFlight.put(key, shared);
+            return shared;
+        });
+    }
+
+    /**
+     * Builds the shared call of a key, releasing the key when it terminates unless a newer call replaced it
+     */
+    private Mono<V> flight(K key, Supplier<Mono<V>> call) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = Mono.defer(call)
+            .doFinally(signal -> inFlight.remove(key, self.get()))
+            .cache();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,253 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Coalesces writes to the same key into combined downstream writes.
+ * Updates of a key submitted within a window, starting with the first update of a write, are merged into one write; a
+ * write reaching the maximum number of updates is closed right away. Writes of the same key are sent one at a time, so
+ * updates arriving while a write is in flight are merged into the next one. Every caller completes with the result of
+ * the write its update was merged into.
+ *
+ * @param <K> Write key type
+ * @param <P> Update type
+ * @param <R> Write result type
+ */
+public class WriteCoalescer<K, P, R> {
+
+    private final Duration window;
+
+    private final int maxMergedUpdates;
+
+    private final BinaryOperator<P> merge;
+
+    private final BiFunction<K, P, Mono<R>> write;
+
+    private final Scheduler scheduler;
+
+    private final DistributionSummary mergedUpdates;
+
+    private final Map<K, Slot> slots = new HashMap<>();
+
+    public WriteCoalescer(String adapter, String operation, Duration window, int maxMergedUpdates, BinaryOperator<P> merge,
+                          BiFunction<K, P, Mono<R>> write, MeterRegistry meterRegistry) {
+        this(adapter, operation, window, maxMergedUpdates, merge, write, meterRegistry, Schedulers.parallel());
+    }
+
+    WriteCoalescer(String adapter, String operation, Duration window, int maxMergedUpdates, BinaryOperator<P> merge,
+                   BiFunction<K, P, Mono<R>> write, MeterRegistry meterRegistry, Scheduler scheduler) {
+        if (maxMergedUpdates < 1) {
+            throw new IllegalArgumentException("maxMergedUpdates must be greater than zero");
+        }
+        this.window = window;
+        this.maxMergedUpdates = maxMergedUpdates;
+        this.merge = merge;
+        this.write = write;
+        this.scheduler = scheduler;
+        this.mergedUpdates = DistributionSummary.builder("adapter.coalescer.merged.updates")
+            .description("Updates merged into one downstream write")
+            .tag("adapter", adapter)
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Submits an update of a key as part of its current write. The update is registered on subscription.
+     *
+     * @param key    Write key
+     * @param update Update to merge into the write
+     * @return Mono with the result of the write the update was merged into
+     */
+    public Mono<R> submit(K key, P update) {
+        return Mono.defer(() -> {
+            Sinks.One<R> sink = Sinks.one();
+            PendingWrite next = null;
+            synchronized (this) {
+                Slot slot = slots.computeIfAbsent(key, Slot::new);
+                slot.unacknowledged.add(update);
+                if (slot.open == null) {
+                    slot.open = new PendingWrite(update);
+                } else {
+                    slot.open.add(update);
+                }
+                slot.open.sinks.add(sink);
+                if (slot.open.sinks.size() >= maxMergedUpdates) {
+                    next = closeOpen(slot);
+                } else if (slot.open.scheduledClose == null) {
+                    PendingWrite opened = slot.open;
+                    opened.scheduledClose = scheduler.schedule(() -> close(slot, opened), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (next != null) {
+                dispatch(key, next);
+            }
+            return sink.asMono();
+        });
+    }
+
+    /**
+     * Updates of a key submitted and not acknowledged yet, either waiting to be merged or in flight
+     *
+     * @param key Write key
+     * @return Unacknowledged updates, in submission order
+     */
+    public synchronized List<P> unacknowledged(K key) {
+        Slot slot = slots.get(key);
+        return slot == null ? List.of() : new ArrayList<>(slot.unacknowledged);
+    }
+
+    /**
+     * Snapshot of the updates of every key submitted and not acknowledged yet
+     *
+     * @return Unacknowledged updates in submission order, by key, without keys having none
+     */
+    public synchronized Map<K, List<P>> unacknowledged() {
+        Map<K, List<P>> unacknowledged = new HashMap<>();
+        slots.forEach((key, slot) -> {
+            if (!slot.unacknowledged.isEmpty()) {
+                unacknowledged.put(key, new ArrayList<>(slot.unacknowledged));
+            }
+        });
+        return unacknowledged;
+    }
+
+    private void close(Slot slot, PendingWrite pendingWrite) {
+        PendingWrite next = null;
+        synchronized (this) {
+            if (slot.open == pendingWrite) {
+                next = closeOpen(slot);
+            }
+        }
+        if (next != null) {
+            dispatch(slot.key, next);
+        }
+    }
+
+    /**
+     * Closes the open write of a slot, must hold the lock
+     *
+     * @param slot Slot of the key
+     * @return The write to send now, null if another write of the key is in flight
+     */
+    private PendingWrite closeOpen(Slot slot) {
+        if (slot.open.scheduledClose != null) {
+            slot.open.scheduledClose.dispose();
+        }
+        slot.closed.add(slot.open);
+        slot.open = null;
+        if (slot.inFlight) {
+            return null;
+        }
+        slot.inFlight = true;
+        return slot.closed.poll();
+    }
+
+    private void dispatch(K key, PendingWrite pendingWrite) {
+        mergedUpdates.record(pendingWrite.sinks.size());
+        Mono.defer(() -> write.apply(key, pendingWrite.merged))
+            .subscribe(
+                result -> {
+                    pendingWrite.sinks.forEach(sink -> sink.tryEmitValue(result));
+                    acknowledge(key, pendingWrite);
+                },
+                e -> {
+                    pendingWrite.sinks.forEach(sink -> sink.tryEmitError(e));
+                    acknowledge(key, pendingWrite);
+                },
+                () -> {
+                    pendingWrite.sinks.forEach(Sinks.One::tryEmitEmpty);
+                    acknowledge(key, pendingWrite);
+                });
+    }
+
+    /**
+     * Forgets the updates of a finished write and sends the next write of its key. Callers are completed first, so
+     * whatever they record from the result is in place before the updates stop being reported as unacknowledged.
+     *
+     * @param key          Write key
+     * @param pendingWrite The finished write
+     */
+    private void acknowledge(K key, PendingWrite pendingWrite) {
+        if (pendingWrite.acknowledged) {
+            return;
+        }
+        pendingWrite.acknowledged = true;
+        PendingWrite next;
+        synchronized (this) {
+            Slot slot = slots.get(key);
+            for (P update : pendingWrite.updates) {
+                Iterator<P> unacknowledged = slot.unacknowledged.iterator();
+                while (unacknowledged.hasNext()) {
+                    if (unacknowledged.next() == update) {
+                        unacknowledged.remove();
+                        break;
+                    }
+                }
+            }
+            next = slot.closed.poll();
+            slot.inFlight = next != null;
+            if (!slot.inFlight && slot.open == null) {
+                slots.remove(key);
+            }
+        }
+        if (next != null) {
+            dispatch(key, next);
+        }
+    }
+
+    private final class Slot {
+        private final K key;
+
+        private final List<P> unacknowledged = new ArrayList<>();
+
+        private final Deque<PendingWrite> closed = new ArrayDeque<>();
+
+        private PendingWrite open;
+
+        private boolean inFlight;
+
+        private Slot(K key) {
+            this.key = key;
+        }
+    }
+
+    private final class PendingWrite {
+        private final List<P> updates = new ArrayList<>();
+
+        private final List<Sinks.One<R>> sinks = new ArrayList<>();
+
+        private P merged;
+
+        private Disposable scheduledClose;
+
+        private boolean acknowledged;
+
+        private PendingWrite(P update) {
+            this.merged = update;
+            this.updates.add(update);
+        }
+
+        private void add(P update) {
+            merged = merge.apply(merged, update);
+            updates.add(update);
+        }
+    }
+}
@@ -9,5 +9,22 @@ public interface YankiService {
 
     Mono<GetYankiWalletResponse> getYankiWalletByUserId(String userId);
 
+    /**
+     * Updates a wallet the caller has not read. When the update carries deltas the yanki service does not apply natively
+     * the wallet is read first to resolve them, callers holding the wallet use the overload taking it instead.
+     *
+     * @param id      Wallet id
+     * @param request Update request
+     * @return Mono completing once the wallet is updated
+     */
     Mono<Void> updateYankiWallet(String id, UpdateYankiWalletRequest request);
+
+    /**
+     * Updates a wallet the caller has read, deltas are resolved against it unless the yanki service applies them natively
+     *
+     * @param wallet  Wallet as read by the caller
+     * @param request Update request
+     * @return Mono completing once the wallet is updated
+     */
+    Mono<Void> updateYankiWallet(GetYankiWalletResponse wallet, UpdateYankiWalletRequest request);
 }
@@ -0,0 +1,191 @@
+package com.project1.ms_transaction_service.business.adapter.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of the reference data of accounts (status, type, limits, customer), keyed both by account
+ * number and by account id. Balance and monthly movements are not cached: they change with every posting, possibly on
+ * another instance. Every read returns its own copy, so callers never share an instance.
+ * Entries expire after a fixed TTL and are evicted by size; hit ratio and the age of served entries are published to Micrometer.
+ */
+@Component
+@Slf4j
+public class AccountCache {
+
+    @Value("${application.config.account-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.config.account-cache.ttl:5s}")
+    private Duration ttl;
+
+    @Value("${application.config.account-cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedAccount> accountsByNumber;
+
+    private Cache<String, CachedAccount> accountsById;
+
+    private Timer staleness;
+
+    @PostConstruct
+    public void init() {
+        accountsByNumber = buildCache();
+        accountsById = buildCache();
+        CaffeineCacheMetrics.monitor(meterRegistry, accountsByNumber, "accountsByNumber");
+        CaffeineCacheMetrics.monitor(meterRegistry, accountsById, "accountsById");
+        staleness = Timer.builder("account.cache.staleness")
+            .description("Age of the cached account entries served instead of calling the account service")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    private Cache<String, CachedAccount> buildCache() {
+        return Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    }
+
+    public Optional<AccountResponse> getByAccountNumber(String accountNumber) {
+        if (!enabled || accountNumber == null) {
+            return Optional.empty();
+        }
+        return served(accountsByNumber.getIfPresent(accountNumber));
+    }
+
+    public Optional<AccountResponse> getById(String accountId) {
+        if (!enabled || accountId == null) {
+            return Optional.empty();
+        }
+        return served(accountsById.getIfPresent(accountId));
+    }
+
+    private Optional<AccountResponse> served(CachedAccount cached) {
+        if (cached == null) {
+            return Optional.empty();
+        }
+        staleness.record(Duration.ofNanos(System.nanoTime() - cached.cachedAtNanos));
+        return Optional.of(referenceOf(cached.account));
+    }
+
+    /**
+     * Stores (or refreshes) the reference data of an account under both its account number and its id
+     *
+     * @param account Account response returned by the account service
+     */
+    public void put(AccountResponse account) {
+        if (!enabled || account == null) {
+            return;
+        }
+        CachedAccount cached = new CachedAccount(referenceOf(account), System.nanoTime());
+        if (account.getAccountNumber() != null) {
+            accountsByNumber.put(account.getAccountNumber(), cached);
+        }
+        if (account.getId() != null) {
+            accountsById.put(account.getId(), cached);
+        }
+    }
+
+    /**
+     * Removes an account from both indexes. Used when a write of ours leaves the cached copy in an unknown state.
+     *
+     * @param accountId Id of the account to evict
+     */
+    public void evictById(String accountId) {
+        if (accountId == null) {
+            return;
+        }
+        CachedAccount cached = accountsById.asMap().remove(accountId);
+        if (cached != null && cached.account.getAccountNumber() != null) {
+            accountsByNumber.asMap().remove(cached.account.getAccountNumber(), cached);
+        }
+        log.debug("Account {} evicted from cache", accountId);
+    }
+
+    public void invalidateAll() {
+        accountsByNumber.invalidateAll();
+        accountsById.invalidateAll();
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", enabled);
+        description.put("ttl", ttl.toString());
+        description.put("maxSize", maxSize);
+        description.put("accountsByNumber", describe(accountsByNumber));
+        description.put("accountsById", describe(accountsById));
+        return description;
+    }
+
+    private Map<String, Object> describe(Cache<String, CachedAccount> cache) {
+        CacheStats stats = cache.stats();
+        long now = System.nanoTime();
+        long oldestEntryAgeMs = cache.asMap().values().stream()
+            .mapToLong(cached -> Duration.ofNanos(now - cached.cachedAtNanos).toMillis())
+            .max()
+            .orElse(0L);
+
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("size", cache.estimatedSize());
+        description.put("hitCount", stats.hitCount());
+        description.put("missCount", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictionCount", stats.evictionCount());
+        description.put("oldestEntryAgeMs", oldestEntryAgeMs);
+        return description;
+    }
+
+    /**
+     * Copies the reference data of an account, without its balance and monthly movements
+     *
+     * @param account The account
+     * @return Copy of the account
+     */
+    static AccountResponse referenceOf(AccountResponse account) {
+        return new AccountResponse()
+            .id(account.getId())
+            .accountNumber(account.getAccountNumber())
+            .accountType(account.getAccountType())
+            .customerId(account.getCustomerId())
+            .creationDate(account.getCreationDate())
+            .status(account.getStatus())
+            .maintenanceFee(account.getMaintenanceFee())
+            .endDay(account.getEndDay())
+            .availableDayForMovements(account.getAvailableDayForMovements())
+            .maxMonthlyMovements(account.getMaxMonthlyMovements())
+            .customerType(account.getCustomerType())
+            .maxMonthlyMovementsNoFee(account.getMaxMonthlyMovementsNoFee())
+            .transactionCommissionFeePercentage(account.getTransactionCommissionFeePercentage());
+    }
+
+    private static final class CachedAccount {
+        private final AccountResponse account;
+
+        private final long cachedAtNanos;
+
+        private CachedAccount(AccountResponse account, long cachedAtNanos) {
+            this.account = account;
+            this.cachedAtNanos = cachedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.project1.ms_transaction_service.business.adapter.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "accountcache")
+public class AccountCacheEndpoint {
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @ReadOperation
+    public Map<String, Object> accountCache() {
+        return accountCache.describe();
+    }
+
+    @DeleteOperation
+    public void invalidateAccountCache() {
+        accountCache.invalidateAll();
+    }
+}
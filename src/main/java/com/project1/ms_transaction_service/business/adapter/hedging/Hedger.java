@@ -0,0 +1,131 @@
+package com.project1.ms_transaction_service.business.adapter.hedging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Hedges a read-only downstream lookup: when the lookup has not answered after a delay, the same lookup is sent again
+ * and whichever answers first wins, the other one is cancelled. Through the load balanced WebClient the hedge goes to
+ * the next instance, so a single slow instance no longer sets the tail latency.
+ * The delay follows the observed latency percentile of the lookup and hedges are capped by the {@link HedgingBudget}
+ * of the downstream. A first attempt cancelled because the hedge won is recorded with the time it had been running, a
+ * lower bound of its latency, so slow instances keep raising the delay instead of dropping out of the percentile.
+ * An error of the first lookup is returned as is, an error of the hedge is ignored.
+ * Only idempotent lookups may be hedged.
+ */
+public class Hedger {
+
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final HedgingPolicy policy;
+
+    private final HedgingBudget budget;
+
+    private final Timer latency;
+
+    private final Counter calls;
+
+    private final Counter hedges;
+
+    private final Counter wins;
+
+    private final Counter budgetExhausted;
+
+    private volatile long delayNanos;
+
+    private volatile long delayRefreshedAt;
+
+    public Hedger(String client, String operation, HedgingPolicy policy, HedgingBudget budget, MeterRegistry meterRegistry) {
+        this.policy = policy;
+        this.budget = budget;
+        this.delayNanos = policy.getDelay().toNanos();
+        this.delayRefreshedAt = System.nanoTime();
+        this.latency = Timer.builder("adapter.hedging.latency")
+            .description("Latency of the first attempt of the hedged lookups, up to its cancellation when the hedge won; the hedging delay is derived from it")
+            .tag("client", client)
+            .tag("operation", operation)
+            .publishPercentiles(policy.getPercentile())
+            .distributionStatisticExpiry(policy.getWindow())
+            .distributionStatisticBufferLength(3)
+            .register(meterRegistry);
+        this.calls = counter("adapter.hedging.calls", "Lookups sent through the hedging layer", client, operation, meterRegistry);
+        this.hedges = counter("adapter.hedging.hedges", "Hedges sent after the first attempt exceeded the delay", client, operation,
+            meterRegistry);
+        this.wins = counter("adapter.hedging.wins", "Hedges that answered before the first attempt", client, operation, meterRegistry);
+        this.budgetExhausted = counter("adapter.hedging.budget.exhausted", "Hedges not sent because the budget was spent", client,
+            operation, meterRegistry);
+    }
+
+    private static Counter counter(String name, String description, String client, String operation, MeterRegistry meterRegistry) {
+        return Counter.builder(name)
+            .description(description)
+            .tag("client", client)
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Executes the lookup, hedging it when it is slower than the current delay and the budget allows it
+     *
+     * @param call Supplier of the downstream lookup, invoked once per attempt
+     * @return Mono with the result of the first attempt to answer
+     */
+    public <V> Mono<V> execute(Supplier<Mono<V>> call) {
+        if (!policy.isEnabled()) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            calls.increment();
+            budget.deposit();
+            long start = System.nanoTime();
+            Mono<V> first = Mono.defer(call)
+                .doOnSuccess(value -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .doOnCancel(() -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            Mono<V> hedge = Mono.delay(currentDelay())
+                .flatMap(tick -> {
+                    if (!budget.tryWithdraw()) {
+                        budgetExhausted.increment();
+                        return Mono.never();
+                    }
+                    hedges.increment();
+                    return Mono.defer(call)
+                        .doOnSuccess(value -> wins.increment())
+                        .onErrorResume(e -> Mono.never());
+                });
+            return Mono.firstWithSignal(first, hedge);
+        });
+    }
+
+    /**
+     * Delay before a hedge is sent: the observed latency percentile within the configured bounds, refreshed every second
+     *
+     * @return The current delay
+     */
+    Duration currentDelay() {
+        long now = System.nanoTime();
+        if (policy.isAdaptive() && now - delayRefreshedAt >= DELAY_REFRESH_NANOS) {
+            delayRefreshedAt = now;
+            delayNanos = adaptiveDelayNanos();
+        }
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private long adaptiveDelayNanos() {
+        if (latency.count() < policy.getMinSamples()) {
+            return policy.getDelay().toNanos();
+        }
+        ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+        if (percentiles.length == 0 || percentiles[0].value() <= 0) {
+            return policy.getDelay().toNanos();
+        }
+        long observed = (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+        return Math.max(policy.getMinDelay().toNanos(), Math.min(policy.getMaxDelay().toNanos(), observed));
+    }
+}
@@ -0,0 +1,44 @@
+package com.project1.ms_transaction_service.business.adapter.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket capping the hedges sent to one downstream service.
+ * Every lookup deposits a fraction of a token and every hedge withdraws a whole one, so hedges never exceed the
+ * configured percentage of the lookups, with bursts limited to the tokens the bucket can hold.
+ */
+public class HedgingBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+
+    private final long capacity;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    public HedgingBudget(double percent, int burst) {
+        this.deposit = Math.round(percent * TOKEN / 100);
+        this.capacity = Math.max(1, burst) * TOKEN;
+    }
+
+    public void deposit() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * Withdraws the token of one hedge
+     *
+     * @return Whether the budget allowed the hedge
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.project1.ms_transaction_service.business.adapter.hedging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Hedging settings of the read-only lookups of one downstream service.
+ * Values are bound from {@code application.config.hedging.default} and then overridden by
+ * {@code application.config.hedging.<client>}, so hedging can be enabled for a single downstream.
+ */
+@Data
+public class HedgingPolicy {
+
+    static final String PREFIX = "application.config.hedging.";
+
+    static final String DEFAULT = "default";
+
+    private boolean enabled;
+
+    /**
+     * Delay before the hedge is sent, used until enough latencies are observed or when the delay is not adaptive
+     */
+    private Duration delay = Duration.ofMillis(50);
+
+    /**
+     * Derives the delay from the observed latency percentile of each lookup
+     */
+    private boolean adaptive = true;
+
+    private double percentile = 0.95;
+
+    private Duration minDelay = Duration.ofMillis(5);
+
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    /**
+     * Successful lookups to observe before the adaptive delay replaces the configured one
+     */
+    private long minSamples = 50;
+
+    /**
+     * Time window of the latencies the adaptive delay is derived from
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Hedges allowed, as a percentage of the lookups sent to the downstream
+     */
+    private double budgetPercent = 10;
+
+    /**
+     * Hedges that may be sent in a row once the budget has been saved up
+     */
+    private int budgetBurst = 10;
+
+    /**
+     * Binds the policy of a downstream over the default policy
+     *
+     * @param environment Environment holding the properties
+     * @param client      Downstream client name, e.g. account
+     * @return The bound policy
+     */
+    public static HedgingPolicy of(Environment environment, String client) {
+        Binder binder = Binder.get(environment);
+        HedgingPolicy policy = new HedgingPolicy();
+        binder.bind(PREFIX + DEFAULT, Bindable.ofInstance(policy));
+        binder.bind(PREFIX + client, Bindable.ofInstance(policy));
+        return policy;
+    }
+}
@@ -0,0 +1,40 @@
+package com.project1.ms_transaction_service.business.adapter.hedging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the {@link Hedger} of each lookup. Lookups sent to the same downstream share its {@link HedgingPolicy} and
+ * its {@link HedgingBudget}, so the extra load stays capped per downstream whatever the adapter sending it.
+ */
+@Component
+public class HedgingRegistry {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, HedgingPolicy> policies = new ConcurrentHashMap<>();
+
+    private final Map<String, HedgingBudget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the hedger of a lookup
+     *
+     * @param client    Downstream client name, selects the policy and the budget, e.g. account
+     * @param operation Lookup name, tags the metrics
+     * @return The hedger
+     */
+    public Hedger hedger(String client, String operation) {
+        HedgingPolicy policy = policies.computeIfAbsent(client, c -> HedgingPolicy.of(environment, c));
+        HedgingBudget budget = budgets.computeIfAbsent(client, c -> new HedgingBudget(policy.getBudgetPercent(), policy.getBudgetBurst()));
+        return new Hedger(client, operation, policy, budget, meterRegistry);
+    }
+}
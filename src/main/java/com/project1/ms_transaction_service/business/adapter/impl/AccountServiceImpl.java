@@ -1,6 +1,12 @@
 package com.project1.ms_transaction_service.business.adapter.impl;
 
 import com.project1.ms_transaction_service.business.adapter.AccountService;
+import com.project1.ms_transaction_service.business.adapter.KeyBatcher;
+import com.project1.ms_transaction_service.business.adapter.PatchDeltas;
+import com.project1.ms_transaction_service.business.adapter.SingleFlight;
+import com.project1.ms_transaction_service.business.adapter.WriteCoalescer;
+import com.project1.ms_transaction_service.business.adapter.hedging.Hedger;
+import com.project1.ms_transaction_service.business.adapter.hedging.HedgingRegistry;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.InternalServerErrorException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
@@ -10,8 +16,10 @@ import com.project1.ms_transaction_service.model.ResponseBase;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -19,6 +27,12 @@ import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 @Service
@@ -30,11 +44,83 @@ public class AccountServiceImpl implements AccountService {
     @Qualifier("accountWebClient")
     private WebClient accountWebClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HedgingRegistry hedgingRegistry;
+
+    private SingleFlight<String, AccountResponse> accountByNumberFlight;
+
+    private SingleFlight<String, AccountResponse> accountByIdFlight;
+
+    private Hedger accountByNumberHedger;
+
+    private Hedger accountByIdHedger;
+
+    @Value("${application.config.account-batching.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${application.config.account-batching.window:5ms}")
+    private Duration batchingWindow;
+
+    @Value("${application.config.account-batching.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${application.config.delta-patches.account.native:false}")
+    private boolean nativeDeltaPatches;
+
+    @Value("${application.config.account-write-coalescing.enabled:false}")
+    private boolean writeCoalescingEnabled;
+
+    @Value("${application.config.account-write-coalescing.window:5ms}")
+    private Duration writeCoalescingWindow;
+
+    @Value("${application.config.account-write-coalescing.max-merged-updates:50}")
+    private int maxMergedUpdates;
+
+    private KeyBatcher<String, AccountResponse> accountByNumberBatcher;
+
+    private KeyBatcher<String, AccountResponse> accountByIdBatcher;
+
+    private WriteCoalescer<String, AccountPatchRequest, AccountResponse> accountWriteCoalescer;
+
+    @PostConstruct
+    public void init() {
+        if (writeCoalescingEnabled && !nativeDeltaPatches) {
+            throw new IllegalStateException("application.config.account-write-coalescing.enabled requires delta-patches.account.native");
+        }
+        accountByNumberFlight = new SingleFlight<>("account", "getAccountByAccountNumber", meterRegistry);
+        accountByIdFlight = new SingleFlight<>("account", "getAccountById", meterRegistry);
+        accountByNumberHedger = hedgingRegistry.hedger("account", "getAccountByAccountNumber");
+        accountByIdHedger = hedgingRegistry.hedger("account", "getAccountById");
+        accountByNumberBatcher = new KeyBatcher<>("account", "getAccountsByNumbers", batchingWindow, maxBatchSize,
+            this::fetchAccountsByNumbers, AccountResponse::getAccountNumber, meterRegistry);
+        accountByIdBatcher = new KeyBatcher<>("account", "getAccountsByIds", batchingWindow, maxBatchSize,
+            this::fetchAccountsByIds, AccountResponse::getId, meterRegistry);
+        accountWriteCoalescer = new WriteCoalescer<>("account", "updateAccount", writeCoalescingWindow, maxMergedUpdates,
+            PatchDeltas::merge, this::patchAccount, meterRegistry);
+    }
+
     @CircuitBreaker(name = "accountService", fallbackMethod = "getAccountByAccountNumberFallback")
     @TimeLimiter(name = "accountService")
     @Override
     public Mono<AccountResponse> getAccountByAccountNumber(String accountNumber) {
-        return accountWebClient.get()
+        return accountByNumberFlight.executeFresh(accountNumber, () -> lookupAccountByAccountNumber(accountNumber));
+    }
+
+    /**
+     * Looks the account up through the batcher, or through a hedged GET when batching is disabled
+     *
+     * @param accountNumber Account number
+     * @return Mono with the account
+     */
+    private Mono<AccountResponse> lookupAccountByAccountNumber(String accountNumber) {
+        if (batchingEnabled) {
+            return accountByNumberBatcher.load(accountNumber)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Account not found")));
+        }
+        return accountByNumberHedger.execute(() -> accountWebClient.get()
             .uri("/by-account-number/{accountNumber}", accountNumber)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
@@ -49,16 +135,55 @@ public class AccountServiceImpl implements AccountService {
                         }
                     })
             )
-            .bodyToMono(AccountResponse.class);
+            .bodyToMono(AccountResponse.class));
+    }
+
+    /**
+     * Reads the whole account, joining a lookup already in flight since the reference data is not cached at this level
+     *
+     * @param accountNumber Account number
+     * @return Mono with the account
+     */
+    @Override
+    public Mono<AccountResponse> getAccountReferenceByAccountNumber(String accountNumber) {
+        return accountByNumberFlight.execute(accountNumber, () -> lookupAccountByAccountNumber(accountNumber));
+    }
+
+    /**
+     * Reads the whole account, joining a lookup already in flight since the reference data is not cached at this level
+     *
+     * @param accountId Account id
+     * @return Mono with the account
+     */
+    @Override
+    public Mono<AccountResponse> getAccountReferenceById(String accountId) {
+        return accountByIdFlight.execute(accountId, () -> lookupAccountById(accountId));
     }
 
     @CircuitBreaker(name = "accountService", fallbackMethod = "updateAccountFallback")
     @TimeLimiter(name = "accountService")
     @Override
-    public Mono<AccountResponse> updateAccount(String id, AccountPatchRequest request) {
-        return accountWebClient.patch()
-            .uri("/{id}", id)
-            .body(Mono.just(request), AccountPatchRequest.class)
+    public Mono<AccountResponse> updateAccount(AccountResponse account, AccountPatchRequest request) {
+        if (!nativeDeltaPatches) {
+            return patchAccount(account.getId(), resolveDeltas(request, account));
+        }
+        if (writeCoalescingEnabled && PatchDeltas.isDeltaOnly(request)) {
+            return accountWriteCoalescer.submit(account.getId(), request);
+        }
+        return patchAccount(account.getId(), request);
+    }
+
+    @Override
+    public Map<String, List<AccountPatchRequest>> getUnacknowledgedUpdates() {
+        return writeCoalescingEnabled ? accountWriteCoalescer.unacknowledged() : Map.of();
+    }
+
+    @CircuitBreaker(name = "accountService", fallbackMethod = "getAccountsByCustomerIdFallback")
+    @TimeLimiter(name = "accountService")
+    @Override
+    public Flux<AccountResponse> getAccountsByCustomerId(String customerId) {
+        return accountWebClient.get()
+            .uri("/by-customer/{customerId}", customerId)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
                 response.bodyToMono(ResponseBase.class)
@@ -72,15 +197,41 @@ public class AccountServiceImpl implements AccountService {
                         }
                     })
             )
-            .bodyToMono(AccountResponse.class);
+            .bodyToFlux(AccountResponse.class);
     }
 
-    @CircuitBreaker(name = "accountService", fallbackMethod = "getAccountsByCustomerIdFallback")
+    @CircuitBreaker(name = "accountService", fallbackMethod = "getAccountByIdFallback")
     @TimeLimiter(name = "accountService")
     @Override
-    public Flux<AccountResponse> getAccountsByCustomerId(String customerId) {
-        return accountWebClient.get()
-            .uri("/by-customer/{customerId}", customerId)
+    public Mono<AccountResponse> getAccountById(String accountId) {
+        return accountByIdFlight.executeFresh(accountId, () -> lookupAccountById(accountId));
+    }
+
+    /**
+     * Looks the account up through the batcher, or through a hedged GET when batching is disabled
+     *
+     * @param accountId Account id
+     * @return Mono with the account
+     */
+    private Mono<AccountResponse> lookupAccountById(String accountId) {
+        if (batchingEnabled) {
+            return accountByIdBatcher.load(accountId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Account not found")));
+        }
+        return accountByIdHedger.execute(() -> fetchAccountById(accountId));
+    }
+
+    /**
+     * Sends a patch to the account service
+     *
+     * @param id      Account id
+     * @param request Patch request
+     * @return Mono with the updated account
+     */
+    private Mono<AccountResponse> patchAccount(String id, AccountPatchRequest request) {
+        return accountWebClient.patch()
+            .uri("/{id}", id)
+            .body(Mono.just(request), AccountPatchRequest.class)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
                 response.bodyToMono(ResponseBase.class)
@@ -94,13 +245,23 @@ public class AccountServiceImpl implements AccountService {
                         }
                     })
             )
-            .bodyToFlux(AccountResponse.class);
+            .bodyToMono(AccountResponse.class);
     }
 
-    @CircuitBreaker(name = "accountService", fallbackMethod = "getAccountByIdFallback")
-    @TimeLimiter(name = "accountService")
-    @Override
-    public Mono<AccountResponse> getAccountById(String accountId) {
+    /**
+     * Resolves the deltas of a patch against the account the caller read, for an account service that does not apply
+     * them natively. The account service offers no conditional update, so a write of the account by anything else
+     * landing between that read and the patch is still overwritten.
+     *
+     * @param request Patch request
+     * @param account Account the patch applies to
+     * @return Patch to send
+     */
+    private static AccountPatchRequest resolveDeltas(AccountPatchRequest request, AccountResponse account) {
+        return PatchDeltas.hasDeltas(request) ? PatchDeltas.resolve(request, account) : request;
+    }
+
+    private Mono<AccountResponse> fetchAccountById(String accountId) {
         return accountWebClient.get()
             .uri("/{accountId}", accountId)
             .retrieve()
@@ -119,6 +280,54 @@ public class AccountServiceImpl implements AccountService {
             .bodyToMono(AccountResponse.class);
     }
 
+    /**
+     * Fetches up to a batch of accounts by id in a single call
+     *
+     * @param accountIds Account ids
+     * @return Flux with the accounts found
+     */
+    private Flux<AccountResponse> fetchAccountsByIds(Collection<String> accountIds) {
+        return accountWebClient.post()
+            .uri("/by-ids")
+            .bodyValue(new ArrayList<>(accountIds))
+            .retrieve()
+            .onStatus(HttpStatus::is4xxClientError, response ->
+                response.bodyToMono(ResponseBase.class)
+                    .flatMap(error -> {
+                        if (response.statusCode().equals(HttpStatus.BAD_REQUEST)) {
+                            return Mono.error(new BadRequestException(error.getMessage()));
+                        } else {
+                            return Mono.error(new InternalServerErrorException(error.getMessage()));
+                        }
+                    })
+            )
+            .bodyToFlux(AccountResponse.class);
+    }
+
+    /**
+     * Fetches up to a batch of accounts by account number in a single call
+     *
+     * @param accountNumbers Account numbers
+     * @return Flux with the accounts found
+     */
+    private Flux<AccountResponse> fetchAccountsByNumbers(Collection<String> accountNumbers) {
+        return accountWebClient.post()
+            .uri("/by-account-numbers")
+            .bodyValue(new ArrayList<>(accountNumbers))
+            .retrieve()
+            .onStatus(HttpStatus::is4xxClientError, response ->
+                response.bodyToMono(ResponseBase.class)
+                    .flatMap(error -> {
+                        if (response.statusCode().equals(HttpStatus.BAD_REQUEST)) {
+                            return Mono.error(new BadRequestException(error.getMessage()));
+                        } else {
+                            return Mono.error(new InternalServerErrorException(error.getMessage()));
+                        }
+                    })
+            )
+            .bodyToFlux(AccountResponse.class);
+    }
+
     // getAccountByAccountNumberFallback
     private Mono<AccountResponse> getAccountByAccountNumberFallback(String id, InternalServerErrorException e) {
         return Mono.error(new BadRequestException(ACCOUNT_SERVICE_UNAVAILABLE_MESSAGE));
@@ -137,19 +346,19 @@ public class AccountServiceImpl implements AccountService {
     }
 
     // updateAccountFallback
-    private Mono<AccountResponse> updateAccountFallback(String id, AccountPatchRequest request, InternalServerErrorException e) {
+    private Mono<AccountResponse> updateAccountFallback(AccountResponse account, AccountPatchRequest request, InternalServerErrorException e) {
         return Mono.error(new BadRequestException(ACCOUNT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<AccountResponse> updateAccountFallback(String id, AccountPatchRequest request, TimeoutException e) {
+    private Mono<AccountResponse> updateAccountFallback(AccountResponse account, AccountPatchRequest request, TimeoutException e) {
         return Mono.error(new BadRequestException(ACCOUNT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<AccountResponse> updateAccountFallback(String id, AccountPatchRequest request, CallNotPermittedException e) {
+    private Mono<AccountResponse> updateAccountFallback(AccountResponse account, AccountPatchRequest request, CallNotPermittedException e) {
         return Mono.error(new BadRequestException(ACCOUNT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<AccountResponse> updateAccountFallback(String id, AccountPatchRequest request, WebClientException e) {
+    private Mono<AccountResponse> updateAccountFallback(AccountResponse account, AccountPatchRequest request, WebClientException e) {
         return Mono.error(new BadRequestException(ACCOUNT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
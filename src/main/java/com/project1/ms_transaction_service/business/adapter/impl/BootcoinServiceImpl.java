@@ -1,6 +1,7 @@
 package com.project1.ms_transaction_service.business.adapter.impl;
 
 import com.project1.ms_transaction_service.business.adapter.BootcoinService;
+import com.project1.ms_transaction_service.business.adapter.PatchDeltas;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.InternalServerErrorException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
@@ -10,6 +11,7 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -26,6 +28,9 @@ public class BootcoinServiceImpl implements BootcoinService {
     @Qualifier("bootcoinWebClient")
     private WebClient bootcoinWebClient;
 
+    @Value("${application.config.delta-patches.bootcoin.native:false}")
+    private boolean nativeDeltaPatches;
+
     @CircuitBreaker(name = "bootcoinService", fallbackMethod = "getExchangeRequestByTransactionIdFallback")
     @TimeLimiter(name = "bootcoinService")
     @Override
@@ -70,13 +75,28 @@ public class BootcoinServiceImpl implements BootcoinService {
             .bodyToMono(CreateBootcoinWalletResponse.class);
     }
 
+    /**
+     * Resolves the deltas of an update against the wallet the caller read, unless the bootcoin service applies them
+     * natively
+     *
+     * @param request Update request
+     * @param wallet  Wallet the update applies to
+     * @return Update to send
+     */
+    private UpdateBootcoinWalletRequest resolveDeltas(UpdateBootcoinWalletRequest request, CreateBootcoinWalletResponse wallet) {
+        if (nativeDeltaPatches || !PatchDeltas.hasDeltas(request)) {
+            return request;
+        }
+        return PatchDeltas.resolve(request, wallet);
+    }
+
     @CircuitBreaker(name = "bootcoinService", fallbackMethod = "updateBootcoinWalletFallback")
     @TimeLimiter(name = "bootcoinService")
     @Override
-    public Mono<Void> updateBootcoinWallet(String walletId, UpdateBootcoinWalletRequest request) {
+    public Mono<Void> updateBootcoinWallet(CreateBootcoinWalletResponse wallet, UpdateBootcoinWalletRequest request) {
         return bootcoinWebClient.put()
-            .uri("/wallets/{walletId}", walletId)
-            .body(Mono.just(request), UpdateBootcoinWalletRequest.class)
+            .uri("/wallets/{walletId}", wallet.getId())
+            .body(Mono.just(resolveDeltas(request, wallet)), UpdateBootcoinWalletRequest.class)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
                 response.bodyToMono(ResponseBase.class)
@@ -151,19 +171,21 @@ public class BootcoinServiceImpl implements BootcoinService {
     }
 
     // updateBootcoinWalletFallback
-    private Mono<AccountResponse> updateBootcoinWalletFallback(String walletId, UpdateBootcoinWalletRequest request, InternalServerErrorException e) {
+    private Mono<AccountResponse> updateBootcoinWalletFallback(CreateBootcoinWalletResponse wallet, UpdateBootcoinWalletRequest request,
+                                                               InternalServerErrorException e) {
         return Mono.error(new BadRequestException(BOOTCOIN_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<AccountResponse> updateBootcoinWalletFallback(String walletId, UpdateBootcoinWalletRequest request, TimeoutException e) {
+    private Mono<AccountResponse> updateBootcoinWalletFallback(CreateBootcoinWalletResponse wallet, UpdateBootcoinWalletRequest request, TimeoutException e) {
         return Mono.error(new BadRequestException(BOOTCOIN_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<AccountResponse> updateBootcoinWalletFallback(String walletId, UpdateBootcoinWalletRequest request, CallNotPermittedException e) {
+    private Mono<AccountResponse> updateBootcoinWalletFallback(CreateBootcoinWalletResponse wallet, UpdateBootcoinWalletRequest request,
+                                                               CallNotPermittedException e) {
         return Mono.error(new BadRequestException(BOOTCOIN_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<AccountResponse> updateBootcoinWalletFallback(String walletId, UpdateBootcoinWalletRequest request, WebClientException e) {
+    private Mono<AccountResponse> updateBootcoinWalletFallback(CreateBootcoinWalletResponse wallet, UpdateBootcoinWalletRequest request, WebClientException e) {
         return Mono.error(new BadRequestException(BOOTCOIN_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
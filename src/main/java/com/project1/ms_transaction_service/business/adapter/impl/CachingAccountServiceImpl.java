@@ -0,0 +1,80 @@
+package com.project1.ms_transaction_service.business.adapter.impl;
+
+import com.project1.ms_transaction_service.business.adapter.AccountService;
+import com.project1.ms_transaction_service.business.adapter.cache.AccountCache;
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of account reference data in front of {@link AccountServiceImpl}. Reads of whole accounts, which postings
+ * validate balances against, always go to the account service; reference reads are answered from {@link AccountCache}
+ * when possible. Every account returned by the account service refreshes the cache, and a write whose outcome is unknown
+ * evicts the account.
+ */
+@Service
+@Primary
+public class CachingAccountServiceImpl implements AccountService {
+
+    @Autowired
+    private AccountServiceImpl accountServiceImpl;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Override
+    public Mono<AccountResponse> getAccountByAccountNumber(String accountNumber) {
+        return accountServiceImpl.getAccountByAccountNumber(accountNumber)
+            .doOnNext(accountCache::put);
+    }
+
+    @Override
+    public Mono<AccountResponse> getAccountReferenceByAccountNumber(String accountNumber) {
+        return Mono.defer(() -> accountCache.getByAccountNumber(accountNumber)
+            .map(Mono::just)
+            .orElseGet(() -> getAccountByAccountNumber(accountNumber)));
+    }
+
+    @Override
+    public Mono<AccountResponse> updateAccount(AccountResponse account, AccountPatchRequest request) {
+        return accountServiceImpl.updateAccount(account, request)
+            .doOnNext(accountCache::put)
+            .doOnSuccess(updatedAccount -> {
+                if (updatedAccount == null) {
+                    accountCache.evictById(account.getId());
+                }
+            })
+            .doOnError(e -> accountCache.evictById(account.getId()));
+    }
+
+    @Override
+    public Map<String, List<AccountPatchRequest>> getUnacknowledgedUpdates() {
+        return accountServiceImpl.getUnacknowledgedUpdates();
+    }
+
+    @Override
+    public Flux<AccountResponse> getAccountsByCustomerId(String customerId) {
+        return accountServiceImpl.getAccountsByCustomerId(customerId)
+            .doOnNext(accountCache::put);
+    }
+
+    @Override
+    public Mono<AccountResponse> getAccountById(String accountId) {
+        return accountServiceImpl.getAccountById(accountId)
+            .doOnNext(accountCache::put);
+    }
+
+    @Override
+    public Mono<AccountResponse> getAccountReferenceById(String accountId) {
+        return Mono.defer(() -> accountCache.getById(accountId)
+            .map(Mono::just)
+            .orElseGet(() -> getAccountById(accountId)));
+    }
+}
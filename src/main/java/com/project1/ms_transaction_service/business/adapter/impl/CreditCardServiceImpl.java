@@ -1,6 +1,10 @@
 package com.project1.ms_transaction_service.business.adapter.impl;
 
 import com.project1.ms_transaction_service.business.adapter.CreditCardService;
+import com.project1.ms_transaction_service.business.adapter.PatchDeltas;
+import com.project1.ms_transaction_service.business.adapter.SingleFlight;
+import com.project1.ms_transaction_service.business.adapter.hedging.Hedger;
+import com.project1.ms_transaction_service.business.adapter.hedging.HedgingRegistry;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.InternalServerErrorException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
@@ -8,8 +12,10 @@ import com.project1.ms_transaction_service.model.*;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -17,6 +23,7 @@ import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
 import java.util.concurrent.TimeoutException;
 
 @Service
@@ -28,11 +35,36 @@ public class CreditCardServiceImpl implements CreditCardService {
     @Qualifier("creditWebClient")
     private WebClient creditWebClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HedgingRegistry hedgingRegistry;
+
+    @Value("${application.config.delta-patches.credit.native:false}")
+    private boolean nativeDeltaPatches;
+
+    private SingleFlight<String, CreditCardResponse> creditCardByCardNumberFlight;
+
+    private SingleFlight<String, CreditCardResponse> creditCardByIdFlight;
+
+    private Hedger creditCardByCardNumberHedger;
+
+    private Hedger creditCardByIdHedger;
+
+    @PostConstruct
+    public void init() {
+        creditCardByCardNumberFlight = new SingleFlight<>("creditCard", "getCreditCardByCardNumber", meterRegistry);
+        creditCardByIdFlight = new SingleFlight<>("creditCard", "getCreditCardById", meterRegistry);
+        creditCardByCardNumberHedger = hedgingRegistry.hedger("credit", "getCreditCardByCardNumber");
+        creditCardByIdHedger = hedgingRegistry.hedger("credit", "getCreditCardById");
+    }
+
     @CircuitBreaker(name = "creditService", fallbackMethod = "getCreditCardByCardNumberFallback")
     @TimeLimiter(name = "creditService")
     @Override
     public Mono<CreditCardResponse> getCreditCardByCardNumber(String cardNumber) {
-        return creditWebClient.get()
+        return creditCardByCardNumberFlight.execute(cardNumber, () -> creditCardByCardNumberHedger.execute(() -> creditWebClient.get()
             .uri("/credit-card/by-card-number/{cardNumber}", cardNumber)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
@@ -47,16 +79,16 @@ public class CreditCardServiceImpl implements CreditCardService {
                         }
                     })
             )
-            .bodyToMono(CreditCardResponse.class);
+            .bodyToMono(CreditCardResponse.class)));
     }
 
     @CircuitBreaker(name = "creditService", fallbackMethod = "updateCreditCardFallback")
     @TimeLimiter(name = "creditService")
     @Override
-    public Mono<CreditCardResponse> updateCreditCard(String id, CreditCardPatchRequest request) {
+    public Mono<CreditCardResponse> updateCreditCard(CreditCardResponse creditCard, CreditCardPatchRequest request) {
         return creditWebClient.patch()
-            .uri("/credit-card/{id}", id)
-            .body(Mono.just(request), CreditCardPatchRequest.class)
+            .uri("/credit-card/{id}", creditCard.getId())
+            .body(Mono.just(resolveDeltas(request, creditCard)), CreditCardPatchRequest.class)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
                 response.bodyToMono(ResponseBase.class)
@@ -99,6 +131,25 @@ public class CreditCardServiceImpl implements CreditCardService {
     @TimeLimiter(name = "creditService")
     @Override
     public Mono<CreditCardResponse> getCreditCardById(String creditCardId) {
+        return creditCardByIdFlight.execute(creditCardId, () -> creditCardByIdHedger.execute(() -> fetchCreditCardById(creditCardId)));
+    }
+
+    /**
+     * Resolves the deltas of a patch against the credit card the caller read, unless the credit service applies them
+     * natively
+     *
+     * @param request    Patch request
+     * @param creditCard Credit card the patch applies to
+     * @return Patch to send
+     */
+    private CreditCardPatchRequest resolveDeltas(CreditCardPatchRequest request, CreditCardResponse creditCard) {
+        if (nativeDeltaPatches || !PatchDeltas.hasDeltas(request)) {
+            return request;
+        }
+        return PatchDeltas.resolve(request, creditCard);
+    }
+
+    private Mono<CreditCardResponse> fetchCreditCardById(String creditCardId) {
         return creditWebClient.get()
             .uri("/credit-card/{creditCardId}", creditCardId)
             .retrieve()
@@ -135,19 +186,19 @@ public class CreditCardServiceImpl implements CreditCardService {
     }
 
     // updateCreditCardFallback
-    private Mono<CreditCardResponse> updateCreditCardFallback(String id, CreditCardPatchRequest request, InternalServerErrorException e) {
+    private Mono<CreditCardResponse> updateCreditCardFallback(CreditCardResponse creditCard, CreditCardPatchRequest request, InternalServerErrorException e) {
         return Mono.error(new BadRequestException(CREDIT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<CreditCardResponse> updateCreditCardFallback(String id, CreditCardPatchRequest request, TimeoutException e) {
+    private Mono<CreditCardResponse> updateCreditCardFallback(CreditCardResponse creditCard, CreditCardPatchRequest request, TimeoutException e) {
         return Mono.error(new BadRequestException(CREDIT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<CreditCardResponse> updateCreditCardFallback(String id, CreditCardPatchRequest request, CallNotPermittedException e) {
+    private Mono<CreditCardResponse> updateCreditCardFallback(CreditCardResponse creditCard, CreditCardPatchRequest request, CallNotPermittedException e) {
         return Mono.error(new BadRequestException(CREDIT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
-    private Mono<CreditCardResponse> updateCreditCardFallback(String id, CreditCardPatchRequest request, WebClientException e) {
+    private Mono<CreditCardResponse> updateCreditCardFallback(CreditCardResponse creditCard, CreditCardPatchRequest request, WebClientException e) {
         return Mono.error(new BadRequestException(CREDIT_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
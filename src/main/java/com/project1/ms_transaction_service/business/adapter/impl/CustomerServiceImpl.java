@@ -1,6 +1,9 @@
 package com.project1.ms_transaction_service.business.adapter.impl;
 
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
+import com.project1.ms_transaction_service.business.adapter.SingleFlight;
+import com.project1.ms_transaction_service.business.adapter.hedging.Hedger;
+import com.project1.ms_transaction_service.business.adapter.hedging.HedgingRegistry;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.InternalServerErrorException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
@@ -9,6 +12,7 @@ import com.project1.ms_transaction_service.model.ResponseBase;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
@@ -17,6 +21,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
 import java.util.concurrent.TimeoutException;
 
 @Service
@@ -28,11 +33,39 @@ public class CustomerServiceImpl implements CustomerService {
     @Qualifier("customerWebClient")
     private WebClient webClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HedgingRegistry hedgingRegistry;
+
+    private SingleFlight<String, CustomerResponse> customerByDniFlight;
+
+    private SingleFlight<String, CustomerResponse> customerByRucFlight;
+
+    private SingleFlight<String, CustomerResponse> customerByIdFlight;
+
+    private Hedger customerByDniHedger;
+
+    private Hedger customerByRucHedger;
+
+    private Hedger customerByIdHedger;
+
+    @PostConstruct
+    public void init() {
+        customerByDniFlight = new SingleFlight<>("customer", "getCustomerByDni", meterRegistry);
+        customerByRucFlight = new SingleFlight<>("customer", "getCustomerByRuc", meterRegistry);
+        customerByIdFlight = new SingleFlight<>("customer", "getCustomerById", meterRegistry);
+        customerByDniHedger = hedgingRegistry.hedger("customer", "getCustomerByDni");
+        customerByRucHedger = hedgingRegistry.hedger("customer", "getCustomerByRuc");
+        customerByIdHedger = hedgingRegistry.hedger("customer", "getCustomerById");
+    }
+
     @CircuitBreaker(name = "customerService", fallbackMethod = "getCustomerByDniFallback")
     @TimeLimiter(name = "customerService")
     @Override
     public Mono<CustomerResponse> getCustomerByDni(String dni) {
-        return webClient.get()
+        return customerByDniFlight.execute(dni, () -> customerByDniHedger.execute(() -> webClient.get()
             .uri("/dni/{dni}", dni)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
@@ -47,14 +80,14 @@ public class CustomerServiceImpl implements CustomerService {
                         }
                     })
             )
-            .bodyToMono(CustomerResponse.class);
+            .bodyToMono(CustomerResponse.class)));
     }
 
     @CircuitBreaker(name = "customerService", fallbackMethod = "getCustomerByRucFallback")
     @TimeLimiter(name = "customerService")
     @Override
     public Mono<CustomerResponse> getCustomerByRuc(String ruc) {
-        return webClient.get()
+        return customerByRucFlight.execute(ruc, () -> customerByRucHedger.execute(() -> webClient.get()
             .uri("/ruc/{ruc}", ruc)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
@@ -69,14 +102,14 @@ public class CustomerServiceImpl implements CustomerService {
                         }
                     })
             )
-            .bodyToMono(CustomerResponse.class);
+            .bodyToMono(CustomerResponse.class)));
     }
 
     @CircuitBreaker(name = "customerService", fallbackMethod = "getCustomerByIdFallback")
     @TimeLimiter(name = "customerService")
     @Override
     public Mono<CustomerResponse> getCustomerById(String id) {
-        return webClient.get()
+        return customerByIdFlight.execute(id, () -> customerByIdHedger.execute(() -> webClient.get()
             .uri("/{id}", id)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
@@ -91,7 +124,7 @@ public class CustomerServiceImpl implements CustomerService {
                         }
                     })
             )
-            .bodyToMono(CustomerResponse.class);
+            .bodyToMono(CustomerResponse.class)));
     }
 
     // getCustomerByDniFallback
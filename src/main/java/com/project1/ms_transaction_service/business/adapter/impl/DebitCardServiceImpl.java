@@ -1,6 +1,9 @@
 package com.project1.ms_transaction_service.business.adapter.impl;
 
 import com.project1.ms_transaction_service.business.adapter.DebitCardService;
+import com.project1.ms_transaction_service.business.adapter.SingleFlight;
+import com.project1.ms_transaction_service.business.adapter.hedging.Hedger;
+import com.project1.ms_transaction_service.business.adapter.hedging.HedgingRegistry;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.InternalServerErrorException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
@@ -8,6 +11,7 @@ import com.project1.ms_transaction_service.model.*;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
@@ -16,6 +20,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
 import java.util.concurrent.TimeoutException;
 
 @Service
@@ -27,11 +32,27 @@ public class DebitCardServiceImpl implements DebitCardService {
     @Qualifier("accountWebClient")
     private WebClient accountWebClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HedgingRegistry hedgingRegistry;
+
+    private SingleFlight<String, DebitCardResponse> debitCardByIdFlight;
+
+    private Hedger debitCardByIdHedger;
+
+    @PostConstruct
+    public void init() {
+        debitCardByIdFlight = new SingleFlight<>("debitCard", "getDebitCardById", meterRegistry);
+        debitCardByIdHedger = hedgingRegistry.hedger("account", "getDebitCardById");
+    }
+
     @CircuitBreaker(name = "accountService", fallbackMethod = "getDebitCardByIdFallback")
     @TimeLimiter(name = "accountService")
     @Override
     public Mono<DebitCardResponse> getDebitCardById(String debitCardId) {
-        return accountWebClient.get()
+        return debitCardByIdFlight.execute(debitCardId, () -> debitCardByIdHedger.execute(() -> accountWebClient.get()
             .uri("/debit-card/{debitCardId}", debitCardId)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
@@ -46,7 +67,7 @@ public class DebitCardServiceImpl implements DebitCardService {
                         }
                     })
             )
-            .bodyToMono(DebitCardResponse.class);
+            .bodyToMono(DebitCardResponse.class)));
     }
 
     // getDebitCardByIdFallback
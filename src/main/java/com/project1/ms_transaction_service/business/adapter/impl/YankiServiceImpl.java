@@ -1,5 +1,6 @@
 package com.project1.ms_transaction_service.business.adapter.impl;
 
+import com.project1.ms_transaction_service.business.adapter.PatchDeltas;
 import com.project1.ms_transaction_service.business.adapter.YankiService;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.InternalServerErrorException;
@@ -13,6 +14,7 @@ import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -30,6 +32,9 @@ public class YankiServiceImpl implements YankiService {
     @Qualifier("yankiWebClient")
     private WebClient yankiWebClient;
 
+    @Value("${application.config.delta-patches.yanki.native:false}")
+    private boolean nativeDeltaPatches;
+
     @CircuitBreaker(name = "yankiService", fallbackMethod = "getYankiWalletFallback")
     @TimeLimiter(name = "yankiService")
     @Override
@@ -84,9 +89,26 @@ public class YankiServiceImpl implements YankiService {
     @TimeLimiter(name = "yankiService")
     @Override
     public Mono<Void> updateYankiWallet(String id, UpdateYankiWalletRequest request) {
+        if (nativeDeltaPatches || !PatchDeltas.hasDeltas(request)) {
+            return putYankiWallet(id, Mono.just(request));
+        }
+        return putYankiWallet(id, getYankiWallet(id).map(wallet -> PatchDeltas.resolve(request, wallet)));
+    }
+
+    @CircuitBreaker(name = "yankiService", fallbackMethod = "updateYankiWalletFallback")
+    @TimeLimiter(name = "yankiService")
+    @Override
+    public Mono<Void> updateYankiWallet(GetYankiWalletResponse wallet, UpdateYankiWalletRequest request) {
+        if (nativeDeltaPatches || !PatchDeltas.hasDeltas(request)) {
+            return putYankiWallet(wallet.getId(), Mono.just(request));
+        }
+        return putYankiWallet(wallet.getId(), Mono.just(PatchDeltas.resolve(request, wallet)));
+    }
+
+    private Mono<Void> putYankiWallet(String id, Mono<UpdateYankiWalletRequest> request) {
         return yankiWebClient.put()
             .uri("/wallets/{id}", id)
-            .body(Mono.just(request), UpdateYankiWalletRequest.class)
+            .body(request, UpdateYankiWalletRequest.class)
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, response ->
                 response.bodyToMono(ResponseBase.class)
@@ -137,6 +159,22 @@ public class YankiServiceImpl implements YankiService {
         return Mono.error(new BadRequestException(YANKI_SERVICE_UNAVAILABLE_MESSAGE));
     }
 
+    private Mono<Void> updateYankiWalletFallback(GetYankiWalletResponse wallet, UpdateYankiWalletRequest request, InternalServerErrorException e) {
+        return Mono.error(new BadRequestException(YANKI_SERVICE_UNAVAILABLE_MESSAGE));
+    }
+
+    private Mono<Void> updateYankiWalletFallback(GetYankiWalletResponse wallet, UpdateYankiWalletRequest request, TimeoutException e) {
+        return Mono.error(new BadRequestException(YANKI_SERVICE_UNAVAILABLE_MESSAGE));
+    }
+
+    private Mono<Void> updateYankiWalletFallback(GetYankiWalletResponse wallet, UpdateYankiWalletRequest request, CallNotPermittedException e) {
+        return Mono.error(new BadRequestException(YANKI_SERVICE_UNAVAILABLE_MESSAGE));
+    }
+
+    private Mono<Void> updateYankiWalletFallback(GetYankiWalletResponse wallet, UpdateYankiWalletRequest request, WebClientException e) {
+        return Mono.error(new BadRequestException(YANKI_SERVICE_UNAVAILABLE_MESSAGE));
+    }
+
     // getYankiWalletByUserIdFallback
     private Mono<GetYankiWalletResponse> getYankiWalletByUserIdFallback(String id, InternalServerErrorException e) {
         return Mono.error(new BadRequestException(YANKI_SERVICE_UNAVAILABLE_MESSAGE));
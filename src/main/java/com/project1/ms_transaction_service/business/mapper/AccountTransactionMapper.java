@@ -6,11 +6,13 @@ import com.project1.ms_transaction_service.business.service.strategy.TransferStr
 import com.project1.ms_transaction_service.business.service.strategy.WithdrawalStrategy;
 import com.project1.ms_transaction_service.model.AccountPatchRequest;
 import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.AccountTransactionBatchItemResponse;
 import com.project1.ms_transaction_service.model.AccountTransactionRequest;
 import com.project1.ms_transaction_service.model.AccountTransactionResponse;
 import com.project1.ms_transaction_service.model.entity.AccountTransaction;
 import com.project1.ms_transaction_service.model.entity.AccountTransactionType;
 import com.project1.ms_transaction_service.model.entity.AccountType;
+import com.project1.ms_transaction_service.model.entity.BatchItemStatus;
 import com.project1.ms_transaction_service.model.entity.Transaction;
 import org.springframework.stereotype.Component;
 
@@ -33,6 +35,50 @@ public class AccountTransactionMapper {
         return response;
     }
 
+    /**
+     * Creates the batch result of a persisted transaction
+     * @param index Position of the item in the batch request
+     * @param transaction The persisted transaction
+     * @return Batch item response with CREATED status
+     */
+    public AccountTransactionBatchItemResponse getAccountTransactionBatchItemResponse(long index, AccountTransaction transaction) {
+        AccountTransactionBatchItemResponse response = new AccountTransactionBatchItemResponse();
+        response.setIndex(index);
+        response.setStatus(BatchItemStatus.CREATED.toString());
+        response.setTransaction(getAccountTransactionResponse(transaction));
+        return response;
+    }
+
+    /**
+     * Creates the batch result of a rejected item
+     * @param index Position of the item in the batch request
+     * @param message Reason the item was rejected
+     * @return Batch item response with REJECTED status
+     */
+    public AccountTransactionBatchItemResponse getRejectedAccountTransactionBatchItemResponse(long index, String message) {
+        AccountTransactionBatchItemResponse response = new AccountTransactionBatchItemResponse();
+        response.setIndex(index);
+        response.setStatus(BatchItemStatus.REJECTED.toString());
+        response.setMessage(message);
+        return response;
+    }
+
+    /**
+     * Creates the batch result of an item whose transaction may be stored without its balances applied
+     * @param index Position of the item in the batch request
+     * @param transaction The transaction that may have been persisted
+     * @param message What is known about the outcome of the item
+     * @return Batch item response with UNKNOWN status
+     */
+    public AccountTransactionBatchItemResponse getUnknownAccountTransactionBatchItemResponse(long index, AccountTransaction transaction, String message) {
+        AccountTransactionBatchItemResponse response = new AccountTransactionBatchItemResponse();
+        response.setIndex(index);
+        response.setStatus(BatchItemStatus.UNKNOWN.toString());
+        response.setMessage(message);
+        response.setTransaction(getAccountTransactionResponse(transaction));
+        return response;
+    }
+
     /**
      * Creates an AccountTransaction entity from a request and account response
      * @param request The transaction request containing transaction details
@@ -119,36 +165,48 @@ public class AccountTransactionMapper {
             .multiply(amount);
     }
 
-    public AccountPatchRequest getAccountPatchRequest(AccountTransaction transaction, AccountResponse accountResponse, boolean isOrigin) {
+    /**
+     * Creates the delta patch applying the transaction to one of its accounts
+     *
+     * @param transaction The transaction
+     * @param isOrigin    Whether the patch applies to the origin account
+     * @return Patch with the balance and monthly movements deltas
+     */
+    public AccountPatchRequest getAccountPatchRequest(AccountTransaction transaction, boolean isOrigin) {
         AccountPatchRequest request = new AccountPatchRequest();
 
-        TransactionStrategy strategy;
+        TransactionStrategy strategy = getTransactionStrategy(transaction, isOrigin);
+
+        BigDecimal amount = Optional.ofNullable(transaction.getAmount()).orElse(BigDecimal.ZERO);
+
+        request.setBalanceDelta(strategy.calculateDelta(amount));
+
+        if (strategy.updateMovements()) {
+            request.setMonthlyMovementsDelta(1);
+        }
+
+        return request;
+    }
+
+    /**
+     * Selects the strategy applying the transaction to one of its accounts
+     * @param transaction The transaction
+     * @param isOrigin Whether the strategy applies to the origin account
+     * @return Strategy of the transaction type
+     */
+    public TransactionStrategy getTransactionStrategy(AccountTransaction transaction, boolean isOrigin) {
         AccountTransactionType type = AccountTransactionType.valueOf(transaction.getType().toString());
 
         switch (type) {
             case DEPOSIT:
-                strategy = new DepositStrategy(isOrigin, transaction.getCommissionFee());
-                break;
+                return new DepositStrategy(isOrigin, transaction.getCommissionFee());
             case WITHDRAWAL:
-                strategy = new WithdrawalStrategy(isOrigin, transaction.getCommissionFee());
-                break;
+                return new WithdrawalStrategy(isOrigin, transaction.getCommissionFee());
             case TRANSFER:
-                strategy = new TransferStrategy(isOrigin);
-                break;
+                return new TransferStrategy(isOrigin);
             default:
                 throw new IllegalArgumentException("Invalid transaction type");
         }
-
-        BigDecimal amount = Optional.ofNullable(transaction.getAmount()).orElse(BigDecimal.ZERO);
-        BigDecimal currentBalance = Optional.ofNullable(accountResponse.getBalance()).orElse(BigDecimal.ZERO);
-
-        request.setBalance(strategy.calculateBalance(currentBalance, amount));
-
-        if (strategy.updateMovements()) {
-            request.setMonthlyMovements(Optional.ofNullable(accountResponse.getMonthlyMovements()).orElse(0) + 1);
-        }
-
-        return request;
     }
 
 }
@@ -25,6 +25,7 @@ public class CreditCardTransactionMapper {
     public CreditCardTransactionResponse getCreditCardTransactionResponse(Transaction transaction) {
         CreditCardTransactionResponse creditCardTransactionResponse = new CreditCardTransactionResponse();
         CreditCardTransaction creditCardTransaction = (CreditCardTransaction) transaction;
+        creditCardTransactionResponse.setId(creditCardTransaction.getId());
         creditCardTransactionResponse.setCreditCard(creditCardTransaction.getCreditCardId());
         creditCardTransactionResponse.setAmount(creditCardTransaction.getAmount());
         creditCardTransactionResponse.setDescription(creditCardTransaction.getDescription());
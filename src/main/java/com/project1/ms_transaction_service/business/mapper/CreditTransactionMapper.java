@@ -21,6 +21,7 @@ public class CreditTransactionMapper {
 
     public CreditPaymentTransactionResponse getCreditPaymentTransactionResponse(CreditTransaction creditTransaction) {
         CreditPaymentTransactionResponse creditPaymentTransactionResponse = new CreditPaymentTransactionResponse();
+        creditPaymentTransactionResponse.setId(creditTransaction.getId());
         creditPaymentTransactionResponse.setCreditId(creditTransaction.getCreditId());
         creditPaymentTransactionResponse.setDate(creditTransaction.getDate());
         creditPaymentTransactionResponse.setCustomerId(creditTransaction.getCustomerId());
@@ -1,17 +1,16 @@
 package com.project1.ms_transaction_service.business.mapper;
 
 import com.project1.ms_transaction_service.model.*;
-import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.AccountCommissionTotal;
+import com.project1.ms_transaction_service.model.entity.BalanceProductType;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransaction;
 import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
+import com.project1.ms_transaction_service.model.entity.ProductAverageBalance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
@@ -36,46 +35,37 @@ public class TransactionMapper {
     }
 
     public CustomerProductsAverageBalanceResponse getCustomerProductsAvgBalanceResponse(CustomerResponse customer,
-                                                                                        List<AccountResponse> accounts,
-                                                                                        List<CreditCardResponse> creditCards,
-                                                                                        List<CreditResponse> credits) {
+                                                                                        List<ProductAverageBalance> averageBalances) {
         CustomerProductsAverageBalanceResponse response = new CustomerProductsAverageBalanceResponse();
         response.setCustomer(customer);
 
-        List<CustomerProductsAverageBalanceResponseAccountsInner> accountsAvgBalances = accounts.stream()
-            .map(accountResponse -> {
+        List<CustomerProductsAverageBalanceResponseAccountsInner> accountsAvgBalances = averageBalances.stream()
+            .filter(averageBalance -> averageBalance.getProductType() == BalanceProductType.ACCOUNT)
+            .map(averageBalance -> {
                 CustomerProductsAverageBalanceResponseAccountsInner accountAvgBalance = new CustomerProductsAverageBalanceResponseAccountsInner();
-                accountAvgBalance.setAccountNumber(accountResponse.getAccountNumber());
-                BigDecimal balance = Optional.ofNullable(accountResponse.getBalance())
-                    .orElse(BigDecimal.ZERO);
-                accountAvgBalance.setAverageBalance(calculateAvgDailyBalance(balance));
+                accountAvgBalance.setAccountNumber(averageBalance.getProductIdentifier());
+                accountAvgBalance.setAverageBalance(averageBalance.getAverageBalance());
                 return accountAvgBalance;
             })
             .collect(Collectors.toList());
         response.setAccounts(accountsAvgBalances);
 
-        List<CustomerProductsAverageBalanceResponseCreditCardsInner> creditCardsAvgBalances = creditCards.stream()
-            .map(creditCardResponse -> {
+        List<CustomerProductsAverageBalanceResponseCreditCardsInner> creditCardsAvgBalances = averageBalances.stream()
+            .filter(averageBalance -> averageBalance.getProductType() == BalanceProductType.CREDIT_CARD)
+            .map(averageBalance -> {
                 CustomerProductsAverageBalanceResponseCreditCardsInner creditCardAvgBalance = new CustomerProductsAverageBalanceResponseCreditCardsInner();
-                BigDecimal usedAmount = Optional.ofNullable(creditCardResponse.getUsedAmount())
-                    .orElse(BigDecimal.ZERO);
-                BigDecimal creditLimit = Optional.ofNullable(creditCardResponse.getCreditLimit())
-                    .orElse(BigDecimal.ZERO);
-
-                creditCardAvgBalance.setAverageBalance(calculateAvgDailyBalance(creditLimit.subtract(usedAmount)));
-                creditCardAvgBalance.setCardNumber(creditCardResponse.getCardNumber());
-
+                creditCardAvgBalance.setCardNumber(averageBalance.getProductIdentifier());
+                creditCardAvgBalance.setAverageBalance(averageBalance.getAverageBalance());
                 return creditCardAvgBalance;
             }).collect(Collectors.toList());
         response.setCreditCards(creditCardsAvgBalances);
 
-        List<CustomerProductsAverageBalanceResponseCreditsInner> creditsAvgBalances = credits.stream()
-            .map(creditResponse -> {
+        List<CustomerProductsAverageBalanceResponseCreditsInner> creditsAvgBalances = averageBalances.stream()
+            .filter(averageBalance -> averageBalance.getProductType() == BalanceProductType.CREDIT)
+            .map(averageBalance -> {
                 CustomerProductsAverageBalanceResponseCreditsInner creditAvgBalance = new CustomerProductsAverageBalanceResponseCreditsInner();
-                creditAvgBalance.setCreditIdentifier(creditResponse.getIdentifier());
-                BigDecimal balance = Optional.ofNullable(creditResponse.getAmountPaid())
-                    .orElse(BigDecimal.ZERO);
-                creditAvgBalance.setAverageBalance(calculateAvgDailyBalance(balance));
+                creditAvgBalance.setCreditIdentifier(averageBalance.getProductIdentifier());
+                creditAvgBalance.setAverageBalance(averageBalance.getAverageBalance());
                 return creditAvgBalance;
             }).collect(Collectors.toList());
         response.setCredits(creditsAvgBalances);
@@ -83,21 +73,15 @@ public class TransactionMapper {
         return response;
     }
 
-    public BigDecimal calculateAvgDailyBalance(BigDecimal balance) {
-        int actualDay = LocalDate.now().getDayOfMonth();
-        return balance.divide(BigDecimal.valueOf(actualDay), 2, RoundingMode.HALF_UP);
-    }
-
-    public ProductsCommissionResponse getProductsCommissionResponse(List<AccountTransaction> transactions) {
+    public ProductsCommissionResponse getProductsCommissionResponse(List<AccountCommissionTotal> accountTotals) {
         ProductsCommissionResponse response = new ProductsCommissionResponse();
         ProductsCommissionResponseCommissions commissions = new ProductsCommissionResponseCommissions();
 
-        List<ProductsCommissionResponseCommissionsAccountsInner> accountsCommissions = transactions.stream()
-            .filter(accountTransaction -> accountTransaction.getCommissionFee() != null)
-            .map(accountTransaction -> {
+        List<ProductsCommissionResponseCommissionsAccountsInner> accountsCommissions = accountTotals.stream()
+            .map(accountTotal -> {
                 ProductsCommissionResponseCommissionsAccountsInner accountCommissions = new ProductsCommissionResponseCommissionsAccountsInner();
-                accountCommissions.setAccountNumber(accountTransaction.getOriginAccountNumber());
-                accountCommissions.setTotalCommissionFee(accountTransaction.getCommissionFee());
+                accountCommissions.setAccountNumber(accountTotal.getAccountNumber());
+                accountCommissions.setTotalCommissionFee(accountTotal.getTotalCommissionFee());
                 return accountCommissions;
             }).collect(Collectors.toList());
         commissions.setAccounts(accountsCommissions);
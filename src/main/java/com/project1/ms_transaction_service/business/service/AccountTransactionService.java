@@ -1,5 +1,6 @@
 package com.project1.ms_transaction_service.business.service;
 
+import com.project1.ms_transaction_service.model.AccountTransactionBatchItemResponse;
 import com.project1.ms_transaction_service.model.AccountTransactionRequest;
 import com.project1.ms_transaction_service.model.AccountTransactionResponse;
 import reactor.core.publisher.Flux;
@@ -8,5 +9,7 @@ import reactor.core.publisher.Mono;
 public interface AccountTransactionService {
     Mono<AccountTransactionResponse> createAccountTransaction(Mono<AccountTransactionRequest> request);
 
-    Flux<AccountTransactionResponse> getTransactionsByAccountNumber(String accountNumber);
+    Flux<AccountTransactionBatchItemResponse> createAccountTransactions(Flux<AccountTransactionRequest> requests);
+
+    Flux<AccountTransactionResponse> getTransactionsByAccountNumber(String accountNumber, Integer limit, String cursor);
 }
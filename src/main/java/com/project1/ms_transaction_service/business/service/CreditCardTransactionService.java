@@ -8,5 +8,5 @@ import reactor.core.publisher.Mono;
 public interface CreditCardTransactionService {
     Mono<CreditCardTransactionResponse> createCreditCardTransaction(Mono<CreditCardTransactionRequest> request);
 
-    Flux<CreditCardTransactionResponse> getCreditCardTransactionsById(String originAccountId);
+    Flux<CreditCardTransactionResponse> getCreditCardTransactionsById(String originAccountId, Integer limit, String cursor);
 }
@@ -8,5 +8,5 @@ import reactor.core.publisher.Mono;
 public interface CreditTransactionService {
     Mono<CreditPaymentTransactionResponse> createCreditPaymentTransaction(Mono<CreditPaymentTransactionRequest> request);
 
-    Flux<CreditPaymentTransactionResponse> getCreditTransactionsByCreditId(String creditId);
+    Flux<CreditPaymentTransactionResponse> getCreditTransactionsByCreditId(String creditId, Integer limit, String cursor);
 }
@@ -0,0 +1,21 @@
+package com.project1.ms_transaction_service.business.service;
+
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.CreditCardResponse;
+import com.project1.ms_transaction_service.model.CreditResponse;
+import com.project1.ms_transaction_service.model.CustomerProductsResponse;
+import com.project1.ms_transaction_service.model.entity.ProductAverageBalance;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+public interface DailyBalanceService {
+    Mono<Void> recordAccountBalance(AccountResponse account, BigDecimal balance);
+
+    Mono<Void> recordCreditCardBalance(CreditCardResponse creditCard, BigDecimal usedAmount);
+
+    Mono<Void> recordCreditBalance(String creditId, CreditResponse credit, BigDecimal amountPaid);
+
+    Flux<ProductAverageBalance> getMonthToDateAverageBalances(String customerId, CustomerProductsResponse products);
+}
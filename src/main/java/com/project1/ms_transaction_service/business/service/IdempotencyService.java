@@ -0,0 +1,9 @@
+package com.project1.ms_transaction_service.business.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    <T> Mono<T> execute(String operation, String idempotencyKey, Object request, Class<T> responseType, Supplier<Mono<T>> action);
+}
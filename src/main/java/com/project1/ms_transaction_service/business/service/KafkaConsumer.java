@@ -1,15 +1,31 @@
 package com.project1.ms_transaction_service.business.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.project1.ms_transaction_service.config.CustomObjectMapper;
 import com.project1.ms_transaction_service.model.BootcoinTransactionRequest;
 import com.project1.ms_transaction_service.model.CreateWalletTransactionRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
 @Service
 @Slf4j
 public class KafkaConsumer {
@@ -22,23 +38,104 @@ public class KafkaConsumer {
     @Autowired
     private BootcoinTransactionService bootcoinTransactionService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    @Value("${application.config.kafka.listener.max-in-flight:16}")
+    private int maxInFlight;
+
+    @Value("${application.config.kafka.listener.batch-timeout:4m}")
+    private Duration batchTimeout;
+
+    @Value("${application.config.kafka.listener.max-poll-interval:5m}")
+    private Duration maxPollInterval;
+
+    private final AtomicInteger yankiInFlight = new AtomicInteger();
+
+    private final AtomicInteger bootcoinInFlight = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        if (batchTimeout.compareTo(maxPollInterval) >= 0) {
+            throw new IllegalStateException("application.config.kafka.listener.batch-timeout must be shorter than max-poll-interval");
+        }
+        registerInFlightGauge("yanki", yankiInFlight);
+        registerInFlightGauge("bootcoin", bootcoinInFlight);
+    }
+
+    private void registerInFlightGauge(String listener, AtomicInteger inFlight) {
+        Gauge.builder("kafka.listener.in.flight", inFlight, AtomicInteger::get)
+            .description("Records of the current batch being processed")
+            .tag("listener", listener)
+            .register(meterRegistry);
+    }
+
     @KafkaListener(topics = "${application.config.kafka.topic1.topic-name}", groupId = "${application.config.kafka.topic1.consumer.group-id}",
         containerFactory = "kafkaListenerContainerFactory1")
-    public void listenYankiTransactions(String message) throws JsonProcessingException {
-        log.info("Received yanki transaction message: {}", message);
-        CreateWalletTransactionRequest request = customObjectMapper.stringToObject(message, CreateWalletTransactionRequest.class);
-        walletTransactionService.createWalletTransaction(Mono.just(request))
-            .doOnSuccess(e -> log.info("Transaction created successfully"))
-            .subscribe();
+    public void listenYankiTransactions(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        log.info("Received {} yanki transaction messages", records.size());
+        processBatch(records, yankiInFlight, message ->
+            Mono.fromCallable(() -> customObjectMapper.bytesToObject(message, CreateWalletTransactionRequest.class))
+                .flatMap(request -> walletTransactionService.createWalletTransaction(Mono.just(request)))
+                .doOnSuccess(e -> log.info("Transaction created successfully")));
+        acknowledgment.acknowledge();
     }
 
     @KafkaListener(topics = "${application.config.kafka.topic2.topic-name}", groupId = "${application.config.kafka.topic2.consumer.group-id}",
         containerFactory = "kafkaListenerContainerFactory2")
-    public void listenBootcoinTransactions(String message) throws JsonProcessingException {
-        log.info("Received bootcoin transaction message: {}", message);
-        BootcoinTransactionRequest request = customObjectMapper.stringToObject(message, BootcoinTransactionRequest.class);
-        bootcoinTransactionService.processBootcoinTransaction(request.getId())
-            .doOnSuccess(e -> log.info("Bootcoin transaction proccesed successfully"))
-            .subscribe();
+    public void listenBootcoinTransactions(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        log.info("Received {} bootcoin transaction messages", records.size());
+        processBatch(records, bootcoinInFlight, message ->
+            Mono.fromCallable(() -> customObjectMapper.bytesToObject(message, BootcoinTransactionRequest.class))
+                .flatMap(request -> bootcoinTransactionService.processBootcoinTransaction(request.getId()))
+                .doOnSuccess(e -> log.info("Bootcoin transaction proccesed successfully")));
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Processes a polled batch with at most {@code max-in-flight} records at a time and waits for all of them, at most
+     * {@code batch-timeout}, so the offsets are only acknowledged once the whole batch is settled and the consumer polls
+     * again well within {@code max.poll.interval.ms}. Records that failed or did not complete in time are published to
+     * the dead letter topic of their topic before the batch is acknowledged; if that publication fails the exception
+     * reaches the container error handler and the batch is not acknowledged.
+     *
+     * @param records  Records of the batch
+     * @param inFlight Counter of the records being processed
+     * @param handler  Processing of a single record payload
+     */
+    private void processBatch(List<ConsumerRecord<String, byte[]>> records, AtomicInteger inFlight, Function<byte[], Mono<Void>> handler) {
+        Map<ConsumerRecord<String, byte[]>, Throwable> failures = new ConcurrentHashMap<>();
+        Set<ConsumerRecord<String, byte[]>> completed = ConcurrentHashMap.newKeySet();
+        try {
+            Flux.fromIterable(records)
+                .flatMap(record -> Mono.defer(() -> {
+                    inFlight.incrementAndGet();
+                    return handler.apply(record.value());
+                })
+                    .doOnSuccess(v -> completed.add(record))
+                    .doOnError(e -> log.error("Error processing record {}-{}@{}", record.topic(), record.partition(), record.offset(), e))
+                    .onErrorResume(e -> {
+                        failures.put(record, e);
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> inFlight.decrementAndGet()), maxInFlight)
+                .then()
+                .block(batchTimeout);
+        } catch (IllegalStateException e) {
+            // block timed out and cancelled the records still in flight
+            log.error("Batch of {} records not completed within {}", records.size(), batchTimeout);
+        }
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (!completed.contains(record) && !failures.containsKey(record)) {
+                failures.put(record, new TimeoutException("Record not processed within " + batchTimeout));
+            }
+            Throwable failure = failures.get(record);
+            if (failure != null) {
+                deadLetterRecoverer.accept(record, failure instanceof Exception ? (Exception) failure : new IllegalStateException(failure));
+            }
+        }
     }
 }
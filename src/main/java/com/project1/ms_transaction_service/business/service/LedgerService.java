@@ -0,0 +1,27 @@
+package com.project1.ms_transaction_service.business.service;
+
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+public interface LedgerService {
+    Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> withLedgerBalances(Tuple2<AccountResponse, Optional<AccountResponse>> accounts);
+
+    Mono<AccountResponse> withLedgerBalance(AccountResponse account);
+
+    Mono<Map<String, BigDecimal>> post(AccountTransaction transaction, AccountResponse originAccount, Optional<AccountResponse> destinationAccount);
+
+    Mono<BigDecimal> postDebitCardTransaction(DebitCardTransaction transaction, AccountResponse account);
+
+    Mono<Void> reverse(String transactionId);
+
+    Mono<Boolean> resync(String accountNumber);
+
+    Mono<Long> resyncAll();
+}
@@ -0,0 +1,14 @@
+package com.project1.ms_transaction_service.business.service;
+
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
+import com.project1.ms_transaction_service.model.entity.Transaction;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+public interface OutboxService {
+    <T extends Transaction> Mono<T> withEvent(OutboxEventType eventType, T transaction, Function<T, String> keyOf, Function<T, ?> payloadOf);
+
+    <T extends Transaction> Mono<List<T>> withEvents(OutboxEventType eventType, List<T> transactions, Function<T, String> keyOf, Function<T, ?> payloadOf);
+}
@@ -0,0 +1,47 @@
+package com.project1.ms_transaction_service.business.service.cache;
+
+import com.project1.ms_transaction_service.model.CustomerProductsResponse;
+import lombok.Getter;
+
+/**
+ * Products of a customer together with the strong ETag of their JSON representation
+ */
+@Getter
+public final class CustomerProducts {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private final CustomerProductsResponse response;
+
+    private final String etag;
+
+    public CustomerProducts(CustomerProductsResponse response, String etag) {
+        this.response = response;
+        this.etag = etag;
+    }
+
+    /**
+     * Evaluates an If-None-Match header against the ETag, with the weak comparison the header calls for
+     *
+     * @param ifNoneMatch Header value, a list of entity tags or {@code *}, may be null
+     * @return Whether the client already holds this representation
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if ("*".equals(candidate)) {
+                return true;
+            }
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+            if (etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
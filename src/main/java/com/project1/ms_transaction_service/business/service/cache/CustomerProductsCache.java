@@ -0,0 +1,125 @@
+package com.project1.ms_transaction_service.business.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project1.ms_transaction_service.model.CustomerProductsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Short-lived in-process cache of the composite customer products, keyed by customer id.
+ * DNI and RUC lookups resolve to the customer id through longer-lived alias entries, so the three endpoints share one
+ * entry per customer. Each entry carries the strong ETag of its JSON representation, computed once when it is stored.
+ */
+@Component
+public class CustomerProductsCache {
+
+    public static final String DNI = "dni";
+
+    public static final String RUC = "ruc";
+
+    @Value("${application.config.customer-products-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.config.customer-products-cache.ttl:5s}")
+    private Duration ttl;
+
+    @Value("${application.config.customer-products-cache.alias-ttl:1h}")
+    private Duration aliasTtl;
+
+    @Value("${application.config.customer-products-cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CustomerProducts> productsByCustomerId;
+
+    private Cache<String, String> customerIdsByDocument;
+
+    @PostConstruct
+    public void init() {
+        productsByCustomerId = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+        customerIdsByDocument = Caffeine.newBuilder()
+            .expireAfterWrite(aliasTtl)
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, productsByCustomerId, "customerProducts");
+        CaffeineCacheMetrics.monitor(meterRegistry, customerIdsByDocument, "customerIdsByDocument");
+    }
+
+    public Optional<CustomerProducts> getByCustomerId(String customerId) {
+        if (!enabled || customerId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(productsByCustomerId.getIfPresent(customerId));
+    }
+
+    /**
+     * Looks the products up through the alias of a customer document
+     *
+     * @param documentType {@link #DNI} or {@link #RUC}
+     * @param document     Document number
+     * @return The cached products of the customer holding the document, if any
+     */
+    public Optional<CustomerProducts> getByDocument(String documentType, String document) {
+        if (!enabled || document == null) {
+            return Optional.empty();
+        }
+        return getByCustomerId(customerIdsByDocument.getIfPresent(documentType + ":" + document));
+    }
+
+    /**
+     * Wraps the products with their ETag and caches them under the customer id
+     *
+     * @param response Composite products response
+     * @return The products with their ETag, also when caching is disabled
+     */
+    public CustomerProducts put(CustomerProductsResponse response) {
+        CustomerProducts products = new CustomerProducts(response, etagOf(response));
+        if (enabled && response.getCustomer() != null && response.getCustomer().getId() != null) {
+            productsByCustomerId.put(response.getCustomer().getId(), products);
+        }
+        return products;
+    }
+
+    public void alias(String documentType, String document, String customerId) {
+        if (enabled && document != null && customerId != null) {
+            customerIdsByDocument.put(documentType + ":" + document, customerId);
+        }
+    }
+
+    public void invalidateAll() {
+        productsByCustomerId.invalidateAll();
+        customerIdsByDocument.invalidateAll();
+    }
+
+    private String etagOf(CustomerProductsResponse response) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(response));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not compute the ETag of the customer products", e);
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package com.project1.ms_transaction_service.business.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.project1.ms_transaction_service.business.adapter.AccountService;
+import com.project1.ms_transaction_service.business.adapter.KeyBatcher;
+import com.project1.ms_transaction_service.business.adapter.PatchDeltas;
 import com.project1.ms_transaction_service.business.mapper.AccountTransactionMapper;
 import com.project1.ms_transaction_service.business.service.AccountTransactionService;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.LedgerService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.business.service.lane.ExecutionLanes;
+import com.project1.ms_transaction_service.business.service.metrics.PipelineMetrics;
+import com.project1.ms_transaction_service.business.service.pagination.TransactionCursor;
 import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
 import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.AccountTransactionBatchItemResponse;
 import com.project1.ms_transaction_service.model.AccountTransactionRequest;
 import com.project1.ms_transaction_service.model.AccountTransactionResponse;
 import com.project1.ms_transaction_service.model.entity.*;
 import com.project1.ms_transaction_service.repository.AccountTransactionRepository;
 import com.project1.ms_transaction_service.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -20,13 +37,25 @@ import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class AccountTransactionServiceImpl implements AccountTransactionService {
 
+    private static final String PIPELINE = "account";
+
+    private static final String BATCH_PIPELINE = "account-batch";
+
     @Autowired
     private AccountService accountService;
 
@@ -42,21 +71,196 @@ public class AccountTransactionServiceImpl implements AccountTransactionService
     @Autowired
     private Clock clock;
 
+    @Autowired
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    @Qualifier("accountExecutionLanes")
+    private ExecutionLanes accountExecutionLanes;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${application.config.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${application.config.account-write-coalescing.enabled:false}")
+    private boolean writeCoalescingEnabled;
+
+    @Value("${application.config.account-batch.concurrency:16}")
+    private int batchConcurrency;
+
+    @Value("${application.config.account-batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${application.config.account-batch.chunk-timeout:5ms}")
+    private Duration batchChunkTimeout;
+
+    @Value("${application.config.account-batch.accounts-ttl:1s}")
+    private Duration batchAccountsTtl;
+
+    @Value("${application.config.account-batch.accounts-max-size:10000}")
+    private long batchAccountsMaxSize;
+
     @Override
     public Mono<AccountTransactionResponse> createAccountTransaction(Mono<AccountTransactionRequest> request) {
         return request
-            .flatMap(this::validateTransactionRequest)
-            .flatMap(req ->
-                getOriginAndDestinationAccounts(req)
-                    .flatMap(tuple -> validateAccounts(tuple, req))
-                    .flatMap(this::validateAccountMonthlyMovements)
-                    .flatMap(tuple -> validateAccountBalance(tuple, req))
-                    .flatMap(tuple -> processTransaction(tuple, req)))
+            .flatMap(req -> validateTransactionRequest(req)
+                .transform(pipelineMetrics.stage(PIPELINE, "validate-request", req.getType()))
+                .flatMap(r -> accountExecutionLanes.execute(Arrays.asList(r.getOriginAccountNumber(), r.getDestinationAccountNumber()), () ->
+                    getOriginAndDestinationAccounts(r)
+                        .transform(this::withUnacknowledgedUpdates)
+                        .transform(pipelineMetrics.stage(PIPELINE, "fetch-accounts", r.getType()))
+                        .flatMap(tuple -> withLedgerBalances(tuple, PIPELINE, r.getType()))
+                        .flatMap(tuple -> validateAccountRules(tuple, r)
+                            .transform(pipelineMetrics.stage(PIPELINE, "validate-accounts", r.getType())))
+                        .flatMap(tuple -> submitTransaction(tuple, r)))
+                    .flatMap(Function.identity()))
+                .transform(pipelineMetrics.pipeline(PIPELINE, req.getType())))
             .map(accountTransactionMapper::getAccountTransactionResponse)
             .doOnSuccess(t -> log.info("Transaction created: {}", t.getId()))
             .doOnError(e -> log.error("Error creating transaction", e));
     }
 
+    /**
+     * Creates a stream of account transactions.
+     * Items are validated, persisted and posted to their accounts with bounded concurrency, serialized per account
+     * through the account lanes, and each account is looked up once per batch: later items see the balances left by
+     * earlier ones. A validated item is persisted before its balances are applied, with the items of concurrent lanes
+     * inserted together in chunks, so an account is never updated for a transaction that was not stored.
+     *
+     * @param requests Stream of transaction requests
+     * @return Flux with one result per request, in completion order
+     */
+    @Override
+    public Flux<AccountTransactionBatchItemResponse> createAccountTransactions(Flux<AccountTransactionRequest> requests) {
+        Batch batch = new Batch();
+        return requests
+            .index()
+            .flatMap(item -> postBatchItem(item.getT1(), item.getT2(), batch), batchConcurrency)
+            .doOnError(e -> log.error("Error creating transaction batch", e));
+    }
+
+    /**
+     * Runs the validation chain for one batch item, persists it and posts it to its accounts
+     *
+     * @param index   Position of the item in the batch
+     * @param request The transaction request
+     * @param batch   State shared by the items of the batch
+     * @return Mono with the result of the item: CREATED, REJECTED before anything was written, or UNKNOWN when the
+     * transaction may be stored without its balances applied
+     */
+    private Mono<AccountTransactionBatchItemResponse> postBatchItem(long index, AccountTransactionRequest request, Batch batch) {
+        return validateTransactionRequest(request)
+            .flatMap(req -> accountExecutionLanes.execute(Arrays.asList(req.getOriginAccountNumber(), req.getDestinationAccountNumber()), () ->
+                getOriginAndDestinationAccounts(req, batch::getAccount)
+                    .transform(this::withUnacknowledgedUpdates)
+                    .transform(pipelineMetrics.stage(BATCH_PIPELINE, "fetch-accounts", req.getType()))
+                    .flatMap(tuple -> withLedgerBalances(tuple, BATCH_PIPELINE, req.getType()))
+                    .flatMap(tuple -> validateAccountRules(tuple, req)
+                        .transform(pipelineMetrics.stage(BATCH_PIPELINE, "validate-accounts", req.getType())))
+                    .flatMap(tuple -> postBatchTransaction(tuple, req, batch))))
+            .transform(pipelineMetrics.pipeline(BATCH_PIPELINE, request.getType()))
+            .map(transaction -> accountTransactionMapper.getAccountTransactionBatchItemResponse(index, transaction))
+            .onErrorResume(e -> Mono.just(e instanceof UnsettledBatchItemException
+                ? accountTransactionMapper.getUnknownAccountTransactionBatchItemResponse(index, ((UnsettledBatchItemException) e).transaction, e.getMessage())
+                : accountTransactionMapper.getRejectedAccountTransactionBatchItemResponse(index, e.getMessage())));
+    }
+
+    /**
+     * Persists a validated batch transaction with its chunk, then updates its balances and records the updated accounts
+     * in the batch
+     *
+     * @param accounts Tuple containing origin account and optional destination account
+     * @param req      Transaction request details
+     * @param batch    State shared by the items of the batch
+     * @return Mono with the posted transaction, failing with {@link UnsettledBatchItemException} once anything may have
+     * been written
+     */
+    private Mono<AccountTransaction> postBatchTransaction(Tuple2<AccountResponse, Optional<AccountResponse>> accounts, AccountTransactionRequest req,
+                                                          Batch batch) {
+        AccountTransaction transaction = accountTransactionMapper.getAccountTransactionEntity(req, accounts.getT1());
+        transaction.setId(new ObjectId().toHexString());
+        return batch.persist(transaction)
+            .transform(pipelineMetrics.stage(BATCH_PIPELINE, "persist-chunk", req.getType()))
+            .onErrorMap(e -> new UnsettledBatchItemException(transaction, "Transaction may have been persisted, its balances were not applied", e))
+            .flatMap(savedTransaction -> applyBatchTransaction(accounts, savedTransaction, req, batch)
+                .transform(pipelineMetrics.stage(BATCH_PIPELINE, "update-accounts", req.getType()))
+                .onErrorMap(e -> new UnsettledBatchItemException(savedTransaction,
+                    "Transaction persisted, its balances may not have been applied: " + e.getMessage(), e))
+                .thenReturn(savedTransaction));
+    }
+
+    /**
+     * Applies the balances of a persisted batch transaction
+     *
+     * @param accounts    Tuple containing origin account and optional destination account
+     * @param transaction The persisted transaction
+     * @param req         Transaction request details
+     * @param batch       State shared by the items of the batch
+     * @return Mono completing once the balances are applied
+     */
+    private Mono<Void> applyBatchTransaction(Tuple2<AccountResponse, Optional<AccountResponse>> accounts, AccountTransaction transaction,
+                                             AccountTransactionRequest req, Batch batch) {
+        if (ledgerEnabled) {
+            return postToLedger(accounts, transaction, BATCH_PIPELINE, req.getType())
+                .flatMap(balances -> recordLedgerBalances(accounts, balances, BATCH_PIPELINE, req.getType()));
+        }
+        Mono<Void> destinationUpdate = Mono.defer(() -> accounts.getT2()
+            .filter(destinationAccount -> AccountTransactionType.TRANSFER.toString().equals(req.getType()))
+            .map(destinationAccount -> updateBatchAccountBalance(req.getDestinationAccountNumber(), destinationAccount, transaction, false, batch))
+            .orElseGet(Mono::empty));
+
+        return updateBatchAccountBalance(req.getOriginAccountNumber(), accounts.getT1(), transaction, true, batch)
+            .then(destinationUpdate);
+    }
+
+    /**
+     * Updates the account balance and keeps the batch view of the account in sync with the update
+     *
+     * @param accountNumber Number the batch looked the account up by
+     * @param account       The account to update
+     * @param transaction   The transaction details
+     * @param isOrigin      Whether this is the origin account in a transfer
+     * @param batch         State shared by the items of the batch
+     * @return Mono completing once the account is updated
+     */
+    private Mono<Void> updateBatchAccountBalance(String accountNumber, AccountResponse account, AccountTransaction transaction, boolean isOrigin,
+                                                 Batch batch) {
+        AccountPatchRequest accountPatchRequest = accountTransactionMapper.getAccountPatchRequest(transaction, isOrigin);
+        return accountService.updateAccount(account, accountPatchRequest)
+            .doOnNext(updatedAccount -> batch.accounts.put(accountNumber, Mono.just(updatedAccount)))
+            .switchIfEmpty(Mono.fromRunnable(() -> batch.accounts.invalidate(accountNumber)))
+            .doOnError(e -> batch.accounts.invalidate(accountNumber))
+            .flatMap(updatedAccount -> dailyBalanceService.recordAccountBalance(account, updatedAccount.getBalance()));
+    }
+
+    /**
+     * Persists a chunk of batch transactions, together with their outbox events, with a single bulk insert
+     *
+     * @param ids     Ids of the transactions of the chunk
+     * @param unsaved Transactions waiting for their chunk, by id
+     * @return Flux with the persisted transactions
+     */
+    private Flux<AccountTransaction> persistBatchChunk(Set<String> ids, Map<String, AccountTransaction> unsaved) {
+        List<AccountTransaction> transactions = ids.stream()
+            .map(unsaved::remove)
+            .collect(Collectors.toList());
+        return outboxService.withEvents(OutboxEventType.ACCOUNT_TRANSACTION_POSTED, transactions, AccountTransaction::getOriginAccountNumber,
+                accountTransactionMapper::getAccountTransactionResponse)
+            .flatMapMany(chunk -> accountTransactionRepository.insert(chunk))
+            .doOnError(e -> log.error("Error persisting a chunk of {} batch transactions", transactions.size(), e));
+    }
+
     /**
      * Validates the transaction request based on transaction type
      *
@@ -80,28 +284,52 @@ public class AccountTransactionServiceImpl implements AccountTransactionService
      * @return Mono containing a tuple of origin and destination account responses
      */
     private Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> getOriginAndDestinationAccounts(AccountTransactionRequest request) {
-        Mono<AccountResponse> originAccountMono = accountService.getAccountByAccountNumber(request.getOriginAccountNumber());
+        return getOriginAndDestinationAccounts(request, accountService::getAccountByAccountNumber);
+    }
+
+    private Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> getOriginAndDestinationAccounts(AccountTransactionRequest request,
+                                                                                                     Function<String, Mono<AccountResponse>> lookup) {
+        Mono<AccountResponse> originAccountMono = lookup.apply(request.getOriginAccountNumber());
         Mono<Optional<AccountResponse>> destionationAccountMono = Mono.just(Optional.empty());
         if (request.getDestinationAccountNumber() != null) {
-            destionationAccountMono = accountService.getAccountByAccountNumber(request.getDestinationAccountNumber())
+            destionationAccountMono = lookup.apply(request.getDestinationAccountNumber())
                 .map(Optional::ofNullable);
         }
         return Mono.zip(originAccountMono, destionationAccountMono);
     }
 
     /**
-     * Retrieves all transactions for a given account number
+     * Retrieves the transactions of a given account number, newest first
      *
      * @param accountNumber The account number to get transactions for
+     * @param limit         Maximum number of transactions, or null to stream the whole history
+     * @param cursor        Continuation token of the previous page, or null to start from the newest transaction
      * @return Flux of transaction responses associated with the account
      */
     @Override
-    public Flux<AccountTransactionResponse> getTransactionsByAccountNumber(String accountNumber) {
-        return accountService.getAccountByAccountNumber(accountNumber)
-            .flatMapMany(account ->
-                accountTransactionRepository.findAllByOriginAccountNumber(accountNumber)
-                    .map(accountTransactionMapper::getAccountTransactionResponse)
-            );
+    public Flux<AccountTransactionResponse> getTransactionsByAccountNumber(String accountNumber, Integer limit, String cursor) {
+        Pageable page = TransactionCursor.pageOf(limit);
+        return accountService.getAccountReferenceByAccountNumber(accountNumber)
+            .flatMapMany(account -> cursor == null
+                ? accountTransactionRepository.findAllByOriginAccountNumberOrderByDateDescIdDesc(accountNumber, page)
+                : Mono.fromCallable(() -> TransactionCursor.decode(cursor))
+                    .flatMapMany(position ->
+                        accountTransactionRepository.findAllByOriginAccountNumberBeforeCursor(accountNumber, position.getDate(), position.getId(), page)))
+            .map(accountTransactionMapper::getAccountTransactionResponse);
+    }
+
+    /**
+     * Runs the account status, monthly movements and balance validations of a transaction
+     *
+     * @param tuple Tuple containing origin and optional destination account responses
+     * @param req   The transaction request
+     * @return Mono containing validated accounts tuple
+     */
+    private Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> validateAccountRules(Tuple2<AccountResponse, Optional<AccountResponse>> tuple,
+                                                                                          AccountTransactionRequest req) {
+        return validateAccounts(tuple, req)
+            .flatMap(this::validateAccountMonthlyMovements)
+            .flatMap(validated -> validateAccountBalance(validated, req));
     }
 
     /**
@@ -208,9 +436,75 @@ public class AccountTransactionServiceImpl implements AccountTransactionService
         return Mono.just(tuple);
     }
 
+    /**
+     * Processes a transaction within the account lanes. With write coalescing the lanes are released once the balance
+     * updates are submitted instead of acknowledged, so the next transactions of the same accounts can be merged into
+     * the pending writes, and the transaction completes outside the lanes once its updates are acknowledged. The
+     * destination update of a transfer is only submitted once the origin update succeeds, so a failed debit never
+     * credits the destination; pending credits are not counted by validations, so submitting it after the lanes are
+     * released admits nothing the acknowledged state would not.
+     *
+     * @param accounts Tuple containing origin account and optional destination account
+     * @param req      Transaction request details
+     * @return Mono, completing within the lanes, with the Mono of the processed transaction
+     */
+    private Mono<Mono<AccountTransaction>> submitTransaction(Tuple2<AccountResponse, Optional<AccountResponse>> accounts, AccountTransactionRequest req) {
+        if (!writeCoalescingEnabled || ledgerEnabled) {
+            return processTransaction(accounts, req).map(Mono::just);
+        }
+        AccountTransaction transaction = accountTransactionMapper.getAccountTransactionEntity(req, accounts.getT1());
+        return saveTransaction(transaction, req.getType())
+            .map(savedTransaction -> {
+                Mono<AccountTransaction> destinationUpdate = accounts.getT2()
+                    .filter(destinationAccount -> AccountTransactionType.TRANSFER.toString().equals(req.getType()))
+                    .map(destinationAccount -> Mono.defer(() -> updateAccountBalance(destinationAccount, savedTransaction, false, req.getType())))
+                    .orElseGet(() -> Mono.just(savedTransaction));
+                return submitted(updateAccountBalance(accounts.getT1(), savedTransaction, true, req.getType())
+                    .then(destinationUpdate));
+            });
+    }
+
+    /**
+     * Subscribes to an update right away, so its first write is submitted while the lanes are still held, and replays
+     * its outcome
+     *
+     * @param update The update
+     * @return Mono with the outcome of the update
+     */
+    private static <T> Mono<T> submitted(Mono<T> update) {
+        Mono<T> outcome = update.cache();
+        // the caller gets the error through the returned Mono
+        outcome.onErrorResume(e -> Mono.empty()).subscribe();
+        return outcome;
+    }
+
+    /**
+     * Applies the updates of the accounts not acknowledged yet to the accounts a transaction is validated against. The
+     * updates are snapshot before the accounts are read: an update acknowledged during the read is then counted even if
+     * the read missed it, at worst twice, while no update of the accounts can be submitted during the read since the
+     * lanes are held.
+     *
+     * @param accounts Mono with the tuple containing origin account and optional destination account
+     * @return Mono with the accounts as they are once their pending updates land, counting pending debits only
+     */
+    private Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> withUnacknowledgedUpdates(
+        Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> accounts) {
+        if (!writeCoalescingEnabled || ledgerEnabled) {
+            return accounts;
+        }
+        return Mono.defer(() -> {
+            Map<String, List<AccountPatchRequest>> unacknowledged = accountService.getUnacknowledgedUpdates();
+            Function<AccountResponse, AccountResponse> pending = account ->
+                PatchDeltas.withUnacknowledged(account, unacknowledged.getOrDefault(account.getId(), List.of()));
+            return accounts.map(tuple -> Tuples.of(pending.apply(tuple.getT1()), tuple.getT2().map(pending)));
+        });
+    }
+
     /**
      * Processes a transaction by saving it and updating account balances.
      * For transfers, updates both origin and destination account balances.
+     * In ledger mode the transaction is posted to the ledger first, and only saved once its balances are applied; the
+     * posting is reversed if the save fails.
      *
      * @param accounts Tuple containing origin account and optional destination account
      * @param req      Transaction request details
@@ -220,13 +514,21 @@ public class AccountTransactionServiceImpl implements AccountTransactionService
         AccountResponse originAccount = accounts.getT1();
         AccountTransaction transaction = accountTransactionMapper.getAccountTransactionEntity(req, originAccount);
 
-        return accountTransactionRepository.save(transaction)
-            .flatMap(savedTransaction -> updateAccountBalance(originAccount, savedTransaction, true))
+        if (ledgerEnabled) {
+            transaction.setId(new ObjectId().toHexString());
+            return postToLedger(accounts, transaction, PIPELINE, req.getType())
+                .flatMap(balances -> saveTransaction(transaction, req.getType())
+                    .onErrorResume(e -> ledgerService.reverse(transaction.getId()).then(Mono.error(e)))
+                    .delayUntil(savedTransaction -> recordLedgerBalances(accounts, balances, PIPELINE, req.getType())));
+        }
+
+        return saveTransaction(transaction, req.getType())
+            .flatMap(savedTransaction -> updateAccountBalance(originAccount, savedTransaction, true, req.getType()))
             .flatMap(savedTransaction -> {
                 if (AccountTransactionType.TRANSFER.toString().equals(req.getType())) {
                     Optional<AccountResponse> destinationAccountOptional = accounts.getT2();
                     return destinationAccountOptional.map(destinationAccount ->
-                            updateAccountBalance(destinationAccount, savedTransaction, false)
+                            updateAccountBalance(destinationAccount, savedTransaction, false, req.getType())
                         )
                         .orElseGet(() -> Mono.just(transaction));
                 } else {
@@ -235,18 +537,129 @@ public class AccountTransactionServiceImpl implements AccountTransactionService
             });
     }
 
+    /**
+     * Saves the transaction together with its outbox event
+     *
+     * @param transaction The transaction to save
+     * @param type        Transaction type of the request
+     * @return Mono containing the saved transaction
+     */
+    private Mono<AccountTransaction> saveTransaction(AccountTransaction transaction, String type) {
+        return outboxService.withEvent(OutboxEventType.ACCOUNT_TRANSACTION_POSTED, transaction, AccountTransaction::getOriginAccountNumber,
+                accountTransactionMapper::getAccountTransactionResponse)
+            .flatMap(accountTransactionRepository::save)
+            .transform(pipelineMetrics.stage(PIPELINE, "save", type));
+    }
+
+    /**
+     * Replaces the balances of the accounts by their ledger balances when ledger mode is enabled
+     *
+     * @param accounts Tuple containing origin account and optional destination account
+     * @param pipeline Pipeline the lookup is timed in
+     * @param type     Transaction type of the request
+     * @return Mono containing the accounts to validate the transaction against
+     */
+    private Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> withLedgerBalances(Tuple2<AccountResponse, Optional<AccountResponse>> accounts,
+                                                                                        String pipeline, String type) {
+        if (!ledgerEnabled) {
+            return Mono.just(accounts);
+        }
+        return ledgerService.withLedgerBalances(accounts)
+            .transform(pipelineMetrics.stage(pipeline, "read-ledger", type));
+    }
+
+    /**
+     * Posts the transaction to the ledger
+     *
+     * @param accounts    Tuple containing origin account and optional destination account
+     * @param transaction The transaction, with its id already assigned
+     * @param pipeline    Pipeline the posting is timed in
+     * @param type        Transaction type of the request
+     * @return Mono with the balance of every posted account after the transaction, by account number
+     */
+    private Mono<Map<String, BigDecimal>> postToLedger(Tuple2<AccountResponse, Optional<AccountResponse>> accounts, AccountTransaction transaction,
+                                                       String pipeline, String type) {
+        return ledgerService.post(transaction, accounts.getT1(), accounts.getT2())
+            .transform(pipelineMetrics.stage(pipeline, "post-ledger", type));
+    }
+
+    /**
+     * Records the balances a ledger posting left its accounts with
+     *
+     * @param accounts Tuple containing origin account and optional destination account
+     * @param balances Balance of every posted account, by account number
+     * @param pipeline Pipeline the recording is timed in
+     * @param type     Transaction type of the request
+     * @return Mono completing once the balances are recorded
+     */
+    private Mono<Void> recordLedgerBalances(Tuple2<AccountResponse, Optional<AccountResponse>> accounts, Map<String, BigDecimal> balances,
+                                            String pipeline, String type) {
+        return Flux.concat(Mono.just(accounts.getT1()), Mono.justOrEmpty(accounts.getT2()))
+            .filter(account -> balances.containsKey(account.getAccountNumber()))
+            .distinct(AccountResponse::getAccountNumber)
+            .concatMap(account -> dailyBalanceService.recordAccountBalance(account, balances.get(account.getAccountNumber())))
+            .then()
+            .transform(pipelineMetrics.stage(pipeline, "record-daily-balance", type));
+    }
+
     /**
      * Updates the account balance and returns the transaction
      *
      * @param account     The account to update
      * @param transaction The transaction details
      * @param isOrigin    Whether this is the origin account in a transfer
+     * @param type        Transaction type of the request
      * @return Mono containing the transaction
      */
-    private Mono<AccountTransaction> updateAccountBalance(AccountResponse account, AccountTransaction transaction, boolean isOrigin) {
-        return accountService.updateAccount(
-                account.getId(),
-                accountTransactionMapper.getAccountPatchRequest(transaction, account, isOrigin))
+    private Mono<AccountTransaction> updateAccountBalance(AccountResponse account, AccountTransaction transaction, boolean isOrigin, String type) {
+        AccountPatchRequest accountPatchRequest = accountTransactionMapper.getAccountPatchRequest(transaction, isOrigin);
+        return accountService.updateAccount(account, accountPatchRequest)
+            .transform(pipelineMetrics.stage(PIPELINE, isOrigin ? "update-origin" : "update-destination", type))
+            .flatMap(updatedAccount -> dailyBalanceService.recordAccountBalance(account, updatedAccount.getBalance())
+                .transform(pipelineMetrics.stage(PIPELINE, "record-daily-balance", type)))
             .thenReturn(transaction);
     }
+
+    /**
+     * State shared by the items of one batch
+     */
+    private final class Batch {
+        /**
+         * Accounts already looked up by the batch, by account number. Bounded, and expiring so long batches go back to
+         * the account service for accounts other requests may have updated meanwhile.
+         */
+        private final Cache<String, Mono<AccountResponse>> accounts = Caffeine.newBuilder()
+            .expireAfterWrite(batchAccountsTtl)
+            .maximumSize(batchAccountsMaxSize)
+            .build();
+
+        private final Map<String, AccountTransaction> unsaved = new ConcurrentHashMap<>();
+
+        private final KeyBatcher<String, AccountTransaction> chunks = new KeyBatcher<>("account-transaction", "insert", batchChunkTimeout,
+            batchChunkSize, ids -> persistBatchChunk(ids, unsaved), AccountTransaction::getId, meterRegistry);
+
+        private Mono<AccountResponse> getAccount(String accountNumber) {
+            return accounts.get(accountNumber, n -> accountService.getAccountByAccountNumber(n).cache())
+                .doOnError(e -> accounts.invalidate(accountNumber));
+        }
+
+        private Mono<AccountTransaction> persist(AccountTransaction transaction) {
+            return Mono.defer(() -> {
+                unsaved.put(transaction.getId(), transaction);
+                return chunks.load(transaction.getId());
+            }).switchIfEmpty(Mono.error(() -> new IllegalStateException("Transaction " + transaction.getId() + " was not returned by its chunk")));
+        }
+    }
+
+    /**
+     * A batch item failed once its transaction may have been written
+     */
+    private static final class UnsettledBatchItemException extends RuntimeException {
+        private final AccountTransaction transaction;
+
+        private UnsettledBatchItemException(AccountTransaction transaction, String message, Throwable cause) {
+            super(message, cause);
+            this.transaction = transaction;
+        }
+    }
 }
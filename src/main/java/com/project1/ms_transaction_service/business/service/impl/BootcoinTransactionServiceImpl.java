@@ -66,11 +66,10 @@ public class BootcoinTransactionServiceImpl implements BootcoinTransactionServic
                             .doOnError(t -> log.error("Error updating exchange request", t));
                     }
 
-                    BigDecimal newOwnerYankiWalletBalance = yankiWallet.getBalance().subtract(totalAmount);
                     UpdateYankiWalletRequest updateOwnerYankiWalletRequest = new UpdateYankiWalletRequest();
-                    updateOwnerYankiWalletRequest.balance(newOwnerYankiWalletBalance);
+                    updateOwnerYankiWalletRequest.balanceDelta(totalAmount.negate());
 
-                    return yankiService.updateYankiWallet(yankiWallet.getId(), updateOwnerYankiWalletRequest)
+                    return yankiService.updateYankiWallet(yankiWallet, updateOwnerYankiWalletRequest)
                         .doOnError(e -> log.error("Error updating yanki wallet"))
                         .then(Mono.just(exchangeRequest))
                         .onErrorResume(e -> Mono.error(new BadRequestException("Error updating yanki wallet")));
@@ -96,23 +95,20 @@ public class BootcoinTransactionServiceImpl implements BootcoinTransactionServic
 
     public Mono<Tuple2<Void, Void>> updateBootcoinWallets(CreateBootcoinWalletResponse requestOwnerWallet, CreateBootcoinWalletResponse requestAccepterWallet,
                                                           GetExchangeRequestByTransactionIdResponse exchangeRequest) {
-        BigDecimal newOwnerWalletBalance = requestOwnerWallet.getBalance().add(exchangeRequest.getAmount());
-        BigDecimal newAccepterWalletBalance = requestAccepterWallet.getBalance().subtract(exchangeRequest.getAmount());
-
         UpdateBootcoinWalletRequest updateOwnerWalletRequest = new UpdateBootcoinWalletRequest();
-        updateOwnerWalletRequest.balance(newOwnerWalletBalance);
+        updateOwnerWalletRequest.balanceDelta(exchangeRequest.getAmount());
 
         UpdateBootcoinWalletRequest updateAccepterWalletRequest = new UpdateBootcoinWalletRequest();
-        updateAccepterWalletRequest.balance(newAccepterWalletBalance);
+        updateAccepterWalletRequest.balanceDelta(exchangeRequest.getAmount().negate());
 
         log.info("Updating bootcoin wallets");
 
         return Mono.zip(
-                bootcoinService.updateBootcoinWallet(requestOwnerWallet.getId(), updateOwnerWalletRequest)
+                bootcoinService.updateBootcoinWallet(requestOwnerWallet, updateOwnerWalletRequest)
                     .doOnSubscribe(__ -> log.info("Subscribing to update owner wallet"))
                     .doOnSuccess(__ -> log.info("Owner wallet updated successfully"))
                     .doOnError(e -> log.error("Error updating owner wallet", e)),
-                bootcoinService.updateBootcoinWallet(requestAccepterWallet.getId(), updateAccepterWalletRequest)
+                bootcoinService.updateBootcoinWallet(requestAccepterWallet, updateAccepterWalletRequest)
                     .doOnSubscribe(__ -> log.info("Subscribing to update accepter wallet"))
                     .doOnSuccess(__ -> log.info("Accepter wallet updated successfully"))
                     .doOnError(e -> log.error("Error updating accepter wallet", e))
@@ -4,14 +4,20 @@ import com.project1.ms_transaction_service.business.adapter.CreditCardService;
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
 import com.project1.ms_transaction_service.business.mapper.CreditCardTransactionMapper;
 import com.project1.ms_transaction_service.business.service.CreditCardTransactionService;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.business.service.metrics.PipelineMetrics;
+import com.project1.ms_transaction_service.business.service.pagination.TransactionCursor;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.CreditCardCustomerMismatchException;
 import com.project1.ms_transaction_service.model.*;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransaction;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransactionType;
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
 import com.project1.ms_transaction_service.repository.CreditCardTransactionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -25,6 +31,8 @@ import java.util.Optional;
 @Slf4j
 public class CreditCardTransactionServiceImpl implements CreditCardTransactionService {
 
+    private static final String PIPELINE = "credit-card";
+
     @Autowired
     private CreditCardTransactionMapper creditCardTransactionMapper;
 
@@ -37,30 +45,45 @@ public class CreditCardTransactionServiceImpl implements CreditCardTransactionSe
     @Autowired
     private CreditCardTransactionRepository creditCardTransactionRepository;
 
+    @Autowired
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private OutboxService outboxService;
+
     @Override
     public Mono<CreditCardTransactionResponse> createCreditCardTransaction(Mono<CreditCardTransactionRequest> request) {
         return request
-            .flatMap(this::validateAndGetCreditCard)
-            .flatMap(this::validateCustomer)
-            .flatMap(this::validateCreditCardUsageLimit)
-            .flatMap(tuple -> {
-                CreditCardTransactionRequest req = tuple.getT1();
-                if (CreditCardTransactionType.USAGE.toString().equals(req.getType())) {
-                    return processUsageTransaction(tuple);
-                } else {
-                    return processPaymentTransaction(tuple);
-                }
-            })
+            .flatMap(req -> validateAndGetCreditCard(req)
+                .transform(pipelineMetrics.stage(PIPELINE, "fetch-credit-card", req.getType()))
+                .flatMap(tuple -> validateCustomer(tuple)
+                    .transform(pipelineMetrics.stage(PIPELINE, "validate-customer", req.getType())))
+                .flatMap(tuple -> validateCreditCardUsageLimit(tuple)
+                    .transform(pipelineMetrics.stage(PIPELINE, "validate-limit", req.getType())))
+                .flatMap(tuple -> {
+                    if (CreditCardTransactionType.USAGE.toString().equals(req.getType())) {
+                        return processUsageTransaction(tuple);
+                    } else {
+                        return processPaymentTransaction(tuple);
+                    }
+                })
+                .transform(pipelineMetrics.pipeline(PIPELINE, req.getType())))
             .map(creditCardTransactionMapper::getCreditCardTransactionResponse);
     }
 
     @Override
-    public Flux<CreditCardTransactionResponse> getCreditCardTransactionsById(String originAccountId) {
+    public Flux<CreditCardTransactionResponse> getCreditCardTransactionsById(String originAccountId, Integer limit, String cursor) {
+        Pageable page = TransactionCursor.pageOf(limit);
         return creditCardService.getCreditCardById(originAccountId)
-            .flatMapMany(account ->
-                creditCardTransactionRepository.findAllByCreditCardId(originAccountId)
-                    .map(creditCardTransactionMapper::getCreditCardTransactionResponse)
-            );
+            .flatMapMany(account -> cursor == null
+                ? creditCardTransactionRepository.findAllByCreditCardIdOrderByDateDescIdDesc(originAccountId, page)
+                : Mono.fromCallable(() -> TransactionCursor.decode(cursor))
+                    .flatMapMany(position ->
+                        creditCardTransactionRepository.findAllByCreditCardIdBeforeCursor(originAccountId, position.getDate(), position.getId(), page)))
+            .map(creditCardTransactionMapper::getCreditCardTransactionResponse);
     }
 
     /**
@@ -144,14 +167,8 @@ public class CreditCardTransactionServiceImpl implements CreditCardTransactionSe
         CreditCardTransactionRequest request = tuple.getT1();
         CreditCardResponse card = tuple.getT2();
 
-        return creditCardTransactionRepository.save(creditCardTransactionMapper.getCreditCardUsageTransactionEntity(request))
-            .flatMap(transaction -> {
-                BigDecimal newAmount = card.getUsedAmount();
-                if (newAmount != null) {
-                    newAmount = card.getUsedAmount().add(request.getAmount());
-                }
-                return updateCreditCardAmount(card, newAmount).thenReturn(transaction);
-            });
+        return saveWithEvent(creditCardTransactionMapper.getCreditCardUsageTransactionEntity(request), request.getType())
+            .flatMap(transaction -> updateCreditCardAmount(card, request.getAmount(), request.getType()).thenReturn(transaction));
     }
 
     /**
@@ -164,28 +181,33 @@ public class CreditCardTransactionServiceImpl implements CreditCardTransactionSe
         CreditCardTransactionRequest request = tuple.getT1();
         CreditCardResponse card = tuple.getT2();
 
-        return creditCardTransactionRepository.save(creditCardTransactionMapper.getCreditCardPaymentTransactionEntity(request))
-            .flatMap(transaction -> {
-                BigDecimal newAmount = card.getUsedAmount();
-                if (newAmount != null) {
-                    newAmount = card.getUsedAmount().subtract(request.getAmount());
-                }
-                return updateCreditCardAmount(card, newAmount).thenReturn(transaction);
-            });
+        return saveWithEvent(creditCardTransactionMapper.getCreditCardPaymentTransactionEntity(request), request.getType())
+            .flatMap(transaction -> updateCreditCardAmount(card, request.getAmount().negate(), request.getType()).thenReturn(transaction));
+    }
+
+    private Mono<CreditCardTransaction> saveWithEvent(CreditCardTransaction transaction, String type) {
+        return outboxService.withEvent(OutboxEventType.CREDIT_CARD_TRANSACTION_POSTED, transaction, CreditCardTransaction::getCreditCardId,
+                creditCardTransactionMapper::getCreditCardTransactionResponse)
+            .flatMap(creditCardTransactionRepository::save)
+            .transform(pipelineMetrics.stage(PIPELINE, "save", type));
     }
 
     /**
      * Updates the used amount of a credit card by adding the specified amount.
      *
-     * @param card          The credit card response object containing current card information
-     * @param newUsedAmount The new used amount of the credit card
+     * @param card            The credit card response object containing current card information
+     * @param usedAmountDelta Amount to add to the used amount of the credit card, negative for payments
+     * @param type            Transaction type of the request
      * @return A Mono containing the updated credit card response
      */
-    private Mono<CreditCardResponse> updateCreditCardAmount(CreditCardResponse card, BigDecimal newUsedAmount) {
+    private Mono<CreditCardResponse> updateCreditCardAmount(CreditCardResponse card, BigDecimal usedAmountDelta, String type) {
         CreditCardPatchRequest patchRequest = new CreditCardPatchRequest();
         if (card.getUsedAmount() != null) {
-            patchRequest.setUsedAmount(newUsedAmount);
+            patchRequest.setUsedAmountDelta(usedAmountDelta);
         }
-        return creditCardService.updateCreditCard(card.getId(), patchRequest);
+        return creditCardService.updateCreditCard(card, patchRequest)
+            .transform(pipelineMetrics.stage(PIPELINE, "update-credit-card", type))
+            .delayUntil(updatedCard -> dailyBalanceService.recordCreditCardBalance(card, updatedCard.getUsedAmount())
+                .transform(pipelineMetrics.stage(PIPELINE, "record-daily-balance", type)));
     }
 }
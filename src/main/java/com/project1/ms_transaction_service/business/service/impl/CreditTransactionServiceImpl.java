@@ -4,15 +4,22 @@ import com.project1.ms_transaction_service.business.adapter.CreditService;
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
 import com.project1.ms_transaction_service.business.mapper.CreditTransactionMapper;
 import com.project1.ms_transaction_service.business.service.CreditTransactionService;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.business.service.metrics.PipelineMetrics;
+import com.project1.ms_transaction_service.business.service.pagination.TransactionCursor;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.model.CreditPatchRequest;
 import com.project1.ms_transaction_service.model.CreditPaymentTransactionRequest;
 import com.project1.ms_transaction_service.model.CreditPaymentTransactionResponse;
 import com.project1.ms_transaction_service.model.CreditResponse;
 import com.project1.ms_transaction_service.model.entity.CreditTransaction;
+import com.project1.ms_transaction_service.model.entity.CreditTransactionType;
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
 import com.project1.ms_transaction_service.repository.CreditTransactionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -25,6 +32,10 @@ import java.math.BigDecimal;
 @Slf4j
 public class CreditTransactionServiceImpl implements CreditTransactionService {
 
+    private static final String PIPELINE = "credit";
+
+    private static final String TYPE = CreditTransactionType.PAYMENT.name();
+
     @Autowired
     private CreditService creditService;
 
@@ -37,23 +48,39 @@ public class CreditTransactionServiceImpl implements CreditTransactionService {
     @Autowired
     private CreditTransactionRepository creditTransactionRepository;
 
+    @Autowired
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private OutboxService outboxService;
+
     @Override
     public Mono<CreditPaymentTransactionResponse> createCreditPaymentTransaction(Mono<CreditPaymentTransactionRequest> request) {
-        return request.flatMap(this::validateAndGetCredit)
-            .flatMap(this::validateCustomer)
-            .flatMap(this::createCreditTransaction)
-            .flatMap(this::saveCreditTransaction)
-            .flatMap(this::updateCredit)
+        return request
+            .flatMap(req -> validateAndGetCredit(req)
+                .transform(pipelineMetrics.stage(PIPELINE, "fetch-credit", TYPE))
+                .flatMap(tuple -> validateCustomer(tuple)
+                    .transform(pipelineMetrics.stage(PIPELINE, "validate-customer", TYPE)))
+                .flatMap(this::createCreditTransaction)
+                .flatMap(tuple -> saveCreditTransaction(tuple)
+                    .transform(pipelineMetrics.stage(PIPELINE, "save", TYPE)))
+                .flatMap(this::updateCredit)
+                .transform(pipelineMetrics.pipeline(PIPELINE, TYPE)))
             .map(creditTransactionMapper::getCreditPaymentTransactionResponse);
     }
 
     @Override
-    public Flux<CreditPaymentTransactionResponse> getCreditTransactionsByCreditId(String creditId) {
+    public Flux<CreditPaymentTransactionResponse> getCreditTransactionsByCreditId(String creditId, Integer limit, String cursor) {
+        Pageable page = TransactionCursor.pageOf(limit);
         return creditService.getCreditById(creditId)
-            .flatMapMany(account ->
-                creditTransactionRepository.findAllByCreditId(creditId)
-                    .map(creditTransactionMapper::getCreditPaymentTransactionResponse)
-            );
+            .flatMapMany(credit -> cursor == null
+                ? creditTransactionRepository.findAllByCreditIdOrderByDateDescIdDesc(creditId, page)
+                : Mono.fromCallable(() -> TransactionCursor.decode(cursor))
+                    .flatMapMany(position -> creditTransactionRepository.findAllByCreditIdBeforeCursor(creditId, position.getDate(), position.getId(), page)))
+            .map(creditTransactionMapper::getCreditPaymentTransactionResponse);
     }
 
     /**
@@ -76,13 +103,15 @@ public class CreditTransactionServiceImpl implements CreditTransactionService {
     }
 
     /**
-     * Saves the credit transaction to repository.
+     * Saves the credit transaction to repository together with its outbox event.
      *
      * @param tuple Tuple containing credit response and transaction entity
      * @return Mono containing tuple of credit response and saved transaction
      */
     private Mono<Tuple2<CreditResponse, CreditTransaction>> saveCreditTransaction(Tuple2<CreditResponse, CreditTransaction> tuple) {
-        return creditTransactionRepository.save(tuple.getT2())
+        return outboxService.withEvent(OutboxEventType.CREDIT_TRANSACTION_POSTED, tuple.getT2(), CreditTransaction::getCreditId,
+                creditTransactionMapper::getCreditPaymentTransactionResponse)
+            .flatMap(creditTransactionRepository::save)
             .map(savedTransaction -> Tuples.of(tuple.getT1(), savedTransaction));
     }
 
@@ -107,6 +136,9 @@ public class CreditTransactionServiceImpl implements CreditTransactionService {
                 patchRequest.setExpectedPaymentToDate(creditResponse.getExpectedPaymentToDate().add(creditResponse.getMonthlyPayment()));
             }
             return creditService.updateCreditById(creditTransaction.getCreditId(), patchRequest)
+                .transform(pipelineMetrics.stage(PIPELINE, "update-credit", TYPE))
+                .delayUntil(cr -> dailyBalanceService.recordCreditBalance(creditTransaction.getCreditId(), creditResponse, newAmountPaid)
+                    .transform(pipelineMetrics.stage(PIPELINE, "record-daily-balance", TYPE)))
                 .map(cr -> creditTransaction);
         }
         return Mono.just(creditTransaction);
@@ -0,0 +1,244 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.CreditCardResponse;
+import com.project1.ms_transaction_service.model.CreditResponse;
+import com.project1.ms_transaction_service.model.CustomerProductsResponse;
+import com.project1.ms_transaction_service.model.entity.BalanceProductType;
+import com.project1.ms_transaction_service.model.entity.DailyBalanceSnapshot;
+import com.project1.ms_transaction_service.model.entity.ProductAverageBalance;
+import com.project1.ms_transaction_service.repository.DailyBalanceSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class DailyBalanceServiceImpl implements DailyBalanceService {
+
+    @Autowired
+    private DailyBalanceSnapshotRepository dailyBalanceSnapshotRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @Override
+    public Mono<Void> recordAccountBalance(AccountResponse account, BigDecimal balance) {
+        return record(BalanceProductType.ACCOUNT, account.getId(), account.getAccountNumber(), account.getCustomerId(), balance);
+    }
+
+    /**
+     * Records the available credit of a credit card, the balance its average is computed on. Nothing is recorded when
+     * the used amount of the card is unknown, rather than recording its whole limit as available.
+     *
+     * @param creditCard The credit card
+     * @param usedAmount Used amount of the card after the posting, null if the card service did not report it
+     * @return Mono completing once the snapshot is written
+     */
+    @Override
+    public Mono<Void> recordCreditCardBalance(CreditCardResponse creditCard, BigDecimal usedAmount) {
+        if (usedAmount == null) {
+            log.warn("Used amount of credit card {} unknown, daily balance not recorded", creditCard.getId());
+            return Mono.empty();
+        }
+        return record(BalanceProductType.CREDIT_CARD, creditCard.getId(), creditCard.getCardNumber(), creditCard.getCustomerId(),
+            availableCredit(creditCard, usedAmount));
+    }
+
+    private static BigDecimal availableCredit(CreditCardResponse creditCard, BigDecimal usedAmount) {
+        return Optional.ofNullable(creditCard.getCreditLimit()).orElse(BigDecimal.ZERO).subtract(usedAmount);
+    }
+
+    @Override
+    public Mono<Void> recordCreditBalance(String creditId, CreditResponse credit, BigDecimal amountPaid) {
+        return record(BalanceProductType.CREDIT, creditId, credit.getIdentifier(), credit.getClientId(), amountPaid);
+    }
+
+    /**
+     * Upserts the closing balance of the product for today. Snapshots are derived data, so a failed write is logged
+     * and never fails the posting that triggered it.
+     *
+     * @param productType       Type of the product
+     * @param productId         Id of the product
+     * @param productIdentifier Number or identifier shown to the customer
+     * @param customerId        Owner of the product
+     * @param balance           Balance of the product after the posting
+     * @return Mono completing once the snapshot is written
+     */
+    private Mono<Void> record(BalanceProductType productType, String productId, String productIdentifier, String customerId, BigDecimal balance) {
+        if (productId == null || customerId == null || balance == null) {
+            return Mono.empty();
+        }
+        LocalDate today = LocalDate.now(clock);
+        Query query = Query.query(Criteria.where("_id").is(productType + ":" + productId + ":" + today));
+        Update update = new Update()
+            .set("closingBalance", balance)
+            .set("productIdentifier", productIdentifier)
+            .set("updatedAt", LocalDateTime.now(clock))
+            .setOnInsert("customerId", customerId)
+            .setOnInsert("productType", productType)
+            .setOnInsert("productId", productId)
+            .setOnInsert("date", today);
+        return reactiveMongoTemplate.upsert(query, update, DailyBalanceSnapshot.class)
+            .doOnError(e -> log.error("Error recording daily balance of {} {}", productType, productId, e))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    /**
+     * Computes the average daily balance of every product of the customer from the first day of the month to today,
+     * from the closing balance snapshots of the month and the last snapshot before it. Products without any snapshot
+     * have not been posted to since snapshots are recorded, so their current balance is their balance for the whole
+     * month: it is used, and stored as their opening snapshot of the month.
+     *
+     * @param customerId Owner of the products
+     * @param products   Current products of the customer
+     * @return Flux with the month-to-date average balance of each product with a known balance
+     */
+    @Override
+    public Flux<ProductAverageBalance> getMonthToDateAverageBalances(String customerId, CustomerProductsResponse products) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        return Flux.concat(
+                dailyBalanceSnapshotRepository.findLatestByCustomerIdBefore(customerId, monthStart),
+                dailyBalanceSnapshotRepository.findAllByCustomerIdAndDateRange(customerId, monthStart, today))
+            .collect(Collectors.groupingBy(snapshot -> snapshot.getProductType() + ":" + snapshot.getProductId()))
+            .flatMapMany(snapshotsByProduct -> {
+                Set<String> snapshotted = snapshotsByProduct.values().stream()
+                    .flatMap(List::stream)
+                    .map(DailyBalanceServiceImpl::identifierKey)
+                    .collect(Collectors.toSet());
+                List<DailyBalanceSnapshot> seeds = openingSnapshots(customerId, products, monthStart.minusDays(1)).stream()
+                    .filter(seed -> !snapshotted.contains(identifierKey(seed)))
+                    .collect(Collectors.toList());
+                return Flux.fromIterable(seeds)
+                    .concatMap(this::seed)
+                    .thenMany(Flux.concat(Flux.fromIterable(snapshotsByProduct.values()), Flux.fromIterable(seeds).map(List::of)));
+            })
+            .map(productSnapshots -> {
+                List<DailyBalanceSnapshot> snapshots = new ArrayList<>(productSnapshots);
+                snapshots.sort(Comparator.comparing(DailyBalanceSnapshot::getDate));
+                DailyBalanceSnapshot latest = snapshots.get(snapshots.size() - 1);
+                return new ProductAverageBalance(latest.getProductType(), latest.getProductIdentifier(),
+                    averageDailyBalance(snapshots, monthStart, today));
+            })
+            .filter(average -> average.getAverageBalance() != null);
+    }
+
+    /**
+     * Snapshots of the current balance of every product with a known balance, credits keyed by their identifier since
+     * the credit service does not return their id
+     *
+     * @param customerId Owner of the products
+     * @param products   Current products of the customer
+     * @param date       Date of the snapshots
+     * @return Snapshots of the current balances
+     */
+    static List<DailyBalanceSnapshot> openingSnapshots(String customerId, CustomerProductsResponse products, LocalDate date) {
+        List<DailyBalanceSnapshot> snapshots = new ArrayList<>();
+        Optional.ofNullable(products.getAccounts()).orElse(List.of()).stream()
+            .filter(account -> account.getBalance() != null)
+            .forEach(account -> snapshots.add(openingSnapshot(BalanceProductType.ACCOUNT, account.getId(), account.getAccountNumber(),
+                customerId, date, account.getBalance())));
+        Optional.ofNullable(products.getCreditCards()).orElse(List.of()).stream()
+            .filter(creditCard -> creditCard.getUsedAmount() != null)
+            .forEach(creditCard -> snapshots.add(openingSnapshot(BalanceProductType.CREDIT_CARD, creditCard.getId(), creditCard.getCardNumber(),
+                customerId, date, availableCredit(creditCard, creditCard.getUsedAmount()))));
+        Optional.ofNullable(products.getCredits()).orElse(List.of()).stream()
+            .filter(credit -> credit.getAmountPaid() != null)
+            .forEach(credit -> snapshots.add(openingSnapshot(BalanceProductType.CREDIT, null, credit.getIdentifier(),
+                customerId, date, credit.getAmountPaid())));
+        return snapshots;
+    }
+
+    private static DailyBalanceSnapshot openingSnapshot(BalanceProductType productType, String productId, String productIdentifier,
+                                                        String customerId, LocalDate date, BigDecimal balance) {
+        return DailyBalanceSnapshot.builder()
+            .id(productId == null ? null : productType + ":" + productId + ":" + date)
+            .customerId(customerId)
+            .productType(productType)
+            .productId(productId)
+            .productIdentifier(productIdentifier)
+            .date(date)
+            .closingBalance(balance)
+            .build();
+    }
+
+    private static String identifierKey(DailyBalanceSnapshot snapshot) {
+        return snapshot.getProductType() + ":" + snapshot.getProductIdentifier();
+    }
+
+    /**
+     * Stores an opening snapshot unless the product got one meanwhile. Snapshots of products without an id are only
+     * used for the current computation.
+     *
+     * @param snapshot The opening snapshot
+     * @return Mono completing once the snapshot is written
+     */
+    private Mono<Void> seed(DailyBalanceSnapshot snapshot) {
+        if (snapshot.getId() == null) {
+            return Mono.empty();
+        }
+        Update update = new Update()
+            .setOnInsert("closingBalance", snapshot.getClosingBalance())
+            .setOnInsert("productIdentifier", snapshot.getProductIdentifier())
+            .setOnInsert("updatedAt", LocalDateTime.now(clock))
+            .setOnInsert("customerId", snapshot.getCustomerId())
+            .setOnInsert("productType", snapshot.getProductType())
+            .setOnInsert("productId", snapshot.getProductId())
+            .setOnInsert("date", snapshot.getDate());
+        return reactiveMongoTemplate.upsert(Query.query(Criteria.where("_id").is(snapshot.getId())), update, DailyBalanceSnapshot.class)
+            .doOnError(e -> log.error("Error seeding daily balance of {} {}", snapshot.getProductType(), snapshot.getProductId(), e))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    /**
+     * Averages the balance of each day of the range, carrying the last known closing balance forward over days without
+     * postings. Days before the first known balance are not counted.
+     *
+     * @param snapshots Snapshots of one product ordered by date, possibly starting before the range
+     * @param from      First day of the range
+     * @param to        Last day of the range
+     * @return Average daily balance, or null when no balance is known in the range
+     */
+    static BigDecimal averageDailyBalance(List<DailyBalanceSnapshot> snapshots, LocalDate from, LocalDate to) {
+        BigDecimal current = null;
+        BigDecimal total = BigDecimal.ZERO;
+        int days = 0;
+        int next = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            while (next < snapshots.size() && !snapshots.get(next).getDate().isAfter(day)) {
+                current = snapshots.get(next++).getClosingBalance();
+            }
+            if (current != null) {
+                total = total.add(current);
+                days++;
+            }
+        }
+        return days == 0 ? null : total.divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP);
+    }
+}
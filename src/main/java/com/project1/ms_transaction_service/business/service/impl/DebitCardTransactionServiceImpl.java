@@ -4,28 +4,38 @@ import com.project1.ms_transaction_service.business.adapter.AccountService;
 import com.project1.ms_transaction_service.business.adapter.DebitCardService;
 import com.project1.ms_transaction_service.business.mapper.AccountTransactionMapper;
 import com.project1.ms_transaction_service.business.mapper.DebitCardTransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
 import com.project1.ms_transaction_service.business.service.DebitCardTransactionService;
+import com.project1.ms_transaction_service.business.service.LedgerService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.business.service.metrics.PipelineMetrics;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.model.*;
 import com.project1.ms_transaction_service.model.entity.AccountStatus;
 import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
 import com.project1.ms_transaction_service.repository.DebitCardTransactionRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class DebitCardTransactionServiceImpl implements DebitCardTransactionService {
+
+    private static final String PIPELINE = "debit-card";
+
     @Autowired
     private DebitCardTransactionRepository debitCardTransactionRepository;
 
@@ -41,6 +51,21 @@ public class DebitCardTransactionServiceImpl implements DebitCardTransactionServ
     @Autowired
     private AccountTransactionMapper accountTransactionMapper;
 
+    @Autowired
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${application.config.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
     @Override
     public Mono<DebitCardTransactionResponse> createDebitCardTransaction(Mono<DebitCardTransactionRequest> request) {
         // 1. Validate if the debit card exists and obtain it
@@ -48,9 +73,13 @@ public class DebitCardTransactionServiceImpl implements DebitCardTransactionServ
         // 3. Obtain the account with the obtained accountId
         // 4. Verify if the account has ACTIVE status
         // 5. Verify if the account has sufficient balance
-        return request.flatMap(this::validateAndGetCreditCard)
-            .flatMap(tuple -> validateAndGetAccount(tuple, new ArrayList<>()))
-            .flatMap(this::processTransaction)
+        return request
+            .flatMap(req -> validateAndGetCreditCard(req)
+                .transform(pipelineMetrics.stage(PIPELINE, "fetch-debit-card", req.getType()))
+                .flatMap(tuple -> validateAndGetAccount(tuple)
+                    .transform(pipelineMetrics.stage(PIPELINE, "fetch-account", req.getType())))
+                .flatMap(this::processTransaction)
+                .transform(pipelineMetrics.pipeline(PIPELINE, req.getType())))
             .map(tuple -> debitCardTransactionMapper.getDebitCardTransactionResponse(tuple.getT2()));
     }
 
@@ -59,8 +88,17 @@ public class DebitCardTransactionServiceImpl implements DebitCardTransactionServ
             .map(card -> Tuples.of(request, card));
     }
 
-    private Mono<Tuple2<DebitCardTransactionRequest, AccountResponse>> validateAndGetAccount(Tuple2<DebitCardTransactionRequest, DebitCardResponse> tuple,
-                                                                                             List<String> triedAccounts) {
+    /**
+     * Picks the first associated account, by position, that is not inactive and has enough balance for the purchase.
+     * All associated accounts are fetched concurrently up front, so falling back to a later account costs no extra
+     * round trip; a lookup error is only surfaced if no earlier account could take the purchase. In ledger mode balances
+     * are those of the ledger projections.
+     *
+     * @param tuple Tuple of the transaction request and its debit card
+     * @return Mono with the request and the account to charge
+     * @throws BadRequestException if the card has no associated account or none of them can take the purchase
+     */
+    private Mono<Tuple2<DebitCardTransactionRequest, AccountResponse>> validateAndGetAccount(Tuple2<DebitCardTransactionRequest, DebitCardResponse> tuple) {
         DebitCardTransactionRequest request = tuple.getT1();
         DebitCardResponse debitCard = tuple.getT2();
 
@@ -68,31 +106,46 @@ public class DebitCardTransactionServiceImpl implements DebitCardTransactionServ
             throw new BadRequestException("Cannot complete the transaction. No account associated with the debit card");
         }
 
-        Optional<DebitCardAssociation> association = debitCard.getAssociations().stream()
-            .filter(a -> triedAccounts.isEmpty() || !triedAccounts.contains(a.getAccountId()))
-            .min(Comparator.comparingInt(DebitCardAssociation::getPosition));
+        List<DebitCardAssociation> associations = debitCard.getAssociations().stream()
+            .sorted(Comparator.comparingInt(DebitCardAssociation::getPosition))
+            .collect(Collectors.toList());
 
-        if (association.isEmpty()) {
-            throw new BadRequestException("Cannot complete the transaction. All associated accounts have insufficient funds");
-        }
-
-        String accountId = association.get().getAccountId();
-        triedAccounts.add(accountId);
-
-        return accountService.getAccountById(accountId)
-            .flatMap(account -> {
+        return Flux.fromIterable(associations)
+            .flatMapSequentialDelayError(association -> accountService.getAccountById(association.getAccountId())
+                .flatMap(this::withLedgerBalance), associations.size(), 1)
+            .filter(account -> {
                 if (AccountStatus.INACTIVE.toString().equals(account.getStatus())) {
                     log.info("Account with id {} has INACTIVE status. Will retry transaction with next associated account", account.getId());
-                    return validateAndGetAccount(tuple, triedAccounts);
+                    return false;
                 }
                 if (request.getAmount().compareTo(account.getBalance()) > 0) {
-                    log.info("Account with id {} has sufficient balance. Will retry transaction with next associated account", account.getId());
-                    return validateAndGetAccount(tuple, triedAccounts);
+                    log.info("Account with id {} has insufficient balance. Will retry transaction with next associated account", account.getId());
+                    return false;
                 }
-                return Mono.just(Tuples.of(tuple.getT1(), account));
-            });
+                return true;
+            })
+            .next()
+            .switchIfEmpty(Mono.error(() -> new BadRequestException("Cannot complete the transaction. All associated accounts have insufficient funds")))
+            .map(account -> Tuples.of(request, account));
+    }
+
+    /**
+     * Replaces the balance of the account by its ledger balance when ledger mode is enabled
+     *
+     * @param account The account
+     * @return Mono with the account to validate the purchase against
+     */
+    private Mono<AccountResponse> withLedgerBalance(AccountResponse account) {
+        return ledgerEnabled ? ledgerService.withLedgerBalance(account) : Mono.just(account);
     }
 
+    /**
+     * Saves the purchase and charges it to the account. In ledger mode the purchase is posted to the ledger first, and
+     * only saved once the account is debited; the posting is reversed if the save fails.
+     *
+     * @param tuple Tuple of the transaction request and the account to charge
+     * @return Mono with the request and the saved transaction
+     */
     private Mono<Tuple2<DebitCardTransactionRequest, DebitCardTransaction>> processTransaction(Tuple2<DebitCardTransactionRequest, AccountResponse> tuple) {
         DebitCardTransactionRequest request = tuple.getT1();
         AccountResponse account = tuple.getT2();
@@ -101,17 +154,45 @@ public class DebitCardTransactionServiceImpl implements DebitCardTransactionServ
         transaction.setAccountId(account.getId());
         transaction.setCustomerId(account.getCustomerId());
 
-        return debitCardTransactionRepository.save(transaction)
+        if (ledgerEnabled) {
+            transaction.setId(new ObjectId().toHexString());
+            return ledgerService.postDebitCardTransaction(transaction, account)
+                .transform(pipelineMetrics.stage(PIPELINE, "post-ledger", request.getType()))
+                .flatMap(newBalance -> saveTransaction(transaction, request)
+                    .onErrorResume(e -> ledgerService.reverse(transaction.getId()).then(Mono.error(e)))
+                    .delayUntil(debitCardTransaction -> dailyBalanceService.recordAccountBalance(account, newBalance)
+                        .transform(pipelineMetrics.stage(PIPELINE, "record-daily-balance", request.getType()))))
+                .map(debitCardTransaction -> Tuples.of(request, debitCardTransaction));
+        }
+
+        return saveTransaction(transaction, request)
             .flatMap(debitCardTransaction -> {
                 if (account.getBalance() != null) {
                     BigDecimal newBalance = account.getBalance().subtract(request.getAmount());
                     AccountPatchRequest accountPatchRequest = new AccountPatchRequest();
                     accountPatchRequest.setBalance(newBalance);
-                    return accountService.updateAccount(account.getId(), accountPatchRequest)
+                    return accountService.updateAccount(account, accountPatchRequest)
+                        .transform(pipelineMetrics.stage(PIPELINE, "update-account", request.getType()))
+                        .then(dailyBalanceService.recordAccountBalance(account, newBalance)
+                            .transform(pipelineMetrics.stage(PIPELINE, "record-daily-balance", request.getType())))
                         .thenReturn(Tuples.of(request, debitCardTransaction));
                 }
                 return Mono.just(Tuples.of(request, debitCardTransaction));
             });
     }
 
+    /**
+     * Saves the transaction together with its outbox event
+     *
+     * @param transaction The transaction to save
+     * @param request     The transaction request
+     * @return Mono with the saved transaction
+     */
+    private Mono<DebitCardTransaction> saveTransaction(DebitCardTransaction transaction, DebitCardTransactionRequest request) {
+        return outboxService.withEvent(OutboxEventType.DEBIT_CARD_TRANSACTION_POSTED, transaction, DebitCardTransaction::getDebitCardId,
+                debitCardTransactionMapper::getDebitCardTransactionResponse)
+            .flatMap(debitCardTransactionRepository::save)
+            .transform(pipelineMetrics.stage(PIPELINE, "save", request.getType()));
+    }
+
 }
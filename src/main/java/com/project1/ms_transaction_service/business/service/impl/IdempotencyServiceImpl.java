@@ -0,0 +1,244 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project1.ms_transaction_service.business.service.IdempotencyService;
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.exception.ConflictException;
+import com.project1.ms_transaction_service.exception.CreditCardCustomerMismatchException;
+import com.project1.ms_transaction_service.exception.InternalServerErrorException;
+import com.project1.ms_transaction_service.exception.NotFoundException;
+import com.project1.ms_transaction_service.exception.UnprocessableEntityException;
+import com.project1.ms_transaction_service.model.entity.IdempotencyRecord;
+import com.project1.ms_transaction_service.model.entity.IdempotencyStatus;
+import com.project1.ms_transaction_service.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates create requests sent with an Idempotency-Key.
+ * The first request claims the key with an insert on the unique id of the {@code idempotency_keys} collection, runs,
+ * and stores its response; retries with the same key and body get that response back without running again. Completed
+ * records are also kept in a bounded in-process cache, so most retries are answered without a database round trip.
+ * A key still being processed is rejected with 409, a key reused with a different body with 422. A request rejected by
+ * validation, before any side effect, releases its key so it can be retried. Any other failure, a cancelled request, or
+ * a response that cannot be stored leaves the key FAILED for the whole TTL: the request may have been applied, so its
+ * retries are rejected with 409 instead of running it again. A claim whose request never finished, e.g. after a crash,
+ * expires after the in-progress TTL.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final String EXECUTED = "executed";
+
+    static final String REPLAYED = "replayed";
+
+    static final String CONFLICT = "conflict";
+
+    static final String MISMATCH = "mismatch";
+
+    static final String UNKNOWN = "unknown";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Clock clock;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration ttl;
+
+    private final Duration inProgressTtl;
+
+    private final Cache<String, IdempotencyRecord> completed;
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper, Clock clock,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${application.config.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${application.config.idempotency.in-progress-ttl:1m}") Duration inProgressTtl,
+                                  @Value("${application.config.idempotency.cache.max-size:10000}") long cacheMaxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.inProgressTtl = inProgressTtl;
+        this.completed = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(cacheMaxSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotencyKeys");
+    }
+
+    /**
+     * Runs a create request at most once per idempotency key
+     *
+     * @param operation      Name of the create operation, keys are scoped to it
+     * @param idempotencyKey Key sent by the client, or null to run the request unconditionally
+     * @param request        The request body, retries must send the same one
+     * @param responseType   Type of the response, to decode stored responses
+     * @param action         Runs the request
+     * @return Mono with the response of the request, or the stored response of the first request with the same key
+     * @throws ConflictException           if a request with the same key is still being processed
+     * @throws UnprocessableEntityException if the key was already used with a different request
+     */
+    @Override
+    public <T> Mono<T> execute(String operation, String idempotencyKey, Object request, Class<T> responseType, Supplier<Mono<T>> action) {
+        if (idempotencyKey == null) {
+            return Mono.defer(action);
+        }
+        String id = operation + ":" + idempotencyKey;
+        return Mono.fromCallable(() -> fingerprint(request))
+            .flatMap(fingerprint -> {
+                IdempotencyRecord cached = completed.getIfPresent(id);
+                if (cached != null) {
+                    return resolve(operation, cached, fingerprint, responseType);
+                }
+                return claimAndExecute(operation, id, fingerprint, responseType, action, true);
+            });
+    }
+
+    private <T> Mono<T> claimAndExecute(String operation, String id, String fingerprint, Class<T> responseType, Supplier<Mono<T>> action,
+                                        boolean retryExpired) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        IdempotencyRecord claim = IdempotencyRecord.builder()
+            .id(id)
+            .fingerprint(fingerprint)
+            .status(IdempotencyStatus.IN_PROGRESS)
+            .createdAt(now)
+            .expiresAt(now.plus(inProgressTtl))
+            .build();
+        return idempotencyRecordRepository.insert(claim)
+            .map(inserted -> true)
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false))
+            .flatMap(claimed -> {
+                if (claimed) {
+                    return executeClaimed(operation, claim, action);
+                }
+                return idempotencyRecordRepository.findById(id)
+                    .flatMap(existing -> {
+                        if (retryExpired && existing.getExpiresAt() != null && existing.getExpiresAt().isBefore(now)) {
+                            // the TTL monitor has not removed it yet
+                            return idempotencyRecordRepository.deleteByIdAndExpiresAtBefore(id, now)
+                                .then(claimAndExecute(operation, id, fingerprint, responseType, action, false));
+                        }
+                        return resolve(operation, existing, fingerprint, responseType);
+                    })
+                    .switchIfEmpty(Mono.defer(() -> retryExpired
+                        ? claimAndExecute(operation, id, fingerprint, responseType, action, false)
+                        : inProgress(operation)));
+            });
+    }
+
+    private <T> Mono<T> executeClaimed(String operation, IdempotencyRecord claim, Supplier<Mono<T>> action) {
+        count(operation, EXECUTED);
+        return Mono.defer(action)
+            .onErrorResume(e -> (isRejection(e) ? release(claim) : fail(claim)).then(Mono.error(e)))
+            .flatMap(response -> complete(claim, response).thenReturn(response))
+            .doOnCancel(() -> fail(claim).subscribe());
+    }
+
+    /**
+     * Whether a request failed validation, which every create operation runs before its first side effect
+     *
+     * @param e Error of the request
+     * @return True if the request was rejected without side effects
+     */
+    static boolean isRejection(Throwable e) {
+        return e instanceof BadRequestException || e instanceof NotFoundException || e instanceof CreditCardCustomerMismatchException;
+    }
+
+    private Mono<Void> release(IdempotencyRecord claim) {
+        return idempotencyRecordRepository.deleteById(claim.getId())
+            .onErrorResume(e -> {
+                log.error("Error releasing idempotency key {}", claim.getId(), e);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Marks a claim whose request may have been applied as failed for the whole TTL, unless it completed meanwhile. If
+     * the write fails the claim still expires after the in-progress TTL.
+     */
+    private Mono<Void> fail(IdempotencyRecord claim) {
+        return idempotencyRecordRepository.findAndMarkFailedByIdAndStatus(claim.getId(), IdempotencyStatus.IN_PROGRESS,
+                LocalDateTime.now(clock).plus(ttl))
+            .then()
+            .onErrorResume(e -> {
+                log.error("Error marking idempotency key {} as failed", claim.getId(), e);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Stores the response of a claimed request. A response that cannot be stored fails the request, and the key is
+     * marked as failed, so a retry never runs the request again.
+     */
+    private Mono<Void> complete(IdempotencyRecord claim, Object response) {
+        return Mono.fromCallable(() -> claim.toBuilder()
+                .status(IdempotencyStatus.COMPLETED)
+                .response(objectMapper.writeValueAsString(response))
+                .expiresAt(LocalDateTime.now(clock).plus(ttl))
+                .build())
+            .flatMap(idempotencyRecordRepository::save)
+            .doOnNext(record -> completed.put(record.getId(), record))
+            .then()
+            .onErrorResume(e -> {
+                log.error("Error storing the response of idempotency key {}", claim.getId(), e);
+                return fail(claim)
+                    .then(Mono.error(new InternalServerErrorException("The request was processed but its response could not be stored")));
+            });
+    }
+
+    private <T> Mono<T> resolve(String operation, IdempotencyRecord record, String fingerprint, Class<T> responseType) {
+        if (!fingerprint.equals(record.getFingerprint())) {
+            count(operation, MISMATCH);
+            return Mono.error(new UnprocessableEntityException("Idempotency-Key was already used with a different request"));
+        }
+        if (record.getStatus() == IdempotencyStatus.FAILED) {
+            count(operation, UNKNOWN);
+            return Mono.error(new ConflictException("The outcome of the request with this Idempotency-Key is unknown, "
+                + "check its result before retrying with a new key"));
+        }
+        if (record.getStatus() != IdempotencyStatus.COMPLETED) {
+            return inProgress(operation);
+        }
+        completed.put(record.getId(), record);
+        count(operation, REPLAYED);
+        return Mono.fromCallable(() -> objectMapper.readValue(record.getResponse(), responseType));
+    }
+
+    private <T> Mono<T> inProgress(String operation) {
+        count(operation, CONFLICT);
+        return Mono.error(new ConflictException("A request with this Idempotency-Key is still being processed"));
+    }
+
+    private String fingerprint(Object request) throws JsonProcessingException, NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter("idempotency.requests", "operation", operation, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,481 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.project1.ms_transaction_service.business.mapper.AccountTransactionMapper;
+import com.project1.ms_transaction_service.business.service.LedgerService;
+import com.project1.ms_transaction_service.business.service.strategy.TransactionStrategy;
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.exception.InternalServerErrorException;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.AccountTransactionType;
+import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
+import com.project1.ms_transaction_service.model.entity.LedgerBalance;
+import com.project1.ms_transaction_service.model.entity.LedgerEntry;
+import com.project1.ms_transaction_service.repository.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ledger mode of account and debit card transactions. Postings are written as double-entry {@link LedgerEntry}
+ * documents first, the source of truth of balances, and then applied to the {@link LedgerBalance} projection of each
+ * account with atomic increments, so balances are never read from and written back to the account service. A debit only
+ * applies while the projected balance covers it, and every projection update records the transaction it applies, so
+ * a posting applied again is not counted twice. A posting failing part way is reversed, and {@link #resync(String)}
+ * brings a projection back in line with the entries of its account.
+ */
+@Service
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+
+    static final String CASH_ACCOUNT = "cash";
+
+    static final String COMMISSIONS_ACCOUNT = "commissions";
+
+    static final String OPENING_BALANCES_ACCOUNT = "opening-balances";
+
+    /**
+     * Number of latest transactions kept in a projection to recognise them when applied or reversed again
+     */
+    static final int APPLIED_TRANSACTIONS_KEPT = 100;
+
+    private static final String INSUFFICIENT_BALANCE = "Insufficient balance to complete the transaction";
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountTransactionMapper accountTransactionMapper;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${application.config.ledger.resync.settle-delay:5s}")
+    private Duration settleDelay;
+
+    /**
+     * Replaces the balance and monthly movements of the accounts by those of their projections, read in a single
+     * query. Accounts without a projection yet get one seeded from the account service values.
+     *
+     * @param accounts Tuple containing origin account and optional destination account
+     * @return Mono with copies of the accounts holding their ledger balances
+     */
+    @Override
+    public Mono<Tuple2<AccountResponse, Optional<AccountResponse>>> withLedgerBalances(Tuple2<AccountResponse, Optional<AccountResponse>> accounts) {
+        List<AccountResponse> all = Stream.concat(Stream.of(accounts.getT1()), accounts.getT2().stream())
+            .collect(Collectors.toList());
+        return projected(all)
+            .map(projected -> Tuples.of(projected.get(0), accounts.getT2().map(destination -> projected.get(1))));
+    }
+
+    /**
+     * Replaces the balance and monthly movements of an account by those of its projection, seeding it if needed
+     *
+     * @param account The account
+     * @return Mono with a copy of the account holding its ledger balance
+     */
+    @Override
+    public Mono<AccountResponse> withLedgerBalance(AccountResponse account) {
+        return projected(List.of(account))
+            .map(projected -> projected.get(0));
+    }
+
+    private Mono<List<AccountResponse>> projected(List<AccountResponse> accounts) {
+        List<String> accountNumbers = accounts.stream()
+            .map(AccountResponse::getAccountNumber)
+            .collect(Collectors.toList());
+        String month = YearMonth.now(clock).toString();
+        return reactiveMongoTemplate.find(Query.query(Criteria.where("_id").in(accountNumbers)), LedgerBalance.class)
+            .collectMap(LedgerBalance::getId)
+            .flatMapMany(balances -> Flux.fromIterable(accounts)
+                .concatMap(account -> Mono.justOrEmpty(balances.get(account.getAccountNumber()))
+                    .switchIfEmpty(Mono.defer(() -> seed(account, month)))
+                    .map(balance -> withLedgerBalance(account, balance, month))))
+            .collectList();
+    }
+
+    /**
+     * Posts an account transaction to the ledger. The transaction must already have its id, the entries refer to it.
+     *
+     * @param transaction        The transaction to post
+     * @param originAccount      Origin account
+     * @param destinationAccount Destination account, only posted to for transfers
+     * @return Mono with the balance of every posted account after the transaction, by account number
+     * @throws BadRequestException if the origin balance does not cover a debit
+     */
+    @Override
+    public Mono<Map<String, BigDecimal>> post(AccountTransaction transaction, AccountResponse originAccount, Optional<AccountResponse> destinationAccount) {
+        BigDecimal amount = Optional.ofNullable(transaction.getAmount()).orElse(BigDecimal.ZERO);
+        Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+        Set<String> movements = new HashSet<>();
+        TransactionStrategy originStrategy = accountTransactionMapper.getTransactionStrategy(transaction, true);
+        deltas.put(originAccount.getAccountNumber(), originStrategy.calculateDelta(amount));
+        if (originStrategy.updateMovements()) {
+            movements.add(originAccount.getAccountNumber());
+        }
+        if (transaction.getType() == AccountTransactionType.TRANSFER) {
+            destinationAccount.ifPresent(destination -> {
+                TransactionStrategy destinationStrategy = accountTransactionMapper.getTransactionStrategy(transaction, false);
+                deltas.merge(destination.getAccountNumber(), destinationStrategy.calculateDelta(amount), BigDecimal::add);
+                if (destinationStrategy.updateMovements()) {
+                    movements.add(destination.getAccountNumber());
+                }
+            });
+        }
+
+        BigDecimal commission = Optional.ofNullable(transaction.getCommissionFee()).orElse(BigDecimal.ZERO);
+        return post(transaction.getId(), entriesOf(transaction.getId(), transaction.getDate(), commission, deltas, movements));
+    }
+
+    /**
+     * Posts a debit card purchase to the ledger, debiting the account it is charged to. The transaction must already
+     * have its id, the entries refer to it.
+     *
+     * @param transaction The debit card transaction to post
+     * @param account     The account the purchase is charged to
+     * @return Mono with the balance of the account after the purchase
+     * @throws BadRequestException if the account balance does not cover the purchase
+     */
+    @Override
+    public Mono<BigDecimal> postDebitCardTransaction(DebitCardTransaction transaction, AccountResponse account) {
+        BigDecimal amount = Optional.ofNullable(transaction.getAmount()).orElse(BigDecimal.ZERO);
+        Map<String, BigDecimal> deltas = Map.of(account.getAccountNumber(), amount.negate());
+        return post(transaction.getId(), entriesOf(transaction.getId(), transaction.getDate(), BigDecimal.ZERO, deltas, Set.of()))
+            .map(balances -> balances.get(account.getAccountNumber()));
+    }
+
+    /**
+     * Writes the entries of a transaction and then applies its account legs to their projections. Any failure or
+     * cancellation reverses whatever part of the posting was written.
+     *
+     * @param transactionId Id of the transaction
+     * @param entries       Entries of the transaction
+     * @return Mono with the balance of every posted account after the transaction, by account number
+     */
+    private Mono<Map<String, BigDecimal>> post(String transactionId, List<LedgerEntry> entries) {
+        return ledgerEntryRepository.saveAll(entries)
+            .thenMany(Flux.fromIterable(entries)
+                .filter(LedgerServiceImpl::isAccountLeg)
+                .concatMap(entry -> apply(entry)
+                    .switchIfEmpty(Mono.error(() -> entry.getAmount().signum() < 0
+                        ? new BadRequestException(INSUFFICIENT_BALANCE)
+                        : new InternalServerErrorException("Ledger balance of account " + entry.getLedgerAccount() + " is missing")))))
+            .collectMap(LedgerBalance::getId, LedgerBalance::getBalance, LinkedHashMap::new)
+            .onErrorResume(e -> reverse(transactionId, Mono.just(entries)).then(Mono.error(e)))
+            .doOnCancel(() -> reverse(transactionId, Mono.just(entries)).subscribe())
+            .doOnError(e -> !(e instanceof BadRequestException),
+                e -> log.error("Error posting transaction {} to the ledger", transactionId, e));
+    }
+
+    /**
+     * Reverses the posting of a transaction, e.g. when the transaction could not be saved after it
+     *
+     * @param transactionId Id of the transaction
+     * @return Mono completing once the posting is reversed, errors are logged and not propagated
+     */
+    @Override
+    public Mono<Void> reverse(String transactionId) {
+        return reverse(transactionId, ledgerEntryRepository.findAllByTransactionId(transactionId).collectList());
+    }
+
+    /**
+     * Deletes the entries of a transaction and then takes its account legs back out of the projections they were
+     * applied to. The entries go first, so a reversal stopping half way leaves projections ahead of the entries, which
+     * the next resync corrects, rather than entries of a transaction that was never saved.
+     *
+     * @param transactionId Id of the transaction
+     * @param entries       Mono with the entries of the transaction
+     * @return Mono completing once the posting is reversed, errors are logged and not propagated
+     */
+    private Mono<Void> reverse(String transactionId, Mono<List<LedgerEntry>> entries) {
+        return entries
+            .flatMap(legs -> ledgerEntryRepository.deleteByTransactionId(transactionId)
+                .thenMany(Flux.fromIterable(legs)
+                    .filter(LedgerServiceImpl::isAccountLeg)
+                    .concatMap(this::unapply))
+                .then())
+            .onErrorResume(e -> {
+                log.error("Error reversing the ledger posting of transaction {}, account projections follow its remaining entries on the next resync",
+                    transactionId, e);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Builds the balanced entries of a transaction: one per posted account, the charged commission, and the cash
+     * counterpart of whatever is left
+     *
+     * @param transactionId Id of the transaction
+     * @param date          Date of the transaction
+     * @param commission    Commission charged
+     * @param deltas        Balance change of each posted account, by account number
+     * @param movements     Numbers of the accounts the transaction counts as a monthly movement of
+     * @return Entries adding up to zero, without zero amount commission or cash entries
+     */
+    static List<LedgerEntry> entriesOf(String transactionId, LocalDateTime date, BigDecimal commission, Map<String, BigDecimal> deltas,
+                                       Set<String> movements) {
+        BigDecimal total = deltas.values().stream().reduce(commission, BigDecimal::add);
+        List<LedgerEntry> entries = new ArrayList<>();
+        deltas.forEach((accountNumber, delta) -> entries.add(entry(transactionId, accountNumber, delta, date, movements.contains(accountNumber))));
+        if (commission.signum() != 0) {
+            entries.add(entry(transactionId, COMMISSIONS_ACCOUNT, commission, date, false));
+        }
+        if (total.signum() != 0) {
+            entries.add(entry(transactionId, CASH_ACCOUNT, total.negate(), date, false));
+        }
+        return entries;
+    }
+
+    /**
+     * Builds the entries of the balance an account had when its projection was seeded
+     *
+     * @param balance Projection of the account
+     * @return The account entry and its {@code opening-balances} counterpart
+     */
+    static List<LedgerEntry> openingEntriesOf(LedgerBalance balance) {
+        String transactionId = "opening-" + balance.getId();
+        return List.of(
+            entry(transactionId, balance.getId(), balance.getOpeningBalance(), balance.getOpenedAt(), false),
+            entry(transactionId, OPENING_BALANCES_ACCOUNT, balance.getOpeningBalance().negate(), balance.getOpenedAt(), false));
+    }
+
+    private static LedgerEntry entry(String transactionId, String ledgerAccount, BigDecimal amount, LocalDateTime date, boolean movement) {
+        return LedgerEntry.builder()
+            .id(transactionId + ":" + ledgerAccount)
+            .transactionId(transactionId)
+            .ledgerAccount(ledgerAccount)
+            .amount(amount)
+            .date(date)
+            .movement(movement)
+            .build();
+    }
+
+    /**
+     * Whether an entry is booked on a customer account, the only ledger accounts with a projection
+     *
+     * @param entry The entry
+     * @return true unless booked on cash, commissions or opening balances
+     */
+    static boolean isAccountLeg(LedgerEntry entry) {
+        return !CASH_ACCOUNT.equals(entry.getLedgerAccount())
+            && !COMMISSIONS_ACCOUNT.equals(entry.getLedgerAccount())
+            && !OPENING_BALANCES_ACCOUNT.equals(entry.getLedgerAccount());
+    }
+
+    /**
+     * Increments the projected balance of an account by an entry, guarded by the balance covering a debit and by the
+     * transaction not being applied yet
+     *
+     * @param entry Account leg of the transaction
+     * @return Mono with the updated projection, or the projection as is if the transaction was already applied; empty
+     * if it does not exist or does not cover the debit
+     */
+    private Mono<LedgerBalance> apply(LedgerEntry entry) {
+        Criteria criteria = Criteria.where("_id").is(entry.getLedgerAccount())
+            .and("appliedTransactions").ne(entry.getTransactionId());
+        if (entry.getAmount().signum() < 0) {
+            criteria = criteria.and("balance").gte(new Decimal128(entry.getAmount().negate()));
+        }
+        Update update = new Update()
+            .inc("balance", new Decimal128(entry.getAmount()))
+            .inc("version", 1)
+            .set("updatedAt", LocalDateTime.now(clock));
+        if (entry.isMovement()) {
+            update.inc("monthlyMovements." + YearMonth.from(entry.getDate()), 1);
+        }
+        update.push("appliedTransactions").slice(-APPLIED_TRANSACTIONS_KEPT).each(entry.getTransactionId());
+        return reactiveMongoTemplate.findAndModify(Query.query(criteria), update, FindAndModifyOptions.options().returnNew(true), LedgerBalance.class)
+            .switchIfEmpty(Mono.defer(() -> reactiveMongoTemplate.findOne(appliedQuery(entry), LedgerBalance.class)));
+    }
+
+    /**
+     * Takes an entry back out of the projected balance of its account, if the transaction was applied to it
+     *
+     * @param entry Account leg of the transaction
+     * @return Mono completing once the projection is updated
+     */
+    private Mono<Void> unapply(LedgerEntry entry) {
+        Update update = new Update()
+            .inc("balance", new Decimal128(entry.getAmount().negate()))
+            .inc("version", 1)
+            .set("updatedAt", LocalDateTime.now(clock))
+            .pull("appliedTransactions", entry.getTransactionId());
+        if (entry.isMovement()) {
+            update.inc("monthlyMovements." + YearMonth.from(entry.getDate()), -1);
+        }
+        return reactiveMongoTemplate.updateFirst(appliedQuery(entry), update, LedgerBalance.class).then();
+    }
+
+    private static Query appliedQuery(LedgerEntry entry) {
+        return Query.query(Criteria.where("_id").is(entry.getLedgerAccount())
+            .and("appliedTransactions").is(entry.getTransactionId()));
+    }
+
+    /**
+     * Creates the projection of an account from its account service values, unless another request created it first,
+     * and writes its opening entries
+     *
+     * @param account The account
+     * @param month   Current month
+     * @return Mono with the projection
+     */
+    private Mono<LedgerBalance> seed(AccountResponse account, String month) {
+        BigDecimal balance = Optional.ofNullable(account.getBalance()).orElse(BigDecimal.ZERO);
+        LocalDateTime now = LocalDateTime.now(clock);
+        Update update = new Update()
+            .setOnInsert("accountId", account.getId())
+            .setOnInsert("balance", new Decimal128(balance))
+            .setOnInsert("openingBalance", new Decimal128(balance))
+            .setOnInsert("openedAt", now)
+            .setOnInsert("monthlyMovements." + month, Optional.ofNullable(account.getMonthlyMovements()).orElse(0))
+            .setOnInsert("version", 0L)
+            .setOnInsert("updatedAt", now);
+        return reactiveMongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(account.getAccountNumber())), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), LedgerBalance.class)
+            .delayUntil(this::saveOpeningEntries);
+    }
+
+    private Mono<Void> saveOpeningEntries(LedgerBalance balance) {
+        return ledgerEntryRepository.saveAll(openingEntriesOf(balance)).then();
+    }
+
+    /**
+     * Sets the projected balance of an account to the balance of its entries when they differ. The difference must
+     * hold, with the projection unchanged, for the settle delay, so postings in flight between writing their entries and
+     * applying them are not mistaken for drift; the correction itself only applies to the version it was computed from.
+     * Projections seeded before opening entries existed are skipped; opening entries missing after an interrupted
+     * seed are written, and the projection is corrected on the following resync.
+     *
+     * @param accountNumber Account number
+     * @return Mono with true if the projection was corrected
+     */
+    @Override
+    public Mono<Boolean> resync(String accountNumber) {
+        return drift(accountNumber)
+            .delayUntil(first -> saveOpeningEntries(first.getT1()))
+            .delayElement(settleDelay)
+            .flatMap(first -> drift(accountNumber)
+                .filter(second -> second.getT1().getVersion() == first.getT1().getVersion() && second.getT2().compareTo(first.getT2()) == 0))
+            .flatMap(drift -> correct(drift.getT1(), drift.getT2()))
+            .defaultIfEmpty(false);
+    }
+
+    /**
+     * Resyncs the projections of every account, one at a time
+     *
+     * @return Mono with the number of projections corrected
+     */
+    @Override
+    public Mono<Long> resyncAll() {
+        Query query = new Query();
+        query.fields().include("_id");
+        return reactiveMongoTemplate.find(query, LedgerBalance.class)
+            .map(LedgerBalance::getId)
+            .collectList()
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(this::resync)
+            .filter(Boolean::booleanValue)
+            .count();
+    }
+
+    /**
+     * Reads the projection of an account and the balance of its entries
+     *
+     * @param accountNumber Account number
+     * @return Mono with the projection and the balance of the entries, empty if they agree or the projection has no
+     * opening balance
+     */
+    private Mono<Tuple2<LedgerBalance, BigDecimal>> drift(String accountNumber) {
+        return reactiveMongoTemplate.findById(accountNumber, LedgerBalance.class)
+            .filter(balance -> balance.getOpeningBalance() != null)
+            .zipWhen(balance -> entriesBalance(accountNumber))
+            .filter(drift -> drift.getT1().getBalance().compareTo(drift.getT2()) != 0);
+    }
+
+    private Mono<BigDecimal> entriesBalance(String accountNumber) {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("ledgerAccount").is(accountNumber)),
+            Aggregation.group("ledgerAccount").sum("amount").as("balance"));
+        return reactiveMongoTemplate.aggregate(aggregation, LedgerEntry.class, Document.class)
+            .next()
+            .map(result -> result.get("balance", Decimal128.class).bigDecimalValue())
+            .defaultIfEmpty(BigDecimal.ZERO);
+    }
+
+    private Mono<Boolean> correct(LedgerBalance balance, BigDecimal entriesBalance) {
+        Query query = Query.query(Criteria.where("_id").is(balance.getId()).and("version").is(balance.getVersion()));
+        Update update = new Update()
+            .set("balance", new Decimal128(entriesBalance))
+            .inc("version", 1)
+            .set("updatedAt", LocalDateTime.now(clock));
+        return reactiveMongoTemplate.updateFirst(query, update, LedgerBalance.class)
+            .map(result -> result.getModifiedCount() > 0)
+            .doOnNext(corrected -> {
+                if (corrected) {
+                    log.warn("Ledger balance of account {} resynced from {} to {}", balance.getId(), balance.getBalance(), entriesBalance);
+                }
+            });
+    }
+
+    /**
+     * Copies the account with the balance and monthly movements of its projection, the account itself may be shared
+     * through the account cache
+     *
+     * @param account The account
+     * @param balance Projection of the account
+     * @param month   Current month
+     * @return Copy of the account
+     */
+    static AccountResponse withLedgerBalance(AccountResponse account, LedgerBalance balance, String month) {
+        Integer monthlyMovements = Optional.ofNullable(balance.getMonthlyMovements())
+            .map(byMonth -> byMonth.get(month))
+            .orElse(0);
+        return new AccountResponse()
+            .id(account.getId())
+            .accountNumber(account.getAccountNumber())
+            .accountType(account.getAccountType())
+            .balance(balance.getBalance())
+            .customerId(account.getCustomerId())
+            .creationDate(account.getCreationDate())
+            .status(account.getStatus())
+            .monthlyMovements(monthlyMovements)
+            .maintenanceFee(account.getMaintenanceFee())
+            .endDay(account.getEndDay())
+            .availableDayForMovements(account.getAvailableDayForMovements())
+            .maxMonthlyMovements(account.getMaxMonthlyMovements())
+            .customerType(account.getCustomerType())
+            .maxMonthlyMovementsNoFee(account.getMaxMonthlyMovementsNoFee())
+            .transactionCommissionFeePercentage(account.getTransactionCommissionFeePercentage());
+    }
+}
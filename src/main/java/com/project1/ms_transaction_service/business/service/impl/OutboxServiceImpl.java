@@ -0,0 +1,84 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.model.entity.OutboxEvent;
+import com.project1.ms_transaction_service.model.entity.OutboxEventStatus;
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
+import com.project1.ms_transaction_service.model.entity.Transaction;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private final ObjectMapper objectMapper;
+
+    private final Clock clock;
+
+    @Autowired
+    public OutboxServiceImpl(ObjectMapper objectMapper, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Attaches the pending event of a transaction about to be saved, so the event is written atomically with the
+     * transaction. A transaction without id is assigned one first, since the payload carries it.
+     *
+     * @param eventType   Type of the event
+     * @param transaction The transaction to save
+     * @param keyOf       Kafka record key of the transaction, the product it is posted to
+     * @param payloadOf   API representation of the transaction
+     * @return Mono with the transaction carrying its event, or an error if the payload cannot be serialized
+     */
+    @Override
+    public <T extends Transaction> Mono<T> withEvent(OutboxEventType eventType, T transaction, Function<T, String> keyOf,
+                                                     Function<T, ?> payloadOf) {
+        return Mono.fromCallable(() -> attach(eventType, transaction, keyOf, payloadOf, LocalDateTime.now(clock)));
+    }
+
+    /**
+     * Attaches the pending events of a chunk of transactions about to be inserted
+     *
+     * @param eventType    Type of the events
+     * @param transactions The transactions to insert
+     * @param keyOf        Kafka record key of a transaction
+     * @param payloadOf    API representation of a transaction
+     * @return Mono with the transactions carrying their events
+     */
+    @Override
+    public <T extends Transaction> Mono<List<T>> withEvents(OutboxEventType eventType, List<T> transactions, Function<T, String> keyOf,
+                                                            Function<T, ?> payloadOf) {
+        return Mono.fromCallable(() -> {
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (T transaction : transactions) {
+                attach(eventType, transaction, keyOf, payloadOf, now);
+            }
+            return transactions;
+        });
+    }
+
+    private <T extends Transaction> T attach(OutboxEventType eventType, T transaction, Function<T, String> keyOf, Function<T, ?> payloadOf,
+                                             LocalDateTime now) throws JsonProcessingException {
+        if (transaction.getId() == null) {
+            transaction.setId(new ObjectId().toHexString());
+        }
+        transaction.setOutboxEvent(OutboxEvent.builder()
+            .eventType(eventType)
+            .key(keyOf.apply(transaction))
+            .payload(objectMapper.writeValueAsString(payloadOf.apply(transaction)))
+            .status(OutboxEventStatus.PENDING)
+            .createdAt(now)
+            .build());
+        return transaction;
+    }
+}
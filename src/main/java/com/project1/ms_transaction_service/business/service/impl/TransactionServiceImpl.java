@@ -4,20 +4,26 @@ import com.project1.ms_transaction_service.business.adapter.AccountService;
 import com.project1.ms_transaction_service.business.adapter.CreditCardService;
 import com.project1.ms_transaction_service.business.adapter.CreditService;
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
+import com.project1.ms_transaction_service.business.adapter.SingleFlight;
 import com.project1.ms_transaction_service.business.mapper.TransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
 import com.project1.ms_transaction_service.business.service.TransactionService;
+import com.project1.ms_transaction_service.business.service.cache.CustomerProducts;
+import com.project1.ms_transaction_service.business.service.cache.CustomerProductsCache;
 import com.project1.ms_transaction_service.model.*;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransaction;
 import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
 import com.project1.ms_transaction_service.repository.AccountTransactionRepository;
 import com.project1.ms_transaction_service.repository.CreditCardTransactionRepository;
 import com.project1.ms_transaction_service.repository.DebitCardTransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -50,85 +56,89 @@ public class TransactionServiceImpl implements TransactionService {
     @Autowired
     private DebitCardTransactionRepository debitCardTransactionRepository;
 
+    @Autowired
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    private CustomerProductsCache customerProductsCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<String, CustomerProducts> customerProductsFlight;
+
+    @PostConstruct
+    public void init() {
+        customerProductsFlight = new SingleFlight<>("customerProducts", "getCustomerProducts", meterRegistry);
+    }
+
     @Override
-    public Mono<CustomerProductsResponse> getAllCustomerProductsByDni(String dni) {
-        return customerService.getCustomerByDni(dni)
-            .flatMap(customerResponse ->
-                Mono.zip(
-                    accountService.getAccountsByCustomerId(customerResponse.getId()).collectList(),
-                    creditCardService.getCreditCardsByCustomerId(customerResponse.getId()).collectList(),
-                    creditService.getCreditsByCustomerId(customerResponse.getId()).collectList()
-                ).map(tuple ->
-                    transactionMapper.getCustomerProductsResponse(
-                        customerResponse,
-                        tuple.getT1(),
-                        tuple.getT2(),
-                        tuple.getT3()
-                    )
-                )
-            );
+    public Mono<CustomerProducts> getAllCustomerProductsByDni(String dni) {
+        return Mono.justOrEmpty(customerProductsCache.getByDocument(CustomerProductsCache.DNI, dni))
+            .switchIfEmpty(Mono.defer(() -> customerService.getCustomerByDni(dni)
+                .doOnNext(customerResponse -> customerProductsCache.alias(CustomerProductsCache.DNI, dni, customerResponse.getId()))
+                .flatMap(this::getCustomerProducts)));
     }
 
     @Override
-    public Mono<CustomerProductsResponse> getAllCustomerProductsByRuc(String ruc) {
-        return customerService.getCustomerByRuc(ruc)
-            .flatMap(customerResponse ->
-                Mono.zip(
-                    accountService.getAccountsByCustomerId(customerResponse.getId()).collectList(),
-                    creditCardService.getCreditCardsByCustomerId(customerResponse.getId()).collectList(),
-                    creditService.getCreditsByCustomerId(customerResponse.getId()).collectList()
-                ).map(tuple ->
-                    transactionMapper.getCustomerProductsResponse(
-                        customerResponse,
-                        tuple.getT1(),
-                        tuple.getT2(),
-                        tuple.getT3()
-                    )
-                )
-            );
+    public Mono<CustomerProducts> getAllCustomerProductsByRuc(String ruc) {
+        return Mono.justOrEmpty(customerProductsCache.getByDocument(CustomerProductsCache.RUC, ruc))
+            .switchIfEmpty(Mono.defer(() -> customerService.getCustomerByRuc(ruc)
+                .doOnNext(customerResponse -> customerProductsCache.alias(CustomerProductsCache.RUC, ruc, customerResponse.getId()))
+                .flatMap(this::getCustomerProducts)));
     }
 
     @Override
-    public Mono<CustomerProductsResponse> getAllCustomerProductsByCustomerId(String customerId) {
-        return customerService.getCustomerById(customerId)
-            .flatMap(customerResponse ->
+    public Mono<CustomerProducts> getAllCustomerProductsByCustomerId(String customerId) {
+        return Mono.justOrEmpty(customerProductsCache.getByCustomerId(customerId))
+            .switchIfEmpty(Mono.defer(() -> customerService.getCustomerById(customerId)
+                .flatMap(this::getCustomerProducts)));
+    }
+
+    /**
+     * Fans out to the product services for a customer, or joins the fan-out already in flight for it, and caches the result
+     *
+     * @param customerResponse Customer whose products are retrieved
+     * @return Mono with the products of the customer and their ETag
+     */
+    private Mono<CustomerProducts> getCustomerProducts(CustomerResponse customerResponse) {
+        return Mono.justOrEmpty(customerProductsCache.getByCustomerId(customerResponse.getId()))
+            .switchIfEmpty(Mono.defer(() -> customerProductsFlight.execute(customerResponse.getId(), () ->
                 Mono.zip(
                     accountService.getAccountsByCustomerId(customerResponse.getId()).collectList(),
                     creditCardService.getCreditCardsByCustomerId(customerResponse.getId()).collectList(),
                     creditService.getCreditsByCustomerId(customerResponse.getId()).collectList()
                 ).map(tuple ->
-                    transactionMapper.getCustomerProductsResponse(
+                    customerProductsCache.put(transactionMapper.getCustomerProductsResponse(
                         customerResponse,
                         tuple.getT1(),
                         tuple.getT2(),
                         tuple.getT3()
-                    )
+                    ))
                 )
-            );
+            )));
     }
 
+    /**
+     * Retrieves the month-to-date average daily balance of every customer product from the daily balance snapshots,
+     * seeding the products never snapshotted from their current state
+     *
+     * @param customerId Id of the customer
+     * @return Mono with the customer and the average balance of each product
+     */
     @Override
     public Mono<CustomerProductsAverageBalanceResponse> getAllCustomerProductsAvgBalanceCustomerId(String customerId) {
         return customerService.getCustomerById(customerId)
-            .flatMap(customerResponse ->
-                Mono.zip(
-                    accountService.getAccountsByCustomerId(customerResponse.getId()).collectList(),
-                    creditCardService.getCreditCardsByCustomerId(customerResponse.getId()).collectList(),
-                    creditService.getCreditsByCustomerId(customerResponse.getId()).collectList()
-                ).map(tuple ->
-                    transactionMapper.getCustomerProductsAvgBalanceResponse(
-                        customerResponse,
-                        tuple.getT1(),
-                        tuple.getT2(),
-                        tuple.getT3()
-                    )
-                )
+            .flatMap(customerResponse -> getCustomerProducts(customerResponse)
+                .flatMap(products -> dailyBalanceService.getMonthToDateAverageBalances(customerResponse.getId(), products.getResponse())
+                    .collectList())
+                .map(averageBalances -> transactionMapper.getCustomerProductsAvgBalanceResponse(customerResponse, averageBalances))
             );
     }
 
     @Override
     public Mono<ProductsCommissionResponse> getProductsCommissionByRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return accountTransactionRepository.findAllByDateBetween(startDate, endDate)
+        return accountTransactionRepository.sumCommissionFeeByOriginAccountNumber(startDate, endDate)
             .collectList()
             .map(transactionMapper::getProductsCommissionResponse);
     }
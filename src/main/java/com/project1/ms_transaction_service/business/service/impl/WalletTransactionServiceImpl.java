@@ -3,17 +3,19 @@ package com.project1.ms_transaction_service.business.service.impl;
 import com.project1.ms_transaction_service.business.adapter.YankiService;
 import com.project1.ms_transaction_service.business.mapper.WalletTransactionMapper;
 import com.project1.ms_transaction_service.business.service.WalletTransactionService;
+import com.project1.ms_transaction_service.business.service.lane.ExecutionLanes;
 import com.project1.ms_transaction_service.model.CreateWalletTransactionRequest;
-import com.project1.ms_transaction_service.model.GetYankiWalletResponse;
 import com.project1.ms_transaction_service.model.UpdateYankiWalletRequest;
+import com.project1.ms_transaction_service.model.entity.WalletTransaction;
 import com.project1.ms_transaction_service.model.entity.WalletTransactionType;
 import com.project1.ms_transaction_service.repository.WalletTransactionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.util.Optional;
+import java.util.Arrays;
 
 @Service
 @Slf4j
@@ -27,42 +29,44 @@ public class WalletTransactionServiceImpl implements WalletTransactionService {
     @Autowired
     private YankiService yankiService;
 
+    @Autowired
+    @Qualifier("walletExecutionLanes")
+    private ExecutionLanes walletExecutionLanes;
+
+    /**
+     * Applies a wallet transaction to the wallets involved and persists it. The work runs in the execution lanes of
+     * the origin and destination wallets, so transactions of the same wallet are applied in the order they arrive while
+     * transactions of unrelated wallets run in parallel.
+     *
+     * @param request The wallet transaction request
+     * @return Mono completing once the transaction is applied
+     */
     @Override
     public Mono<Void> createWalletTransaction(Mono<CreateWalletTransactionRequest> request) {
         log.info("Creating wallet transaction");
         return request.map(walletTransactionMapper::getWalletTransactionEntity)
-            .flatMap(e ->
-                Mono.zip(yankiService.getYankiWallet(e.getOriginWalletId()),
-                        yankiService.getYankiWallet(e.getDestinationWalletId()))
-                    .flatMap(tuple -> {
-                        GetYankiWalletResponse originWallet = tuple.getT1();
-                        GetYankiWalletResponse destinationWallet = tuple.getT2();
-
-                        if (WalletTransactionType.TRANSFER.toString().equals(e.getType())) {
-                            UpdateYankiWalletRequest updateOriginWalletRequest = new UpdateYankiWalletRequest();
-                            if (originWallet.getBalance() != null) {
-                                updateOriginWalletRequest.setBalance(originWallet.getBalance().subtract(e.getAmount()));
-                            }
-
-                            UpdateYankiWalletRequest updateDestinationWalletRequest = new UpdateYankiWalletRequest();
-                            if (destinationWallet.getBalance() != null) {
-                                updateDestinationWalletRequest.setBalance(destinationWallet.getBalance().add(e.getAmount()));
-                            }
-
-                            return Mono.zip(yankiService.updateYankiWallet(e.getOriginWalletId(), updateOriginWalletRequest),
-                                    yankiService.updateYankiWallet(e.getDestinationWalletId(), updateDestinationWalletRequest))
-                                .then(Mono.just(e));
-                        } else {
-                            UpdateYankiWalletRequest updateOriginWalletRequest = new UpdateYankiWalletRequest();
-                            if (originWallet.getBalance() != null) {
-                                updateOriginWalletRequest.setBalance(originWallet.getBalance().add(e.getAmount()));
-                            }
-
-                            return yankiService.updateYankiWallet(e.getOriginWalletId(), updateOriginWalletRequest)
-                                .then(Mono.just(e));
-                        }
-                    }))
-            .flatMap(walletTransactionRepository::save)
+            .flatMap(e -> walletExecutionLanes.execute(Arrays.asList(e.getOriginWalletId(), e.getDestinationWalletId()), () ->
+                applyWalletTransaction(e)))
             .then();
     }
+
+    /**
+     * Sends the balance deltas of the transaction to its wallets, which are only read when the yanki service does not
+     * apply deltas natively
+     *
+     * @param e The wallet transaction
+     * @return Mono with the saved transaction
+     */
+    private Mono<WalletTransaction> applyWalletTransaction(WalletTransaction e) {
+        Mono<Void> updates;
+        if (WalletTransactionType.TRANSFER.toString().equals(e.getType())) {
+            updates = Mono.when(yankiService.updateYankiWallet(e.getOriginWalletId(), new UpdateYankiWalletRequest().balanceDelta(e.getAmount().negate())),
+                yankiService.updateYankiWallet(e.getDestinationWalletId(), new UpdateYankiWalletRequest().balanceDelta(e.getAmount())));
+        } else {
+            updates = yankiService.updateYankiWallet(e.getOriginWalletId(), new UpdateYankiWalletRequest().balanceDelta(e.getAmount()));
+        }
+        return updates
+            .then(Mono.just(e))
+            .flatMap(walletTransactionRepository::save);
+    }
 }
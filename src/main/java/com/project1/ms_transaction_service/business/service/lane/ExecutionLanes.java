@@ -0,0 +1,136 @@
+package com.project1.ms_transaction_service.business.service.lane;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Keyed, non-blocking serialization of reactive work. Keys are hashed onto a fixed set of lanes; work submitted on the
+ * same lane runs one at a time in subscription order while work on different lanes runs in parallel.
+ * No thread is ever blocked: each submission chains itself behind the completion signal of the previous one in its lane.
+ * <p>
+ * Work spanning several keys (e.g. a transfer) reserves all of its lanes in one step under a shared lock, so two
+ * multi-lane submissions always queue in the same relative order on every lane they share and can never deadlock.
+ */
+public class ExecutionLanes {
+
+    private final Lane[] lanes;
+
+    private final Object multiLaneReservationLock = new Object();
+
+    public ExecutionLanes(String name, int laneCount, MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be greater than zero");
+        }
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(name, i, meterRegistry);
+        }
+    }
+
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> work) {
+        return execute(List.of(key), work);
+    }
+
+    /**
+     * Runs the work once it holds the lanes of every given key
+     *
+     * @param keys Keys whose lanes the work must hold, null keys are ignored
+     * @param work Supplier of the work to run, invoked once all lanes are held
+     * @return Mono with the result of the work
+     */
+    public <T> Mono<T> execute(Collection<String> keys, Supplier<Mono<T>> work) {
+        return Mono.defer(() -> {
+            Lane[] held = lanesOf(keys);
+            Sinks.Empty<Void> done = Sinks.empty();
+            Mono<Void> ready = Mono.when(reserve(held, done.asMono()));
+            long enqueuedAt = System.nanoTime();
+
+            return ready
+                .then(Mono.defer(() -> {
+                    Duration waited = Duration.ofNanos(System.nanoTime() - enqueuedAt);
+                    for (Lane lane : held) {
+                        lane.wait.record(waited);
+                    }
+                    return Mono.defer(work);
+                }))
+                // release only after the predecessors are done, so a cancelled submission never lets its successor overtake them
+                .doFinally(signal -> ready
+                    .doFinally(s -> {
+                        for (Lane lane : held) {
+                            lane.depth.decrementAndGet();
+                        }
+                        done.tryEmitEmpty();
+                    })
+                    .subscribe());
+        });
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int laneOf(String key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    private Lane[] lanesOf(Collection<String> keys) {
+        return keys.stream()
+            .filter(Objects::nonNull)
+            .mapToInt(this::laneOf)
+            .distinct()
+            .sorted()
+            .mapToObj(i -> lanes[i])
+            .toArray(Lane[]::new);
+    }
+
+    private List<Mono<Void>> reserve(Lane[] held, Mono<Void> done) {
+        if (held.length == 1) {
+            return List.of(held[0].reserve(done));
+        }
+        List<Mono<Void>> predecessors = new ArrayList<>(held.length);
+        synchronized (multiLaneReservationLock) {
+            Arrays.stream(held).forEach(lane -> predecessors.add(lane.reserve(done)));
+        }
+        return predecessors;
+    }
+
+    private static final class Lane {
+        private final AtomicReference<Mono<Void>> tail = new AtomicReference<>(Mono.empty());
+
+        private final AtomicInteger depth = new AtomicInteger();
+
+        private final Timer wait;
+
+        private Lane(String name, int index, MeterRegistry meterRegistry) {
+            Gauge.builder("execution.lane.depth", depth, AtomicInteger::get)
+                .description("Submissions queued or running on the lane")
+                .tag("lanes", name)
+                .tag("lane", String.valueOf(index))
+                .register(meterRegistry);
+            this.wait = Timer.builder("execution.lane.wait")
+                .description("Time a submission waited for its lane")
+                .tag("lanes", name)
+                .tag("lane", String.valueOf(index))
+                .register(meterRegistry);
+        }
+
+        private Mono<Void> reserve(Mono<Void> done) {
+            depth.incrementAndGet();
+            return tail.getAndSet(done);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.project1.ms_transaction_service.business.service.ledger;
+
+import com.project1.ms_transaction_service.business.service.LedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * Periodically brings the account balance projections of ledger mode back in line with the ledger entries, e.g. after
+ * a posting or its reversal was interrupted. Resyncs only correct a projection whose difference with its entries holds
+ * for a while, so it is safe to run them on every instance.
+ */
+@Component
+@Slf4j
+public class LedgerResync {
+
+    private final Counter corrections;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${application.config.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${application.config.ledger.resync.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.config.ledger.resync.interval:1h}")
+    private Duration interval;
+
+    private Disposable resync;
+
+    public LedgerResync(MeterRegistry meterRegistry) {
+        this.corrections = Counter.builder("transaction.ledger.resync.corrections")
+            .description("Account balance projections corrected to the balance of their ledger entries")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts resyncing once the application is ready, when ledger mode and resyncs are enabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (ledgerEnabled && enabled) {
+            resync = resyncLoop().subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (resync != null) {
+            resync.dispose();
+        }
+    }
+
+    /**
+     * Resyncs every account, waiting for the interval before each run
+     */
+    private Flux<Long> resyncLoop() {
+        return Mono.delay(interval)
+            .then(Mono.defer(ledgerService::resyncAll))
+            .doOnNext(count -> corrections.increment(count))
+            .onErrorResume(e -> {
+                log.error("Error resyncing ledger balances", e);
+                return Mono.just(0L);
+            })
+            .repeat();
+    }
+}
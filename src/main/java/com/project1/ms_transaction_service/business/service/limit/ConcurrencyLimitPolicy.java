@@ -0,0 +1,59 @@
+package com.project1.ms_transaction_service.business.service.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Settings of one adaptive concurrency limit.
+ * Values are bound from {@code application.config.concurrency-limits.default} and then overridden by
+ * {@code application.config.concurrency-limits.<name>}, e.g. {@code endpoints.account} or {@code clients.account}.
+ */
+@Data
+public class ConcurrencyLimitPolicy {
+
+    static final String PREFIX = "application.config.concurrency-limits.";
+
+    static final String DEFAULT = "default";
+
+    private boolean enabled = true;
+
+    private int initialLimit = 50;
+
+    private int minLimit = 5;
+
+    private int maxLimit = 500;
+
+    /**
+     * Factor the limit is multiplied by when a request is slower than {@link #latencyThreshold} or times out
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Latency above which a request is taken as a sign of overload
+     */
+    private Duration latencyThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Value of the Retry-After header of rejected requests
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Binds the policy of a limit over the default policy
+     *
+     * @param environment Environment holding the properties
+     * @param name        Limit name, e.g. endpoints.account
+     * @return The bound policy
+     */
+    public static ConcurrencyLimitPolicy of(Environment environment, String name) {
+        Binder binder = Binder.get(environment);
+        ConcurrencyLimitPolicy policy = new ConcurrencyLimitPolicy();
+        binder.bind(PREFIX + DEFAULT, Bindable.ofInstance(policy));
+        binder.bind(PREFIX + name, Bindable.ofInstance(policy));
+        return policy;
+    }
+}
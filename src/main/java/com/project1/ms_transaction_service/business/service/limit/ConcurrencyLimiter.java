@@ -0,0 +1,132 @@
+package com.project1.ms_transaction_service.business.service.limit;
+
+import com.project1.ms_transaction_service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limit with additive increase and multiplicative decrease.
+ * Requests beyond the limit are rejected right away with a {@link ServiceUnavailableException} instead of queueing.
+ * A request slower than the latency threshold, or timing out, multiplies the limit by the backoff ratio; so does a
+ * request cancelled after the latency threshold, typically by a timeout further up. A fast request completing
+ * successfully while at least half of the limit is in use raises it by one. The limit stays within its bounds.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+
+    private final ConcurrencyLimitPolicy policy;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter rejected;
+
+    private final Counter dropped;
+
+    private double limit;
+
+    public ConcurrencyLimiter(String name, ConcurrencyLimitPolicy policy, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.policy = policy;
+        this.limit = Math.max(policy.getMinLimit(), Math.min(policy.getMaxLimit(), policy.getInitialLimit()));
+        Gauge.builder("concurrency.limit", this, ConcurrencyLimiter::getLimit)
+            .description("Current adaptive concurrency limit")
+            .tag("limiter", name)
+            .register(meterRegistry);
+        Gauge.builder("concurrency.in.flight", inFlight, AtomicInteger::get)
+            .description("Requests currently holding a permit")
+            .tag("limiter", name)
+            .register(meterRegistry);
+        this.rejected = Counter.builder("concurrency.rejected")
+            .description("Requests rejected because the concurrency limit was reached")
+            .tag("limiter", name)
+            .register(meterRegistry);
+        this.dropped = Counter.builder("concurrency.dropped")
+            .description("Requests slower than the latency threshold or timed out, each one lowering the limit")
+            .tag("limiter", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Executes the call within the limit, or rejects it when the limit is reached
+     *
+     * @param call Supplier of the call, only invoked when a permit is acquired
+     * @return Mono with the result of the call, or a {@link ServiceUnavailableException} if rejected
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!policy.isEnabled()) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new ServiceUnavailableException("Too many concurrent requests for " + name + ". Retry again later",
+                    policy.getRetryAfter()));
+            }
+            long start = System.nanoTime();
+            AtomicBoolean timedOut = new AtomicBoolean();
+            return Mono.defer(call)
+                .doOnError(TimeoutException.class, e -> timedOut.set(true))
+                .doFinally(signal -> release(signal, System.nanoTime() - start, timedOut.get()));
+        });
+    }
+
+    /**
+     * Limits the requests of a WebClient, the permit is held until the response headers are received
+     *
+     * @return Exchange filter applying the limit
+     */
+    public ExchangeFilterFunction asFilter() {
+        return (request, next) -> execute(() -> next.exchange(request));
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) getLimit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release(SignalType signal, long elapsedNanos, boolean timedOut) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        boolean slow = elapsedNanos > policy.getLatencyThreshold().toNanos();
+        if (signal == SignalType.CANCEL && !slow) {
+            return;
+        }
+        if (timedOut || slow) {
+            dropped.increment();
+            decrease();
+        } else if (signal == SignalType.ON_COMPLETE && inFlightBefore * 2 >= getLimit()) {
+            increase();
+        }
+    }
+
+    private synchronized void decrease() {
+        limit = Math.max(policy.getMinLimit(), limit * policy.getBackoffRatio());
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(policy.getMaxLimit(), limit + 1);
+    }
+}
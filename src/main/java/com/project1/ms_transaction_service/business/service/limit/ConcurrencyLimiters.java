@@ -0,0 +1,41 @@
+package com.project1.ms_transaction_service.business.service.limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limits of the create endpoints ({@code endpoints.<operation>}) and of the downstream clients
+ * ({@code clients.<client>}). Each name gets a single limiter, shared by every caller asking for it.
+ */
+@Component
+public class ConcurrencyLimiters {
+
+    public static final String ENDPOINTS = "endpoints.";
+
+    public static final String CLIENTS = "clients.";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter endpoint(String operation) {
+        return limiter(ENDPOINTS + operation);
+    }
+
+    public ConcurrencyLimiter client(String client) {
+        return limiter(CLIENTS + client);
+    }
+
+    private ConcurrencyLimiter limiter(String name) {
+        return limiters.computeIfAbsent(name, n -> new ConcurrencyLimiter(n, ConcurrencyLimitPolicy.of(environment, n), meterRegistry));
+    }
+}
@@ -0,0 +1,121 @@
+package com.project1.ms_transaction_service.business.service.metrics;
+
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.exception.CreditCardCustomerMismatchException;
+import com.project1.ms_transaction_service.exception.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Timers for the stages of the transaction posting pipelines.
+ * Every stage is recorded in {@code transaction.pipeline.stage} and every whole pipeline in {@code transaction.pipeline},
+ * tagged by pipeline, transaction type and outcome, with percentile histograms published for SLO dashboards.
+ * Failed stages are also counted in {@code transaction.pipeline.stage.errors} by exception.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String PIPELINE_TIMER = "transaction.pipeline";
+
+    public static final String STAGE_TIMER = "transaction.pipeline.stage";
+
+    public static final String STAGE_ERRORS = "transaction.pipeline.stage.errors";
+
+    static final String SUCCESS = "success";
+
+    static final String REJECTED = "rejected";
+
+    static final String ERROR = "error";
+
+    static final String CANCELLED = "cancelled";
+
+    private static final String UNKNOWN_TYPE = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Times a whole pipeline from subscription to its terminal signal
+     *
+     * @param pipeline Pipeline name, e.g. account
+     * @param type     Transaction type of the request
+     * @return Operator to apply with {@link Mono#transform(Function)}
+     */
+    public <T> Function<Mono<T>, Mono<T>> pipeline(String pipeline, String type) {
+        return mono -> timed(mono, outcome -> timer(PIPELINE_TIMER, pipeline, null, type, outcome), null);
+    }
+
+    /**
+     * Times one stage of a pipeline from subscription to its terminal signal
+     *
+     * @param pipeline Pipeline name, e.g. account
+     * @param stage    Stage name, e.g. fetch-accounts
+     * @param type     Transaction type of the request
+     * @return Operator to apply with {@link Mono#transform(Function)}
+     */
+    public <T> Function<Mono<T>, Mono<T>> stage(String pipeline, String stage, String type) {
+        return mono -> timed(mono, outcome -> timer(STAGE_TIMER, pipeline, stage, type, outcome),
+            e -> Counter.builder(STAGE_ERRORS)
+                .tag("pipeline", pipeline)
+                .tag("stage", stage)
+                .tag("type", typeTag(type))
+                .tag("exception", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment());
+    }
+
+    private <T> Mono<T> timed(Mono<T> mono, Function<String, Timer> timerOf, Consumer<Throwable> onError) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono
+                .doOnSuccess(value -> record(timerOf.apply(SUCCESS), start))
+                .doOnError(e -> {
+                    record(timerOf.apply(outcomeOf(e)), start);
+                    if (onError != null) {
+                        onError.accept(e);
+                    }
+                })
+                .doOnCancel(() -> record(timerOf.apply(CANCELLED), start));
+        });
+    }
+
+    private void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String pipeline, String stage, String type, String outcome) {
+        Timer.Builder builder = Timer.builder(name)
+            .tag("pipeline", pipeline)
+            .tag("type", typeTag(type))
+            .tag("outcome", outcome)
+            .publishPercentileHistogram();
+        if (stage != null) {
+            builder.tag("stage", stage);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private static String typeTag(String type) {
+        return type == null ? UNKNOWN_TYPE : type;
+    }
+
+    /**
+     * Business rejections are reported apart from failures so they do not count against error budgets
+     */
+    static String outcomeOf(Throwable e) {
+        if (e instanceof BadRequestException || e instanceof NotFoundException || e instanceof CreditCardCustomerMismatchException) {
+            return REJECTED;
+        }
+        return ERROR;
+    }
+}
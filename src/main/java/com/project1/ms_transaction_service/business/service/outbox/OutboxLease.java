@@ -0,0 +1,76 @@
+package com.project1.ms_transaction_service.business.service.outbox;
+
+import com.project1.ms_transaction_service.model.entity.OutboxRelayLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claims the {@link OutboxRelayLease} for this instance with an atomic find-and-modify: the lease is taken when it is
+ * free, expired or already held by this instance, and its expiry is pushed forward by the lease duration.
+ */
+@Component
+public class OutboxLease {
+
+    static final String LEASE_ID = "outbox-relay";
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${application.config.outbox.relay.lease-duration:30s}")
+    private Duration leaseDuration;
+
+    /**
+     * Claims or renews the lease
+     *
+     * @return Mono with true if this instance holds the lease for the next lease duration
+     */
+    public Mono<Boolean> acquire() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Query query = Query.query(Criteria.where("_id").is(LEASE_ID)
+            .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        Update update = new Update()
+            .set("owner", owner)
+            .set("expiresAt", now.plus(leaseDuration));
+        return reactiveMongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true), OutboxRelayLease.class)
+            .map(lease -> owner.equals(lease.getOwner()))
+            .defaultIfEmpty(false)
+            // another instance holds a live lease, so the upsert collided with its document
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+
+    /**
+     * Gives the lease up if this instance holds it, so another instance can take over without waiting for its expiry
+     *
+     * @return Mono completing once released
+     */
+    public Mono<Void> release() {
+        return reactiveMongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(LEASE_ID).and("owner").is(owner)),
+                new Update().set("expiresAt", LocalDateTime.now(clock)), OutboxRelayLease.class)
+            .then();
+    }
+
+    /**
+     * @return How long a claimed lease is held without renewal
+     */
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+}
@@ -0,0 +1,203 @@
+package com.project1.ms_transaction_service.business.service.outbox;
+
+import com.project1.ms_transaction_service.model.entity.OutboxEvent;
+import com.project1.ms_transaction_service.model.entity.OutboxEventStatus;
+import com.project1.ms_transaction_service.model.entity.Transaction;
+import com.project1.ms_transaction_service.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the pending outbox events embedded in saved transactions to Kafka.
+ * Only the instance holding the {@link OutboxLease} relays, renewing it before every batch. Events are read in
+ * batches, oldest first; events of different keys are sent concurrently so the producer can group them, while events
+ * of the same key are sent one after the other and the key stops at its first failed send, so a later event of a
+ * product is never published ahead of an earlier one. Acknowledged events are then marked as published with a single
+ * update. A full batch is followed by the next one right away, otherwise the relay waits for the poll interval.
+ * Delivery is at least once: an event whose send fails, or that is sent again after a crash before being marked, is
+ * published again, so consumers deduplicate on the event id header, the id of the transaction.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    public static final String EVENT_TYPE_HEADER = "eventType";
+
+    public static final String TRANSACTION_ID_HEADER = "transactionId";
+
+    private final Counter published;
+
+    private final Counter publishErrors;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private OutboxLease outboxLease;
+
+    @Autowired
+    @Qualifier("outboxKafkaTemplate")
+    private KafkaTemplate<String, String> outboxKafkaTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${application.config.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.config.outbox.topic:transaction-events}")
+    private String topic;
+
+    @Value("${application.config.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.config.outbox.relay.poll-interval:500ms}")
+    private Duration pollInterval;
+
+    @Value("${application.config.outbox.relay.error-backoff:5s}")
+    private Duration errorBackoff;
+
+    private Disposable relay;
+
+    public OutboxRelay(MeterRegistry meterRegistry) {
+        this.published = Counter.builder("transaction.outbox.published")
+            .description("Outbox events published to Kafka")
+            .register(meterRegistry);
+        this.publishErrors = Counter.builder("transaction.outbox.publish.errors")
+            .description("Outbox events whose send to Kafka failed, retried with the rest of their key on a later batch")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts relaying once the application is ready, unless disabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            relay = relayLoop().subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (relay != null) {
+            relay.dispose();
+            outboxLease.release()
+                .onErrorResume(e -> {
+                    log.warn("Error releasing the outbox relay lease, it is taken over once it expires", e);
+                    return Mono.empty();
+                })
+                .block(Duration.ofSeconds(5));
+        }
+    }
+
+    /**
+     * Relays batches while this instance holds the lease, a batch is cut short before the lease it started under expires
+     */
+    private Flux<Integer> relayLoop() {
+        return Mono.defer(outboxLease::acquire)
+            .flatMap(held -> held ? publishPending().timeout(outboxLease.getLeaseDuration()) : Mono.just(0))
+            .flatMap(count -> count < batchSize ? Mono.delay(pollInterval).thenReturn(count) : Mono.just(count))
+            .onErrorResume(e -> {
+                log.error("Error relaying transaction outbox events", e);
+                return Mono.delay(errorBackoff).thenReturn(0);
+            })
+            .repeat();
+    }
+
+    /**
+     * Publishes one batch of pending events
+     *
+     * @return Mono with the number of events published
+     */
+    public Mono<Integer> publishPending() {
+        return transactionRepository.findAllByOutboxEventStatusOrderByOutboxEventCreatedAtAscIdAsc(OutboxEventStatus.PENDING, PageRequest.of(0, batchSize))
+            .collectList()
+            .flatMapMany(transactions -> Flux.fromIterable(byKey(transactions)))
+            // sends may block on producer metadata, keep them off the Mongo driver threads
+            .publishOn(Schedulers.boundedElastic())
+            .flatMap(this::sendInOrder, batchSize)
+            .collectList()
+            .flatMap(ids -> ids.isEmpty() ? Mono.just(0) : markPublished(ids).thenReturn(ids.size()));
+    }
+
+    /**
+     * Groups the transactions of a batch by the key of their event, keeping their order within each key
+     *
+     * @param transactions Transactions with pending events, oldest first
+     * @return Transactions of each key
+     */
+    static Collection<List<Transaction>> byKey(List<Transaction> transactions) {
+        Map<String, List<Transaction>> byKey = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            byKey.computeIfAbsent(transaction.getOutboxEvent().getKey(), key -> new ArrayList<>()).add(transaction);
+        }
+        return byKey.values();
+    }
+
+    /**
+     * Sends the events of one key in order, stopping at the first failed send so the rest are retried after it
+     *
+     * @param transactions Transactions of the key, oldest first
+     * @return Flux with the ids of the acknowledged events
+     */
+    private Flux<String> sendInOrder(List<Transaction> transactions) {
+        return Flux.fromIterable(transactions)
+            .concatMap(this::send)
+            .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Sends an event to Kafka, keyed by the product the transaction was posted to so events of a product keep their order
+     *
+     * @param transaction The transaction with the pending event
+     * @return Mono with the id of the transaction once acknowledged, or the error of the failed send
+     */
+    private Mono<String> send(Transaction transaction) {
+        OutboxEvent event = transaction.getOutboxEvent();
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, event.getKey(), event.getPayload());
+        record.headers()
+            .add(EVENT_ID_HEADER, transaction.getId().getBytes(StandardCharsets.UTF_8))
+            .add(EVENT_TYPE_HEADER, event.getEventType().name().getBytes(StandardCharsets.UTF_8))
+            .add(TRANSACTION_ID_HEADER, transaction.getId().getBytes(StandardCharsets.UTF_8));
+        return Mono.fromFuture(outboxKafkaTemplate.send(record).completable())
+            .thenReturn(transaction.getId())
+            .doOnError(e -> {
+                log.warn("Error publishing the outbox event of transaction {}, it will be retried", transaction.getId(), e);
+                publishErrors.increment();
+            });
+    }
+
+    private Mono<Void> markPublished(List<String> ids) {
+        return transactionRepository.findAndMarkOutboxEventPublishedByIdIn(ids, LocalDateTime.now(clock))
+            .doOnNext(count -> published.increment(ids.size()))
+            .then();
+    }
+}
@@ -0,0 +1,76 @@
+package com.project1.ms_transaction_service.business.service.pagination;
+
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a transaction history ordered by {@code (date desc, _id desc)}.
+ * The next page holds the transactions strictly older than the position, so pages stay stable while new transactions
+ * are being posted. Exposed to clients as an opaque base64url token.
+ */
+@Getter
+public final class TransactionCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime date;
+
+    private final ObjectId id;
+
+    private TransactionCursor(LocalDateTime date, ObjectId id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    /**
+     * Encodes the position of the last transaction of a page
+     *
+     * @param date Date of the last transaction
+     * @param id   Id of the last transaction
+     * @return Opaque continuation token
+     */
+    public static String encode(LocalDateTime date, String id) {
+        String position = date + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token issued by {@link #encode(LocalDateTime, String)}
+     *
+     * @param token Opaque continuation token
+     * @return The decoded position
+     * @throws BadRequestException if the token is malformed
+     */
+    public static TransactionCursor decode(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new TransactionCursor(LocalDateTime.parse(position.substring(0, separator)), new ObjectId(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Builds the page request for an optional page size
+     *
+     * @param limit Maximum number of transactions, or null to stream the whole history
+     * @return Pageable limited to the first {@code limit} results, or unpaged
+     */
+    public static Pageable pageOf(Integer limit) {
+        return limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+    }
+}
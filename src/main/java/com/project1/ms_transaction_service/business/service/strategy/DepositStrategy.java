@@ -12,12 +12,12 @@ public class DepositStrategy implements TransactionStrategy {
         this.isOrigin = isOrigin;
     }
 
-    public BigDecimal calculateBalance(BigDecimal current, BigDecimal amount) {
+    public BigDecimal calculateDelta(BigDecimal amount) {
         BigDecimal finalAmount = amount;
         if (commissionFee != null && isOrigin) {
             finalAmount = amount.subtract(commissionFee);
         }
-        return current.add(finalAmount);
+        return finalAmount;
     }
 
     public boolean updateMovements() {
@@ -3,7 +3,17 @@ package com.project1.ms_transaction_service.business.service.strategy;
 import java.math.BigDecimal;
 
 public interface TransactionStrategy {
-    BigDecimal calculateBalance(BigDecimal current, BigDecimal amount);
+    /**
+     * Signed change the transaction makes to the balance of the account, commission included
+     *
+     * @param amount Transaction amount
+     * @return Amount to add to the balance, negative when the balance decreases
+     */
+    BigDecimal calculateDelta(BigDecimal amount);
+
+    default BigDecimal calculateBalance(BigDecimal current, BigDecimal amount) {
+        return current.add(calculateDelta(amount));
+    }
 
     boolean updateMovements();
 }
@@ -9,8 +9,8 @@ public class TransferStrategy implements TransactionStrategy {
         this.isOrigin = isOrigin;
     }
 
-    public BigDecimal calculateBalance(BigDecimal current, BigDecimal amount) {
-        return isOrigin ? current.subtract(amount) : current.add(amount);
+    public BigDecimal calculateDelta(BigDecimal amount) {
+        return isOrigin ? amount.negate() : amount;
     }
 
     public boolean updateMovements() { return isOrigin; }
@@ -12,12 +12,12 @@ public class WithdrawalStrategy implements TransactionStrategy {
         this.isOrigin = isOrigin;
     }
 
-    public BigDecimal calculateBalance(BigDecimal current, BigDecimal amount) {
+    public BigDecimal calculateDelta(BigDecimal amount) {
         BigDecimal finalAmount = amount;
         if (commissionFee != null && isOrigin) {
             finalAmount = amount.add(commissionFee);
         }
-        return current.subtract(finalAmount);
+        return finalAmount.negate();
     }
 
     public boolean updateMovements() {
@@ -2,11 +2,82 @@ package com.project1.ms_transaction_service.config;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decodes message payloads with mappers built once from the application Jackson configuration.
+ * Readers are cached per target type, and binary payloads are decoded as Smile or CBOR when they start with the
+ * format header, JSON otherwise.
+ */
 @Component
 public class CustomObjectMapper {
+
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    private static final byte[] CBOR_SELF_DESCRIBE_TAG = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+
+    private final ObjectMapper jsonMapper;
+
+    private final ObjectMapper smileMapper;
+
+    private final ObjectMapper cborMapper;
+
+    private final ConcurrentMap<Class<?>, ObjectReader> jsonReaders = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, ObjectReader> smileReaders = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, ObjectReader> cborReaders = new ConcurrentHashMap<>();
+
+    public CustomObjectMapper(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.jsonMapper = objectMapperBuilder.build();
+        this.smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    }
+
     public <T> T stringToObject(String message, Class<T> clazz) throws JsonProcessingException {
-        return new ObjectMapper().readValue(message, clazz);
+        return readerFor(jsonReaders, jsonMapper, clazz).readValue(message);
+    }
+
+    /**
+     * Decodes a raw message payload without copying it into a String
+     *
+     * @param payload Message payload, JSON, Smile or CBOR
+     * @param clazz   Target type
+     * @return The decoded object
+     * @throws IOException if the payload cannot be decoded into the target type
+     */
+    public <T> T bytesToObject(byte[] payload, Class<T> clazz) throws IOException {
+        if (startsWith(payload, SMILE_HEADER)) {
+            return readerFor(smileReaders, smileMapper, clazz).readValue(payload);
+        }
+        if (startsWith(payload, CBOR_SELF_DESCRIBE_TAG)) {
+            return readerFor(cborReaders, cborMapper, clazz).readValue(payload);
+        }
+        return readerFor(jsonReaders, jsonMapper, clazz).readValue(payload);
+    }
+
+    private static ObjectReader readerFor(ConcurrentMap<Class<?>, ObjectReader> readers, ObjectMapper mapper, Class<?> clazz) {
+        ObjectReader reader = readers.get(clazz);
+        return reader != null ? reader : readers.computeIfAbsent(clazz, mapper::readerFor);
+    }
+
+    private static boolean startsWith(byte[] payload, byte[] header) {
+        if (payload.length < header.length) {
+            return false;
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (payload[i] != header[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,27 @@
+package com.project1.ms_transaction_service.config;
+
+import com.project1.ms_transaction_service.business.service.lane.ExecutionLanes;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutionLaneConfig {
+
+    @Value("${application.config.lanes.account.count:64}")
+    private int accountLaneCount;
+
+    @Value("${application.config.lanes.wallet.count:64}")
+    private int walletLaneCount;
+
+    @Bean("accountExecutionLanes")
+    public ExecutionLanes accountExecutionLanes(MeterRegistry meterRegistry) {
+        return new ExecutionLanes("account", accountLaneCount, meterRegistry);
+    }
+
+    @Bean("walletExecutionLanes")
+    public ExecutionLanes walletExecutionLanes(MeterRegistry meterRegistry) {
+        return new ExecutionLanes("wallet", walletLaneCount, meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.project1.ms_transaction_service.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.Data;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings of one downstream WebClient.
+ * Values are bound from {@code application.config.http-clients.default} and then overridden by
+ * {@code application.config.http-clients.<client>}, so a busy downstream can get a larger pool without resizing the rest.
+ */
+@Data
+public class HttpClientProfile {
+
+    static final String PREFIX = "application.config.http-clients.";
+
+    static final String DEFAULT = "default";
+
+    private int maxConnections = ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS;
+
+    /**
+     * Requests allowed to wait for a connection, -1 for no limit, null for Reactor Netty's default (twice maxConnections)
+     */
+    private Integer pendingAcquireMaxCount;
+
+    private Duration pendingAcquireTimeout = Duration.ofMillis(ConnectionProvider.DEFAULT_POOL_ACQUIRE_TIMEOUT);
+
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    private Duration maxLifeTime;
+
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    private boolean keepAlive = true;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration responseTimeout;
+
+    /**
+     * Negotiates HTTP/2 over cleartext with the downstream, falling back to HTTP/1.1
+     */
+    private boolean http2;
+
+    /**
+     * Binds the profile of a client over the default profile
+     *
+     * @param environment Environment holding the properties
+     * @param client      Client name, e.g. account
+     * @return The bound profile
+     */
+    public static HttpClientProfile of(Environment environment, String client) {
+        Binder binder = Binder.get(environment);
+        HttpClientProfile profile = new HttpClientProfile();
+        binder.bind(PREFIX + DEFAULT, Bindable.ofInstance(profile));
+        binder.bind(PREFIX + client, Bindable.ofInstance(profile));
+        return profile;
+    }
+
+    /**
+     * Builds a dedicated connection pool, exporting its utilization metrics under the client name
+     *
+     * @param client Client name, used as the pool name
+     * @return The connection pool
+     */
+    public ConnectionProvider connectionProvider(String client) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(client)
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .metrics(true);
+        if (pendingAcquireMaxCount != null) {
+            builder.pendingAcquireMaxCount(pendingAcquireMaxCount);
+        }
+        if (maxIdleTime != null) {
+            builder.maxIdleTime(maxIdleTime);
+        }
+        if (maxLifeTime != null) {
+            builder.maxLifeTime(maxLifeTime);
+        }
+        if (evictInBackground != null) {
+            builder.evictInBackground(evictInBackground);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the HTTP client of the profile on top of a connection pool
+     *
+     * @param connectionProvider Connection pool built by {@link #connectionProvider(String)}
+     * @return The HTTP client
+     */
+    public HttpClient httpClient(ConnectionProvider connectionProvider) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .keepAlive(keepAlive)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis());
+        if (responseTimeout != null) {
+            httpClient = httpClient.responseTimeout(responseTimeout);
+        }
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+        }
+        return httpClient;
+    }
+}
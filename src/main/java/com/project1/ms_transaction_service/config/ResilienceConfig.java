@@ -0,0 +1,44 @@
+package com.project1.ms_transaction_service.config;
+
+import com.project1.ms_transaction_service.exception.ServiceUnavailableException;
+import io.github.resilience4j.common.circuitbreaker.configuration.CircuitBreakerConfigCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps load shedding out of the circuit breakers of the downstream clients: a request rejected by the client's own
+ * concurrency limiter never reached the downstream, so it must not count as a failure and open the breaker. The
+ * predicate is added to the {@code ignoreExceptions} configured per instance.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerConfigCustomizer accountServiceCircuitBreakerCustomizer() {
+        return ignoringLimiterRejections("accountService");
+    }
+
+    @Bean
+    public CircuitBreakerConfigCustomizer creditServiceCircuitBreakerCustomizer() {
+        return ignoringLimiterRejections("creditService");
+    }
+
+    @Bean
+    public CircuitBreakerConfigCustomizer customerServiceCircuitBreakerCustomizer() {
+        return ignoringLimiterRejections("customerService");
+    }
+
+    @Bean
+    public CircuitBreakerConfigCustomizer yankiServiceCircuitBreakerCustomizer() {
+        return ignoringLimiterRejections("yankiService");
+    }
+
+    @Bean
+    public CircuitBreakerConfigCustomizer bootcoinServiceCircuitBreakerCustomizer() {
+        return ignoringLimiterRejections("bootcoinService");
+    }
+
+    private static CircuitBreakerConfigCustomizer ignoringLimiterRejections(String instance) {
+        return CircuitBreakerConfigCustomizer.of(instance, builder -> builder.ignoreException(ServiceUnavailableException.class::isInstance));
+    }
+}
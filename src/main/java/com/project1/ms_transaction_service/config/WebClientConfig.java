@@ -1,14 +1,36 @@
 package com.project1.ms_transaction_service.config;
 
+import com.project1.ms_transaction_service.business.service.limit.ConcurrencyLimiters;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * WebClients of the downstream services. Each one gets its own connection pool and timeouts, configured through
+ * {@link HttpClientProfile}, so a slow or busy downstream cannot exhaust the connections of the others, and its own
+ * adaptive concurrency limit, so requests to a slowing downstream are shed instead of queued.
+ */
 @Configuration
 public class WebClientConfig {
 
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ConcurrencyLimiters concurrencyLimiters;
+
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
     @Value("${application.config.account-service-url}")
     private String accountServiceBaseUrl;
 
@@ -32,36 +54,50 @@ public class WebClientConfig {
 
     @Bean("accountWebClient")
     public WebClient accountWebClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder
-            .baseUrl(accountServiceBaseUrl)
-            .build();
+        return build(webClientBuilder, "account", accountServiceBaseUrl);
     }
 
     @Bean("creditWebClient")
     public WebClient creditWebClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder
-            .baseUrl(creditServiceBaseUrl)
-            .build();
+        return build(webClientBuilder, "credit", creditServiceBaseUrl);
     }
 
     @Bean("customerWebClient")
     public WebClient customerWebClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder
-            .baseUrl(customerServiceBaseUrl)
-            .build();
+        return build(webClientBuilder, "customer", customerServiceBaseUrl);
     }
 
     @Bean("bootcoinWebClient")
     public WebClient bootcoinWebClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder
-            .baseUrl(bootcoinServiceBaseUrl)
-            .build();
+        return build(webClientBuilder, "bootcoin", bootcoinServiceBaseUrl);
     }
 
     @Bean("yankiWebClient")
     public WebClient yankiWebClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder
-            .baseUrl(yankiServiceBaseUrl)
+        return build(webClientBuilder, "yanki", yankiServiceBaseUrl);
+    }
+
+    /**
+     * Builds a WebClient on a copy of the load balanced builder with the connection pool of its downstream
+     *
+     * @param webClientBuilder Load balanced builder
+     * @param client           Client name, selects the {@link HttpClientProfile} and names the pool
+     * @param baseUrl          Base url of the downstream service
+     * @return The WebClient
+     */
+    private WebClient build(WebClient.Builder webClientBuilder, String client, String baseUrl) {
+        HttpClientProfile profile = HttpClientProfile.of(environment, client);
+        ConnectionProvider connectionProvider = profile.connectionProvider(client);
+        connectionProviders.add(connectionProvider);
+        return webClientBuilder.clone()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(profile.httpClient(connectionProvider)))
+            .filter(concurrencyLimiters.client(client).asFilter())
             .build();
     }
+
+    @PreDestroy
+    public void disposeConnectionProviders() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
 }
@@ -0,0 +1,7 @@
+package com.project1.ms_transaction_service.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
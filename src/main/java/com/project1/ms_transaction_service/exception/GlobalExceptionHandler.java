@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.project1.ms_transaction_service.model.ResponseBase;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -78,6 +79,35 @@ public class GlobalExceptionHandler {
             .body(responseBase));
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public Mono<ResponseEntity<ResponseBase>> handleConflictException(Exception ex) {
+        log.error("error", ex);
+        ResponseBase responseBase = new ResponseBase();
+        responseBase.setMessage(ex.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(responseBase));
+    }
+
+    @ExceptionHandler(UnprocessableEntityException.class)
+    public Mono<ResponseEntity<ResponseBase>> handleUnprocessableEntityException(Exception ex) {
+        log.error("error", ex);
+        ResponseBase responseBase = new ResponseBase();
+        responseBase.setMessage(ex.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body(responseBase));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public Mono<ResponseEntity<ResponseBase>> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        log.warn("Request rejected: {}", ex.getMessage());
+        ResponseBase responseBase = new ResponseBase();
+        responseBase.setMessage(ex.getMessage());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(responseBase));
+    }
+
     @ExceptionHandler(ServerWebInputException.class)
     public Mono<ResponseEntity<Map<String, List<String>>>> handleServerWebInputException(ServerWebInputException ex) {
         log.error("error", ex);
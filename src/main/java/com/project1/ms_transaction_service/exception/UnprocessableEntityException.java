@@ -0,0 +1,7 @@
+package com.project1.ms_transaction_service.exception;
+
+public class UnprocessableEntityException extends RuntimeException {
+    public UnprocessableEntityException(String message) {
+        super(message);
+    }
+}
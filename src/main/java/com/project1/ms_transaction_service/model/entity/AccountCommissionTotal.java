@@ -0,0 +1,18 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountCommissionTotal {
+    @Id
+    private String accountNumber;
+
+    private BigDecimal totalCommissionFee;
+}
@@ -0,0 +1,5 @@
+package com.project1.ms_transaction_service.model.entity;
+
+public enum BatchItemStatus {
+    CREATED, REJECTED, UNKNOWN
+}
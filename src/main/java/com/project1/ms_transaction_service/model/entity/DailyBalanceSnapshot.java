@@ -0,0 +1,38 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "daily_balances")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TypeAlias("dailyBalanceSnapshot")
+public class DailyBalanceSnapshot {
+    @Id
+    private String id;
+
+    private String customerId;
+
+    private BalanceProductType productType;
+
+    private String productId;
+
+    private String productIdentifier;
+
+    private LocalDate date;
+
+    private BigDecimal closingBalance;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,36 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a create request sent with an Idempotency-Key, keyed by operation and key.
+ * The id is the unique index claims race on; the record is removed by a TTL index once it expires.
+ */
+@Data
+@Document(collection = "idempotency_keys")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@TypeAlias("idempotencyRecord")
+public class IdempotencyRecord {
+    @Id
+    private String id;
+
+    private String fingerprint;
+
+    private IdempotencyStatus status;
+
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+}
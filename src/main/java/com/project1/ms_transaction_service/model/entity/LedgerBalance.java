@@ -0,0 +1,51 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Balance projection of an account in ledger mode, keyed by account number.
+ * It is seeded once from the account service and then only changed with atomic increments; monthly movements are
+ * counted per month ({@code yyyy-MM}), so a new month starts from zero. The ids of the latest transactions applied
+ * are kept with the balance, so applying or reversing the same transaction twice changes it once.
+ */
+@Data
+@Document(collection = "account_balances")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TypeAlias("ledgerBalance")
+public class LedgerBalance {
+    @Id
+    private String id;
+
+    private String accountId;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal balance;
+
+    private Map<String, Integer> monthlyMovements;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal openingBalance;
+
+    private LocalDateTime openedAt;
+
+    private List<String> appliedTransactions;
+
+    private long version;
+
+    private LocalDateTime updatedAt;
+}
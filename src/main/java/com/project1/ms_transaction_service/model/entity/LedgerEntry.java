@@ -0,0 +1,47 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a double-entry posting of an account or debit card transaction.
+ * The amount is signed from the point of view of the ledger account, and the entries of a transaction add up to zero:
+ * customer accounts are keyed by account number, money entering or leaving the bank is booked on {@code cash},
+ * commissions charged on {@code commissions} and the balance an account had when its projection was seeded on
+ * {@code opening-balances}. Entries are the source of truth of account balances, their id is
+ * {@code transactionId:ledgerAccount} so writing the entries of a transaction again does not duplicate them.
+ */
+@Data
+@Document(collection = "ledger_entries")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TypeAlias("ledgerEntry")
+public class LedgerEntry {
+    @Id
+    private String id;
+
+    private String transactionId;
+
+    private String ledgerAccount;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+
+    private LocalDateTime date;
+
+    /**
+     * Whether the transaction counted as a monthly movement of the account
+     */
+    private boolean movement;
+}
@@ -0,0 +1,31 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event of a posted transaction waiting to be relayed to Kafka, embedded in the transaction document so it is written
+ * atomically with the transaction. The payload is the serialized API response of the transaction, so consumers receive
+ * the same representation they would otherwise poll for; it is dropped once the event is published.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    private OutboxEventType eventType;
+
+    private String key;
+
+    private String payload;
+
+    private OutboxEventStatus status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,5 @@
+package com.project1.ms_transaction_service.model.entity;
+
+public enum OutboxEventType {
+    ACCOUNT_TRANSACTION_POSTED, DEBIT_CARD_TRANSACTION_POSTED, CREDIT_CARD_TRANSACTION_POSTED, CREDIT_TRANSACTION_POSTED
+}
@@ -0,0 +1,30 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease of the outbox relay, held by one instance at a time so events are published by a single relay in order.
+ * The holder renews it before every batch; once it expires any instance may claim it.
+ */
+@Data
+@Document(collection = "outbox_relay_lease")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TypeAlias("outboxRelayLease")
+public class OutboxRelayLease {
+    @Id
+    private String id;
+
+    private String owner;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.project1.ms_transaction_service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductAverageBalance {
+    private BalanceProductType productType;
+
+    private String productIdentifier;
+
+    private BigDecimal averageBalance;
+}
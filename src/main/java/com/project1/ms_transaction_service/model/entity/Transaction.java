@@ -21,4 +21,6 @@ public class Transaction {
     private String id;
 
     private LocalDateTime date;
+
+    private OutboxEvent outboxEvent;
 }
@@ -1,7 +1,12 @@
 package com.project1.ms_transaction_service.repository;
 
+import com.project1.ms_transaction_service.model.entity.AccountCommissionTotal;
 import com.project1.ms_transaction_service.model.entity.AccountTransaction;
-import com.project1.ms_transaction_service.model.entity.Transaction;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -10,7 +15,19 @@ import java.time.LocalDateTime;
 
 @Repository
 public interface AccountTransactionRepository extends ReactiveMongoRepository<AccountTransaction, String> {
-    Flux<AccountTransaction> findAllByOriginAccountNumber(String accountNumber);
+    @Meta(cursorBatchSize = 256)
+    @Query(value = "{ '_class': 'accountTransaction', 'originAccountNumber': ?0 }", sort = "{ 'date': -1, '_id': -1 }")
+    Flux<AccountTransaction> findAllByOriginAccountNumberOrderByDateDescIdDesc(String accountNumber, Pageable pageable);
 
-    Flux<AccountTransaction> findAllByDateBetween(LocalDateTime startDate, LocalDateTime endDate);
+    @Meta(cursorBatchSize = 256)
+    @Query(value = "{ '_class': 'accountTransaction', 'originAccountNumber': ?0, '$or': [ { 'date': { '$lt': ?1 } }, { 'date': ?1, '_id': { '$lt': ?2 } } ] }",
+        sort = "{ 'date': -1, '_id': -1 }")
+    Flux<AccountTransaction> findAllByOriginAccountNumberBeforeCursor(String accountNumber, LocalDateTime date, ObjectId id, Pageable pageable);
+
+    @Aggregation(pipeline = {
+        "{ '$match': { '_class': 'accountTransaction', 'date': { '$gt': ?0, '$lt': ?1 }, 'commissionFee': { '$ne': null } } }",
+        "{ '$group': { '_id': '$originAccountNumber', 'totalCommissionFee': { '$sum': { '$toDecimal': '$commissionFee' } } } }",
+        "{ '$sort': { '_id': 1 } }"
+    })
+    Flux<AccountCommissionTotal> sumCommissionFeeByOriginAccountNumber(LocalDateTime startDate, LocalDateTime endDate);
 }
@@ -1,14 +1,27 @@
 package com.project1.ms_transaction_service.repository;
 
 import com.project1.ms_transaction_service.model.entity.CreditCardTransaction;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface CreditCardTransactionRepository extends ReactiveMongoRepository<CreditCardTransaction, String> {
-    Flux<CreditCardTransaction> findAllByCreditCardId(String creditCard);
+    @Meta(cursorBatchSize = 256)
+    @Query(value = "{ '_class': 'creditCardTransaction', 'creditCardId': ?0 }", sort = "{ 'date': -1, '_id': -1 }")
+    Flux<CreditCardTransaction> findAllByCreditCardIdOrderByDateDescIdDesc(String creditCard, Pageable pageable);
+
+    @Meta(cursorBatchSize = 256)
+    @Query(value = "{ '_class': 'creditCardTransaction', 'creditCardId': ?0, '$or': [ { 'date': { '$lt': ?1 } }, { 'date': ?1, '_id': { '$lt': ?2 } } ] }",
+        sort = "{ 'date': -1, '_id': -1 }")
+    Flux<CreditCardTransaction> findAllByCreditCardIdBeforeCursor(String creditCard, LocalDateTime date, ObjectId id, Pageable pageable);
 
+    @Query(value = "{ '_class': 'creditCardTransaction', 'creditCardId': ?0 }", sort = "{ 'date': -1, '_id': -1 }")
     Flux<CreditCardTransaction> findAllByCreditCardIdOrderByDateDesc(String creditCard, Pageable pageable);
 }
@@ -1,11 +1,24 @@
 package com.project1.ms_transaction_service.repository;
 
 import com.project1.ms_transaction_service.model.entity.CreditTransaction;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface CreditTransactionRepository extends ReactiveMongoRepository<CreditTransaction, String> {
-    Flux<CreditTransaction> findAllByCreditId(String creditId);
+    @Meta(cursorBatchSize = 256)
+    @Query(value = "{ '_class': 'creditTransaction', 'creditId': ?0 }", sort = "{ 'date': -1, '_id': -1 }")
+    Flux<CreditTransaction> findAllByCreditIdOrderByDateDescIdDesc(String creditId, Pageable pageable);
+
+    @Meta(cursorBatchSize = 256)
+    @Query(value = "{ '_class': 'creditTransaction', 'creditId': ?0, '$or': [ { 'date': { '$lt': ?1 } }, { 'date': ?1, '_id': { '$lt': ?2 } } ] }",
+        sort = "{ 'date': -1, '_id': -1 }")
+    Flux<CreditTransaction> findAllByCreditIdBeforeCursor(String creditId, LocalDateTime date, ObjectId id, Pageable pageable);
 }
@@ -0,0 +1,24 @@
+package com.project1.ms_transaction_service.repository;
+
+import com.project1.ms_transaction_service.model.entity.DailyBalanceSnapshot;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+@Repository
+public interface DailyBalanceSnapshotRepository extends ReactiveMongoRepository<DailyBalanceSnapshot, String> {
+    @Query(value = "{ 'customerId': ?0, 'date': { '$gte': ?1, '$lte': ?2 } }", sort = "{ 'date': 1 }")
+    Flux<DailyBalanceSnapshot> findAllByCustomerIdAndDateRange(String customerId, LocalDate from, LocalDate to);
+
+    @Aggregation(pipeline = {
+        "{ '$match': { 'customerId': ?0, 'date': { '$lt': ?1 } } }",
+        "{ '$sort': { 'date': -1 } }",
+        "{ '$group': { '_id': { 'productType': '$productType', 'productId': '$productId' }, 'snapshot': { '$first': '$$ROOT' } } }",
+        "{ '$replaceRoot': { 'newRoot': '$snapshot' } }"
+    })
+    Flux<DailyBalanceSnapshot> findLatestByCustomerIdBefore(String customerId, LocalDate date);
+}
@@ -0,0 +1,18 @@
+package com.project1.ms_transaction_service.repository;
+
+import com.project1.ms_transaction_service.model.entity.IdempotencyRecord;
+import com.project1.ms_transaction_service.model.entity.IdempotencyStatus;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecord, String> {
+    Mono<Long> deleteByIdAndExpiresAtBefore(String id, LocalDateTime now);
+
+    @Update("{ '$set': { 'status': 'FAILED', 'expiresAt': ?2 } }")
+    Mono<Long> findAndMarkFailedByIdAndStatus(String id, IdempotencyStatus status, LocalDateTime expiresAt);
+}
@@ -0,0 +1,14 @@
+package com.project1.ms_transaction_service.repository;
+
+import com.project1.ms_transaction_service.model.entity.LedgerEntry;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface LedgerEntryRepository extends ReactiveMongoRepository<LedgerEntry, String> {
+    Flux<LedgerEntry> findAllByTransactionId(String transactionId);
+
+    Mono<Long> deleteByTransactionId(String transactionId);
+}
@@ -1,10 +1,21 @@
 package com.project1.ms_transaction_service.repository;
 
+import com.project1.ms_transaction_service.model.entity.OutboxEventStatus;
 import com.project1.ms_transaction_service.model.entity.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface TransactionRepository extends ReactiveMongoRepository<Transaction, String> {
+    Flux<Transaction> findAllByOutboxEventStatusOrderByOutboxEventCreatedAtAscIdAsc(OutboxEventStatus status, Pageable page);
+
+    @Update("{ '$set': { 'outboxEvent.status': 'PUBLISHED', 'outboxEvent.publishedAt': ?1 }, '$unset': { 'outboxEvent.payload': '' } }")
+    Mono<Long> findAndMarkOutboxEventPublishedByIdIn(Collection<String> ids, LocalDateTime publishedAt);
 }
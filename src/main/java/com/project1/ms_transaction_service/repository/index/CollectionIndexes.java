@@ -0,0 +1,59 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * Indexes of one collection, created once the application is ready unless
+ * {@code application.config.transaction-indexes.auto-create} is disabled
+ */
+@Slf4j
+public abstract class CollectionIndexes {
+
+    @Autowired
+    protected ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Value("${application.config.transaction-indexes.auto-create:true}")
+    private boolean autoCreate;
+
+    /**
+     * @return Entity class mapped to the collection
+     */
+    protected abstract Class<?> entityClass();
+
+    /**
+     * @return Indexes the collection is expected to have
+     */
+    protected abstract Collection<Index> indexes();
+
+    /**
+     * Creates the missing indexes once the application is ready, unless disabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (autoCreate) {
+            String collection = reactiveMongoTemplate.getCollectionName(entityClass());
+            ensureIndexes().subscribe(
+                name -> log.info("Index of {} ensured: {}", collection, name),
+                e -> log.error("Error ensuring indexes of {}", collection, e));
+        }
+    }
+
+    /**
+     * Creates the missing indexes, existing indexes are left untouched
+     *
+     * @return Flux with the name of every ensured index
+     */
+    public Flux<String> ensureIndexes() {
+        return Flux.fromIterable(indexes())
+            .concatMap(index -> reactiveMongoTemplate.indexOps(entityClass()).ensureIndex(index));
+    }
+}
@@ -0,0 +1,31 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import com.project1.ms_transaction_service.model.entity.DailyBalanceSnapshot;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Indexes of the {@code daily_balances} snapshots: the month lookups of a customer
+ */
+@Component
+public class DailyBalanceIndexes extends CollectionIndexes {
+
+    private static final Index CUSTOMER_DATE = new Index()
+        .named("customer_date")
+        .on("customerId", Sort.Direction.ASC)
+        .on("date", Sort.Direction.ASC);
+
+    @Override
+    protected Class<?> entityClass() {
+        return DailyBalanceSnapshot.class;
+    }
+
+    @Override
+    protected Collection<Index> indexes() {
+        return List.of(CUSTOMER_DATE);
+    }
+}
@@ -0,0 +1,32 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import com.project1.ms_transaction_service.model.entity.IdempotencyRecord;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Indexes of the {@code idempotency_keys} records: their expiry at {@code expiresAt}
+ */
+@Component
+public class IdempotencyIndexes extends CollectionIndexes {
+
+    private static final Index EXPIRY = new Index()
+        .named("expiry")
+        .on("expiresAt", Sort.Direction.ASC)
+        .expire(Duration.ZERO);
+
+    @Override
+    protected Class<?> entityClass() {
+        return IdempotencyRecord.class;
+    }
+
+    @Override
+    protected Collection<Index> indexes() {
+        return List.of(EXPIRY);
+    }
+}
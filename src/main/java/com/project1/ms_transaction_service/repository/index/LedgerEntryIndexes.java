@@ -0,0 +1,35 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import com.project1.ms_transaction_service.model.entity.LedgerEntry;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Indexes of the {@code ledger_entries}: the entries of a transaction, and the statement of a ledger account
+ */
+@Component
+public class LedgerEntryIndexes extends CollectionIndexes {
+
+    private static final Index TRANSACTION = new Index()
+        .named("transaction")
+        .on("transactionId", Sort.Direction.ASC);
+
+    private static final Index LEDGER_ACCOUNT_DATE = new Index()
+        .named("ledger_account_date")
+        .on("ledgerAccount", Sort.Direction.ASC)
+        .on("date", Sort.Direction.ASC);
+
+    @Override
+    protected Class<?> entityClass() {
+        return LedgerEntry.class;
+    }
+
+    @Override
+    protected Collection<Index> indexes() {
+        return List.of(TRANSACTION, LEDGER_ACCOUNT_DATE);
+    }
+}
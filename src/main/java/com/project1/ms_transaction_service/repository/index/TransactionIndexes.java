@@ -0,0 +1,104 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import com.project1.ms_transaction_service.model.entity.OutboxEventStatus;
+import com.project1.ms_transaction_service.model.entity.Transaction;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes of the shared {@code transactions} collection.
+ * History lookups are covered by compound indexes restricted to their type alias, so each subtype only indexes its own
+ * documents; every repository query filtering on a subtype field also filters on {@code _class} to be able to use them.
+ * The outbox relay scans pending events in creation order through an index restricted to transactions whose event is
+ * still pending.
+ * The other collections of the service have their own {@link CollectionIndexes}.
+ */
+@Component
+public class TransactionIndexes extends CollectionIndexes {
+
+    private static final String ID_INDEX = "_id_";
+
+    /**
+     * Indexes the transactions collection is expected to have
+     *
+     * @return Index definitions, by index name
+     */
+    public static Map<String, Index> definitions() {
+        Map<String, Index> definitions = new LinkedHashMap<>();
+        definitions.put("account_history", historyIndex("account_history", "accountTransaction", "originAccountNumber"));
+        definitions.put("credit_card_history", historyIndex("credit_card_history", "creditCardTransaction", "creditCardId"));
+        definitions.put("debit_card_history", historyIndex("debit_card_history", "debitCardTransaction", "debitCardId"));
+        definitions.put("credit_history", historyIndex("credit_history", "creditTransaction", "creditId"));
+        definitions.put("date", new Index().named("date").on("date", Sort.Direction.ASC));
+        definitions.put("outbox_pending", new Index()
+            .named("outbox_pending")
+            .on("outboxEvent.createdAt", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .partial(PartialIndexFilter.of(Criteria.where("outboxEvent.status").is(OutboxEventStatus.PENDING.name()))));
+        return definitions;
+    }
+
+    private static Index historyIndex(String name, String typeAlias, String ownerField) {
+        return new Index()
+            .named(name)
+            .on("_class", Sort.Direction.ASC)
+            .on(ownerField, Sort.Direction.ASC)
+            .on("date", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .partial(PartialIndexFilter.of(Criteria.where("_class").is(typeAlias)));
+    }
+
+    @Override
+    protected Class<?> entityClass() {
+        return Transaction.class;
+    }
+
+    @Override
+    protected Collection<Index> indexes() {
+        return definitions().values();
+    }
+
+    /**
+     * Reports expected indexes that do not exist and existing indexes not used since their statistics were reset
+     *
+     * @return Mono with the missing and unused index names and the usage of every index
+     */
+    public Mono<Map<String, Object>> describe() {
+        Mono<Set<String>> existing = reactiveMongoTemplate.indexOps(Transaction.class).getIndexInfo()
+            .map(IndexInfo::getName)
+            .collect(Collectors.toSet());
+        Mono<Map<String, Long>> accesses = reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Transaction.class))
+            .flatMapMany(collection -> collection.aggregate(List.of(new Document("$indexStats", new Document()))))
+            .collectMap(stats -> stats.getString("name"), stats -> ((Number) stats.get("accesses", Document.class).get("ops")).longValue());
+        return Mono.zip(existing, accesses)
+            .map(tuple -> report(tuple.getT1(), tuple.getT2()));
+    }
+
+    static Map<String, Object> report(Set<String> existing, Map<String, Long> accesses) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("missing", definitions().keySet().stream()
+            .filter(name -> !existing.contains(name))
+            .collect(Collectors.toList()));
+        report.put("unused", existing.stream()
+            .filter(name -> !ID_INDEX.equals(name))
+            .filter(name -> accesses.getOrDefault(name, 0L) == 0L)
+            .sorted()
+            .collect(Collectors.toList()));
+        report.put("accesses", new TreeMap<>(accesses));
+        return report;
+    }
+}
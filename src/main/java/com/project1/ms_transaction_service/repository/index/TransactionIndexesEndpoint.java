@@ -0,0 +1,29 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "transactionindexes")
+public class TransactionIndexesEndpoint {
+
+    @Autowired
+    private TransactionIndexes transactionIndexes;
+
+    @ReadOperation
+    public Mono<Map<String, Object>> transactionIndexes() {
+        return transactionIndexes.describe();
+    }
+
+    @WriteOperation
+    public Mono<List<String>> ensureTransactionIndexes() {
+        return transactionIndexes.ensureIndexes().collectList();
+    }
+}
@@ -1,6 +1,8 @@
 package com.project1.ms_transaction_service;
 
 import com.project1.ms_transaction_service.business.service.*;
+import com.project1.ms_transaction_service.business.service.cache.CustomerProducts;
+import com.project1.ms_transaction_service.business.service.pagination.TransactionCursor;
 import com.project1.ms_transaction_service.model.*;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +20,8 @@ import static org.mockito.Mockito.*;
 @SpringBootTest
 class TransactionApiDelegateImplTest {
 
+    private static final String ETAG = "\"products-v1\"";
+
     @MockBean
     private TransactionService transactionService;
 
@@ -41,23 +45,54 @@ class TransactionApiDelegateImplTest {
         String accountNumber = "123";
         Flux<AccountTransactionResponse> response = Flux.just(new AccountTransactionResponse());
 
-        when(accountTransactionService.getTransactionsByAccountNumber(accountNumber))
+        when(accountTransactionService.getTransactionsByAccountNumber(accountNumber, null, null))
             .thenReturn(response);
 
-        StepVerifier.create(transactionApiDelegate.getAccountTransactionsByAccountNumber(accountNumber, null))
+        StepVerifier.create(transactionApiDelegate.getAccountTransactionsByAccountNumber(accountNumber, null, null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
             .verifyComplete();
     }
 
+    @Test
+    void getAccountTransactionsByAccountNumber_ShouldSendNextCursorForFullPage() {
+        String accountNumber = "123";
+        AccountTransactionResponse first = new AccountTransactionResponse();
+        first.setId("65a2b0c1d2e3f4a5b6c7d8e9");
+        first.setDate(LocalDateTime.of(2025, 1, 13, 10, 0));
+        AccountTransactionResponse second = new AccountTransactionResponse();
+        second.setId("65a2b0c1d2e3f4a5b6c7d8e8");
+        second.setDate(LocalDateTime.of(2025, 1, 12, 10, 0));
+
+        when(accountTransactionService.getTransactionsByAccountNumber(accountNumber, 2, null))
+            .thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(transactionApiDelegate.getAccountTransactionsByAccountNumber(accountNumber, 2, null, null))
+            .expectNextMatches(resp -> TransactionCursor.encode(second.getDate(), second.getId())
+                .equals(resp.getHeaders().getFirst(TransactionCursor.NEXT_CURSOR_HEADER)))
+            .verifyComplete();
+    }
+
+    @Test
+    void getAccountTransactionsByAccountNumber_ShouldOmitNextCursorOnLastPage() {
+        String accountNumber = "123";
+
+        when(accountTransactionService.getTransactionsByAccountNumber(accountNumber, 2, null))
+            .thenReturn(Flux.just(new AccountTransactionResponse()));
+
+        StepVerifier.create(transactionApiDelegate.getAccountTransactionsByAccountNumber(accountNumber, 2, null, null))
+            .expectNextMatches(resp -> !resp.getHeaders().containsKey(TransactionCursor.NEXT_CURSOR_HEADER))
+            .verifyComplete();
+    }
+
     @Test
     void getCreditCardTransactionsByCreditCardId() {
         String creditCardId = "123";
         Flux<CreditCardTransactionResponse> response = Flux.just(new CreditCardTransactionResponse());
 
-        when(creditCardTransactionService.getCreditCardTransactionsById(creditCardId))
+        when(creditCardTransactionService.getCreditCardTransactionsById(creditCardId, null, null))
             .thenReturn(response);
 
-        StepVerifier.create(transactionApiDelegate.getCreditCardTransactionsByCreditCardId(creditCardId, null))
+        StepVerifier.create(transactionApiDelegate.getCreditCardTransactionsByCreditCardId(creditCardId, null, null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
             .verifyComplete();
     }
@@ -67,10 +102,10 @@ class TransactionApiDelegateImplTest {
         String creditCardId = "123";
         Flux<CreditPaymentTransactionResponse> response = Flux.just(new CreditPaymentTransactionResponse());
 
-        when(creditTransactionService.getCreditTransactionsByCreditId(creditCardId))
+        when(creditTransactionService.getCreditTransactionsByCreditId(creditCardId, null, null))
             .thenReturn(response);
 
-        StepVerifier.create(transactionApiDelegate.getCreditTransactionsByCreditId(creditCardId, null))
+        StepVerifier.create(transactionApiDelegate.getCreditTransactionsByCreditId(creditCardId, null, null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
             .verifyComplete();
     }
@@ -83,7 +118,7 @@ class TransactionApiDelegateImplTest {
         when(creditCardTransactionService.createCreditCardTransaction(any()))
             .thenReturn(Mono.just(response));
 
-        StepVerifier.create(transactionApiDelegate.createCreditCardTransaction(Mono.just(request), null))
+        StepVerifier.create(transactionApiDelegate.createCreditCardTransaction(Mono.just(request), null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.CREATED)
             .verifyComplete();
     }
@@ -95,9 +130,9 @@ class TransactionApiDelegateImplTest {
         CustomerProductsResponse response = new CustomerProductsResponse();
 
         when(transactionService.getAllCustomerProductsByRuc(any()))
-            .thenReturn(Mono.just(response));
+            .thenReturn(Mono.just(new CustomerProducts(response, ETAG)));
 
-        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByRuc(ruc, null))
+        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByRuc(ruc, null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
             .verifyComplete();
     }
@@ -110,11 +145,23 @@ class TransactionApiDelegateImplTest {
         when(accountTransactionService.createAccountTransaction(any()))
             .thenReturn(Mono.just(response));
 
-        StepVerifier.create(transactionApiDelegate.createTransactionAccounts(Mono.just(request), null))
+        StepVerifier.create(transactionApiDelegate.createTransactionAccounts(Mono.just(request), null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.CREATED)
             .verifyComplete();
     }
 
+    @Test
+    void createTransactionAccountsBatch() {
+        AccountTransactionBatchItemResponse response = new AccountTransactionBatchItemResponse();
+
+        when(accountTransactionService.createAccountTransactions(any()))
+            .thenReturn(Flux.just(response));
+
+        StepVerifier.create(transactionApiDelegate.createTransactionAccountsBatch(Flux.just(new AccountTransactionRequest()), null))
+            .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
+            .verifyComplete();
+    }
+
     @Test
     void createCreditPaymentTransaction() {
         CreditPaymentTransactionRequest request = new CreditPaymentTransactionRequest();
@@ -123,7 +170,7 @@ class TransactionApiDelegateImplTest {
         when(creditTransactionService.createCreditPaymentTransaction(any()))
             .thenReturn(Mono.just(response));
 
-        StepVerifier.create(transactionApiDelegate.createCreditPaymentTransaction(Mono.just(request), null))
+        StepVerifier.create(transactionApiDelegate.createCreditPaymentTransaction(Mono.just(request), null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.CREATED)
             .verifyComplete();
     }
@@ -134,9 +181,9 @@ class TransactionApiDelegateImplTest {
         CustomerProductsResponse response = new CustomerProductsResponse();
 
         when(transactionService.getAllCustomerProductsByCustomerId(any()))
-            .thenReturn(Mono.just(response));
+            .thenReturn(Mono.just(new CustomerProducts(response, ETAG)));
 
-        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByCustomerId(customerId, null))
+        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByCustomerId(customerId, null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
             .verifyComplete();
     }
@@ -160,10 +207,26 @@ class TransactionApiDelegateImplTest {
         CustomerProductsResponse response = new CustomerProductsResponse();
 
         when(transactionService.getAllCustomerProductsByDni(dni))
-            .thenReturn(Mono.just(response));
+            .thenReturn(Mono.just(new CustomerProducts(response, ETAG)));
 
-        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByDni(dni, null))
-            .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK)
+        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByDni(dni, null, null))
+            .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.OK
+                && ETAG.equals(resp.getHeaders().getETag())
+                && resp.getBody() == response)
+            .verifyComplete();
+    }
+
+    @Test
+    void getAllCustomerProductsByDni_ShouldReturnNotModifiedForMatchingETag() {
+        String dni = "12345678";
+
+        when(transactionService.getAllCustomerProductsByDni(dni))
+            .thenReturn(Mono.just(new CustomerProducts(new CustomerProductsResponse(), ETAG)));
+
+        StepVerifier.create(transactionApiDelegate.getAllCustomerProductsByDni(dni, ETAG, null))
+            .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.NOT_MODIFIED
+                && ETAG.equals(resp.getHeaders().getETag())
+                && resp.getBody() == null)
             .verifyComplete();
     }
 
@@ -175,7 +238,7 @@ class TransactionApiDelegateImplTest {
         when(debitCardTransactionService.createDebitCardTransaction(any()))
             .thenReturn(Mono.just(response));
 
-        StepVerifier.create(transactionApiDelegate.createDebitCardTransaction(Mono.just(request), null))
+        StepVerifier.create(transactionApiDelegate.createDebitCardTransaction(Mono.just(request), null, null))
             .expectNextMatches(resp -> resp.getStatusCode() == HttpStatus.CREATED)
             .verifyComplete();
     }
@@ -0,0 +1,147 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import com.project1.ms_transaction_service.business.adapter.cache.AccountCache;
+import com.project1.ms_transaction_service.business.adapter.impl.AccountServiceImpl;
+import com.project1.ms_transaction_service.business.adapter.impl.CachingAccountServiceImpl;
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class CachingAccountServiceImplTest {
+
+    @MockBean
+    private AccountServiceImpl accountServiceImpl;
+
+    @Autowired
+    private CachingAccountServiceImpl cachingAccountService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @BeforeEach
+    void setUp() {
+        accountCache.invalidateAll();
+    }
+
+    @Test
+    void getAccountByAccountNumber_ShouldAlwaysCallAccountService() {
+        AccountResponse account = account("1", "123", BigDecimal.TEN);
+        when(accountServiceImpl.getAccountByAccountNumber("123")).thenReturn(Mono.just(account));
+
+        StepVerifier.create(cachingAccountService.getAccountByAccountNumber("123"))
+            .expectNext(account)
+            .verifyComplete();
+        StepVerifier.create(cachingAccountService.getAccountByAccountNumber("123"))
+            .expectNext(account)
+            .verifyComplete();
+
+        verify(accountServiceImpl, times(2)).getAccountByAccountNumber("123");
+    }
+
+    @Test
+    void getAccountReferenceByAccountNumber_ShouldBeServedFromCacheWithoutBalance() {
+        AccountResponse account = account("1", "123", BigDecimal.TEN);
+        when(accountServiceImpl.getAccountByAccountNumber("123")).thenReturn(Mono.just(account));
+
+        StepVerifier.create(cachingAccountService.getAccountByAccountNumber("123"))
+            .expectNext(account)
+            .verifyComplete();
+        StepVerifier.create(cachingAccountService.getAccountReferenceByAccountNumber("123"))
+            .assertNext(reference -> {
+                assertEquals("1", reference.getId());
+                assertEquals("ACTIVE", reference.getStatus());
+                assertNull(reference.getBalance());
+                assertNull(reference.getMonthlyMovements());
+            })
+            .verifyComplete();
+        StepVerifier.create(cachingAccountService.getAccountReferenceById("1"))
+            .assertNext(reference -> assertEquals("123", reference.getAccountNumber()))
+            .verifyComplete();
+
+        verify(accountServiceImpl, times(1)).getAccountByAccountNumber("123");
+        verify(accountServiceImpl, never()).getAccountById(any());
+    }
+
+    @Test
+    void getAccountReferenceById_ShouldReturnCopies() {
+        accountCache.put(account("1", "123", BigDecimal.TEN));
+
+        AccountResponse first = cachingAccountService.getAccountReferenceById("1").block();
+        first.setStatus("BLOCKED");
+
+        StepVerifier.create(cachingAccountService.getAccountReferenceById("1"))
+            .assertNext(second -> {
+                assertNotSame(first, second);
+                assertEquals("ACTIVE", second.getStatus());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void updateAccount_ShouldRefreshCachedAccount() {
+        AccountResponse account = account("1", "123", BigDecimal.TEN);
+        AccountResponse updatedAccount = account("1", "123", BigDecimal.ONE);
+        updatedAccount.setStatus("BLOCKED");
+        accountCache.put(account);
+        when(accountServiceImpl.updateAccount(eq(account), any())).thenReturn(Mono.just(updatedAccount));
+
+        StepVerifier.create(cachingAccountService.updateAccount(account, new AccountPatchRequest()))
+            .expectNext(updatedAccount)
+            .verifyComplete();
+
+        assertEquals("BLOCKED", accountCache.getByAccountNumber("123").orElseThrow().getStatus());
+    }
+
+    @Test
+    void updateAccount_ShouldEvictAccountOnError() {
+        AccountResponse account = account("1", "123", BigDecimal.TEN);
+        accountCache.put(account);
+        when(accountServiceImpl.updateAccount(eq(account), any())).thenReturn(Mono.error(new BadRequestException("error")));
+
+        StepVerifier.create(cachingAccountService.updateAccount(account, new AccountPatchRequest()))
+            .expectError(BadRequestException.class)
+            .verify();
+
+        assertTrue(accountCache.getByAccountNumber("123").isEmpty());
+        assertTrue(accountCache.getById("1").isEmpty());
+    }
+
+    @Test
+    void getAccountsByCustomerId_ShouldPopulateCache() {
+        AccountResponse account = account("1", "123", BigDecimal.TEN);
+        when(accountServiceImpl.getAccountsByCustomerId("customer")).thenReturn(Flux.just(account));
+
+        StepVerifier.create(cachingAccountService.getAccountsByCustomerId("customer"))
+            .expectNext(account)
+            .verifyComplete();
+
+        assertTrue(accountCache.getById("1").isPresent());
+    }
+
+    private AccountResponse account(String id, String accountNumber, BigDecimal balance) {
+        AccountResponse account = new AccountResponse();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(balance);
+        account.setMonthlyMovements(3);
+        account.setStatus("ACTIVE");
+        return account;
+    }
+}
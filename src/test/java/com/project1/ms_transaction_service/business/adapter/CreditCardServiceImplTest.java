@@ -4,6 +4,7 @@ import com.project1.ms_transaction_service.business.adapter.impl.CreditCardServi
 import com.project1.ms_transaction_service.model.CreditCardPatchRequest;
 import com.project1.ms_transaction_service.model.CreditCardResponse;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -14,6 +15,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -62,6 +67,8 @@ class CreditCardServiceImplTest {
     @Test
     void updateCreditCard_Success() {
         String id = "123";
+        CreditCardResponse creditCard = new CreditCardResponse();
+        creditCard.setId(id);
         CreditCardPatchRequest request = new CreditCardPatchRequest();
         CreditCardResponse response = new CreditCardResponse();
 
@@ -72,11 +79,40 @@ class CreditCardServiceImplTest {
         when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
         when(responseSpec.bodyToMono(CreditCardResponse.class)).thenReturn(Mono.just(response));
 
-        StepVerifier.create(creditCardService.updateCreditCard(id, request))
+        StepVerifier.create(creditCardService.updateCreditCard(creditCard, request))
             .expectNext(response)
             .verifyComplete();
     }
 
+    @Test
+    void updateCreditCard_ShouldResolveDeltasAgainstGivenCardWithoutReadingIt() {
+        CreditCardResponse creditCard = new CreditCardResponse();
+        creditCard.setId("123");
+        creditCard.setUsedAmount(new BigDecimal("100"));
+        CreditCardPatchRequest request = new CreditCardPatchRequest().usedAmountDelta(new BigDecimal("30"));
+
+        when(creditWebClient.patch()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri("/credit-card/{id}", "123")).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any(), eq(CreditCardPatchRequest.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(CreditCardResponse.class)).thenReturn(Mono.just(new CreditCardResponse()));
+
+        StepVerifier.create(creditCardService.updateCreditCard(creditCard, request))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        ArgumentCaptor<Mono<CreditCardPatchRequest>> body = ArgumentCaptor.forClass(Mono.class);
+        verify(requestBodySpec).body(body.capture(), eq(CreditCardPatchRequest.class));
+        StepVerifier.create(body.getValue())
+            .assertNext(sent -> {
+                assertEquals(0, new BigDecimal("130").compareTo(sent.getUsedAmount()));
+                assertNull(sent.getUsedAmountDelta());
+            })
+            .verifyComplete();
+        verify(creditWebClient, never()).get();
+    }
+
     @Test
     void getCreditCardsByCustomerId_Success() {
         String customerId = "123";
@@ -0,0 +1,100 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyBatcherTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(5);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VirtualTimeScheduler scheduler;
+
+    private List<Set<String>> calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        calls = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void load_ShouldSendKeysOfOneWindowInOneCall() {
+        KeyBatcher<String, String> batcher = batcher(10, keys -> Flux.fromIterable(keys).map(key -> "value-" + key));
+
+        StepVerifier.create(Mono.zip(batcher.load("1"), batcher.load("2"), batcher.load("1")))
+            .then(() -> assertTrue(calls.isEmpty()))
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .assertNext(values -> assertEquals(List.of("value-1", "value-2", "value-1"), List.of(values.getT1(), values.getT2(), values.getT3())))
+            .verifyComplete();
+
+        assertEquals(List.of(Set.of("1", "2")), calls);
+        assertEquals(2.0, meterRegistry.get("adapter.batcher.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void load_ShouldSendFullBatchWithoutWaiting() {
+        KeyBatcher<String, String> batcher = batcher(2, keys -> Flux.fromIterable(keys).map(key -> "value-" + key));
+
+        StepVerifier.create(Flux.merge(batcher.load("1"), batcher.load("2"), batcher.load("3")))
+            .expectNext("value-1", "value-2")
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .expectNext("value-3")
+            .verifyComplete();
+
+        assertEquals(List.of(Set.of("1", "2"), Set.of("3")), calls);
+    }
+
+    @Test
+    void load_ShouldCompleteEmptyForKeysNotReturned() {
+        KeyBatcher<String, String> batcher = batcher(10, keys -> Flux.just("value-1"));
+
+        StepVerifier.create(Mono.zip(batcher.load("1"), batcher.load("2").defaultIfEmpty("missing")))
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .assertNext(values -> {
+                assertEquals("value-1", values.getT1());
+                assertEquals("missing", values.getT2());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void load_ShouldFailEveryKeyOfFailedBatch() {
+        KeyBatcher<String, String> batcher = batcher(10, keys -> Flux.error(new IllegalStateException("down")));
+
+        Mono<String> first = batcher.load("1");
+        Mono<String> second = batcher.load("2");
+
+        StepVerifier.create(Mono.zip(first.onErrorResume(e -> Mono.just(e.getMessage())), second.onErrorResume(e -> Mono.just(e.getMessage()))))
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .assertNext(errors -> {
+                assertEquals("down", errors.getT1());
+                assertEquals("down", errors.getT2());
+            })
+            .verifyComplete();
+        assertEquals(1, calls.size());
+    }
+
+    private KeyBatcher<String, String> batcher(int maxBatchSize, Function<Set<String>, Flux<String>> call) {
+        return new KeyBatcher<>("account", "test", WINDOW, maxBatchSize, keys -> {
+            calls.add(keys);
+            return call.apply(keys);
+        }, value -> value.substring("value-".length()), meterRegistry, scheduler);
+    }
+}
@@ -0,0 +1,116 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.CreditCardPatchRequest;
+import com.project1.ms_transaction_service.model.CreditCardResponse;
+import com.project1.ms_transaction_service.model.GetYankiWalletResponse;
+import com.project1.ms_transaction_service.model.UpdateYankiWalletRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatchDeltasTest {
+
+    @Test
+    void resolve_ShouldApplyAccountDeltasToCurrentState() {
+        AccountResponse account = new AccountResponse();
+        account.setBalance(new BigDecimal("500"));
+        account.setMonthlyMovements(2);
+
+        AccountPatchRequest resolved = PatchDeltas.resolve(new AccountPatchRequest()
+            .balanceDelta(new BigDecimal("-100"))
+            .monthlyMovementsDelta(1), account);
+
+        assertEquals(new BigDecimal("400"), resolved.getBalance());
+        assertEquals(3, resolved.getMonthlyMovements());
+        assertNull(resolved.getBalanceDelta());
+        assertNull(resolved.getMonthlyMovementsDelta());
+        assertFalse(PatchDeltas.hasDeltas(resolved));
+    }
+
+    @Test
+    void resolve_ShouldStartAccountWithoutBalanceFromZero() {
+        AccountPatchRequest resolved = PatchDeltas.resolve(new AccountPatchRequest()
+            .balanceDelta(new BigDecimal("100"))
+            .monthlyMovementsDelta(1), new AccountResponse());
+
+        assertEquals(new BigDecimal("100"), resolved.getBalance());
+        assertEquals(1, resolved.getMonthlyMovements());
+    }
+
+    @Test
+    void resolve_ShouldKeepUsedAmountUnsetWhenCardHasNone() {
+        CreditCardPatchRequest resolved = PatchDeltas.resolve(new CreditCardPatchRequest()
+            .usedAmountDelta(new BigDecimal("50")), new CreditCardResponse());
+
+        assertNull(resolved.getUsedAmount());
+    }
+
+    @Test
+    void resolve_ShouldApplyUsedAmountDelta() {
+        CreditCardResponse creditCard = new CreditCardResponse();
+        creditCard.setUsedAmount(new BigDecimal("200"));
+
+        CreditCardPatchRequest resolved = PatchDeltas.resolve(new CreditCardPatchRequest()
+            .usedAmountDelta(new BigDecimal("-50")), creditCard);
+
+        assertEquals(new BigDecimal("150"), resolved.getUsedAmount());
+    }
+
+    @Test
+    void resolve_ShouldApplyWalletBalanceDelta() {
+        GetYankiWalletResponse wallet = new GetYankiWalletResponse();
+        wallet.setBalance(new BigDecimal("1000"));
+
+        UpdateYankiWalletRequest request = new UpdateYankiWalletRequest().balanceDelta(new BigDecimal("-100"));
+        assertTrue(PatchDeltas.hasDeltas(request));
+
+        assertEquals(new BigDecimal("900"), PatchDeltas.resolve(request, wallet).getBalance());
+        assertNull(PatchDeltas.resolve(request, new GetYankiWalletResponse()).getBalance());
+    }
+
+    @Test
+    void merge_ShouldAddDeltasAndKeepLaterAbsoluteValues() {
+        AccountPatchRequest merged = PatchDeltas.merge(
+            new AccountPatchRequest().balanceDelta(new BigDecimal("-100")).monthlyMovementsDelta(1).status("ACTIVE"),
+            new AccountPatchRequest().balanceDelta(new BigDecimal("40")).status("BLOCKED"));
+
+        assertEquals(new BigDecimal("-60"), merged.getBalanceDelta());
+        assertEquals(1, merged.getMonthlyMovementsDelta());
+        assertEquals("BLOCKED", merged.getStatus());
+    }
+
+    @Test
+    void isDeltaOnly_ShouldRejectPatchesWithAbsoluteValues() {
+        assertTrue(PatchDeltas.isDeltaOnly(new AccountPatchRequest().balanceDelta(new BigDecimal("10")).monthlyMovementsDelta(1)));
+        assertFalse(PatchDeltas.isDeltaOnly(new AccountPatchRequest().balanceDelta(new BigDecimal("10")).status("BLOCKED")));
+        assertFalse(PatchDeltas.isDeltaOnly(new AccountPatchRequest().balance(new BigDecimal("10"))));
+    }
+
+    @Test
+    void withUnacknowledged_ShouldCountPendingDebitsAndMovementsOnly() {
+        AccountResponse account = new AccountResponse();
+        account.setId("1");
+        account.setAccountType("SAVINGS");
+        account.setBalance(new BigDecimal("500"));
+        account.setMonthlyMovements(2);
+
+        AccountResponse pending = PatchDeltas.withUnacknowledged(account, List.of(
+            new AccountPatchRequest().balanceDelta(new BigDecimal("-100")).monthlyMovementsDelta(1),
+            new AccountPatchRequest().balanceDelta(new BigDecimal("300")).monthlyMovementsDelta(1),
+            new AccountPatchRequest().balanceDelta(new BigDecimal("-50"))));
+
+        assertEquals(new BigDecimal("350"), pending.getBalance());
+        assertEquals(4, pending.getMonthlyMovements());
+        assertEquals("SAVINGS", pending.getAccountType());
+        assertSame(account, PatchDeltas.withUnacknowledged(account, List.of()));
+    }
+}
@@ -0,0 +1,129 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("account", "getAccountById", meterRegistry);
+    }
+
+    @Test
+    void execute_ShouldShareCallInFlight() {
+        AtomicInteger invocations = new AtomicInteger();
+        Sinks.One<String> downstream = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("1", () -> {
+            invocations.incrementAndGet();
+            return downstream.asMono();
+        });
+        Mono<String> second = singleFlight.execute("1", () -> {
+            invocations.incrementAndGet();
+            return downstream.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+            .then(() -> downstream.tryEmitValue("account"))
+            .expectNextMatches(tuple -> tuple.getT1().equals("account") && tuple.getT2().equals("account"))
+            .verifyComplete();
+
+        assertEquals(1, invocations.get());
+        assertEquals(1.0, meterRegistry.get("adapter.singleflight.coalesced").counter().count());
+        assertEquals(2.0, meterRegistry.get("adapter.singleflight.calls").counter().count());
+    }
+
+    @Test
+    void execute_ShouldCallAgainOnceCompleted() {
+        AtomicInteger invocations = new AtomicInteger();
+
+        StepVerifier.create(singleFlight.execute("1", () -> Mono.fromCallable(() -> "call-" + invocations.incrementAndGet())))
+            .expectNext("call-1")
+            .verifyComplete();
+        StepVerifier.create(singleFlight.execute("1", () -> Mono.fromCallable(() -> "call-" + invocations.incrementAndGet())))
+            .expectNext("call-2")
+            .verifyComplete();
+
+        assertEquals(0.0, meterRegistry.get("adapter.singleflight.coalesced").counter().count());
+    }
+
+    @Test
+    void execute_ShouldNotShareCallsForDifferentKeys() {
+        AtomicInteger invocations = new AtomicInteger();
+
+        Mono<String> first = singleFlight.execute("1", () -> Mono.delay(Duration.ofMillis(50))
+            .map(tick -> "call-" + invocations.incrementAndGet()));
+        Mono<String> second = singleFlight.execute("2", () -> Mono.delay(Duration.ofMillis(50))
+            .map(tick -> "call-" + invocations.incrementAndGet()));
+
+        StepVerifier.create(Mono.zip(first, second))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals(2, invocations.get());
+    }
+
+    @Test
+    void executeFresh_ShouldNotJoinCallStartedBeforeIt() {
+        AtomicInteger invocations = new AtomicInteger();
+        Sinks.One<String> stale = Sinks.one();
+        Sinks.One<String> fresh = Sinks.one();
+
+        Mono<String> earlier = singleFlight.execute("1", () -> {
+            invocations.incrementAndGet();
+            return stale.asMono();
+        });
+        StepVerifier.create(earlier)
+            .then(() -> {
+                Mono<String> posting = singleFlight.executeFresh("1", () -> {
+                    invocations.incrementAndGet();
+                    return fresh.asMono();
+                });
+                Mono<String> later = singleFlight.execute("1", () -> {
+                    invocations.incrementAndGet();
+                    return Mono.just("unexpected");
+                });
+                StepVerifier.create(Mono.zip(posting, later))
+                    .then(() -> {
+                        stale.tryEmitValue("before-write");
+                        fresh.tryEmitValue("after-write");
+                    })
+                    .expectNextMatches(tuple -> tuple.getT1().equals("after-write") && tuple.getT2().equals("after-write"))
+                    .verifyComplete();
+            })
+            .expectNext("before-write")
+            .verifyComplete();
+
+        assertEquals(2, invocations.get());
+        assertEquals(1.0, meterRegistry.get("adapter.singleflight.coalesced").counter().count());
+        assertEquals(0.0, meterRegistry.get("adapter.singleflight.in.flight").gauge().value());
+    }
+
+    @Test
+    void execute_ShouldShareErrors() {
+        Sinks.One<String> downstream = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("1", downstream::asMono);
+        Mono<String> second = singleFlight.execute("1", downstream::asMono);
+
+        StepVerifier.create(Mono.zip(first, second))
+            .then(() -> downstream.tryEmitError(new IllegalStateException("downstream error")))
+            .expectError(IllegalStateException.class)
+            .verify();
+    }
+}
@@ -0,0 +1,143 @@
+package com.project1.ms_transaction_service.business.adapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteCoalescerTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(5);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VirtualTimeScheduler scheduler;
+
+    private List<String> writes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        writes = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void submit_ShouldMergeUpdatesOfOneWindowIntoOneWrite() {
+        WriteCoalescer<String, Integer, String> coalescer = coalescer(10, update -> Mono.just("total-" + update));
+
+        StepVerifier.create(Mono.zip(coalescer.submit("1", 10), coalescer.submit("1", -3), coalescer.submit("2", 5)))
+            .then(() -> assertTrue(writes.isEmpty()))
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .assertNext(results -> assertEquals(List.of("total-7", "total-7", "total-5"), List.of(results.getT1(), results.getT2(), results.getT3())))
+            .verifyComplete();
+
+        assertEquals(List.of("1:7", "2:5"), writes);
+        assertEquals(2, meterRegistry.get("adapter.coalescer.merged.updates").summary().count());
+        assertEquals(3.0, meterRegistry.get("adapter.coalescer.merged.updates").summary().totalAmount());
+    }
+
+    @Test
+    void submit_ShouldSendFullWriteWithoutWaiting() {
+        WriteCoalescer<String, Integer, String> coalescer = coalescer(2, update -> Mono.just("total-" + update));
+
+        StepVerifier.create(Flux.merge(coalescer.submit("1", 1), coalescer.submit("1", 2), coalescer.submit("1", 4)))
+            .expectNext("total-3", "total-3")
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .expectNext("total-4")
+            .verifyComplete();
+
+        assertEquals(List.of("1:3", "1:4"), writes);
+    }
+
+    @Test
+    void submit_ShouldSendWritesOfSameKeyOneAtATime() {
+        Sinks.One<String> firstWrite = Sinks.one();
+        WriteCoalescer<String, Integer, String> coalescer = coalescer(1, update -> writes.size() == 1 ? firstWrite.asMono() : Mono.just("total-" + update));
+
+        StepVerifier.create(Flux.merge(coalescer.submit("1", 1), coalescer.submit("1", 2), coalescer.submit("1", 4)))
+            .then(() -> {
+                assertEquals(List.of("1:1"), writes);
+                assertEquals(List.of(1, 2, 4), coalescer.unacknowledged("1"));
+                firstWrite.tryEmitValue("total-1");
+            })
+            .expectNext("total-1", "total-2", "total-4")
+            .verifyComplete();
+
+        assertEquals(List.of("1:1", "1:2", "1:4"), writes);
+        assertTrue(coalescer.unacknowledged("1").isEmpty());
+    }
+
+    @Test
+    void unacknowledged_ShouldReportUpdatesUntilTheirWriteCompletes() {
+        Sinks.One<String> write = Sinks.one();
+        WriteCoalescer<String, Integer, String> coalescer = coalescer(10, update -> write.asMono());
+
+        StepVerifier.create(Mono.zip(coalescer.submit("1", 10), coalescer.submit("1", -3)))
+            .then(() -> assertEquals(List.of(10, -3), coalescer.unacknowledged("1")))
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .then(() -> assertEquals(List.of(10, -3), coalescer.unacknowledged("1")))
+            .then(() -> write.tryEmitValue("total-7"))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertTrue(coalescer.unacknowledged("1").isEmpty());
+    }
+
+    @Test
+    void unacknowledged_ShouldSnapshotEveryKeyWithPendingUpdates() {
+        Sinks.One<String> write = Sinks.one();
+        WriteCoalescer<String, Integer, String> coalescer = coalescer(10, update -> write.asMono());
+
+        StepVerifier.create(Mono.zip(coalescer.submit("1", 10), coalescer.submit("2", -3)))
+            .then(() -> {
+                Map<String, List<Integer>> snapshot = coalescer.unacknowledged();
+                assertEquals(Map.of("1", List.of(10), "2", List.of(-3)), snapshot);
+                scheduler.advanceTimeBy(WINDOW);
+                write.tryEmitValue("total");
+                assertEquals(Map.of("1", List.of(10), "2", List.of(-3)), snapshot);
+            })
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertTrue(coalescer.unacknowledged().isEmpty());
+    }
+
+    @Test
+    void submit_ShouldFailEveryUpdateOfFailedWrite() {
+        WriteCoalescer<String, Integer, String> coalescer = coalescer(10, update -> Mono.error(new IllegalStateException("down")));
+
+        Mono<String> first = coalescer.submit("1", 1);
+        Mono<String> second = coalescer.submit("1", 2);
+
+        StepVerifier.create(Mono.zip(first.onErrorResume(e -> Mono.just(e.getMessage())), second.onErrorResume(e -> Mono.just(e.getMessage()))))
+            .then(() -> scheduler.advanceTimeBy(WINDOW))
+            .assertNext(errors -> {
+                assertEquals("down", errors.getT1());
+                assertEquals("down", errors.getT2());
+            })
+            .verifyComplete();
+        assertEquals(1, writes.size());
+        assertTrue(coalescer.unacknowledged("1").isEmpty());
+    }
+
+    private WriteCoalescer<String, Integer, String> coalescer(int maxMergedUpdates, Function<Integer, Mono<String>> write) {
+        return new WriteCoalescer<>("account", "test", WINDOW, maxMergedUpdates, Integer::sum, (key, update) -> {
+            writes.add(key + ":" + update);
+            return write.apply(update);
+        }, meterRegistry, scheduler);
+    }
+}
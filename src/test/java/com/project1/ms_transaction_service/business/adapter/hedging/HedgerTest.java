@@ -0,0 +1,179 @@
+package com.project1.ms_transaction_service.business.adapter.hedging;
+
+import com.project1.ms_transaction_service.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HedgingPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        policy = new HedgingPolicy();
+        policy.setEnabled(true);
+        policy.setAdaptive(false);
+        policy.setDelay(Duration.ofMillis(20));
+    }
+
+    @Test
+    void execute_ShouldNotHedgeWhenDisabled() {
+        policy.setEnabled(false);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(100, 10)).execute(() -> slowThenFast(attempts)))
+            .expectNext("attempt-1")
+            .verifyComplete();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void execute_ShouldNotHedgeFastLookups() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(100, 10)).execute(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("value");
+        }))
+            .expectNext("value")
+            .verifyComplete();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void execute_ShouldReturnHedgeWhenFirstAttemptIsSlow() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(100, 10)).execute(() -> slowThenFast(attempts)))
+            .expectNext("attempt-2")
+            .verifyComplete();
+
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, meterRegistry.get("adapter.hedging.wins").counter().count());
+    }
+
+    @Test
+    void execute_ShouldRecordCancelledFirstAttemptAsLowerBound() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(100, 10)).execute(() -> slowThenFast(attempts)))
+            .expectNext("attempt-2")
+            .verifyComplete();
+
+        assertEquals(1, meterRegistry.get("adapter.hedging.latency").timer().count());
+        assertTrue(meterRegistry.get("adapter.hedging.latency").timer().totalTime(TimeUnit.MILLISECONDS) >= 20);
+    }
+
+    @Test
+    void execute_ShouldNotHedgeWithoutBudget() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(0, 10)).execute(() -> slowThenFast(attempts)))
+            .expectNext("attempt-1")
+            .verifyComplete();
+
+        assertEquals(1, attempts.get());
+        assertEquals(1.0, meterRegistry.get("adapter.hedging.budget.exhausted").counter().count());
+    }
+
+    @Test
+    void execute_ShouldReturnErrorOfFirstAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(100, 10)).execute(() -> {
+            attempts.incrementAndGet();
+            return Mono.<String>error(new NotFoundException("Account not found"));
+        }))
+            .expectError(NotFoundException.class)
+            .verify();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void execute_ShouldIgnoreErrorOfHedge() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(hedger(new HedgingBudget(100, 10)).execute(() -> attempts.incrementAndGet() == 1
+            ? Mono.just("attempt-1").delayElement(Duration.ofMillis(200))
+            : Mono.<String>error(new IllegalStateException("hedge failed"))))
+            .expectNext("attempt-1")
+            .verifyComplete();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void currentDelay_ShouldFollowObservedPercentileWithinBounds() {
+        policy.setAdaptive(true);
+        policy.setMinSamples(10);
+        policy.setMaxDelay(Duration.ofMillis(500));
+        Hedger hedger = hedger(new HedgingBudget(100, 10));
+        for (int i = 0; i < 100; i++) {
+            meterRegistry.get("adapter.hedging.latency").timer().record(80, TimeUnit.MILLISECONDS);
+        }
+
+        Duration delay = waitForDelayRefresh(hedger);
+
+        assertTrue(delay.toMillis() >= 70 && delay.toMillis() <= 90, "delay was " + delay);
+    }
+
+    @Test
+    void budget_ShouldCapHedgesToPercentageOfLookups() {
+        HedgingBudget budget = new HedgingBudget(10, 10);
+
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+        assertFalse(budget.tryWithdraw());
+
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+
+        for (int i = 0; i < 1000; i++) {
+            budget.deposit();
+        }
+        int hedges = 0;
+        while (budget.tryWithdraw()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+
+    private Hedger hedger(HedgingBudget budget) {
+        return new Hedger("account", "getAccountById", policy, budget, meterRegistry);
+    }
+
+    private Mono<String> slowThenFast(AtomicInteger attempts) {
+        int attempt = attempts.incrementAndGet();
+        Mono<String> value = Mono.just("attempt-" + attempt);
+        return attempt == 1 ? value.delayElement(Duration.ofMillis(300)) : value;
+    }
+
+    private Duration waitForDelayRefresh(Hedger hedger) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        Duration delay = hedger.currentDelay();
+        while (delay.equals(policy.getDelay()) && System.nanoTime() < deadline) {
+            Mono.delay(Duration.ofMillis(100)).block();
+            delay = hedger.currentDelay();
+        }
+        return delay;
+    }
+}
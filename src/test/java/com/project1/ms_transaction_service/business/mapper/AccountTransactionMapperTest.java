@@ -2,6 +2,7 @@ package com.project1.ms_transaction_service.business.mapper;
 
 import com.project1.ms_transaction_service.model.AccountPatchRequest;
 import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.AccountTransactionBatchItemResponse;
 import com.project1.ms_transaction_service.model.AccountTransactionRequest;
 import com.project1.ms_transaction_service.model.AccountTransactionResponse;
 import com.project1.ms_transaction_service.model.entity.AccountTransaction;
@@ -130,94 +131,117 @@ class AccountTransactionMapperTest {
     }
 
     @Test
-    void getAccountPatchRequest_ForDeposit_ShouldCalculateBalanceAndMovementsOriginAccount() {
+    void getAccountPatchRequest_ForDeposit_ShouldSendBalanceAndMovementsDeltaOriginAccount() {
         AccountTransaction transaction = new AccountTransaction();
         transaction.setType(AccountTransactionType.DEPOSIT);
         transaction.setAmount(BigDecimal.valueOf(100));
 
-        AccountResponse accountResponse = new AccountResponse();
-        accountResponse.setBalance(BigDecimal.valueOf(500));
-        accountResponse.setMonthlyMovements(2);
-
-        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, accountResponse, true);
+        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, true);
 
-        assertEquals(BigDecimal.valueOf(600), request.getBalance());
-        assertEquals(3, request.getMonthlyMovements());
+        assertEquals(BigDecimal.valueOf(100), request.getBalanceDelta());
+        assertEquals(1, request.getMonthlyMovementsDelta());
+        assertNull(request.getBalance());
     }
 
     @Test
-    void getAccountPatchRequest_ForWithdrawal_ShouldCalculateBalanceAndMovementsOriginAccount() {
+    void getAccountPatchRequest_ForWithdrawal_ShouldSendBalanceAndMovementsDeltaOriginAccount() {
         AccountTransaction transaction = new AccountTransaction();
         transaction.setType(AccountTransactionType.WITHDRAWAL);
         transaction.setAmount(BigDecimal.valueOf(100));
 
-        AccountResponse accountResponse = new AccountResponse();
-        accountResponse.setBalance(BigDecimal.valueOf(500));
-        accountResponse.setMonthlyMovements(2);
+        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, true);
 
-        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, accountResponse, true);
-
-        assertEquals(BigDecimal.valueOf(400), request.getBalance());
-        assertEquals(3, request.getMonthlyMovements());
+        assertEquals(BigDecimal.valueOf(-100), request.getBalanceDelta());
+        assertEquals(1, request.getMonthlyMovementsDelta());
+        assertNull(request.getBalance());
     }
 
     @Test
-    void getAccountPatchRequest_ForTransfer_ShouldCalculateBalanceAndMovementsOriginAccount() {
+    void getAccountPatchRequest_ForTransfer_ShouldSendBalanceAndMovementsDeltaOriginAccount() {
         AccountTransaction transaction = new AccountTransaction();
         transaction.setType(AccountTransactionType.TRANSFER);
         transaction.setAmount(BigDecimal.valueOf(100));
 
-        AccountResponse accountResponse = new AccountResponse();
-        accountResponse.setBalance(BigDecimal.valueOf(500));
-        accountResponse.setMonthlyMovements(2);
+        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, true);
 
-        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, accountResponse, true);
-
-        assertEquals(BigDecimal.valueOf(400), request.getBalance());
-        assertEquals(3, request.getMonthlyMovements());
+        assertEquals(BigDecimal.valueOf(-100), request.getBalanceDelta());
+        assertEquals(1, request.getMonthlyMovementsDelta());
+        assertNull(request.getBalance());
     }
 
     @Test
-    void getAccountPatchRequest_ForTransfer_ShouldCalculateBalanceAndMovementsDestinationAccount() {
+    void getAccountPatchRequest_ForTransfer_ShouldSendBalanceDeltaDestinationAccount() {
         AccountTransaction transaction = new AccountTransaction();
         transaction.setType(AccountTransactionType.TRANSFER);
         transaction.setAmount(BigDecimal.valueOf(100));
 
-        AccountResponse accountResponse = new AccountResponse();
-        accountResponse.setBalance(BigDecimal.valueOf(500));
-
-        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, accountResponse, false);
+        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, false);
 
-        assertEquals(BigDecimal.valueOf(600), request.getBalance());
+        assertEquals(BigDecimal.valueOf(100), request.getBalanceDelta());
+        assertNull(request.getBalance());
     }
 
     @Test
-    void getAccountPatchRequest_ForWithdrawal_ShouldCalculateBalanceAndMovementsOriginAccountWithFee() {
+    void getAccountPatchRequest_ForWithdrawal_ShouldSendBalanceDeltaOriginAccountWithFee() {
         AccountTransaction transaction = new AccountTransaction();
         transaction.setType(AccountTransactionType.WITHDRAWAL);
         transaction.setAmount(BigDecimal.valueOf(100));
         transaction.setCommissionFee(new BigDecimal("5"));
 
-        AccountResponse accountResponse = new AccountResponse();
-        accountResponse.setBalance(BigDecimal.valueOf(500));
+        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, true);
 
-        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, accountResponse, true);
-
-        assertEquals(BigDecimal.valueOf(395), request.getBalance());
+        assertEquals(BigDecimal.valueOf(-105), request.getBalanceDelta());
+        assertNull(request.getBalance());
     }
 
     @Test
-    void getAccountPatchRequest_ForDeposit_ShouldCalculateBalanceAndMovementsOriginAccountWithFee() {
+    void getAccountPatchRequest_ForDeposit_ShouldSendBalanceDeltaOriginAccountWithFee() {
         AccountTransaction transaction = new AccountTransaction();
         transaction.setType(AccountTransactionType.DEPOSIT);
         transaction.setAmount(BigDecimal.valueOf(100));
         transaction.setCommissionFee(new BigDecimal("5"));
 
-        AccountResponse accountResponse = new AccountResponse();
-        accountResponse.setBalance(BigDecimal.valueOf(500));
+        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, true);
+
+        assertEquals(BigDecimal.valueOf(95), request.getBalanceDelta());
+        assertNull(request.getBalance());
+    }
 
-        AccountPatchRequest request = mapper.getAccountPatchRequest(transaction, accountResponse, true);
+    @Test
+    void getAccountTransactionBatchItemResponse_ShouldMarkItemCreated() {
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setId("1");
+        transaction.setType(AccountTransactionType.DEPOSIT);
 
-        assertEquals(BigDecimal.valueOf(595), request.getBalance());
+        AccountTransactionBatchItemResponse response = mapper.getAccountTransactionBatchItemResponse(3, transaction);
+
+        assertEquals(3L, response.getIndex());
+        assertEquals("CREATED", response.getStatus());
+        assertEquals("1", response.getTransaction().getId());
+    }
+
+    @Test
+    void getRejectedAccountTransactionBatchItemResponse_ShouldMarkItemRejected() {
+        AccountTransactionBatchItemResponse response = mapper.getRejectedAccountTransactionBatchItemResponse(2, "Insufficient balance");
+
+        assertEquals(2L, response.getIndex());
+        assertEquals("REJECTED", response.getStatus());
+        assertEquals("Insufficient balance", response.getMessage());
+        assertNull(response.getTransaction());
+    }
+
+    @Test
+    void getTransactionStrategy_ShouldCalculateDeltaWithFee() {
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setType(AccountTransactionType.WITHDRAWAL);
+        transaction.setCommissionFee(new BigDecimal("5"));
+
+        assertEquals(new BigDecimal("-105"), mapper.getTransactionStrategy(transaction, true).calculateDelta(BigDecimal.valueOf(100)));
+
+        transaction.setType(AccountTransactionType.DEPOSIT);
+        assertEquals(new BigDecimal("95"), mapper.getTransactionStrategy(transaction, true).calculateDelta(BigDecimal.valueOf(100)));
+
+        transaction.setType(AccountTransactionType.TRANSFER);
+        assertEquals(new BigDecimal("100"), mapper.getTransactionStrategy(transaction, false).calculateDelta(BigDecimal.valueOf(100)));
     }
 }
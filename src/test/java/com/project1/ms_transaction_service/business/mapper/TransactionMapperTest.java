@@ -1,17 +1,17 @@
 package com.project1.ms_transaction_service.business.mapper;
 
 import com.project1.ms_transaction_service.model.*;
-import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.AccountCommissionTotal;
+import com.project1.ms_transaction_service.model.entity.BalanceProductType;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransaction;
 import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
+import com.project1.ms_transaction_service.model.entity.ProductAverageBalance;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,34 +45,20 @@ class TransactionMapperTest {
         assertEquals(credits, response.getCredits());
     }
 
-    @Test
-    void calculateAvgDailyBalance_ShouldCalculateCorrectly() {
-        BigDecimal balance = new BigDecimal("100.00");
-        int currentDay = LocalDate.now().getDayOfMonth();
-        BigDecimal expected = balance.divide(BigDecimal.valueOf(currentDay), 2, RoundingMode.HALF_UP);
-
-        BigDecimal result = transactionMapper.calculateAvgDailyBalance(balance);
-
-        assertEquals(expected, result);
-    }
-
     @Test
     void getProductsCommissionResponse_ShouldCalculateTotalsCorrectly() {
-        AccountTransaction tx1 = new AccountTransaction();
-        tx1.setOriginAccountNumber("123");
-        tx1.setCommissionFee(new BigDecimal("10.00"));
-
-        AccountTransaction tx2 = new AccountTransaction();
-        tx2.setOriginAccountNumber("456");
-        tx2.setCommissionFee(new BigDecimal("20.00"));
-
-        List<AccountTransaction> transactions = List.of(tx1, tx2);
+        List<AccountCommissionTotal> accountTotals = List.of(
+            new AccountCommissionTotal("123", new BigDecimal("10.00")),
+            new AccountCommissionTotal("456", new BigDecimal("20.00")));
 
-        ProductsCommissionResponse response = transactionMapper.getProductsCommissionResponse(transactions);
+        ProductsCommissionResponse response = transactionMapper.getProductsCommissionResponse(accountTotals);
 
         assertNotNull(response.getCommissions());
         assertEquals(new BigDecimal("30.00"),
             response.getCommissions().getTotalAccountsCommissionFee());
+        assertEquals(2, response.getCommissions().getAccounts().size());
+        assertEquals("123", response.getCommissions().getAccounts().get(0).getAccountNumber());
+        assertEquals(new BigDecimal("10.00"), response.getCommissions().getAccounts().get(0).getTotalCommissionFee());
     }
 
     @Test
@@ -99,76 +85,36 @@ class TransactionMapperTest {
     @Test
     void getCustomerProductsAvgBalanceResponse_ShouldMapCorrectly() {
         CustomerResponse customer = new CustomerResponse();
-
-        AccountResponse account = new AccountResponse();
-        account.setAccountNumber("123");
-        account.setBalance(new BigDecimal("100.00"));
-        List<AccountResponse> accounts = List.of(account);
-
-        CreditCardResponse creditCard = new CreditCardResponse();
-        creditCard.setCardNumber("4444");
-        creditCard.setUsedAmount(new BigDecimal("300.00"));
-        creditCard.setCreditLimit(new BigDecimal("1000.00"));
-        List<CreditCardResponse> creditCards = List.of(creditCard);
-
-        CreditResponse credit = new CreditResponse();
-        credit.setIdentifier("CR-001");
-        credit.setAmountPaid(new BigDecimal("500.00"));
-        List<CreditResponse> credits = List.of(credit);
-
-        int currentDay = LocalDate.now().getDayOfMonth();
-        BigDecimal expectedAccountAvg = new BigDecimal("100.00")
-            .divide(BigDecimal.valueOf(currentDay), 2, RoundingMode.HALF_UP);
-        BigDecimal expectedCreditCardAvg = new BigDecimal("700.00")
-            .divide(BigDecimal.valueOf(currentDay), 2, RoundingMode.HALF_UP);
-        BigDecimal expectedCreditAvg = new BigDecimal("500.00")
-            .divide(BigDecimal.valueOf(currentDay), 2, RoundingMode.HALF_UP);
+        List<ProductAverageBalance> averageBalances = List.of(
+            new ProductAverageBalance(BalanceProductType.ACCOUNT, "123", new BigDecimal("100.00")),
+            new ProductAverageBalance(BalanceProductType.CREDIT_CARD, "4444", new BigDecimal("700.00")),
+            new ProductAverageBalance(BalanceProductType.CREDIT, "CR-001", new BigDecimal("500.00")));
 
         CustomerProductsAverageBalanceResponse response = transactionMapper
-            .getCustomerProductsAvgBalanceResponse(customer, accounts, creditCards, credits);
+            .getCustomerProductsAvgBalanceResponse(customer, averageBalances);
 
         assertEquals(customer, response.getCustomer());
 
         assertEquals(1, response.getAccounts().size());
         assertEquals("123", response.getAccounts().get(0).getAccountNumber());
-        assertEquals(expectedAccountAvg, response.getAccounts().get(0).getAverageBalance());
+        assertEquals(new BigDecimal("100.00"), response.getAccounts().get(0).getAverageBalance());
 
         assertEquals(1, response.getCreditCards().size());
         assertEquals("4444", response.getCreditCards().get(0).getCardNumber());
-        assertEquals(expectedCreditCardAvg, response.getCreditCards().get(0).getAverageBalance());
+        assertEquals(new BigDecimal("700.00"), response.getCreditCards().get(0).getAverageBalance());
 
         assertEquals(1, response.getCredits().size());
         assertEquals("CR-001", response.getCredits().get(0).getCreditIdentifier());
-        assertEquals(expectedCreditAvg, response.getCredits().get(0).getAverageBalance());
+        assertEquals(new BigDecimal("500.00"), response.getCredits().get(0).getAverageBalance());
     }
 
     @Test
-    void getCustomerProductsAvgBalanceResponse_WithNullValues_ShouldUseZero() {
-        CustomerResponse customer = new CustomerResponse();
-
-        AccountResponse account = new AccountResponse();
-        account.setAccountNumber("123");
-        account.setBalance(null);
-        List<AccountResponse> accounts = List.of(account);
-
-        CreditCardResponse creditCard = new CreditCardResponse();
-        creditCard.setCardNumber("4444");
-        creditCard.setUsedAmount(null);
-        creditCard.setCreditLimit(null);
-        List<CreditCardResponse> creditCards = List.of(creditCard);
-
-        CreditResponse credit = new CreditResponse();
-        credit.setIdentifier("CR-001");
-        credit.setAmountPaid(null);
-        List<CreditResponse> credits = List.of(credit);
-
-        BigDecimal expectedZeroAvg = new BigDecimal("0.00");
-
+    void getCustomerProductsAvgBalanceResponse_WithoutSnapshots_ShouldReturnEmptyLists() {
         CustomerProductsAverageBalanceResponse response = transactionMapper
-            .getCustomerProductsAvgBalanceResponse(customer, accounts, creditCards, credits);
+            .getCustomerProductsAvgBalanceResponse(new CustomerResponse(), List.of());
 
-        assertEquals(expectedZeroAvg, response.getAccounts().get(0).getAverageBalance());
-        assertEquals(expectedZeroAvg, response.getCreditCards().get(0).getAverageBalance());
-        assertEquals(expectedZeroAvg, response.getCredits().get(0).getAverageBalance());
+        assertTrue(response.getAccounts().isEmpty());
+        assertTrue(response.getCreditCards().isEmpty());
+        assertTrue(response.getCredits().isEmpty());
     }
 }
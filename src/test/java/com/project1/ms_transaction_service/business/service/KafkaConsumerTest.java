@@ -0,0 +1,104 @@
+package com.project1.ms_transaction_service.business.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "application.config.kafka.listener.batch-timeout=500ms")
+class KafkaConsumerTest {
+
+    @Autowired
+    private KafkaConsumer kafkaConsumer;
+
+    @MockBean
+    private WalletTransactionService walletTransactionService;
+
+    @MockBean
+    private BootcoinTransactionService bootcoinTransactionService;
+
+    @MockBean
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    @Test
+    void listenYankiTransactions_ShouldAcknowledgeAfterBatchCompletes() {
+        AtomicBoolean completed = new AtomicBoolean();
+        when(walletTransactionService.createWalletTransaction(any()))
+            .thenReturn(Mono.delay(Duration.ofMillis(50)).then(Mono.fromRunnable(() -> completed.set(true))));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        doAnswer(invocation -> {
+            assertTrue(completed.get());
+            return null;
+        }).when(acknowledgment).acknowledge();
+
+        kafkaConsumer.listenYankiTransactions(List.of(record(0, "{}")), acknowledgment);
+
+        verify(acknowledgment).acknowledge();
+        verify(deadLetterRecoverer, never()).accept(any(), any());
+    }
+
+    @Test
+    void listenBootcoinTransactions_ShouldDeadLetterFailedRecords() {
+        when(bootcoinTransactionService.processBootcoinTransaction("1")).thenReturn(Mono.error(new IllegalStateException("error")));
+        when(bootcoinTransactionService.processBootcoinTransaction("2")).thenReturn(Mono.empty());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        ConsumerRecord<String, byte[]> failed = record(0, "{\"id\":\"1\"}");
+        ConsumerRecord<String, byte[]> malformed = record(1, "not json");
+        ConsumerRecord<String, byte[]> processed = record(2, "{\"id\":\"2\"}");
+
+        kafkaConsumer.listenBootcoinTransactions(List.of(failed, malformed, processed), acknowledgment);
+
+        verify(bootcoinTransactionService).processBootcoinTransaction("2");
+        verify(deadLetterRecoverer).accept(eq(failed), isA(IllegalStateException.class));
+        verify(deadLetterRecoverer).accept(eq(malformed), any());
+        verify(deadLetterRecoverer, never()).accept(eq(processed), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenBootcoinTransactions_ShouldDeadLetterRecordsNotCompletedWithinBatchTimeout() {
+        when(bootcoinTransactionService.processBootcoinTransaction("1")).thenReturn(Mono.never());
+        when(bootcoinTransactionService.processBootcoinTransaction("2")).thenReturn(Mono.empty());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        ConsumerRecord<String, byte[]> stuck = record(0, "{\"id\":\"1\"}");
+        ConsumerRecord<String, byte[]> processed = record(1, "{\"id\":\"2\"}");
+
+        kafkaConsumer.listenBootcoinTransactions(List.of(stuck, processed), acknowledgment);
+
+        verify(deadLetterRecoverer).accept(eq(stuck), isA(TimeoutException.class));
+        verify(deadLetterRecoverer, never()).accept(eq(processed), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenBootcoinTransactions_ShouldNotAcknowledgeWhenDeadLetterPublicationFails() {
+        when(bootcoinTransactionService.processBootcoinTransaction("1")).thenReturn(Mono.error(new IllegalStateException("error")));
+        doThrow(new IllegalStateException("broker down")).when(deadLetterRecoverer).accept(any(), any());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        try {
+            kafkaConsumer.listenBootcoinTransactions(List.of(record(0, "{\"id\":\"1\"}")), acknowledgment);
+        } catch (IllegalStateException e) {
+            // reaches the container error handler
+        }
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, String message) {
+        return new ConsumerRecord<>("topic", 0, offset, null, message.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,27 @@
+package com.project1.ms_transaction_service.business.service.cache;
+
+import com.project1.ms_transaction_service.model.CustomerProductsResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerProductsTest {
+
+    private final CustomerProducts products = new CustomerProducts(new CustomerProductsResponse(), "\"abc\"");
+
+    @Test
+    void matches_ShouldMatchListedETag() {
+        assertTrue(products.matches("\"abc\""));
+        assertTrue(products.matches("\"xyz\", \"abc\""));
+        assertTrue(products.matches("W/\"abc\""));
+        assertTrue(products.matches("*"));
+    }
+
+    @Test
+    void matches_ShouldNotMatchOtherETags() {
+        assertFalse(products.matches(null));
+        assertFalse(products.matches("\"xyz\""));
+        assertFalse(products.matches("abc"));
+    }
+}
@@ -2,25 +2,46 @@ package com.project1.ms_transaction_service.business.service.impl;
 
 import com.project1.ms_transaction_service.business.adapter.AccountService;
 import com.project1.ms_transaction_service.business.mapper.AccountTransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.business.service.metrics.PipelineMetrics;
+import com.project1.ms_transaction_service.business.service.pagination.TransactionCursor;
 import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.exception.InternalServerErrorException;
+import com.project1.ms_transaction_service.model.AccountPatchRequest;
 import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.AccountTransactionBatchItemResponse;
 import com.project1.ms_transaction_service.model.AccountTransactionRequest;
 import com.project1.ms_transaction_service.model.AccountTransactionResponse;
 import com.project1.ms_transaction_service.model.entity.*;
 import com.project1.ms_transaction_service.repository.AccountTransactionRepository;
 import com.project1.ms_transaction_service.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -46,6 +67,15 @@ class AccountTransactionServiceImplTest {
     @MockBean
     private Clock clock;
 
+    @MockBean
+    private DailyBalanceService dailyBalanceService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Clock fixedClock;
 
     @BeforeEach
@@ -53,6 +83,10 @@ class AccountTransactionServiceImplTest {
         fixedClock = Clock.fixed(LOCAL_DATE.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
         when(clock.instant()).thenReturn(fixedClock.instant());
         when(clock.getZone()).thenReturn(fixedClock.getZone());
+        when(accountTransactionMapper.getAccountPatchRequest(any(), anyBoolean())).thenReturn(new AccountPatchRequest());
+        when(dailyBalanceService.recordAccountBalance(any(), any())).thenReturn(Mono.empty());
+        when(outboxService.withEvent(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+        when(outboxService.withEvents(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
     }
 
     @Test
@@ -71,6 +105,7 @@ class AccountTransactionServiceImplTest {
         accountResponse.setMonthlyMovements(1);
 
         AccountTransaction transaction = new AccountTransaction();
+        transaction.setOriginAccountNumber("123");
         AccountTransactionResponse response = new AccountTransactionResponse();
 
         when(accountService.getAccountByAccountNumber("123"))
@@ -87,6 +122,8 @@ class AccountTransactionServiceImplTest {
         StepVerifier.create(accountTransactionService.createAccountTransaction(Mono.just(request)))
             .expectNext(response)
             .verifyComplete();
+
+        verify(outboxService).withEvent(eq(OutboxEventType.ACCOUNT_TRANSACTION_POSTED), eq(transaction), any(), any());
     }
 
     @Test
@@ -480,18 +517,48 @@ class AccountTransactionServiceImplTest {
         AccountTransaction transaction = new AccountTransaction();
         AccountTransactionResponse response = new AccountTransactionResponse();
 
-        when(accountService.getAccountByAccountNumber(accountNumber))
+        when(accountService.getAccountReferenceByAccountNumber(accountNumber))
             .thenReturn(Mono.just(account));
-        when(accountTransactionRepository.findAllByOriginAccountNumber(accountNumber))
+        when(accountTransactionRepository.findAllByOriginAccountNumberOrderByDateDescIdDesc(accountNumber, Pageable.unpaged()))
             .thenReturn(Flux.just(transaction));
         when(accountTransactionMapper.getAccountTransactionResponse(transaction))
             .thenReturn(response);
 
-        StepVerifier.create(accountTransactionService.getTransactionsByAccountNumber(accountNumber))
+        StepVerifier.create(accountTransactionService.getTransactionsByAccountNumber(accountNumber, null, null))
             .expectNext(response)
             .verifyComplete();
     }
 
+    @Test
+    void getTransactionsByAccountNumber_ShouldContinueAfterCursor() {
+        String accountNumber = "123";
+        LocalDateTime date = LocalDateTime.of(2025, 1, 13, 10, 0);
+        ObjectId id = new ObjectId();
+        AccountTransaction transaction = new AccountTransaction();
+        AccountTransactionResponse response = new AccountTransactionResponse();
+
+        when(accountService.getAccountReferenceByAccountNumber(accountNumber))
+            .thenReturn(Mono.just(new AccountResponse()));
+        when(accountTransactionRepository.findAllByOriginAccountNumberBeforeCursor(accountNumber, date, id, PageRequest.of(0, 10)))
+            .thenReturn(Flux.just(transaction));
+        when(accountTransactionMapper.getAccountTransactionResponse(transaction))
+            .thenReturn(response);
+
+        StepVerifier.create(accountTransactionService.getTransactionsByAccountNumber(accountNumber, 10, TransactionCursor.encode(date, id.toHexString())))
+            .expectNext(response)
+            .verifyComplete();
+    }
+
+    @Test
+    void getTransactionsByAccountNumber_ShouldRejectInvalidCursor() {
+        when(accountService.getAccountReferenceByAccountNumber("123"))
+            .thenReturn(Mono.just(new AccountResponse()));
+
+        StepVerifier.create(accountTransactionService.getTransactionsByAccountNumber("123", 10, "not-a-cursor"))
+            .expectError(BadRequestException.class)
+            .verify();
+    }
+
     @Test
     void validateTransferTransaction_MissingDestinationAccount() {
         AccountTransactionRequest request = new AccountTransactionRequest();
@@ -524,6 +591,79 @@ class AccountTransactionServiceImplTest {
             .verify();
     }
 
+    @Test
+    void createAccountTransaction_ShouldTimeEveryStage() {
+        AccountTransactionRequest request = new AccountTransactionRequest();
+        request.setType(AccountTransactionType.DEPOSIT.toString());
+        request.setAmount(BigDecimal.TEN);
+        request.setOriginAccountNumber("123");
+
+        AccountResponse accountResponse = new AccountResponse();
+        accountResponse.setStatus(AccountStatus.ACTIVE.toString());
+        accountResponse.setBalance(BigDecimal.TEN);
+        accountResponse.setAccountType(AccountType.CHECKING.toString());
+        accountResponse.setCustomerType(CustomerType.PERSONAL.toString());
+
+        AccountTransaction transaction = new AccountTransaction();
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(accountResponse));
+        when(accountTransactionMapper.getAccountTransactionEntity(any(), any()))
+            .thenReturn(transaction);
+        when(accountTransactionRepository.save(any()))
+            .thenReturn(Mono.just(transaction));
+        when(accountTransactionMapper.getAccountTransactionResponse(any()))
+            .thenReturn(new AccountTransactionResponse());
+        when(accountService.updateAccount(any(), any()))
+            .thenReturn(Mono.just(accountResponse));
+
+        List<String> stages = List.of("validate-request", "fetch-accounts", "validate-accounts", "save", "update-origin",
+            "record-daily-balance");
+        Map<String, Long> before = stages.stream().collect(Collectors.toMap(stage -> stage, stage -> count(PipelineMetrics.STAGE_TIMER, stage, "success")));
+        long pipelineBefore = count(PipelineMetrics.PIPELINE_TIMER, null, "success");
+
+        StepVerifier.create(accountTransactionService.createAccountTransaction(Mono.just(request)))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        stages.forEach(stage -> assertEquals(before.get(stage) + 1, count(PipelineMetrics.STAGE_TIMER, stage, "success"), stage));
+        assertEquals(pipelineBefore + 1, count(PipelineMetrics.PIPELINE_TIMER, null, "success"));
+    }
+
+    @Test
+    void createAccountTransaction_ShouldTimeRejectedStage() {
+        AccountTransactionRequest request = new AccountTransactionRequest();
+        request.setType(AccountTransactionType.DEPOSIT.toString());
+        request.setAmount(BigDecimal.TEN);
+        request.setOriginAccountNumber("123");
+
+        AccountResponse account = new AccountResponse();
+        account.setStatus(AccountStatus.INACTIVE.toString());
+        account.setAccountType(AccountType.CHECKING.toString());
+        account.setCustomerType(CustomerType.PERSONAL.toString());
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(account));
+
+        long before = count(PipelineMetrics.STAGE_TIMER, "validate-accounts", "rejected");
+        long savesBefore = count(PipelineMetrics.STAGE_TIMER, "save", "success");
+
+        StepVerifier.create(accountTransactionService.createAccountTransaction(Mono.just(request)))
+            .expectError(BadRequestException.class)
+            .verify();
+
+        assertEquals(before + 1, count(PipelineMetrics.STAGE_TIMER, "validate-accounts", "rejected"));
+        assertEquals(savesBefore, count(PipelineMetrics.STAGE_TIMER, "save", "success"));
+    }
+
+    private long count(String timer, String stage, String outcome) {
+        Search search = meterRegistry.find(timer).tags("pipeline", "account", "type", AccountTransactionType.DEPOSIT.toString(), "outcome", outcome);
+        if (stage != null) {
+            search = search.tag("stage", stage);
+        }
+        return search.timers().stream().mapToLong(Timer::count).sum();
+    }
+
     @Test
     void createAccountTransaction_ShouldDepositForFixedTermAccountSuccess() {
         AccountTransactionRequest request = new AccountTransactionRequest();
@@ -624,4 +764,216 @@ class AccountTransactionServiceImplTest {
             .expectError(BadRequestException.class)
             .verify();
     }
+
+    @Test
+    void createAccountTransactions_ShouldLookUpEachAccountOnceAndInsertInBulk() {
+        AccountTransactionRequest first = batchDeposit("123", BigDecimal.TEN);
+        AccountTransactionRequest second = batchDeposit("123", BigDecimal.ONE);
+        AccountTransactionRequest third = batchDeposit("234", BigDecimal.ONE);
+
+        AccountResponse accountResponse = batchAccount("1");
+        AccountResponse otherAccountResponse = batchAccount("2");
+
+        AccountTransactionBatchItemResponse created = new AccountTransactionBatchItemResponse();
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(accountResponse));
+        when(accountService.getAccountByAccountNumber("234"))
+            .thenReturn(Mono.just(otherAccountResponse));
+        when(accountTransactionMapper.getAccountTransactionEntity(any(), any()))
+            .thenAnswer(invocation -> new AccountTransaction());
+        when(accountService.updateAccount(any(), any()))
+            .thenAnswer(invocation -> Mono.just("1".equals(invocation.getArgument(0)) ? accountResponse : otherAccountResponse));
+        when(accountTransactionRepository.insert(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<AccountTransaction>>getArgument(0)));
+        when(accountTransactionMapper.getAccountTransactionBatchItemResponse(anyLong(), any()))
+            .thenReturn(created);
+
+        StepVerifier.create(accountTransactionService.createAccountTransactions(Flux.just(first, second, third)))
+            .expectNext(created, created, created)
+            .verifyComplete();
+
+        ArgumentCaptor<Iterable<AccountTransaction>> chunks = ArgumentCaptor.forClass(Iterable.class);
+        verify(accountTransactionRepository, atLeastOnce()).insert(chunks.capture());
+        assertEquals(3, chunks.getAllValues().stream().mapToLong(chunk -> chunk.spliterator().getExactSizeIfKnown()).sum());
+        verify(accountService, times(1)).getAccountByAccountNumber("123");
+        verify(accountService, times(1)).getAccountByAccountNumber("234");
+        verify(accountService, times(3)).updateAccount(any(), any());
+        verify(accountTransactionRepository, never()).save(any());
+        verify(outboxService, times(chunks.getAllValues().size())).withEvents(eq(OutboxEventType.ACCOUNT_TRANSACTION_POSTED), anyList(), any(), any());
+    }
+
+    @Test
+    void createAccountTransactions_ShouldNotApplyBalancesWhenChunkInsertFails() {
+        AccountTransactionBatchItemResponse unknown = new AccountTransactionBatchItemResponse();
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(batchAccount("1")));
+        when(accountTransactionMapper.getAccountTransactionEntity(any(), any()))
+            .thenAnswer(invocation -> new AccountTransaction());
+        when(accountTransactionRepository.insert(anyIterable()))
+            .thenReturn(Flux.error(new IllegalStateException("insert failed")));
+        when(accountTransactionMapper.getUnknownAccountTransactionBatchItemResponse(anyLong(), any(), any()))
+            .thenReturn(unknown);
+
+        StepVerifier.create(accountTransactionService.createAccountTransactions(Flux.just(batchDeposit("123", BigDecimal.TEN))))
+            .expectNext(unknown)
+            .verifyComplete();
+
+        verify(accountTransactionMapper).getUnknownAccountTransactionBatchItemResponse(eq(0L), any(),
+            eq("Transaction may have been persisted, its balances were not applied"));
+        verify(accountService, never()).updateAccount(any(), any());
+        verify(accountTransactionMapper, never()).getRejectedAccountTransactionBatchItemResponse(anyLong(), any());
+    }
+
+    @Test
+    void createAccountTransactions_ShouldReportUnknownWhenBalanceUpdateFailsAfterInsert() {
+        AccountTransactionBatchItemResponse unknown = new AccountTransactionBatchItemResponse();
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(batchAccount("1")));
+        when(accountTransactionMapper.getAccountTransactionEntity(any(), any()))
+            .thenAnswer(invocation -> new AccountTransaction());
+        when(accountTransactionRepository.insert(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<AccountTransaction>>getArgument(0)));
+        when(accountService.updateAccount(any(), any()))
+            .thenReturn(Mono.error(new IllegalStateException("account service down")));
+        when(accountTransactionMapper.getUnknownAccountTransactionBatchItemResponse(anyLong(), any(), any()))
+            .thenReturn(unknown);
+
+        StepVerifier.create(accountTransactionService.createAccountTransactions(Flux.just(batchDeposit("123", BigDecimal.TEN))))
+            .expectNext(unknown)
+            .verifyComplete();
+
+        InOrder inOrder = inOrder(accountTransactionRepository, accountService);
+        inOrder.verify(accountTransactionRepository).insert(anyIterable());
+        inOrder.verify(accountService).updateAccount(eq(batchAccount("1")), any());
+        verify(accountTransactionMapper).getUnknownAccountTransactionBatchItemResponse(eq(0L), argThat(transaction -> transaction.getId() != null),
+            eq("Transaction persisted, its balances may not have been applied: account service down"));
+    }
+
+    @Test
+    void createAccountTransactions_ShouldRejectInvalidItemsWithoutFailingTheBatch() {
+        AccountTransactionRequest withdrawal = new AccountTransactionRequest();
+        withdrawal.setType(AccountTransactionType.WITHDRAWAL.toString());
+        withdrawal.setAmount(BigDecimal.TEN);
+        withdrawal.setOriginAccountNumber("123");
+
+        AccountTransactionRequest transfer = new AccountTransactionRequest();
+        transfer.setType(AccountTransactionType.TRANSFER.toString());
+        transfer.setAmount(BigDecimal.TEN);
+        transfer.setOriginAccountNumber("123");
+
+        AccountResponse accountResponse = new AccountResponse();
+        accountResponse.setId("1");
+        accountResponse.setStatus(AccountStatus.ACTIVE.toString());
+        accountResponse.setBalance(BigDecimal.ZERO);
+        accountResponse.setAccountType(AccountType.CHECKING.toString());
+        accountResponse.setCustomerType(CustomerType.PERSONAL.toString());
+
+        AccountTransactionBatchItemResponse rejected = new AccountTransactionBatchItemResponse();
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(accountResponse));
+        when(accountTransactionMapper.getRejectedAccountTransactionBatchItemResponse(anyLong(), any()))
+            .thenReturn(rejected);
+
+        StepVerifier.create(accountTransactionService.createAccountTransactions(Flux.just(withdrawal, transfer)))
+            .expectNext(rejected, rejected)
+            .verifyComplete();
+
+        verify(accountTransactionMapper).getRejectedAccountTransactionBatchItemResponse(0L, "Insufficient balance to complete the transaction");
+        verify(accountTransactionMapper).getRejectedAccountTransactionBatchItemResponse(1L, "destinationAccountNumber is required for TRANSFER transactions");
+        verify(accountService, never()).updateAccount(any(), any());
+        verify(accountTransactionRepository, never()).insert(anyIterable());
+    }
+
+    @Test
+    void createAccountTransaction_ShouldNotCreditDestinationWhenCoalescedOriginDebitFails() {
+        AccountTransactionRequest request = new AccountTransactionRequest();
+        request.setType(AccountTransactionType.TRANSFER.toString());
+        request.setAmount(BigDecimal.TEN);
+        request.setOriginAccountNumber("123");
+        request.setDestinationAccountNumber("234");
+
+        AccountResponse originAccount = batchAccount("1");
+        originAccount.setBalance(new BigDecimal("100"));
+        AccountResponse destinationAccount = batchAccount("2");
+
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.just(originAccount));
+        when(accountService.getAccountByAccountNumber("234"))
+            .thenReturn(Mono.just(destinationAccount));
+        when(accountTransactionMapper.getAccountTransactionEntity(any(), any()))
+            .thenReturn(new AccountTransaction());
+        when(accountTransactionRepository.save(any()))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(accountService.updateAccount(eq(originAccount), any()))
+            .thenReturn(Mono.error(new InternalServerErrorException("Account service unavailable")));
+        when(accountService.updateAccount(eq(destinationAccount), any()))
+            .thenReturn(Mono.just(destinationAccount));
+
+        withWriteCoalescing(() -> StepVerifier.create(accountTransactionService.createAccountTransaction(Mono.just(request)))
+            .expectError(InternalServerErrorException.class)
+            .verify());
+
+        verify(accountService).updateAccount(eq(originAccount), any());
+        verify(accountService, never()).updateAccount(eq(destinationAccount), any());
+    }
+
+    @Test
+    void createAccountTransaction_ShouldCountUpdateAcknowledgedWhileAccountIsRead() {
+        AccountTransactionRequest request = new AccountTransactionRequest();
+        request.setType(AccountTransactionType.WITHDRAWAL.toString());
+        request.setAmount(BigDecimal.valueOf(50));
+        request.setOriginAccountNumber("123");
+
+        AccountResponse account = batchAccount("1");
+        account.setBalance(BigDecimal.valueOf(100));
+        AtomicReference<Map<String, List<AccountPatchRequest>>> unacknowledged =
+            new AtomicReference<>(Map.of("1", List.of(new AccountPatchRequest().balanceDelta(BigDecimal.valueOf(-80)))));
+
+        when(accountService.getUnacknowledgedUpdates())
+            .thenAnswer(invocation -> unacknowledged.get());
+        // the pending debit is acknowledged while the account is read, and the read does not include it yet
+        when(accountService.getAccountByAccountNumber("123"))
+            .thenReturn(Mono.fromSupplier(() -> {
+                unacknowledged.set(Map.of());
+                return account;
+            }));
+
+        withWriteCoalescing(() -> StepVerifier.create(accountTransactionService.createAccountTransaction(Mono.just(request)))
+            .expectError(BadRequestException.class)
+            .verify());
+
+        verify(accountTransactionRepository, never()).save(any());
+        verify(accountService, never()).updateAccount(any(), any());
+    }
+
+    private void withWriteCoalescing(Runnable test) {
+        ReflectionTestUtils.setField(accountTransactionService, "writeCoalescingEnabled", true);
+        try {
+            test.run();
+        } finally {
+            ReflectionTestUtils.setField(accountTransactionService, "writeCoalescingEnabled", false);
+        }
+    }
+
+    private AccountTransactionRequest batchDeposit(String accountNumber, BigDecimal amount) {
+        AccountTransactionRequest request = new AccountTransactionRequest();
+        request.setType(AccountTransactionType.DEPOSIT.toString());
+        request.setAmount(amount);
+        request.setOriginAccountNumber(accountNumber);
+        return request;
+    }
+
+    private AccountResponse batchAccount(String id) {
+        AccountResponse accountResponse = new AccountResponse();
+        accountResponse.setId(id);
+        accountResponse.setStatus(AccountStatus.ACTIVE.toString());
+        accountResponse.setBalance(BigDecimal.ZERO);
+        accountResponse.setAccountType(AccountType.CHECKING.toString());
+        accountResponse.setCustomerType(CustomerType.PERSONAL.toString());
+        return accountResponse;
+    }
 }
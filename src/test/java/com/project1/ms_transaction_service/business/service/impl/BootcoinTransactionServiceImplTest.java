@@ -63,9 +63,9 @@ class BootcoinTransactionServiceImplTest {
             .thenReturn(Mono.just(accepterBootcoinWallet));
         when(yankiService.getYankiWalletByUserId("user1"))
             .thenReturn(Mono.just(ownerYankiWallet));
-        when(yankiService.updateYankiWallet(anyString(), any()))
+        when(yankiService.updateYankiWallet(any(GetYankiWalletResponse.class), any()))
             .thenReturn(Mono.empty());
-        when(bootcoinService.updateBootcoinWallet(anyString(), any()))
+        when(bootcoinService.updateBootcoinWallet(any(), any()))
             .thenReturn(Mono.empty());
         when(bootcoinService.updateExchangeRequest(anyString(), any()))
             .thenReturn(Mono.empty());
@@ -77,11 +77,12 @@ class BootcoinTransactionServiceImplTest {
         verify(bootcoinService).getBootcoinWalletByUserId("user1");
         verify(bootcoinService).getBootcoinWalletByUserId("user2");
         verify(yankiService).getYankiWalletByUserId("user1");
-        verify(yankiService).updateYankiWallet(eq("yankiWallet1"), any());
-        verify(bootcoinService).updateBootcoinWallet(eq("wallet1"), argThat(req ->
-            req.getBalance().compareTo(new BigDecimal("15")) == 0));
-        verify(bootcoinService).updateBootcoinWallet(eq("wallet2"), argThat(req ->
-            req.getBalance().compareTo(new BigDecimal("15")) == 0));
+        verify(yankiService).updateYankiWallet(eq(ownerYankiWallet), argThat(req ->
+            req.getBalanceDelta().compareTo(new BigDecimal("-500")) == 0));
+        verify(bootcoinService).updateBootcoinWallet(eq(ownerBootcoinWallet), argThat(req ->
+            req.getBalanceDelta().compareTo(new BigDecimal("5")) == 0));
+        verify(bootcoinService).updateBootcoinWallet(eq(accepterBootcoinWallet), argThat(req ->
+            req.getBalanceDelta().compareTo(new BigDecimal("-5")) == 0));
         verify(bootcoinService).updateExchangeRequest(eq(transactionId), argThat(req ->
             req.getStatus().equals(ExchangeRequestStatus.APPROVED.toString())));
     }
@@ -119,9 +120,9 @@ class BootcoinTransactionServiceImplTest {
             .thenReturn(Mono.just(accepterBootcoinWallet));
         when(yankiService.getYankiWalletByUserId("user1"))
             .thenReturn(Mono.just(ownerYankiWallet));
-        when(yankiService.updateYankiWallet(anyString(), any()))
+        when(yankiService.updateYankiWallet(any(GetYankiWalletResponse.class), any()))
             .thenReturn(Mono.empty());
-        when(bootcoinService.updateBootcoinWallet(anyString(), any()))
+        when(bootcoinService.updateBootcoinWallet(any(), any()))
             .thenReturn(Mono.empty());
         when(bootcoinService.updateExchangeRequest(anyString(), any()))
             .thenReturn(Mono.empty());
@@ -170,7 +171,7 @@ class BootcoinTransactionServiceImplTest {
             req.getStatus().equals(ExchangeRequestStatus.REJECTED.toString()) &&
                 req.getMessage().contains("Insufficient bootcoins")));
         verify(yankiService, never()).getYankiWalletByUserId(anyString());
-        verify(bootcoinService, never()).updateBootcoinWallet(anyString(), any());
+        verify(bootcoinService, never()).updateBootcoinWallet(any(), any());
     }
 
     @Test
@@ -215,8 +216,8 @@ class BootcoinTransactionServiceImplTest {
         verify(bootcoinService).updateExchangeRequest(eq(transactionId), argThat(req ->
             req.getStatus().equals(ExchangeRequestStatus.REJECTED.toString()) &&
                 req.getMessage().contains("Insufficient balance in the yanki wallet")));
-        verify(yankiService, never()).updateYankiWallet(anyString(), any());
-        verify(bootcoinService, never()).updateBootcoinWallet(anyString(), any());
+        verify(yankiService, never()).updateYankiWallet(any(GetYankiWalletResponse.class), any());
+        verify(bootcoinService, never()).updateBootcoinWallet(any(), any());
     }
 
     @Test
@@ -252,14 +253,14 @@ class BootcoinTransactionServiceImplTest {
             .thenReturn(Mono.just(accepterBootcoinWallet));
         when(yankiService.getYankiWalletByUserId("user1"))
             .thenReturn(Mono.just(ownerYankiWallet));
-        when(yankiService.updateYankiWallet(anyString(), any()))
+        when(yankiService.updateYankiWallet(any(GetYankiWalletResponse.class), any()))
             .thenReturn(Mono.error(new RuntimeException("Error updating Yanki wallet")));
 
         StepVerifier.create(bootcoinTransactionService.processBootcoinTransaction(transactionId))
             .expectError(BadRequestException.class)
             .verify();
 
-        verify(bootcoinService, never()).updateBootcoinWallet(anyString(), any());
+        verify(bootcoinService, never()).updateBootcoinWallet(any(), any());
     }
 
     @Test
@@ -295,9 +296,9 @@ class BootcoinTransactionServiceImplTest {
             .thenReturn(Mono.just(accepterBootcoinWallet));
         when(yankiService.getYankiWalletByUserId("user1"))
             .thenReturn(Mono.just(ownerYankiWallet));
-        when(yankiService.updateYankiWallet(anyString(), any()))
+        when(yankiService.updateYankiWallet(any(GetYankiWalletResponse.class), any()))
             .thenReturn(Mono.empty());
-        when(bootcoinService.updateBootcoinWallet(anyString(), any()))
+        when(bootcoinService.updateBootcoinWallet(any(), any()))
             .thenReturn(Mono.error(new BadRequestException("Error updating Bootcoin wallet")));
         when(bootcoinService.updateExchangeRequest(anyString(), any()))
             .thenReturn(Mono.empty());
@@ -3,6 +3,8 @@ package com.project1.ms_transaction_service.business.service.impl;
 import com.project1.ms_transaction_service.business.adapter.CreditCardService;
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
 import com.project1.ms_transaction_service.business.mapper.CreditCardTransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.CreditCardCustomerMismatchException;
 import com.project1.ms_transaction_service.model.CreditCardResponse;
@@ -11,6 +13,7 @@ import com.project1.ms_transaction_service.model.CustomerResponse;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransaction;
 import com.project1.ms_transaction_service.model.entity.CreditCardTransactionType;
 import com.project1.ms_transaction_service.repository.CreditCardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -41,6 +44,18 @@ class CreditCardTransactionServiceImplTest {
     @MockBean
     private CreditCardTransactionRepository creditCardTransactionRepository;
 
+    @MockBean
+    private DailyBalanceService dailyBalanceService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        when(dailyBalanceService.recordCreditCardBalance(any(), any())).thenReturn(Mono.empty());
+        when(outboxService.withEvent(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+    }
+
     @Test
     void createCreditCardTransaction_Usage_Success() {
         CreditCardTransactionRequest request = new CreditCardTransactionRequest();
@@ -61,7 +76,7 @@ class CreditCardTransactionServiceImplTest {
 
         when(creditCardService.getCreditCardById("123")).thenReturn(Mono.just(card));
         when(creditCardTransactionRepository.save(any())).thenReturn(Mono.just(transaction));
-        when(creditCardService.updateCreditCard(anyString(), any())).thenReturn(Mono.just(card));
+        when(creditCardService.updateCreditCard(any(), any())).thenReturn(Mono.just(card));
 
         StepVerifier.create(creditCardTransactionService.createCreditCardTransaction(Mono.just(request)))
             .expectNextCount(1)
@@ -90,7 +105,7 @@ class CreditCardTransactionServiceImplTest {
         when(creditCardService.getCreditCardById("123")).thenReturn(Mono.just(card));
         when(customerService.getCustomerById("456")).thenReturn(Mono.just(customer));
         when(creditCardTransactionRepository.save(any())).thenReturn(Mono.just(transaction));
-        when(creditCardService.updateCreditCard(anyString(), any())).thenReturn(Mono.just(card));
+        when(creditCardService.updateCreditCard(any(), any())).thenReturn(Mono.just(card));
 
         StepVerifier.create(creditCardTransactionService.createCreditCardTransaction(Mono.just(request)))
             .expectNextCount(1)
@@ -108,9 +123,9 @@ class CreditCardTransactionServiceImplTest {
         transaction.setType(CreditCardTransactionType.USAGE);
 
         when(creditCardService.getCreditCardById(cardId)).thenReturn(Mono.just(card));
-        when(creditCardTransactionRepository.findAllByCreditCardId(cardId)).thenReturn(Flux.just(transaction));
+        when(creditCardTransactionRepository.findAllByCreditCardIdOrderByDateDescIdDesc(eq(cardId), any())).thenReturn(Flux.just(transaction));
 
-        StepVerifier.create(creditCardTransactionService.getCreditCardTransactionsById(cardId))
+        StepVerifier.create(creditCardTransactionService.getCreditCardTransactionsById(cardId, null, null))
             .expectNextCount(1)
             .verifyComplete();
     }
@@ -3,12 +3,15 @@ package com.project1.ms_transaction_service.business.service.impl;
 import com.project1.ms_transaction_service.business.adapter.CreditService;
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
 import com.project1.ms_transaction_service.business.mapper.CreditTransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
 import com.project1.ms_transaction_service.model.*;
 import com.project1.ms_transaction_service.model.entity.CreditTransaction;
 import com.project1.ms_transaction_service.model.entity.CreditTransactionType;
 import com.project1.ms_transaction_service.repository.CreditTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -40,6 +43,18 @@ class CreditTransactionServiceImplTest {
     @MockBean
     private CreditTransactionMapper creditTransactionMapper;
 
+    @MockBean
+    private DailyBalanceService dailyBalanceService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        when(dailyBalanceService.recordCreditBalance(any(), any(), any())).thenReturn(Mono.empty());
+        when(outboxService.withEvent(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+    }
+
     @Test
     void createCreditPaymentTransaction_Success() {
         CreditPaymentTransactionRequest request = new CreditPaymentTransactionRequest();
@@ -192,12 +207,12 @@ class CreditTransactionServiceImplTest {
 
         when(creditService.getCreditById(creditId))
             .thenReturn(Mono.just(new CreditResponse()));
-        when(creditTransactionRepository.findAllByCreditId(creditId))
+        when(creditTransactionRepository.findAllByCreditIdOrderByDateDescIdDesc(eq(creditId), any()))
             .thenReturn(Flux.just(transaction));
         when(creditTransactionMapper.getCreditPaymentTransactionResponse(transaction))
             .thenReturn(response);
 
-        StepVerifier.create(creditTransactionService.getCreditTransactionsByCreditId(creditId))
+        StepVerifier.create(creditTransactionService.getCreditTransactionsByCreditId(creditId, null, null))
             .expectNext(response)
             .verifyComplete();
     }
@@ -0,0 +1,113 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.CreditCardResponse;
+import com.project1.ms_transaction_service.model.CreditResponse;
+import com.project1.ms_transaction_service.model.CustomerProductsResponse;
+import com.project1.ms_transaction_service.model.entity.BalanceProductType;
+import com.project1.ms_transaction_service.model.entity.DailyBalanceSnapshot;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DailyBalanceServiceImplTest {
+
+    private static final LocalDate MONTH_START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void averageDailyBalance_ShouldCarryClosingBalanceForward() {
+        List<DailyBalanceSnapshot> snapshots = List.of(
+            snapshot(MONTH_START, "100.00"),
+            snapshot(MONTH_START.plusDays(3), "200.00"));
+
+        BigDecimal average = DailyBalanceServiceImpl.averageDailyBalance(snapshots, MONTH_START, MONTH_START.plusDays(4));
+
+        assertEquals(new BigDecimal("140.00"), average);
+    }
+
+    @Test
+    void averageDailyBalance_ShouldStartFromBalanceBeforeRange() {
+        List<DailyBalanceSnapshot> snapshots = List.of(
+            snapshot(MONTH_START.minusDays(10), "50.00"),
+            snapshot(MONTH_START.plusDays(1), "150.00"));
+
+        BigDecimal average = DailyBalanceServiceImpl.averageDailyBalance(snapshots, MONTH_START, MONTH_START.plusDays(1));
+
+        assertEquals(new BigDecimal("100.00"), average);
+    }
+
+    @Test
+    void averageDailyBalance_ShouldSkipDaysBeforeFirstKnownBalance() {
+        List<DailyBalanceSnapshot> snapshots = List.of(snapshot(MONTH_START.plusDays(2), "90.00"));
+
+        BigDecimal average = DailyBalanceServiceImpl.averageDailyBalance(snapshots, MONTH_START, MONTH_START.plusDays(4));
+
+        assertEquals(new BigDecimal("90.00"), average);
+    }
+
+    @Test
+    void averageDailyBalance_ShouldBeNullWithoutKnownBalance() {
+        assertNull(DailyBalanceServiceImpl.averageDailyBalance(List.of(), MONTH_START, MONTH_START.plusDays(4)));
+        assertNull(DailyBalanceServiceImpl.averageDailyBalance(List.of(snapshot(MONTH_START.plusDays(5), "10.00")),
+            MONTH_START, MONTH_START.plusDays(4)));
+    }
+
+    @Test
+    void openingSnapshots_ShouldSnapshotEveryProductWithKnownBalance() {
+        AccountResponse account = new AccountResponse();
+        account.setId("1");
+        account.setAccountNumber("ACC-1");
+        account.setBalance(new BigDecimal("300.00"));
+        CreditCardResponse creditCard = new CreditCardResponse();
+        creditCard.setId("2");
+        creditCard.setCardNumber("CARD-2");
+        creditCard.setCreditLimit(new BigDecimal("1000.00"));
+        creditCard.setUsedAmount(new BigDecimal("250.00"));
+        CreditCardResponse unknownCard = new CreditCardResponse();
+        unknownCard.setId("3");
+        unknownCard.setCreditLimit(new BigDecimal("1000.00"));
+        CreditResponse credit = new CreditResponse();
+        credit.setIdentifier("CRED-4");
+        credit.setAmountPaid(new BigDecimal("40.00"));
+        CustomerProductsResponse products = new CustomerProductsResponse()
+            .accounts(List.of(account))
+            .creditCards(List.of(creditCard, unknownCard))
+            .credits(List.of(credit));
+
+        List<DailyBalanceSnapshot> snapshots = DailyBalanceServiceImpl.openingSnapshots("customer", products, MONTH_START.minusDays(1));
+
+        assertEquals(3, snapshots.size());
+        assertEquals("ACCOUNT:1:2024-12-31", snapshots.get(0).getId());
+        assertEquals(new BigDecimal("300.00"), snapshots.get(0).getClosingBalance());
+        assertEquals(new BigDecimal("750.00"), snapshots.get(1).getClosingBalance());
+        assertEquals("CRED-4", snapshots.get(2).getProductIdentifier());
+        assertNull(snapshots.get(2).getId());
+        assertEquals(new BigDecimal("300.00"), DailyBalanceServiceImpl.averageDailyBalance(snapshots.subList(0, 1), MONTH_START, MONTH_START.plusDays(4)));
+    }
+
+    @Test
+    void recordCreditCardBalance_ShouldSkipCardWithUnknownUsedAmount() {
+        CreditCardResponse creditCard = new CreditCardResponse();
+        creditCard.setId("2");
+        creditCard.setCustomerId("customer");
+        creditCard.setCreditLimit(new BigDecimal("1000.00"));
+
+        StepVerifier.create(new DailyBalanceServiceImpl().recordCreditCardBalance(creditCard, null))
+            .verifyComplete();
+    }
+
+    private DailyBalanceSnapshot snapshot(LocalDate date, String closingBalance) {
+        return DailyBalanceSnapshot.builder()
+            .productType(BalanceProductType.ACCOUNT)
+            .productId("1")
+            .date(date)
+            .closingBalance(new BigDecimal(closingBalance))
+            .build();
+    }
+}
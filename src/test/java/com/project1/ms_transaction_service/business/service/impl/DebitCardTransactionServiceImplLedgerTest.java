@@ -0,0 +1,140 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.project1.ms_transaction_service.business.adapter.AccountService;
+import com.project1.ms_transaction_service.business.adapter.DebitCardService;
+import com.project1.ms_transaction_service.business.mapper.DebitCardTransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.LedgerService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.DebitCardAssociation;
+import com.project1.ms_transaction_service.model.DebitCardResponse;
+import com.project1.ms_transaction_service.model.DebitCardTransactionRequest;
+import com.project1.ms_transaction_service.model.DebitCardTransactionResponse;
+import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
+import com.project1.ms_transaction_service.repository.DebitCardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "application.config.ledger.enabled=true")
+class DebitCardTransactionServiceImplLedgerTest {
+
+    @Autowired
+    private DebitCardTransactionServiceImpl debitCardTransactionService;
+
+    @MockBean
+    private DebitCardTransactionRepository debitCardTransactionRepository;
+
+    @MockBean
+    private DebitCardService debitCardService;
+
+    @MockBean
+    private AccountService accountService;
+
+    @MockBean
+    private DebitCardTransactionMapper debitCardTransactionMapper;
+
+    @MockBean
+    private DailyBalanceService dailyBalanceService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @MockBean
+    private LedgerService ledgerService;
+
+    private DebitCardTransactionRequest request;
+
+    private DebitCardTransaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        request = new DebitCardTransactionRequest();
+        request.setDebitCardId("123");
+        request.setAmount(BigDecimal.valueOf(100));
+
+        DebitCardAssociation first = new DebitCardAssociation();
+        first.setAccountId("456");
+        first.setPosition(1);
+        DebitCardAssociation second = new DebitCardAssociation();
+        second.setAccountId("567");
+        second.setPosition(2);
+        DebitCardResponse debitCard = new DebitCardResponse();
+        debitCard.setAssociations(List.of(first, second));
+
+        transaction = new DebitCardTransaction();
+
+        when(debitCardService.getDebitCardById("123")).thenReturn(Mono.just(debitCard));
+        when(accountService.getAccountById("456")).thenReturn(Mono.just(account("456", "1000")));
+        when(accountService.getAccountById("567")).thenReturn(Mono.just(account("567", "1000")));
+        when(ledgerService.withLedgerBalance(argThat(account -> account != null && "456".equals(account.getId()))))
+            .thenReturn(Mono.just(account("456", "50")));
+        when(ledgerService.withLedgerBalance(argThat(account -> account != null && "567".equals(account.getId()))))
+            .thenReturn(Mono.just(account("567", "300")));
+        when(debitCardTransactionMapper.getDebitCardTransactionEntity(request)).thenReturn(transaction);
+        when(debitCardTransactionMapper.getDebitCardTransactionResponse(any())).thenReturn(new DebitCardTransactionResponse());
+        when(outboxService.withEvent(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+        when(dailyBalanceService.recordAccountBalance(any(), any())).thenReturn(Mono.empty());
+        when(ledgerService.reverse(anyString())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void createDebitCardTransaction_ShouldChargeAccountCoveringPurchaseInLedger() {
+        when(ledgerService.postDebitCardTransaction(any(), any())).thenReturn(Mono.just(new BigDecimal("200")));
+        when(debitCardTransactionRepository.save(any(DebitCardTransaction.class))).thenReturn(Mono.just(transaction));
+
+        StepVerifier.create(debitCardTransactionService.createDebitCardTransaction(Mono.just(request)))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        verify(ledgerService).postDebitCardTransaction(eq(transaction), argThat(account -> "567".equals(account.getId())));
+        verify(dailyBalanceService).recordAccountBalance(argThat(account -> "567".equals(account.getId())), eq(new BigDecimal("200")));
+        verify(accountService, never()).updateAccount(any(), any());
+        verify(ledgerService, never()).reverse(anyString());
+    }
+
+    @Test
+    void createDebitCardTransaction_ShouldReversePostingWhenSaveFails() {
+        when(ledgerService.postDebitCardTransaction(any(), any())).thenReturn(Mono.just(new BigDecimal("200")));
+        when(debitCardTransactionRepository.save(any(DebitCardTransaction.class))).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        StepVerifier.create(debitCardTransactionService.createDebitCardTransaction(Mono.just(request)))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        verify(ledgerService).reverse(transaction.getId());
+        verify(dailyBalanceService, never()).recordAccountBalance(any(), any());
+    }
+
+    @Test
+    void createDebitCardTransaction_ShouldNotSaveWhenLedgerRejectsDebit() {
+        when(ledgerService.postDebitCardTransaction(any(), any())).thenReturn(Mono.error(new BadRequestException("Insufficient balance")));
+
+        StepVerifier.create(debitCardTransactionService.createDebitCardTransaction(Mono.just(request)))
+            .expectError(BadRequestException.class)
+            .verify();
+
+        verify(debitCardTransactionRepository, never()).save(any(DebitCardTransaction.class));
+        verify(accountService, never()).updateAccount(any(), any());
+    }
+
+    private static AccountResponse account(String id, String balance) {
+        AccountResponse account = new AccountResponse();
+        account.setId(id);
+        account.setAccountNumber("number-" + id);
+        account.setCustomerId("789");
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+}
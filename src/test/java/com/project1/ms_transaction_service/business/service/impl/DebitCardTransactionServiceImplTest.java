@@ -3,6 +3,8 @@ package com.project1.ms_transaction_service.business.service.impl;
 import com.project1.ms_transaction_service.business.adapter.AccountService;
 import com.project1.ms_transaction_service.business.adapter.DebitCardService;
 import com.project1.ms_transaction_service.business.mapper.DebitCardTransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.OutboxService;
 import com.project1.ms_transaction_service.exception.BadRequestException;
 import com.project1.ms_transaction_service.exception.NotFoundException;
 import com.project1.ms_transaction_service.model.*;
@@ -10,11 +12,13 @@ import com.project1.ms_transaction_service.model.entity.AccountStatus;
 import com.project1.ms_transaction_service.model.entity.DebitCardTransaction;
 import com.project1.ms_transaction_service.model.entity.DebitCardTransactionType;
 import com.project1.ms_transaction_service.repository.DebitCardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
@@ -41,6 +45,18 @@ class DebitCardTransactionServiceImplTest {
     @MockBean
     private DebitCardTransactionMapper debitCardTransactionMapper;
 
+    @MockBean
+    private DailyBalanceService dailyBalanceService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        when(dailyBalanceService.recordAccountBalance(any(), any())).thenReturn(Mono.empty());
+        when(outboxService.withEvent(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+    }
+
     @Test
     void createDebitCardTransaction_Success() {
         DebitCardTransactionRequest request = new DebitCardTransactionRequest();
@@ -73,7 +89,7 @@ class DebitCardTransactionServiceImplTest {
             .thenReturn(transaction);
         when(debitCardTransactionRepository.save(any(DebitCardTransaction.class)))
             .thenReturn(Mono.just(transaction));
-        when(accountService.updateAccount(anyString(), any()))
+        when(accountService.updateAccount(any(), any()))
             .thenReturn(Mono.just(account));
         when(debitCardTransactionMapper.getDebitCardTransactionResponse(any()))
             .thenReturn(response);
@@ -224,7 +240,7 @@ class DebitCardTransactionServiceImplTest {
             .thenReturn(transaction);
         when(debitCardTransactionRepository.save(any(DebitCardTransaction.class)))
             .thenReturn(Mono.just(transaction));
-        when(accountService.updateAccount(anyString(), any()))
+        when(accountService.updateAccount(any(), any()))
             .thenReturn(Mono.just(account));
         when(debitCardTransactionMapper.getDebitCardTransactionResponse(any()))
             .thenReturn(response);
@@ -307,7 +323,7 @@ class DebitCardTransactionServiceImplTest {
             .thenReturn(transaction);
         when(debitCardTransactionRepository.save(any(DebitCardTransaction.class)))
             .thenReturn(Mono.just(transaction));
-        when(accountService.updateAccount(anyString(), any()))
+        when(accountService.updateAccount(any(), any()))
             .thenReturn(Mono.just(account3));
         when(debitCardTransactionMapper.getDebitCardTransactionResponse(any()))
             .thenReturn(response);
@@ -322,7 +338,7 @@ class DebitCardTransactionServiceImplTest {
         verify(accountService).getAccountById("458");
 
         // Verify that update was performed only on the account with sufficient funds
-        verify(accountService).updateAccount(eq("458"), any());
+        verify(accountService).updateAccount(argThat(account -> "458".equals(account.getId())), any());
     }
 
     @Test
@@ -389,7 +405,7 @@ class DebitCardTransactionServiceImplTest {
             .thenReturn(transaction);
         when(debitCardTransactionRepository.save(any(DebitCardTransaction.class)))
             .thenReturn(Mono.just(transaction));
-        when(accountService.updateAccount(anyString(), any()))
+        when(accountService.updateAccount(any(), any()))
             .thenReturn(Mono.just(account3));
         when(debitCardTransactionMapper.getDebitCardTransactionResponse(any()))
             .thenReturn(response);
@@ -403,6 +419,103 @@ class DebitCardTransactionServiceImplTest {
         verify(accountService).getAccountById("458");
 
         // Verify that update was performed only on the active account
-        verify(accountService).updateAccount(eq("458"), any());
+        verify(accountService).updateAccount(argThat(account -> "458".equals(account.getId())), any());
+    }
+
+    @Test
+    void createDebitCardTransaction_ShouldFetchAssociatedAccountsConcurrently() {
+        DebitCardTransactionRequest request = new DebitCardTransactionRequest();
+        request.setDebitCardId("123");
+        request.setAmount(BigDecimal.valueOf(100));
+        request.setType(DebitCardTransactionType.PURCHASE.toString());
+
+        DebitCardResponse debitCard = new DebitCardResponse();
+        debitCard.setAssociations(List.of(association("457", 2), association("456", 1)));
+
+        AccountResponse firstAccount = account("456", BigDecimal.valueOf(50));
+        AccountResponse secondAccount = account("457", BigDecimal.valueOf(150));
+        Sinks.One<AccountResponse> firstLookup = Sinks.one();
+
+        DebitCardTransaction transaction = new DebitCardTransaction();
+        DebitCardTransactionResponse response = new DebitCardTransactionResponse();
+
+        when(debitCardService.getDebitCardById("123"))
+            .thenReturn(Mono.just(debitCard));
+        when(accountService.getAccountById("456"))
+            .thenReturn(firstLookup.asMono());
+        when(accountService.getAccountById("457"))
+            .thenReturn(Mono.just(secondAccount));
+        when(debitCardTransactionMapper.getDebitCardTransactionEntity(request))
+            .thenReturn(transaction);
+        when(debitCardTransactionRepository.save(any(DebitCardTransaction.class)))
+            .thenReturn(Mono.just(transaction));
+        when(accountService.updateAccount(any(), any()))
+            .thenReturn(Mono.just(secondAccount));
+        when(debitCardTransactionMapper.getDebitCardTransactionResponse(any()))
+            .thenReturn(response);
+
+        StepVerifier.create(debitCardTransactionService.createDebitCardTransaction(Mono.just(request)))
+            .then(() -> {
+                // the second account is already requested while the first one is still in flight
+                verify(accountService).getAccountById("457");
+                verify(accountService, never()).updateAccount(any(), any());
+            })
+            .then(() -> firstLookup.tryEmitValue(firstAccount))
+            .expectNext(response)
+            .verifyComplete();
+
+        verify(accountService).updateAccount(argThat(account -> "457".equals(account.getId())), any());
+    }
+
+    @Test
+    void createDebitCardTransaction_ShouldIgnoreLookupErrorsOfUnusedAccounts() {
+        DebitCardTransactionRequest request = new DebitCardTransactionRequest();
+        request.setDebitCardId("123");
+        request.setAmount(BigDecimal.valueOf(100));
+        request.setType(DebitCardTransactionType.PURCHASE.toString());
+
+        DebitCardResponse debitCard = new DebitCardResponse();
+        debitCard.setAssociations(List.of(association("456", 1), association("457", 2)));
+
+        AccountResponse firstAccount = account("456", BigDecimal.valueOf(150));
+        DebitCardTransaction transaction = new DebitCardTransaction();
+        DebitCardTransactionResponse response = new DebitCardTransactionResponse();
+
+        when(debitCardService.getDebitCardById("123"))
+            .thenReturn(Mono.just(debitCard));
+        when(accountService.getAccountById("456"))
+            .thenReturn(Mono.just(firstAccount));
+        when(accountService.getAccountById("457"))
+            .thenReturn(Mono.error(new NotFoundException("Account not found")));
+        when(debitCardTransactionMapper.getDebitCardTransactionEntity(request))
+            .thenReturn(transaction);
+        when(debitCardTransactionRepository.save(any(DebitCardTransaction.class)))
+            .thenReturn(Mono.just(transaction));
+        when(accountService.updateAccount(any(), any()))
+            .thenReturn(Mono.just(firstAccount));
+        when(debitCardTransactionMapper.getDebitCardTransactionResponse(any()))
+            .thenReturn(response);
+
+        StepVerifier.create(debitCardTransactionService.createDebitCardTransaction(Mono.just(request)))
+            .expectNext(response)
+            .verifyComplete();
+
+        verify(accountService).updateAccount(argThat(account -> "456".equals(account.getId())), any());
+    }
+
+    private DebitCardAssociation association(String accountId, int position) {
+        DebitCardAssociation association = new DebitCardAssociation();
+        association.setAccountId(accountId);
+        association.setPosition(position);
+        return association;
+    }
+
+    private AccountResponse account(String id, BigDecimal balance) {
+        AccountResponse account = new AccountResponse();
+        account.setId(id);
+        account.setBalance(balance);
+        account.setCustomerId("789");
+        account.setStatus(AccountStatus.ACTIVE.toString());
+        return account;
     }
 }
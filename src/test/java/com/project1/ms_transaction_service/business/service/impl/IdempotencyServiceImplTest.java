@@ -0,0 +1,268 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import com.project1.ms_transaction_service.exception.ConflictException;
+import com.project1.ms_transaction_service.exception.InternalServerErrorException;
+import com.project1.ms_transaction_service.exception.UnprocessableEntityException;
+import com.project1.ms_transaction_service.model.AccountTransactionRequest;
+import com.project1.ms_transaction_service.model.AccountTransactionResponse;
+import com.project1.ms_transaction_service.model.entity.IdempotencyRecord;
+import com.project1.ms_transaction_service.model.entity.IdempotencyStatus;
+import com.project1.ms_transaction_service.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceImplTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-13T10:00:00Z"), ZoneOffset.UTC);
+
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, new ObjectMapper(), CLOCK, meterRegistry,
+            Duration.ofHours(24), Duration.ofMinutes(1), 100);
+        executions = new AtomicInteger();
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.deleteById(anyString())).thenReturn(Mono.empty());
+        when(idempotencyRecordRepository.findAndMarkFailedByIdAndStatus(anyString(), any(), any())).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    void execute_ShouldRunEveryRequestWithoutKey() {
+        StepVerifier.create(idempotencyService.execute("account", null, request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+        StepVerifier.create(idempotencyService.execute("account", null, request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals(2, executions.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_ShouldReplayStoredResponseOfSameKey() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextMatches(response -> "1".equals(response.getId()))
+            .verifyComplete();
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextMatches(response -> "1".equals(response.getId()))
+            .verifyComplete();
+
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, times(1)).insert(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).save(argThat(record -> record.getStatus() == IdempotencyStatus.COMPLETED
+            && record.getExpiresAt().equals(LocalDateTime.now(CLOCK).plusHours(24))));
+        assertEquals(1.0, meterRegistry.get("idempotency.requests").tag("outcome", IdempotencyServiceImpl.REPLAYED).counter().count());
+    }
+
+    @Test
+    void execute_ShouldReplayResponseStoredByAnotherInstance() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+        IdempotencyRecord stored = captureStoredRecord();
+
+        IdempotencyServiceImpl otherInstance = new IdempotencyServiceImpl(idempotencyRecordRepository, new ObjectMapper(), CLOCK, meterRegistry,
+            Duration.ofHours(24), Duration.ofMinutes(1), 100);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+        when(idempotencyRecordRepository.findById("account:key")).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(otherInstance.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextMatches(response -> "1".equals(response.getId()))
+            .verifyComplete();
+
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ShouldRejectKeyStillInProgress() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+        IdempotencyRecord inProgress = captureStoredRecord().toBuilder()
+            .status(IdempotencyStatus.IN_PROGRESS)
+            .response(null)
+            .expiresAt(LocalDateTime.now(CLOCK).plusMinutes(1))
+            .build();
+
+        IdempotencyServiceImpl otherInstance = new IdempotencyServiceImpl(idempotencyRecordRepository, new ObjectMapper(), CLOCK, meterRegistry,
+            Duration.ofHours(24), Duration.ofMinutes(1), 100);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+        when(idempotencyRecordRepository.findById("account:key")).thenReturn(Mono.just(inProgress));
+
+        StepVerifier.create(otherInstance.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectError(ConflictException.class)
+            .verify();
+    }
+
+    @Test
+    void execute_ShouldRejectKeyReusedWithDifferentRequest() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        StepVerifier.create(idempotencyService.execute("account", "key", request("20"), AccountTransactionResponse.class, this::post))
+            .expectError(UnprocessableEntityException.class)
+            .verify();
+
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ShouldScopeKeysToTheOperation() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+        StepVerifier.create(idempotencyService.execute("debit-card", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void execute_ShouldReleaseKeyOfRejectedRequest() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class,
+                () -> Mono.error(new BadRequestException("Insufficient balance"))))
+            .expectError(BadRequestException.class)
+            .verify();
+
+        verify(idempotencyRecordRepository).deleteById("account:key");
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository, never()).findAndMarkFailedByIdAndStatus(any(), any(), any());
+    }
+
+    @Test
+    void execute_ShouldKeepKeyOfRequestFailedAfterItsValidation() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class,
+                () -> Mono.error(new IllegalStateException("error"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        verify(idempotencyRecordRepository, never()).deleteById(anyString());
+        verify(idempotencyRecordRepository).findAndMarkFailedByIdAndStatus("account:key", IdempotencyStatus.IN_PROGRESS,
+            LocalDateTime.now(CLOCK).plusHours(24));
+    }
+
+    @Test
+    void execute_ShouldRejectRetryOfFailedKey() {
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+        IdempotencyRecord failed = captureStoredRecord().toBuilder()
+            .status(IdempotencyStatus.FAILED)
+            .response(null)
+            .build();
+
+        IdempotencyServiceImpl otherInstance = new IdempotencyServiceImpl(idempotencyRecordRepository, new ObjectMapper(), CLOCK, meterRegistry,
+            Duration.ofHours(24), Duration.ofMinutes(1), 100);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+        when(idempotencyRecordRepository.findById("account:key")).thenReturn(Mono.just(failed));
+
+        StepVerifier.create(otherInstance.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectError(ConflictException.class)
+            .verify();
+
+        assertEquals(1, executions.get());
+        assertEquals(1.0, meterRegistry.get("idempotency.requests").tag("outcome", IdempotencyServiceImpl.UNKNOWN).counter().count());
+    }
+
+    @Test
+    void execute_ShouldFailRequestWhoseResponseCannotBeStored() {
+        when(idempotencyRecordRepository.save(any(IdempotencyRecord.class))).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectError(InternalServerErrorException.class)
+            .verify();
+
+        verify(idempotencyRecordRepository).findAndMarkFailedByIdAndStatus(eq("account:key"), eq(IdempotencyStatus.IN_PROGRESS), any());
+    }
+
+    @Test
+    void execute_ShouldMarkKeyOfCancelledRequestAsFailed() {
+        PublisherProbe<Long> marked = PublisherProbe.of(Mono.just(1L));
+        PublisherProbe<AccountTransactionResponse> action = PublisherProbe.of(Mono.never());
+        when(idempotencyRecordRepository.findAndMarkFailedByIdAndStatus(anyString(), any(), any())).thenReturn(marked.mono());
+
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, action::mono))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(50))
+            .then(action::assertWasSubscribed)
+            .thenCancel()
+            .verify();
+
+        marked.assertWasSubscribed();
+        verify(idempotencyRecordRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void execute_ShouldReclaimExpiredKey() {
+        IdempotencyRecord expired = IdempotencyRecord.builder()
+            .id("account:key")
+            .status(IdempotencyStatus.IN_PROGRESS)
+            .expiresAt(LocalDateTime.now(CLOCK).minusSeconds(1))
+            .build();
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate")))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.findById("account:key")).thenReturn(Mono.just(expired));
+        when(idempotencyRecordRepository.deleteByIdAndExpiresAtBefore("account:key", LocalDateTime.now(CLOCK))).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(idempotencyService.execute("account", "key", request("10"), AccountTransactionResponse.class, this::post))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals(1, executions.get());
+    }
+
+    private IdempotencyRecord captureStoredRecord() {
+        return mockingDetails(idempotencyRecordRepository).getInvocations().stream()
+            .filter(invocation -> invocation.getMethod().getName().equals("save"))
+            .map(invocation -> (IdempotencyRecord) invocation.getArgument(0))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private Mono<AccountTransactionResponse> post() {
+        return Mono.fromCallable(() -> {
+            AccountTransactionResponse response = new AccountTransactionResponse();
+            response.setId(String.valueOf(executions.incrementAndGet()));
+            return response;
+        });
+    }
+
+    private AccountTransactionRequest request(String amount) {
+        AccountTransactionRequest request = new AccountTransactionRequest();
+        request.setOriginAccountNumber("123");
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
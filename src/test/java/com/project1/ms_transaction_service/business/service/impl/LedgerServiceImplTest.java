@@ -0,0 +1,118 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.project1.ms_transaction_service.model.AccountResponse;
+import com.project1.ms_transaction_service.model.entity.LedgerBalance;
+import com.project1.ms_transaction_service.model.entity.LedgerEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerServiceImplTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 1, 13, 10, 0);
+
+    @Test
+    void entriesOf_ShouldBookWithdrawalCommissionAndCash() {
+        List<LedgerEntry> entries = LedgerServiceImpl.entriesOf("tx-1", DATE, new BigDecimal("5"), Map.of("123", new BigDecimal("-105")), Set.of("123"));
+
+        assertEquals(Map.of(
+            "123", new BigDecimal("-105"),
+            LedgerServiceImpl.COMMISSIONS_ACCOUNT, new BigDecimal("5"),
+            LedgerServiceImpl.CASH_ACCOUNT, new BigDecimal("100")), amounts(entries));
+        assertEquals(BigDecimal.ZERO, total(entries));
+        assertEquals("tx-1", entries.get(0).getTransactionId());
+        assertEquals("tx-1:123", entries.get(0).getId());
+        assertTrue(entries.get(0).isMovement());
+        assertFalse(entries.get(1).isMovement());
+    }
+
+    @Test
+    void entriesOf_ShouldBookDepositWithoutCommission() {
+        List<LedgerEntry> entries = LedgerServiceImpl.entriesOf("tx-1", DATE, BigDecimal.ZERO, Map.of("123", new BigDecimal("100")), Set.of());
+
+        assertEquals(Map.of(
+            "123", new BigDecimal("100"),
+            LedgerServiceImpl.CASH_ACCOUNT, new BigDecimal("-100")), amounts(entries));
+    }
+
+    @Test
+    void entriesOf_ShouldBookTransferBetweenAccountsOnly() {
+        Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+        deltas.put("123", new BigDecimal("-100"));
+        deltas.put("234", new BigDecimal("100"));
+
+        List<LedgerEntry> entries = LedgerServiceImpl.entriesOf("tx-1", DATE, BigDecimal.ZERO, deltas, Set.of("123", "234"));
+
+        assertEquals(Map.of("123", new BigDecimal("-100"), "234", new BigDecimal("100")), amounts(entries));
+        assertTrue(entries.stream().allMatch(LedgerServiceImpl::isAccountLeg));
+    }
+
+    @Test
+    void entriesOf_ShouldKeepAccountLegOfTransferToSameAccount() {
+        List<LedgerEntry> entries = LedgerServiceImpl.entriesOf("tx-1", DATE, BigDecimal.ZERO, Map.of("123", BigDecimal.ZERO), Set.of("123"));
+
+        assertEquals(Map.of("123", BigDecimal.ZERO), amounts(entries));
+    }
+
+    @Test
+    void openingEntriesOf_ShouldBookSeededBalanceAgainstOpeningBalances() {
+        LedgerBalance balance = LedgerBalance.builder()
+            .id("123")
+            .balance(new BigDecimal("80"))
+            .openingBalance(new BigDecimal("250.00"))
+            .openedAt(DATE)
+            .build();
+
+        List<LedgerEntry> entries = LedgerServiceImpl.openingEntriesOf(balance);
+
+        assertEquals(Map.of(
+            "123", new BigDecimal("250.00"),
+            LedgerServiceImpl.OPENING_BALANCES_ACCOUNT, new BigDecimal("-250.00")), amounts(entries));
+        assertEquals(0, BigDecimal.ZERO.compareTo(total(entries)));
+        assertEquals("opening-123:123", entries.get(0).getId());
+        assertTrue(LedgerServiceImpl.isAccountLeg(entries.get(0)));
+        assertFalse(LedgerServiceImpl.isAccountLeg(entries.get(1)));
+    }
+
+    @Test
+    void withLedgerBalance_ShouldUseCurrentMonthMovements() {
+        AccountResponse account = new AccountResponse()
+            .id("1")
+            .accountNumber("123")
+            .status("ACTIVE")
+            .balance(BigDecimal.ONE)
+            .monthlyMovements(7)
+            .maxMonthlyMovements(10);
+        LedgerBalance balance = LedgerBalance.builder()
+            .id("123")
+            .balance(new BigDecimal("250.00"))
+            .monthlyMovements(Map.of("2025-01", 3, "2025-02", 1))
+            .build();
+
+        AccountResponse projected = LedgerServiceImpl.withLedgerBalance(account, balance, "2025-01");
+
+        assertEquals(new BigDecimal("250.00"), projected.getBalance());
+        assertEquals(3, projected.getMonthlyMovements());
+        assertEquals(10, projected.getMaxMonthlyMovements());
+        assertEquals(BigDecimal.ONE, account.getBalance());
+        assertEquals(0, LedgerServiceImpl.withLedgerBalance(account, balance, "2025-03").getMonthlyMovements());
+    }
+
+    private Map<String, BigDecimal> amounts(List<LedgerEntry> entries) {
+        return entries.stream().collect(Collectors.toMap(LedgerEntry::getLedgerAccount, LedgerEntry::getAmount));
+    }
+
+    private BigDecimal total(List<LedgerEntry> entries) {
+        return entries.stream().map(LedgerEntry::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,69 @@
+package com.project1.ms_transaction_service.business.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project1.ms_transaction_service.model.AccountTransactionResponse;
+import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.OutboxEvent;
+import com.project1.ms_transaction_service.model.entity.OutboxEventStatus;
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxServiceImplTest {
+
+    private OutboxServiceImpl outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxServiceImpl(new ObjectMapper(), Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+    }
+
+    @Test
+    void withEvents_ShouldAttachOnePendingEventPerTransaction() {
+        StepVerifier.create(outboxService.withEvents(OutboxEventType.ACCOUNT_TRANSACTION_POSTED, List.of(transaction("1", "123"), transaction("2", "456")),
+                AccountTransaction::getOriginAccountNumber, this::response))
+            .assertNext(transactions -> {
+                OutboxEvent first = transactions.get(0).getOutboxEvent();
+                assertEquals("123", first.getKey());
+                assertTrue(first.getPayload().startsWith("{\"id\":\"1\","));
+                assertEquals(OutboxEventStatus.PENDING, first.getStatus());
+                assertEquals(OutboxEventType.ACCOUNT_TRANSACTION_POSTED, transactions.get(1).getOutboxEvent().getEventType());
+                assertEquals("456", transactions.get(1).getOutboxEvent().getKey());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void withEvent_ShouldAssignTheIdTheEventCarries() {
+        StepVerifier.create(outboxService.withEvent(OutboxEventType.ACCOUNT_TRANSACTION_POSTED, transaction(null, "123"),
+                AccountTransaction::getOriginAccountNumber, this::response))
+            .assertNext(transaction -> {
+                assertNotNull(transaction.getId());
+                assertTrue(transaction.getOutboxEvent().getPayload().startsWith("{\"id\":\"" + transaction.getId() + "\","));
+            })
+            .verifyComplete();
+    }
+
+    private AccountTransaction transaction(String id, String accountNumber) {
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setId(id);
+        transaction.setOriginAccountNumber(accountNumber);
+        return transaction;
+    }
+
+    private AccountTransactionResponse response(AccountTransaction transaction) {
+        AccountTransactionResponse response = new AccountTransactionResponse();
+        response.setId(transaction.getId());
+        return response;
+    }
+}
@@ -5,6 +5,9 @@ import com.project1.ms_transaction_service.business.adapter.CreditCardService;
 import com.project1.ms_transaction_service.business.adapter.CreditService;
 import com.project1.ms_transaction_service.business.adapter.CustomerService;
 import com.project1.ms_transaction_service.business.mapper.TransactionMapper;
+import com.project1.ms_transaction_service.business.service.DailyBalanceService;
+import com.project1.ms_transaction_service.business.service.cache.CustomerProducts;
+import com.project1.ms_transaction_service.business.service.cache.CustomerProductsCache;
 import com.project1.ms_transaction_service.model.AccountResponse;
 import com.project1.ms_transaction_service.model.CreditCardResponse;
 import com.project1.ms_transaction_service.model.CreditResponse;
@@ -13,6 +16,7 @@ import com.project1.ms_transaction_service.model.entity.*;
 import com.project1.ms_transaction_service.repository.AccountTransactionRepository;
 import com.project1.ms_transaction_service.repository.CreditCardTransactionRepository;
 import com.project1.ms_transaction_service.repository.DebitCardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -22,10 +26,13 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -58,6 +65,17 @@ class TransactionServiceImplTest {
     @MockBean
     private DebitCardTransactionRepository debitCardTransactionRepository;
 
+    @MockBean
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    private CustomerProductsCache customerProductsCache;
+
+    @BeforeEach
+    void setUp() {
+        customerProductsCache.invalidateAll();
+    }
+
     @Test
     void getAllCustomerProductsByDni_Success() {
         CustomerResponse customer = new CustomerResponse();
@@ -106,28 +124,81 @@ class TransactionServiceImplTest {
     }
 
     @Test
-    void getAllCustomerProductsAvgBalanceCustomerId_Success() {
+    void getAllCustomerProductsByDni_ShouldServeRepeatedLookupsFromCache() {
         CustomerResponse customer = new CustomerResponse();
         customer.setId("123");
+        customer.setDocumentNumber("12345678");
 
-        when(customerService.getCustomerById("123")).thenReturn(Mono.just(customer));
+        when(customerService.getCustomerByDni("12345678")).thenReturn(Mono.just(customer));
         when(accountService.getAccountsByCustomerId("123")).thenReturn(Flux.just(new AccountResponse()));
         when(creditCardService.getCreditCardsByCustomerId("123")).thenReturn(Flux.just(new CreditCardResponse()));
         when(creditService.getCreditsByCustomerId("123")).thenReturn(Flux.just(new CreditResponse()));
 
+        CustomerProducts first = transactionService.getAllCustomerProductsByDni("12345678").block();
+
+        StepVerifier.create(transactionService.getAllCustomerProductsByDni("12345678"))
+            .expectNextMatches(products -> products.getEtag().equals(first.getEtag()) && products.getResponse() == first.getResponse())
+            .verifyComplete();
+        StepVerifier.create(transactionService.getAllCustomerProductsByCustomerId("123"))
+            .expectNextMatches(products -> products.getEtag().equals(first.getEtag()))
+            .verifyComplete();
+
+        verify(customerService, times(1)).getCustomerByDni("12345678");
+        verify(customerService, never()).getCustomerById(any());
+        verify(accountService, times(1)).getAccountsByCustomerId("123");
+        verify(creditCardService, times(1)).getCreditCardsByCustomerId("123");
+        verify(creditService, times(1)).getCreditsByCustomerId("123");
+    }
+
+    @Test
+    void getAllCustomerProductsByCustomerId_ShouldChangeETagWhenProductsChange() {
+        CustomerResponse customer = new CustomerResponse();
+        customer.setId("123");
+        AccountResponse account = new AccountResponse();
+        account.setBalance(BigDecimal.TEN);
+
+        when(customerService.getCustomerById("123")).thenReturn(Mono.just(customer));
+        when(accountService.getAccountsByCustomerId("123")).thenReturn(Flux.just(account));
+        when(creditCardService.getCreditCardsByCustomerId("123")).thenReturn(Flux.empty());
+        when(creditService.getCreditsByCustomerId("123")).thenReturn(Flux.empty());
+
+        String first = transactionService.getAllCustomerProductsByCustomerId("123").block().getEtag();
+        customerProductsCache.invalidateAll();
+        account.setBalance(BigDecimal.ONE);
+        String second = transactionService.getAllCustomerProductsByCustomerId("123").block().getEtag();
+
+        assertTrue(first.startsWith("\"") && first.endsWith("\""));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void getAllCustomerProductsAvgBalanceCustomerId_Success() {
+        CustomerResponse customer = new CustomerResponse();
+        customer.setId("123");
+
+        when(customerService.getCustomerById("123")).thenReturn(Mono.just(customer));
+        when(accountService.getAccountsByCustomerId("123")).thenReturn(Flux.empty());
+        when(creditCardService.getCreditCardsByCustomerId("123")).thenReturn(Flux.empty());
+        when(creditService.getCreditsByCustomerId("123")).thenReturn(Flux.empty());
+        when(dailyBalanceService.getMonthToDateAverageBalances(eq("123"), any()))
+            .thenReturn(Flux.just(new ProductAverageBalance(BalanceProductType.ACCOUNT, "ACC-1", new BigDecimal("100.00"))));
+
         StepVerifier.create(transactionService.getAllCustomerProductsAvgBalanceCustomerId("123"))
-            .expectNextCount(1)
+            .expectNextMatches(response -> response.getAccounts().size() == 1
+                && new BigDecimal("100.00").equals(response.getAccounts().get(0).getAverageBalance()))
             .verifyComplete();
+
+        verify(dailyBalanceService).getMonthToDateAverageBalances(eq("123"), argThat(products -> customer.equals(products.getCustomer())));
     }
 
     @Test
     void getProductsCommissionByRange_Success() {
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
-        List<AccountTransaction> transactions = Arrays.asList(new AccountTransaction());
+        List<AccountCommissionTotal> accountTotals = Arrays.asList(new AccountCommissionTotal("123", BigDecimal.ONE));
 
-        when(accountTransactionRepository.findAllByDateBetween(startDate, endDate))
-            .thenReturn(Flux.fromIterable(transactions));
+        when(accountTransactionRepository.sumCommissionFeeByOriginAccountNumber(startDate, endDate))
+            .thenReturn(Flux.fromIterable(accountTotals));
 
         StepVerifier.create(transactionService.getProductsCommissionByRange(startDate, endDate))
             .expectNextCount(1)
@@ -3,18 +3,24 @@ package com.project1.ms_transaction_service.business.service.impl;
 import com.project1.ms_transaction_service.business.adapter.YankiService;
 import com.project1.ms_transaction_service.business.mapper.WalletTransactionMapper;
 import com.project1.ms_transaction_service.model.CreateWalletTransactionRequest;
-import com.project1.ms_transaction_service.model.GetYankiWalletResponse;
+import com.project1.ms_transaction_service.model.UpdateYankiWalletRequest;
 import com.project1.ms_transaction_service.model.entity.WalletTransaction;
 import com.project1.ms_transaction_service.repository.WalletTransactionRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -49,17 +55,7 @@ class WalletTransactionServiceImplTest {
         transaction.setOriginWalletId("123");
         transaction.setDestinationWalletId("456");
 
-        GetYankiWalletResponse originWallet = new GetYankiWalletResponse();
-        originWallet.setId("123");
-        originWallet.setBalance(new BigDecimal("500"));
-
-        GetYankiWalletResponse destinationWallet = new GetYankiWalletResponse();
-        destinationWallet.setId("456");
-        destinationWallet.setBalance(new BigDecimal("200"));
-
         when(walletTransactionMapper.getWalletTransactionEntity(any())).thenReturn(transaction);
-        when(yankiService.getYankiWallet("123")).thenReturn(Mono.just(originWallet));
-        when(yankiService.getYankiWallet("456")).thenReturn(Mono.just(destinationWallet));
         when(yankiService.updateYankiWallet(anyString(), any())).thenReturn(Mono.empty());
         when(walletTransactionRepository.save(any())).thenReturn(Mono.just(transaction));
 
@@ -67,11 +63,12 @@ class WalletTransactionServiceImplTest {
         StepVerifier.create(walletTransactionService.createWalletTransaction(Mono.just(request)))
             .verifyComplete();
 
-        // Verify that update calls were made with correct amounts
+        // Verify that update calls were made with correct deltas, without reading the wallets
         verify(yankiService).updateYankiWallet(eq("123"), argThat(req ->
-            req.getBalance().compareTo(new BigDecimal("400")) == 0));
+            req.getBalanceDelta().compareTo(new BigDecimal("-100")) == 0 && req.getBalance() == null));
         verify(yankiService).updateYankiWallet(eq("456"), argThat(req ->
-            req.getBalance().compareTo(new BigDecimal("300")) == 0));
+            req.getBalanceDelta().compareTo(new BigDecimal("100")) == 0 && req.getBalance() == null));
+        verify(yankiService, never()).getYankiWallet(any());
         verify(walletTransactionRepository).save(transaction);
     }
 
@@ -90,17 +87,7 @@ class WalletTransactionServiceImplTest {
         transaction.setOriginWalletId("123");
         transaction.setDestinationWalletId("456");
 
-        GetYankiWalletResponse originWallet = new GetYankiWalletResponse();
-        originWallet.setId("123");
-        originWallet.setBalance(new BigDecimal("500"));
-
-        GetYankiWalletResponse destinationWallet = new GetYankiWalletResponse();
-        destinationWallet.setId("456");
-        destinationWallet.setBalance(new BigDecimal("200"));
-
         when(walletTransactionMapper.getWalletTransactionEntity(any())).thenReturn(transaction);
-        when(yankiService.getYankiWallet("123")).thenReturn(Mono.just(originWallet));
-        when(yankiService.getYankiWallet("456")).thenReturn(Mono.just(destinationWallet));
         when(yankiService.updateYankiWallet(anyString(), any())).thenReturn(Mono.empty());
         when(walletTransactionRepository.save(any())).thenReturn(Mono.just(transaction));
 
@@ -110,50 +97,11 @@ class WalletTransactionServiceImplTest {
 
         // Verify that only origin wallet was updated with added amount
         verify(yankiService).updateYankiWallet(eq("123"), argThat(req ->
-            req.getBalance().compareTo(new BigDecimal("600")) == 0));
+            req.getBalanceDelta().compareTo(new BigDecimal("100")) == 0));
         verify(yankiService, never()).updateYankiWallet(eq("456"), any());
         verify(walletTransactionRepository).save(transaction);
     }
 
-    @Test
-    void createWalletTransaction_NullBalances_Success() {
-        // Arrange
-        CreateWalletTransactionRequest request = new CreateWalletTransactionRequest();
-        request.setType("TRANSFER");
-        request.setAmount(new BigDecimal("100"));
-        request.setOriginWalletId("123");
-        request.setDestinationWalletId("456");
-
-        WalletTransaction transaction = new WalletTransaction();
-        transaction.setType("TRANSFER");
-        transaction.setAmount(new BigDecimal("100"));
-        transaction.setOriginWalletId("123");
-        transaction.setDestinationWalletId("456");
-
-        GetYankiWalletResponse originWallet = new GetYankiWalletResponse();
-        originWallet.setId("123");
-        originWallet.setBalance(null); // Null balance
-
-        GetYankiWalletResponse destinationWallet = new GetYankiWalletResponse();
-        destinationWallet.setId("456");
-        destinationWallet.setBalance(null); // Null balance
-
-        when(walletTransactionMapper.getWalletTransactionEntity(any())).thenReturn(transaction);
-        when(yankiService.getYankiWallet("123")).thenReturn(Mono.just(originWallet));
-        when(yankiService.getYankiWallet("456")).thenReturn(Mono.just(destinationWallet));
-        when(yankiService.updateYankiWallet(anyString(), any())).thenReturn(Mono.empty());
-        when(walletTransactionRepository.save(any())).thenReturn(Mono.just(transaction));
-
-        // Act & Assert
-        StepVerifier.create(walletTransactionService.createWalletTransaction(Mono.just(request)))
-            .verifyComplete();
-
-        // Verify updates were called even with null balances
-        verify(yankiService).updateYankiWallet(eq("123"), any());
-        verify(yankiService).updateYankiWallet(eq("456"), any());
-        verify(walletTransactionRepository).save(transaction);
-    }
-
     @Test
     void createWalletTransaction_ExceptionFromYankiService() {
         // Arrange
@@ -170,7 +118,8 @@ class WalletTransactionServiceImplTest {
         transaction.setDestinationWalletId("456");
 
         when(walletTransactionMapper.getWalletTransactionEntity(any())).thenReturn(transaction);
-        when(yankiService.getYankiWallet("123")).thenReturn(Mono.error(new RuntimeException("Service unavailable")));
+        when(yankiService.updateYankiWallet(eq("123"), any())).thenReturn(Mono.error(new RuntimeException("Service unavailable")));
+        when(yankiService.updateYankiWallet(eq("456"), any())).thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(walletTransactionService.createWalletTransaction(Mono.just(request)))
@@ -179,4 +128,36 @@ class WalletTransactionServiceImplTest {
 
         verify(walletTransactionRepository, never()).save(any());
     }
+
+    @Test
+    void createWalletTransaction_SameWallet_ShouldApplyInOrder() {
+        WalletTransaction first = new WalletTransaction();
+        first.setType("TRANSFER");
+        first.setAmount(new BigDecimal("100"));
+        first.setOriginWalletId("123");
+        first.setDestinationWalletId("456");
+
+        WalletTransaction second = new WalletTransaction();
+        second.setType("DEPOSIT");
+        second.setAmount(new BigDecimal("50"));
+        second.setOriginWalletId("123");
+
+        List<BigDecimal> appliedDeltas = new CopyOnWriteArrayList<>();
+        AtomicInteger updates = new AtomicInteger();
+        when(walletTransactionMapper.getWalletTransactionEntity(any())).thenReturn(first, second);
+        when(yankiService.updateYankiWallet(eq("123"), any())).thenAnswer(invocation -> {
+            BigDecimal delta = ((UpdateYankiWalletRequest) invocation.getArgument(1)).getBalanceDelta();
+            Mono<Void> update = Mono.fromRunnable(() -> appliedDeltas.add(delta));
+            return updates.getAndIncrement() == 0 ? update.delaySubscription(Duration.ofMillis(50)) : update;
+        });
+        when(yankiService.updateYankiWallet(eq("456"), any())).thenReturn(Mono.empty());
+        when(walletTransactionRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(Flux.merge(
+                walletTransactionService.createWalletTransaction(Mono.just(new CreateWalletTransactionRequest())),
+                walletTransactionService.createWalletTransaction(Mono.just(new CreateWalletTransactionRequest()))))
+            .verifyComplete();
+
+        assertEquals(List.of(new BigDecimal("-100"), new BigDecimal("50")), appliedDeltas);
+    }
 }
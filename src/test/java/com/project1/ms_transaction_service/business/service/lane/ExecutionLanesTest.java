@@ -0,0 +1,124 @@
+package com.project1.ms_transaction_service.business.service.lane;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutionLanesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ExecutionLanes executionLanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executionLanes = new ExecutionLanes("account", 8, meterRegistry);
+    }
+
+    @Test
+    void execute_ShouldRunSameKeyInOrder() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        Sinks.One<String> firstWork = Sinks.one();
+
+        Mono<String> first = executionLanes.execute("123", () -> {
+            events.add("first-start");
+            return firstWork.asMono().doOnNext(v -> events.add("first-end"));
+        });
+        Mono<String> second = executionLanes.execute("123", () -> {
+            events.add("second-start");
+            return Mono.just("second");
+        });
+
+        StepVerifier.create(Flux.merge(first, second))
+            .then(() -> assertEquals(List.of("first-start"), events))
+            .then(() -> firstWork.tryEmitValue("first"))
+            .expectNext("first", "second")
+            .verifyComplete();
+
+        assertEquals(List.of("first-start", "first-end", "second-start"), events);
+    }
+
+    @Test
+    void execute_ShouldRunDifferentLanesInParallel() {
+        String key = "123";
+        String otherKey = otherLaneKey(key);
+        Sinks.One<String> firstWork = Sinks.one();
+
+        Mono<String> first = executionLanes.execute(key, firstWork::asMono);
+        Mono<String> second = executionLanes.execute(otherKey, () -> Mono.just("second"));
+
+        StepVerifier.create(Flux.merge(first, second))
+            .expectNext("second")
+            .then(() -> firstWork.tryEmitValue("first"))
+            .expectNext("first")
+            .verifyComplete();
+    }
+
+    @Test
+    void execute_ShouldReleaseLaneOnError() {
+        StepVerifier.create(executionLanes.execute("123", () -> Mono.error(new IllegalStateException("error"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        StepVerifier.create(executionLanes.execute("123", () -> Mono.just("next")))
+            .expectNext("next")
+            .verifyComplete();
+        assertEquals(0.0, meterRegistry.get("execution.lane.depth").tag("lane", String.valueOf(executionLanes.laneOf("123"))).gauge().value());
+    }
+
+    @Test
+    void execute_ShouldNotDeadlockCrossedMultiKeyWork() {
+        String key = "123";
+        String otherKey = otherLaneKey(key);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Flux<Integer> transfers = Flux.range(0, 200)
+            .flatMap(i -> executionLanes.execute(i % 2 == 0 ? List.of(key, otherKey) : List.of(otherKey, key), () ->
+                Mono.fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    return i;
+                })
+                    .delayElement(Duration.ofMillis(1))
+                    .doOnNext(v -> running.decrementAndGet())
+                    .subscribeOn(Schedulers.parallel())));
+
+        StepVerifier.create(transfers)
+            .expectNextCount(200)
+            .verifyComplete();
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void execute_ShouldRecordWaitTime() {
+        StepVerifier.create(executionLanes.execute("123", () -> Mono.just("value")))
+            .expectNext("value")
+            .verifyComplete();
+
+        assertTrue(meterRegistry.get("execution.lane.wait").tag("lane", String.valueOf(executionLanes.laneOf("123"))).timer().count() > 0);
+    }
+
+    private String otherLaneKey(String key) {
+        int lane = executionLanes.laneOf(key);
+        for (int i = 0; ; i++) {
+            String candidate = String.valueOf(i);
+            if (executionLanes.laneOf(candidate) != lane) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.project1.ms_transaction_service.business.service.limit;
+
+import com.project1.ms_transaction_service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConcurrencyLimitPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        policy = new ConcurrencyLimitPolicy();
+        policy.setInitialLimit(2);
+        policy.setMinLimit(1);
+        policy.setMaxLimit(3);
+        policy.setBackoffRatio(0.5);
+        policy.setLatencyThreshold(Duration.ofMillis(50));
+        policy.setRetryAfter(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void execute_ShouldRejectBeyondLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("endpoints.account", policy, meterRegistry);
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+
+        limiter.execute(first::asMono).subscribe();
+        limiter.execute(second::asMono).subscribe();
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("third")))
+            .expectErrorMatches(e -> e instanceof ServiceUnavailableException
+                && ((ServiceUnavailableException) e).getRetryAfter().equals(Duration.ofSeconds(2)))
+            .verify();
+        assertEquals(1.0, meterRegistry.get("concurrency.rejected").counter().count());
+
+        first.tryEmitValue("first");
+        StepVerifier.create(limiter.execute(() -> Mono.just("third")))
+            .expectNext("third")
+            .verifyComplete();
+    }
+
+    @Test
+    void execute_ShouldPassThroughWhenDisabled() {
+        policy.setEnabled(false);
+        policy.setInitialLimit(1);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("endpoints.account", policy, meterRegistry);
+
+        limiter.execute(Mono::never).subscribe();
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("value")))
+            .expectNext("value")
+            .verifyComplete();
+    }
+
+    @Test
+    void execute_ShouldIncreaseLimitWhileUtilized() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("endpoints.account", policy, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(limiter.execute(() -> Mono.just("value")))
+                .expectNext("value")
+                .verifyComplete();
+        }
+
+        assertEquals(3.0, limiter.getLimit());
+        assertEquals(3.0, meterRegistry.get("concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void execute_ShouldDecreaseLimitOnSlowRequestsAndTimeouts() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("endpoints.account", policy, meterRegistry);
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("slow").delayElement(Duration.ofMillis(100))))
+            .expectNext("slow")
+            .verifyComplete();
+        assertEquals(1.0, limiter.getLimit());
+
+        StepVerifier.create(limiter.execute(() -> Mono.error(new TimeoutException())))
+            .expectError(TimeoutException.class)
+            .verify();
+        assertEquals(1.0, limiter.getLimit());
+        assertEquals(2.0, meterRegistry.get("concurrency.dropped").counter().count());
+    }
+
+    @Test
+    void execute_ShouldReleasePermitOnErrorAndCancel() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("endpoints.account", policy, meterRegistry);
+
+        StepVerifier.create(limiter.execute(() -> Mono.error(new IllegalStateException())))
+            .expectError(IllegalStateException.class)
+            .verify();
+        limiter.execute(Mono::never).subscribe().dispose();
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(2.0, limiter.getLimit());
+    }
+
+    @Test
+    void execute_ShouldDecreaseLimitOnRequestCancelledAfterLatencyThreshold() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("endpoints.account", policy, meterRegistry);
+
+        StepVerifier.create(limiter.execute(Mono::never).timeout(Duration.ofMillis(100)))
+            .expectError(TimeoutException.class)
+            .verify();
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1.0, limiter.getLimit());
+        assertEquals(1.0, meterRegistry.get("concurrency.dropped").counter().count());
+    }
+
+    @Test
+    void policy_ShouldOverrideDefaultPerLimiter() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("application.config.concurrency-limits.default.initial-limit", "20")
+            .withProperty("application.config.concurrency-limits.default.retry-after", "3s")
+            .withProperty("application.config.concurrency-limits.clients.account.initial-limit", "100");
+
+        ConcurrencyLimitPolicy account = ConcurrencyLimitPolicy.of(environment, "clients.account");
+        ConcurrencyLimitPolicy customer = ConcurrencyLimitPolicy.of(environment, "clients.customer");
+
+        assertEquals(100, account.getInitialLimit());
+        assertEquals(Duration.ofSeconds(3), account.getRetryAfter());
+        assertEquals(20, customer.getInitialLimit());
+    }
+}
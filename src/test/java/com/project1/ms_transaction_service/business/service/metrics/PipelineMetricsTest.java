@@ -0,0 +1,81 @@
+package com.project1.ms_transaction_service.business.service.metrics;
+
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PipelineMetrics pipelineMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipelineMetrics = new PipelineMetrics(meterRegistry);
+    }
+
+    @Test
+    void stage_ShouldTimeFromSubscription() {
+        Mono<String> stage = Mono.delay(Duration.ofMillis(50))
+            .thenReturn("value")
+            .transform(pipelineMetrics.stage("account", "save", "DEPOSIT"));
+
+        StepVerifier.create(stage)
+            .expectNext("value")
+            .verifyComplete();
+
+        Timer timer = stageTimer("save", PipelineMetrics.SUCCESS);
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    void stage_ShouldTagRejectionsAndErrors() {
+        StepVerifier.create(Mono.error(new BadRequestException("invalid"))
+                .transform(pipelineMetrics.stage("account", "validate-accounts", "DEPOSIT")))
+            .expectError(BadRequestException.class)
+            .verify();
+        StepVerifier.create(Mono.error(new IllegalStateException("down"))
+                .transform(pipelineMetrics.stage("account", "update-origin", "DEPOSIT")))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        assertEquals(1, stageTimer("validate-accounts", PipelineMetrics.REJECTED).count());
+        assertEquals(1, stageTimer("update-origin", PipelineMetrics.ERROR).count());
+        assertEquals(1.0, meterRegistry.get(PipelineMetrics.STAGE_ERRORS)
+            .tags("stage", "update-origin", "exception", "IllegalStateException")
+            .counter().count());
+    }
+
+    @Test
+    void pipeline_ShouldRecordCancellation() {
+        Sinks.One<String> never = Sinks.one();
+
+        StepVerifier.create(never.asMono().transform(pipelineMetrics.pipeline("account", null)))
+            .thenCancel()
+            .verify();
+
+        assertEquals(1, meterRegistry.get(PipelineMetrics.PIPELINE_TIMER)
+            .tags("pipeline", "account", "type", "unknown", "outcome", PipelineMetrics.CANCELLED)
+            .timer().count());
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return meterRegistry.get(PipelineMetrics.STAGE_TIMER)
+            .tags("pipeline", "account", "stage", stage, "type", "DEPOSIT", "outcome", outcome)
+            .timer();
+    }
+}
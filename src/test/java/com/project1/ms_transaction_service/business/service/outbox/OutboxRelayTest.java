@@ -0,0 +1,140 @@
+package com.project1.ms_transaction_service.business.service.outbox;
+
+import com.project1.ms_transaction_service.model.entity.AccountTransaction;
+import com.project1.ms_transaction_service.model.entity.OutboxEvent;
+import com.project1.ms_transaction_service.model.entity.OutboxEventStatus;
+import com.project1.ms_transaction_service.model.entity.OutboxEventType;
+import com.project1.ms_transaction_service.model.entity.Transaction;
+import com.project1.ms_transaction_service.repository.TransactionRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "application.config.outbox.relay.enabled=false")
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @MockBean
+    private TransactionRepository transactionRepository;
+
+    @MockBean
+    private OutboxLease outboxLease;
+
+    @MockBean(name = "outboxKafkaTemplate")
+    private KafkaTemplate<String, String> outboxKafkaTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishPending_ShouldOnlyMarkAcknowledgedEventsAsPublished() {
+        when(transactionRepository.findAllByOutboxEventStatusOrderByOutboxEventCreatedAtAscIdAsc(eq(OutboxEventStatus.PENDING), any()))
+            .thenReturn(Flux.just(transaction("1", "123"), transaction("2", "456")));
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class)))
+            .thenAnswer(invocation -> "123".equals(invocation.<ProducerRecord<String, String>>getArgument(0).key()) ? acknowledged() : failed());
+        when(transactionRepository.findAndMarkOutboxEventPublishedByIdIn(any(), any()))
+            .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(outboxRelay.publishPending())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(transactionRepository).findAndMarkOutboxEventPublishedByIdIn(eq(List.of("1")), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishPending_ShouldStopAKeyAtItsFirstFailedSend() {
+        when(transactionRepository.findAllByOutboxEventStatusOrderByOutboxEventCreatedAtAscIdAsc(eq(OutboxEventStatus.PENDING), any()))
+            .thenReturn(Flux.just(transaction("1", "123"), transaction("2", "456"), transaction("3", "123"), transaction("4", "456")));
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class)))
+            .thenAnswer(invocation -> "1".equals(header(invocation.getArgument(0), OutboxRelay.EVENT_ID_HEADER)) ? failed() : acknowledged());
+        when(transactionRepository.findAndMarkOutboxEventPublishedByIdIn(any(), any()))
+            .thenReturn(Mono.just(2L));
+
+        StepVerifier.create(outboxRelay.publishPending())
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(outboxKafkaTemplate, never()).send(argThat((ProducerRecord<String, String> record) -> "3".equals(header(record, OutboxRelay.EVENT_ID_HEADER))));
+        verify(transactionRepository).findAndMarkOutboxEventPublishedByIdIn(argThat(ids -> Set.copyOf(ids).equals(Set.of("2", "4"))), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishPending_ShouldKeyRecordsByProductAndTagThemWithTheEvent() {
+        when(transactionRepository.findAllByOutboxEventStatusOrderByOutboxEventCreatedAtAscIdAsc(eq(OutboxEventStatus.PENDING), any()))
+            .thenReturn(Flux.just(transaction("1", "123")));
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class)))
+            .thenAnswer(invocation -> acknowledged());
+        when(transactionRepository.findAndMarkOutboxEventPublishedByIdIn(any(), any()))
+            .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(outboxRelay.publishPending())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(outboxKafkaTemplate).send(argThat((ProducerRecord<String, String> record) -> "123".equals(record.key())
+            && "{}".equals(record.value())
+            && "1".equals(header(record, OutboxRelay.EVENT_ID_HEADER))
+            && OutboxEventType.ACCOUNT_TRANSACTION_POSTED.name().equals(header(record, OutboxRelay.EVENT_TYPE_HEADER))
+            && "1".equals(header(record, OutboxRelay.TRANSACTION_ID_HEADER))));
+    }
+
+    @Test
+    void publishPending_ShouldNotUpdateAnythingWithoutPendingEvents() {
+        when(transactionRepository.findAllByOutboxEventStatusOrderByOutboxEventCreatedAtAscIdAsc(eq(OutboxEventStatus.PENDING), any()))
+            .thenReturn(Flux.empty());
+
+        StepVerifier.create(outboxRelay.publishPending())
+            .expectNext(0)
+            .verifyComplete();
+
+        verify(transactionRepository, never()).findAndMarkOutboxEventPublishedByIdIn(any(), any());
+        assertEquals(0, mockingDetails(outboxKafkaTemplate).getInvocations().size());
+    }
+
+    private Transaction transaction(String id, String key) {
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setId(id);
+        transaction.setOutboxEvent(OutboxEvent.builder()
+            .eventType(OutboxEventType.ACCOUNT_TRANSACTION_POSTED)
+            .key(key)
+            .payload("{}")
+            .status(OutboxEventStatus.PENDING)
+            .build());
+        return transaction;
+    }
+
+    private static ListenableFuture<SendResult<String, String>> acknowledged() {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        future.set(null);
+        return future;
+    }
+
+    private static ListenableFuture<SendResult<String, String>> failed() {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        future.setException(new IllegalStateException("error"));
+        return future;
+    }
+
+    private static String header(ProducerRecord<String, String> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package com.project1.ms_transaction_service.business.service.pagination;
+
+import com.project1.ms_transaction_service.exception.BadRequestException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionCursorTest {
+
+    @Test
+    void decode_ShouldReturnEncodedPosition() {
+        LocalDateTime date = LocalDateTime.of(2025, 1, 13, 10, 30, 15, 123_000_000);
+        ObjectId id = new ObjectId();
+
+        TransactionCursor cursor = TransactionCursor.decode(TransactionCursor.encode(date, id.toHexString()));
+
+        assertEquals(date, cursor.getDate());
+        assertEquals(id, cursor.getId());
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String token = TransactionCursor.encode(LocalDateTime.of(2025, 1, 13, 10, 30), new ObjectId().toHexString());
+
+        assertFalse(token.contains("+") || token.contains("/") || token.contains("="));
+    }
+
+    @Test
+    void decode_ShouldRejectMalformedTokens() {
+        assertThrows(BadRequestException.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> TransactionCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(BadRequestException.class, () -> TransactionCursor.decode(TransactionCursor.encode(LocalDateTime.now(), "not-an-object-id")));
+    }
+
+    @Test
+    void pageOf_ShouldBeUnpagedWithoutLimit() {
+        assertEquals(Pageable.unpaged(), TransactionCursor.pageOf(null));
+        assertEquals(25, TransactionCursor.pageOf(25).getPageSize());
+    }
+}
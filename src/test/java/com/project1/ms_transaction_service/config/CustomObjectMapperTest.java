@@ -0,0 +1,84 @@
+package com.project1.ms_transaction_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project1.ms_transaction_service.model.CreateWalletTransactionRequest;
+import com.project1.ms_transaction_service.model.CreditResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CustomObjectMapperTest {
+
+    private final CustomObjectMapper customObjectMapper = new CustomObjectMapper(new Jackson2ObjectMapperBuilder());
+
+    @Test
+    void bytesToObject_ShouldDecodeJson() throws Exception {
+        byte[] payload = "{\"originWalletId\":\"123\",\"amount\":10.5,\"type\":\"TRANSFER\",\"unknown\":true}".getBytes(StandardCharsets.UTF_8);
+
+        CreateWalletTransactionRequest request = customObjectMapper.bytesToObject(payload, CreateWalletTransactionRequest.class);
+
+        assertEquals("123", request.getOriginWalletId());
+        assertEquals(new BigDecimal("10.5"), request.getAmount());
+    }
+
+    @Test
+    void bytesToObject_ShouldDecodeJavaTimeTypes() throws Exception {
+        byte[] payload = "{\"nextPaymentDueDate\":\"2025-01-13T10:30:00\"}".getBytes(StandardCharsets.UTF_8);
+
+        CreditResponse credit = customObjectMapper.bytesToObject(payload, CreditResponse.class);
+
+        assertEquals(LocalDateTime.of(2025, 1, 13, 10, 30), credit.getNextPaymentDueDate());
+    }
+
+    @Test
+    void bytesToObject_ShouldDecodeSmile() throws Exception {
+        byte[] payload = new ObjectMapper(new SmileFactory()).writeValueAsBytes(walletRequest());
+
+        CreateWalletTransactionRequest request = customObjectMapper.bytesToObject(payload, CreateWalletTransactionRequest.class);
+
+        assertEquals(walletRequest(), request);
+    }
+
+    @Test
+    void bytesToObject_ShouldDecodeCborWithSelfDescribeTag() throws Exception {
+        CBORFactory cborFactory = CBORFactory.builder().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).build();
+        byte[] payload = new ObjectMapper(cborFactory).writeValueAsBytes(walletRequest());
+
+        CreateWalletTransactionRequest request = customObjectMapper.bytesToObject(payload, CreateWalletTransactionRequest.class);
+
+        assertEquals(walletRequest(), request);
+    }
+
+    @Test
+    void bytesToObject_ShouldRejectMalformedPayload() {
+        byte[] payload = "not json".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> customObjectMapper.bytesToObject(payload, CreateWalletTransactionRequest.class));
+    }
+
+    @Test
+    void stringToObject_ShouldDecodeJson() throws Exception {
+        CreateWalletTransactionRequest request = customObjectMapper.stringToObject("{\"destinationWalletId\":\"456\"}", CreateWalletTransactionRequest.class);
+
+        assertEquals("456", request.getDestinationWalletId());
+    }
+
+    private CreateWalletTransactionRequest walletRequest() {
+        CreateWalletTransactionRequest request = new CreateWalletTransactionRequest();
+        request.setOriginWalletId("123");
+        request.setDestinationWalletId("456");
+        request.setAmount(new BigDecimal("10.50"));
+        request.setType("TRANSFER");
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package com.project1.ms_transaction_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpClientProfileTest {
+
+    @Test
+    void of_ShouldUseReactorNettyDefaultsWithoutProperties() {
+        HttpClientProfile profile = HttpClientProfile.of(new MockEnvironment(), "account");
+
+        assertEquals(ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS, profile.getMaxConnections());
+        assertNull(profile.getPendingAcquireMaxCount());
+        assertNull(profile.getResponseTimeout());
+        assertTrue(profile.isKeepAlive());
+        assertFalse(profile.isHttp2());
+    }
+
+    @Test
+    void of_ShouldOverrideDefaultProfilePerClient() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("application.config.http-clients.default.max-connections", "50")
+            .withProperty("application.config.http-clients.default.response-timeout", "2s")
+            .withProperty("application.config.http-clients.account.max-connections", "200")
+            .withProperty("application.config.http-clients.account.pending-acquire-max-count", "-1")
+            .withProperty("application.config.http-clients.account.http2", "true");
+
+        HttpClientProfile account = HttpClientProfile.of(environment, "account");
+        HttpClientProfile bootcoin = HttpClientProfile.of(environment, "bootcoin");
+
+        assertEquals(200, account.getMaxConnections());
+        assertEquals(-1, account.getPendingAcquireMaxCount());
+        assertEquals(Duration.ofSeconds(2), account.getResponseTimeout());
+        assertTrue(account.isHttp2());
+        assertEquals(50, bootcoin.getMaxConnections());
+        assertEquals(Duration.ofSeconds(2), bootcoin.getResponseTimeout());
+        assertFalse(bootcoin.isHttp2());
+    }
+
+    @Test
+    void connectionProvider_ShouldBeNamedAfterClient() {
+        HttpClientProfile profile = new HttpClientProfile();
+        profile.setMaxConnections(7);
+
+        ConnectionProvider connectionProvider = profile.connectionProvider("account");
+        try {
+            assertEquals("account", connectionProvider.name());
+            assertEquals(7, connectionProvider.maxConnections());
+        } finally {
+            connectionProvider.dispose();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ServerWebInputException;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -152,4 +154,16 @@ class GlobalExceptionHandlerTest {
                     response.getStatusCode() == HttpStatus.BAD_REQUEST)
             .verifyComplete();
     }
+
+    @Test
+    void handleServiceUnavailableException_ShouldSendRetryAfter() {
+        ServiceUnavailableException ex = new ServiceUnavailableException("Too many concurrent requests", Duration.ofMillis(1500));
+
+        StepVerifier.create(handler.handleServiceUnavailableException(ex))
+            .expectNextMatches(response ->
+                response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE &&
+                    "2".equals(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)) &&
+                    response.getBody().getMessage().equals("Too many concurrent requests"))
+            .verifyComplete();
+    }
 }
@@ -0,0 +1,34 @@
+package com.project1.ms_transaction_service.repository.index;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionIndexesTest {
+
+    @Test
+    void definitions_ShouldRestrictHistoryIndexesToTheirTypeAlias() {
+        Index accountHistory = TransactionIndexes.definitions().get("account_history");
+
+        assertEquals(new Document("_class", 1).append("originAccountNumber", 1).append("date", -1).append("_id", -1),
+            accountHistory.getIndexKeys());
+        assertEquals(new Document("_class", "accountTransaction"),
+            accountHistory.getIndexOptions().get("partialFilterExpression"));
+    }
+
+    @Test
+    void report_ShouldListMissingAndUnusedIndexes() {
+        Map<String, Object> report = TransactionIndexes.report(
+            Set.of("_id_", "account_history", "credit_card_history", "debit_card_history", "legacy_index"),
+            Map.of("_id_", 0L, "account_history", 12L, "credit_card_history", 3L, "debit_card_history", 0L, "legacy_index", 0L));
+
+        assertEquals(List.of("credit_history", "date", "outbox_pending"), report.get("missing"));
+        assertEquals(List.of("debit_card_history", "legacy_index"), report.get("unused"));
+    }
+}